@@ -0,0 +1,185 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.micronaut.jsongen.BufferRecyclerPool;
+import io.micronaut.jsongen.PooledJsonFactory;
+import io.micronaut.jsongen.Serializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs {@link #TASKS} concurrent serialize + deserialize round trips per invocation, on a fixed pool of platform
+ * threads or on one virtual thread per task, with different {@link BufferRecyclerPool}s.
+ * <p>
+ * The {@code virtual} variant needs JDK 21+, it fails in setup on older JDKs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BufferRecyclingBenchmark {
+    private static final int TASKS = 10_000;
+    private static final int PLATFORM_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    String threads;
+
+    @Param({"threadLocal", "striped", "nonRecycling"})
+    String pool;
+
+    private ExecutorService executor;
+    private PooledJsonFactory factory;
+    private Item item;
+
+    @Setup
+    public void setup() throws Exception {
+        switch (threads) {
+            case "platform":
+                executor = Executors.newFixedThreadPool(PLATFORM_THREADS);
+                break;
+            case "virtual":
+                // looked up reflectively so that the benchmarks still compile on older JDKs
+                executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                break;
+            default:
+                throw new IllegalArgumentException(threads);
+        }
+        switch (pool) {
+            case "threadLocal":
+                factory = new PooledJsonFactory(BufferRecyclerPool.threadLocal());
+                break;
+            case "striped":
+                factory = new PooledJsonFactory(BufferRecyclerPool.striped());
+                break;
+            case "nonRecycling":
+                factory = new PooledJsonFactory(BufferRecyclerPool.nonRecycling());
+                break;
+            default:
+                throw new IllegalArgumentException(pool);
+        }
+        item = new Item();
+        item.id = 12345;
+        item.name = "Some product with a reasonably long name";
+        for (int i = 0; i < 50; i++) {
+            item.tags.add("tag-" + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    @Benchmark
+    public void roundTrip() throws Exception {
+        CountDownLatch latch = new CountDownLatch(TASKS);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int i = 0; i < TASKS; i++) {
+            executor.execute(() -> {
+                try {
+                    byte[] bytes = factory.writeValueAsBytes(ItemSerializer.INSTANCE, item);
+                    if (factory.readValue(ItemSerializer.INSTANCE, bytes).id != item.id) {
+                        throw new AssertionError();
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        if (failure.get() != null) {
+            throw new Exception(failure.get());
+        }
+    }
+
+    static final class Item {
+        int id;
+        String name;
+        List<String> tags = new ArrayList<>();
+    }
+
+    /**
+     * Equivalent of a generated serializer, written by hand to keep the annotation processor out of this module.
+     */
+    static final class ItemSerializer implements Serializer<Item> {
+        static final ItemSerializer INSTANCE = new ItemSerializer();
+
+        @Override
+        public Item deserialize(JsonParser decoder) throws IOException {
+            Item item = new Item();
+            while (decoder.nextToken() == JsonToken.FIELD_NAME) {
+                String name = decoder.getCurrentName();
+                decoder.nextToken();
+                switch (name) {
+                    case "id":
+                        item.id = decoder.getIntValue();
+                        break;
+                    case "name":
+                        item.name = decoder.getText();
+                        break;
+                    case "tags":
+                        while (decoder.nextToken() != JsonToken.END_ARRAY) {
+                            item.tags.add(decoder.getText());
+                        }
+                        break;
+                    default:
+                        decoder.skipChildren();
+                        break;
+                }
+            }
+            return item;
+        }
+
+        @Override
+        public void serialize(JsonGenerator encoder, Item value) throws IOException {
+            encoder.writeStartObject();
+            encoder.writeFieldName("id");
+            encoder.writeNumber(value.id);
+            encoder.writeFieldName("name");
+            encoder.writeString(value.name);
+            encoder.writeFieldName("tags");
+            encoder.writeStartArray();
+            for (String tag : value.tags) {
+                encoder.writeString(tag);
+            }
+            encoder.writeEndArray();
+            encoder.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import io.micronaut.jsongen.ArrayElementReader;
+import io.micronaut.jsongen.FileChannelOutput;
+import io.micronaut.jsongen.MappedFileInput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and writes a file with an array of {@link #RECORDS} elements, through the JDK stream classes or through
+ * {@link MappedFileInput} / {@link FileChannelOutput}. Mostly measures the page cache, not the disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FileIoBenchmark {
+    private static final int RECORDS = 100_000;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private Path dir;
+    private Path input;
+    private Path output;
+    private List<BufferRecyclingBenchmark.Item> items;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("file-io-benchmark");
+        input = dir.resolve("input.json");
+        output = dir.resolve("output.json");
+        items = new ArrayList<>(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            BufferRecyclingBenchmark.Item item = new BufferRecyclingBenchmark.Item();
+            item.id = i;
+            item.name = "Item number " + i;
+            for (int j = 0; j < i % 10; j++) {
+                item.tags.add("tag-" + j);
+            }
+            items.add(item);
+        }
+        try (OutputStream out = Files.newOutputStream(input)) {
+            write(out);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(input);
+        Files.deleteIfExists(output);
+        Files.delete(dir);
+    }
+
+    private void read(InputStream in, Blackhole bh) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            parser.nextToken();
+            ArrayElementReader.create(BufferRecyclingBenchmark.ItemSerializer.INSTANCE, parser).forEachRemaining(bh::consume);
+        }
+    }
+
+    private void write(OutputStream out) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            generator.writeStartArray();
+            for (BufferRecyclingBenchmark.Item item : items) {
+                BufferRecyclingBenchmark.ItemSerializer.INSTANCE.serialize(generator, item);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    @Benchmark
+    public void readStream(Blackhole bh) throws IOException {
+        read(new BufferedInputStream(Files.newInputStream(input)), bh);
+    }
+
+    @Benchmark
+    public void readMapped(Blackhole bh) throws IOException {
+        read(MappedFileInput.open(input), bh);
+    }
+
+    @Benchmark
+    public void writeStream() throws IOException {
+        write(new BufferedOutputStream(Files.newOutputStream(output), FileChannelOutput.DEFAULT_BUFFER_SIZE));
+    }
+
+    @Benchmark
+    public void writeChannel() throws IOException {
+        write(FileChannelOutput.create(output));
+    }
+}
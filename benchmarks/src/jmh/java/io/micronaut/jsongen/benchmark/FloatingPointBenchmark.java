@@ -0,0 +1,185 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.micronaut.jsongen.DoubleToDecimal;
+import io.micronaut.jsongen.FastDoubleParser;
+import io.micronaut.jsongen.FloatingPointCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link DoubleToDecimal} / {@link FastDoubleParser} with the JDK conversions jackson uses, both standalone
+ * and through a {@link JsonGenerator} / {@link JsonParser}. All benchmarks process {@link #SIZE} values per
+ * invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FloatingPointBenchmark {
+    private static final int SIZE = 1024;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * <ul>
+     *     <li>{@code geo}: coordinates with 5-7 fractional digits</li>
+     *     <li>{@code metrics}: gauge values with few significant digits</li>
+     *     <li>{@code random}: uniformly random bit patterns, mostly with 16-17 significant digits</li>
+     * </ul>
+     */
+    @Param({"geo", "metrics", "random"})
+    String corpus;
+
+    private double[] values;
+    private char[][] texts;
+    private byte[] jsonArray;
+
+    @Setup
+    public void setup() throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        values = new double[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            switch (corpus) {
+                case "geo":
+                    values[i] = Math.round((random.nextDouble() * 360 - 180) * 1e6) / 1e6;
+                    break;
+                case "metrics":
+                    values[i] = Math.round(random.nextDouble() * 1000) / 10.0;
+                    break;
+                case "random":
+                    double d;
+                    do {
+                        d = Double.longBitsToDouble(random.nextLong());
+                    } while (!Double.isFinite(d));
+                    values[i] = d;
+                    break;
+                default:
+                    throw new IllegalArgumentException(corpus);
+            }
+        }
+        texts = new char[SIZE][];
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < SIZE; i++) {
+            texts[i] = Double.toString(values[i]).toCharArray();
+            if (i != 0) {
+                json.append(',');
+            }
+            json.append(texts[i]);
+        }
+        jsonArray = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void toStringJdk(Blackhole bh) {
+        for (double value : values) {
+            bh.consume(Double.toString(value));
+        }
+    }
+
+    @Benchmark
+    public void toCharsSchubfach(Blackhole bh) {
+        char[] buf = new char[DoubleToDecimal.MAX_CHARS];
+        for (double value : values) {
+            bh.consume(DoubleToDecimal.toChars(value, buf, 0));
+        }
+    }
+
+    @Benchmark
+    public void parseJdk(Blackhole bh) {
+        for (char[] text : texts) {
+            // jackson materializes the text buffer as a String before calling parseDouble
+            bh.consume(Double.parseDouble(new String(text)));
+        }
+    }
+
+    @Benchmark
+    public void parseEiselLemire(Blackhole bh) {
+        for (char[] text : texts) {
+            bh.consume(FastDoubleParser.parseDouble(text, 0, text.length));
+        }
+    }
+
+    @Benchmark
+    public void generatorJackson() throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(NullOutputStream.INSTANCE)) {
+            generator.writeStartArray();
+            for (double value : values) {
+                generator.writeNumber(value);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    @Benchmark
+    public void generatorCodec() throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(NullOutputStream.INSTANCE)) {
+            generator.writeStartArray();
+            for (double value : values) {
+                FloatingPointCodec.writeDouble(generator, value);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    @Benchmark
+    public void parserJackson(Blackhole bh) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(jsonArray)) {
+            parser.nextToken();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                bh.consume(parser.getDoubleValue());
+            }
+        }
+    }
+
+    @Benchmark
+    public void parserCodec(Blackhole bh) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(jsonArray)) {
+            parser.nextToken();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                bh.consume(FloatingPointCodec.readDouble(parser));
+            }
+        }
+    }
+
+    static final class NullOutputStream extends OutputStream {
+        static final NullOutputStream INSTANCE = new NullOutputStream();
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
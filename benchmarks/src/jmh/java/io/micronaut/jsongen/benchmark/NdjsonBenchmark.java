@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import io.micronaut.jsongen.NdjsonReader;
+import io.micronaut.jsongen.NdjsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reads and writes {@link #RECORDS} NDJSON records per invocation with {@link NdjsonReader} / {@link NdjsonWriter},
+ * on pools of different sizes. Compare the scores across {@code parallelism} to see how the parallel paths scale on
+ * the machine at hand.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class NdjsonBenchmark {
+    private static final int RECORDS = 100_000;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Param({"1", "2", "4", "8"})
+    int parallelism;
+
+    private ForkJoinPool pool;
+    private NdjsonReader<BufferRecyclingBenchmark.Item> orderedReader;
+    private NdjsonReader<BufferRecyclingBenchmark.Item> unorderedReader;
+    private NdjsonWriter<BufferRecyclingBenchmark.Item> writer;
+    private List<BufferRecyclingBenchmark.Item> items;
+    private byte[] ndjson;
+
+    @Setup
+    public void setup() throws IOException {
+        pool = new ForkJoinPool(parallelism);
+        orderedReader = new NdjsonReader<>(JSON_FACTORY, BufferRecyclingBenchmark.ItemSerializer.INSTANCE).withPool(pool);
+        unorderedReader = orderedReader.withOrdered(false);
+        writer = new NdjsonWriter<>(JSON_FACTORY, BufferRecyclingBenchmark.ItemSerializer.INSTANCE).withPool(pool);
+        items = new ArrayList<>(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            BufferRecyclingBenchmark.Item item = new BufferRecyclingBenchmark.Item();
+            item.id = i;
+            item.name = "Item number " + i;
+            for (int j = 0; j < i % 10; j++) {
+                item.tags.add("tag-" + j);
+            }
+            items.add(item);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(out, items);
+        ndjson = out.toByteArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    @Benchmark
+    public void readOrdered(Blackhole bh) throws IOException {
+        orderedReader.read(new ByteArrayInputStream(ndjson), bh::consume);
+    }
+
+    @Benchmark
+    public long readUnordered() throws IOException {
+        // the consumer is called concurrently here
+        LongAdder ids = new LongAdder();
+        unorderedReader.read(new ByteArrayInputStream(ndjson), item -> ids.add(item.id));
+        return ids.sum();
+    }
+
+    @Benchmark
+    public int write() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(ndjson.length);
+        writer.write(out, items);
+        return out.size();
+    }
+}
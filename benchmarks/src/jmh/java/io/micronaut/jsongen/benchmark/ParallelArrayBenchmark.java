@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import io.micronaut.jsongen.ArrayElementReader;
+import io.micronaut.jsongen.ParallelArrayReader;
+import io.micronaut.jsongen.StructuralIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deserializes one array of {@link #RECORDS} elements per invocation. {@code scan} only builds the
+ * {@link StructuralIndex}, {@code parse} only deserializes from a prebuilt index, and {@code scanAndParse} does both.
+ * {@code sequential} is the single-threaded baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelArrayBenchmark {
+    private static final int RECORDS = 100_000;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Param({"1", "2", "4", "8"})
+    int parallelism;
+
+    private ForkJoinPool pool;
+    private ParallelArrayReader<BufferRecyclingBenchmark.Item> reader;
+    private byte[] json;
+    private StructuralIndex index;
+
+    @Setup
+    public void setup() throws IOException {
+        pool = new ForkJoinPool(parallelism);
+        reader = new ParallelArrayReader<>(JSON_FACTORY, BufferRecyclingBenchmark.ItemSerializer.INSTANCE).withPool(pool);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            generator.writeStartArray();
+            for (int i = 0; i < RECORDS; i++) {
+                BufferRecyclingBenchmark.Item item = new BufferRecyclingBenchmark.Item();
+                item.id = i;
+                item.name = "Item \"number\" " + i;
+                for (int j = 0; j < i % 10; j++) {
+                    item.tags.add("tag-" + j);
+                }
+                BufferRecyclingBenchmark.ItemSerializer.INSTANCE.serialize(generator, item);
+            }
+            generator.writeEndArray();
+        }
+        json = out.toByteArray();
+        index = StructuralIndex.scanArray(json);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    @Benchmark
+    public StructuralIndex scan() throws IOException {
+        return StructuralIndex.scanArray(json);
+    }
+
+    @Benchmark
+    public List<BufferRecyclingBenchmark.Item> parse() throws IOException {
+        return reader.read(json, index);
+    }
+
+    @Benchmark
+    public List<BufferRecyclingBenchmark.Item> scanAndParse() throws IOException {
+        return reader.read(json);
+    }
+
+    @Benchmark
+    public List<BufferRecyclingBenchmark.Item> sequential() throws IOException {
+        List<BufferRecyclingBenchmark.Item> result = new ArrayList<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            parser.nextToken();
+            ArrayElementReader.create(BufferRecyclingBenchmark.ItemSerializer.INSTANCE, parser).forEachRemaining(result::add);
+        }
+        return result;
+    }
+}
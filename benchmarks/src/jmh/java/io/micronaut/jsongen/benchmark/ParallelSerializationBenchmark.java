@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micronaut.jsongen.ParallelSerialization;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes one list of {@link #RECORDS} elements per invocation, sequentially or split into ranges with
+ * {@link ParallelSerialization}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelSerializationBenchmark {
+    private static final int RECORDS = 50_000;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Param({"1", "2", "4", "8"})
+    int parallelism;
+
+    private ForkJoinPool pool;
+    private List<BufferRecyclingBenchmark.Item> items;
+
+    @Setup
+    public void setup() {
+        pool = new ForkJoinPool(parallelism);
+        ParallelSerialization.setPool(pool);
+        items = new ArrayList<>(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            BufferRecyclingBenchmark.Item item = new BufferRecyclingBenchmark.Item();
+            item.id = i;
+            item.name = "Item number " + i;
+            for (int j = 0; j < i % 10; j++) {
+                item.tags.add("tag-" + j);
+            }
+            items.add(item);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        ParallelSerialization.setPool(ForkJoinPool.commonPool());
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    @Benchmark
+    public void sequential() throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(FloatingPointBenchmark.NullOutputStream.INSTANCE)) {
+            generator.writeStartArray();
+            for (BufferRecyclingBenchmark.Item item : items) {
+                BufferRecyclingBenchmark.ItemSerializer.INSTANCE.serialize(generator, item);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    @Benchmark
+    public void parallel() throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(FloatingPointBenchmark.NullOutputStream.INSTANCE)) {
+            ParallelSerialization.writeArray(generator, items, BufferRecyclingBenchmark.ItemSerializer.INSTANCE);
+        }
+    }
+}
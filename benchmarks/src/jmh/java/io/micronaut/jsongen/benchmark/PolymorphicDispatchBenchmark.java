@@ -0,0 +1,163 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import io.micronaut.jsongen.RuntimeTypeDispatcher;
+import io.micronaut.jsongen.Serializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes {@link #SIZE} values of three different classes through their common interface, comparing the class
+ * comparisons generated for closed hierarchies, the {@link ClassValue} cache of {@link RuntimeTypeDispatcher} and a
+ * {@link ConcurrentHashMap} lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PolymorphicDispatchBenchmark {
+    private static final int SIZE = 1024;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Serializer<A> serializerA = new ShapeSerializer<>();
+    private final Serializer<B> serializerB = new ShapeSerializer<>();
+    private final Serializer<C> serializerC = new ShapeSerializer<>();
+
+    private Shape[] values;
+    private RuntimeTypeDispatcher dispatcher;
+    private Map<Class<?>, Serializer<?>> map;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        values = new Shape[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            switch (random.nextInt(3)) {
+                case 0:
+                    values[i] = new A(random.nextInt());
+                    break;
+                case 1:
+                    values[i] = new B(random.nextInt());
+                    break;
+                default:
+                    values[i] = new C(random.nextInt());
+                    break;
+            }
+        }
+        Map<Class<?>, Serializer<?>> serializers = new HashMap<>();
+        serializers.put(A.class, serializerA);
+        serializers.put(B.class, serializerB);
+        serializers.put(C.class, serializerC);
+        dispatcher = new RuntimeTypeDispatcher(serializers::get);
+        map = new ConcurrentHashMap<>(serializers);
+    }
+
+    @Benchmark
+    public void classComparison() throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(FloatingPointBenchmark.NullOutputStream.INSTANCE)) {
+            generator.writeStartArray();
+            for (Shape value : values) {
+                Class<?> valueClass = value.getClass();
+                if (valueClass == A.class) {
+                    serializerA.serialize(generator, (A) value);
+                } else if (valueClass == B.class) {
+                    serializerB.serialize(generator, (B) value);
+                } else if (valueClass == C.class) {
+                    serializerC.serialize(generator, (C) value);
+                } else {
+                    dispatcher.serialize(generator, value);
+                }
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    @Benchmark
+    public void classValue() throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(FloatingPointBenchmark.NullOutputStream.INSTANCE)) {
+            generator.writeStartArray();
+            for (Shape value : values) {
+                dispatcher.serialize(generator, value);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void concurrentHashMap() throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(FloatingPointBenchmark.NullOutputStream.INSTANCE)) {
+            generator.writeStartArray();
+            for (Shape value : values) {
+                ((Serializer<Object>) map.get(value.getClass())).serialize(generator, value);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    abstract static class Shape {
+        final int value;
+
+        Shape(int value) {
+            this.value = value;
+        }
+    }
+
+    static final class A extends Shape {
+        A(int value) {
+            super(value);
+        }
+    }
+
+    static final class B extends Shape {
+        B(int value) {
+            super(value);
+        }
+    }
+
+    static final class C extends Shape {
+        C(int value) {
+            super(value);
+        }
+    }
+
+    static final class ShapeSerializer<T extends Shape> implements Serializer<T> {
+        @Override
+        public T deserialize(JsonParser decoder) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void serialize(JsonGenerator encoder, T value) throws IOException {
+            encoder.writeNumber(value.value);
+        }
+    }
+}
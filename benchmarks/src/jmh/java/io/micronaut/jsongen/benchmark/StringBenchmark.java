@@ -0,0 +1,150 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micronaut.jsongen.ByteScanner;
+import io.micronaut.jsongen.ScalarByteScanner;
+import io.micronaut.jsongen.StringCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the scalar and the default {@link ByteScanner} (the vector implementation when {@code json-gen-vector} is
+ * on the classpath and {@code jdk.incubator.vector} is enabled), and string writing through {@link StringCodec} versus
+ * plain jackson. All benchmarks process {@link #SIZE} strings per invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StringBenchmark {
+    private static final int SIZE = 1024;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final String ASCII_ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 /-_.:";
+    private static final String NON_ASCII_ALPHABET = "abcde\u00e4\u00f6\u00fc\u00df\u00e9\u00e8\u00ea\u00f1\u00e7\u00f8\u00e5\u0436\u0437\u0438\u0439\u043a\u043b\u043c\u043d\u043e\u043f\u0440\u0441\u0442\u0443\u0444\u0445\u0446\u0447\u0448\u0449\u65e5\u672c\u8a9e\u4e2d\u6587\ud55c\uad6d\uc5b4 ";
+
+    /**
+     * <ul>
+     *     <li>{@code ascii}: urls, identifiers and english text, 16-256 chars</li>
+     *     <li>{@code nonAscii}: mixed latin, cyrillic and CJK text, 16-256 chars</li>
+     * </ul>
+     */
+    @Param({"ascii", "nonAscii"})
+    String corpus;
+
+    private final ByteScanner defaultScanner = ByteScanner.getInstance();
+    private final ByteScanner scalarScanner = ScalarByteScanner.INSTANCE;
+
+    private String[] strings;
+    private byte[][] utf8;
+    private byte[] document;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setup() throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        String alphabet = corpus.equals("ascii") ? ASCII_ALPHABET : NON_ASCII_ALPHABET;
+        strings = new String[SIZE];
+        utf8 = new byte[SIZE][];
+        for (int i = 0; i < SIZE; i++) {
+            int len = 16 + random.nextInt(240);
+            StringBuilder builder = new StringBuilder(len);
+            for (int j = 0; j < len; j++) {
+                builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            strings[i] = builder.toString();
+            utf8[i] = strings[i].getBytes(StandardCharsets.UTF_8);
+        }
+        out = new ByteArrayOutputStream();
+        writeCodec();
+        document = out.toByteArray();
+    }
+
+    @Benchmark
+    public void escapeScanScalar(Blackhole bh) {
+        for (byte[] bytes : utf8) {
+            bh.consume(scalarScanner.indexOfEscapeOrNonAscii(bytes, 0, bytes.length));
+        }
+    }
+
+    @Benchmark
+    public void escapeScanDefault(Blackhole bh) {
+        for (byte[] bytes : utf8) {
+            bh.consume(defaultScanner.indexOfEscapeOrNonAscii(bytes, 0, bytes.length));
+        }
+    }
+
+    /**
+     * Read side: find all string delimiters in the serialized document.
+     */
+    @Benchmark
+    public int quoteScanScalar() {
+        return countQuotes(scalarScanner);
+    }
+
+    @Benchmark
+    public int quoteScanDefault() {
+        return countQuotes(defaultScanner);
+    }
+
+    private int countQuotes(ByteScanner scanner) {
+        int n = 0;
+        int end = document.length;
+        for (int i = scanner.indexOfQuoteOrBackslash(document, 0, end); i < end; i = scanner.indexOfQuoteOrBackslash(document, i + 1, end)) {
+            n++;
+        }
+        return n;
+    }
+
+    @Benchmark
+    public void writeJackson() throws IOException {
+        out.reset();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            generator.writeStartArray();
+            for (String s : strings) {
+                generator.writeString(s);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    @Benchmark
+    public void writeCodec() throws IOException {
+        out.reset();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            generator.writeStartArray();
+            for (String s : strings) {
+                StringCodec.writeString(generator, s);
+            }
+            generator.writeEndArray();
+        }
+    }
+}
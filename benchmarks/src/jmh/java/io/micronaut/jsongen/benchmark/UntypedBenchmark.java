@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.micronaut.jsongen.RuntimeTypeDispatcher;
+import io.micronaut.jsongen.UntypedCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and writes an array of {@link #SIZE} small free-form attribute objects, comparing {@link UntypedCodec} with
+ * the mapping of databind's vanilla {@code UntypedObjectDeserializer} ({@link LinkedHashMap}, {@link ArrayList} and
+ * {@link JsonParser#getNumberValue()}), and with serialization through the {@link RuntimeTypeDispatcher}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UntypedBenchmark {
+    private static final int SIZE = 1024;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private byte[] json;
+    private Object value;
+    private RuntimeTypeDispatcher dispatcher;
+
+    @Setup
+    public void setup() throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < SIZE; i++) {
+            if (i != 0) {
+                builder.append(',');
+            }
+            builder.append("{\"id\":").append(random.nextInt(100000))
+                    .append(",\"name\":\"item").append(i).append('"')
+                    .append(",\"score\":").append(random.nextInt(10000) / 100.0)
+                    .append(",\"active\":").append(random.nextBoolean())
+                    .append(",\"tags\":[\"a\",\"b\"]")
+                    .append(",\"meta\":{\"created\":").append(random.nextLong() >>> 24).append(",\"owner\":null}}");
+        }
+        json = builder.append(']').toString().getBytes(StandardCharsets.UTF_8);
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            parser.nextToken();
+            value = UntypedCodec.DEFAULT.deserialize(parser);
+        }
+        dispatcher = new RuntimeTypeDispatcher(type -> null);
+    }
+
+    @Benchmark
+    public Object readCodec() throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            parser.nextToken();
+            return UntypedCodec.DEFAULT.deserialize(parser);
+        }
+    }
+
+    @Benchmark
+    public Object readVanilla() throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            parser.nextToken();
+            return readVanilla(parser);
+        }
+    }
+
+    @Benchmark
+    public void writeCodec() throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(FloatingPointBenchmark.NullOutputStream.INSTANCE)) {
+            UntypedCodec.write(generator, value, dispatcher);
+        }
+    }
+
+    @Benchmark
+    public void writeDispatcher() throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(FloatingPointBenchmark.NullOutputStream.INSTANCE)) {
+            dispatcher.serialize(generator, value);
+        }
+    }
+
+    private static Object readVanilla(JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case START_OBJECT:
+                Map<String, Object> map = new LinkedHashMap<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String key = parser.getCurrentName();
+                    parser.nextToken();
+                    map.put(key, readVanilla(parser));
+                }
+                return map;
+            case START_ARRAY:
+                List<Object> list = new ArrayList<>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    list.add(readVanilla(parser));
+                }
+                return list;
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return parser.getNumberValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            default:
+                return null;
+        }
+    }
+}
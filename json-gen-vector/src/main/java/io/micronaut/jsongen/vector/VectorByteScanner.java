@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen.vector;
+
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.jsongen.ByteScanner;
+import io.micronaut.jsongen.ScalarByteScanner;
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link ByteScanner} that checks a full vector (16-64 bytes, depending on the CPU) per iteration using the
+ * {@code jdk.incubator.vector} API. The remaining tail is handled by {@link ScalarByteScanner}.
+ */
+@Internal
+public final class VectorByteScanner extends ByteScanner {
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    @Override
+    public int indexOfEscapeOrNonAscii(byte[] buf, int off, int end) {
+        int i = off;
+        for (int bound = end - SPECIES.length(); i <= bound; i += SPECIES.length()) {
+            ByteVector v = ByteVector.fromArray(SPECIES, buf, i);
+            // signed compare covers both control chars and non-ascii bytes
+            VectorMask<Byte> mask = v.lt((byte) 0x20)
+                    .or(v.eq((byte) '"'))
+                    .or(v.eq((byte) '\\'));
+            if (mask.anyTrue()) {
+                return i + mask.firstTrue();
+            }
+        }
+        return ScalarByteScanner.INSTANCE.indexOfEscapeOrNonAscii(buf, i, end);
+    }
+
+    @Override
+    public int indexOfQuoteOrBackslash(byte[] buf, int off, int end) {
+        int i = off;
+        for (int bound = end - SPECIES.length(); i <= bound; i += SPECIES.length()) {
+            ByteVector v = ByteVector.fromArray(SPECIES, buf, i);
+            VectorMask<Byte> mask = v.eq((byte) '"').or(v.eq((byte) '\\'));
+            if (mask.anyTrue()) {
+                return i + mask.firstTrue();
+            }
+        }
+        return ScalarByteScanner.INSTANCE.indexOfQuoteOrBackslash(buf, i, end);
+    }
+
+    @Override
+    public int indexOfNonAscii(byte[] buf, int off, int end) {
+        int i = off;
+        for (int bound = end - SPECIES.length(); i <= bound; i += SPECIES.length()) {
+            VectorMask<Byte> mask = ByteVector.fromArray(SPECIES, buf, i).lt((byte) 0);
+            if (mask.anyTrue()) {
+                return i + mask.firstTrue();
+            }
+        }
+        return ScalarByteScanner.INSTANCE.indexOfNonAscii(buf, i, end);
+    }
+
+    @Override
+    public int indexOf(byte[] buf, int off, int end, byte value) {
+        int i = off;
+        for (int bound = end - SPECIES.length(); i <= bound; i += SPECIES.length()) {
+            VectorMask<Byte> mask = ByteVector.fromArray(SPECIES, buf, i).eq(value);
+            if (mask.anyTrue()) {
+                return i + mask.firstTrue();
+            }
+        }
+        return ScalarByteScanner.INSTANCE.indexOf(buf, i, end, value);
+    }
+}
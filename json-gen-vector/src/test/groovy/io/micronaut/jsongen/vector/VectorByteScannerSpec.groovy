@@ -0,0 +1,34 @@
+package io.micronaut.jsongen.vector
+
+import io.micronaut.jsongen.ByteScanner
+import io.micronaut.jsongen.ScalarByteScanner
+import spock.lang.Specification
+
+class VectorByteScannerSpec extends Specification {
+    def "picked up by service loader"() {
+        expect:
+        ByteScanner.getInstance() instanceof VectorByteScanner
+    }
+
+    def "same results as scalar scanner"() {
+        given:
+        def vector = new VectorByteScanner()
+        def scalar = ScalarByteScanner.INSTANCE
+        def random = new Random(0)
+
+        expect:
+        for (int i = 0; i < 10000; i++) {
+            def bytes = new byte[random.nextInt(300)]
+            for (int j = 0; j < bytes.length; j++) {
+                // mostly ascii letters, with the occasional special byte
+                bytes[j] = random.nextInt(20) == 0 ? (byte) random.nextInt(256) : (byte) (('a' as char) + random.nextInt(26))
+            }
+            int off = bytes.length == 0 ? 0 : random.nextInt(bytes.length)
+            int end = off + random.nextInt(bytes.length - off + 1)
+            assert vector.indexOfEscapeOrNonAscii(bytes, off, end) == scalar.indexOfEscapeOrNonAscii(bytes, off, end)
+            assert vector.indexOfQuoteOrBackslash(bytes, off, end) == scalar.indexOfQuoteOrBackslash(bytes, off, end)
+            assert vector.indexOfNonAscii(bytes, off, end) == scalar.indexOfNonAscii(bytes, off, end)
+            assert vector.indexOf(bytes, off, end, (byte) ('?' as char)) == scalar.indexOf(bytes, off, end, (byte) ('?' as char))
+        }
+    }
+}
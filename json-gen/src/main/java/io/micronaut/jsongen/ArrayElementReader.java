@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily deserializes the elements of a JSON array one at a time, so that only the current element is held in
+ * memory. Useful for large top-level arrays:
+ *
+ * <pre>{@code
+ * try (JsonParser parser = factory.createParser(file)) {
+ *     parser.nextToken();
+ *     ArrayElementReader.create(imageSerializer, parser).stream().forEach(...);
+ * }
+ * }</pre>
+ * <p>
+ * The parser is not closed by this class. Parse errors are thrown as {@link UncheckedIOException}.
+ *
+ * @param <T> The element type
+ */
+public final class ArrayElementReader<T> implements Iterator<T> {
+    private final Serializer<T> serializer;
+    private final JsonParser parser;
+
+    /**
+     * Whether the parser is positioned at the first token of the next element.
+     */
+    private boolean ready = false;
+    private boolean done = false;
+
+    private ArrayElementReader(Serializer<T> serializer, JsonParser parser) {
+        this.serializer = serializer;
+        this.parser = parser;
+    }
+
+    /**
+     * @param serializer The serializer to use for each element
+     * @param parser     The parser, positioned at the {@code START_ARRAY} token
+     */
+    public static <T> ArrayElementReader<T> create(Serializer<T> serializer, JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw JsonParseException.from(parser, "Unexpected token " + parser.currentToken() + ", expected START_ARRAY");
+        }
+        return new ArrayElementReader<>(serializer, parser);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!ready && !done) {
+            try {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.END_ARRAY) {
+                    // leave the parser at the END_ARRAY, like Serializer.deserialize would
+                    done = true;
+                } else if (token == null) {
+                    throw JsonParseException.from(parser, "Unexpected end of input");
+                } else {
+                    ready = true;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return ready;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ready = false;
+        try {
+            return serializer.deserialize(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return A sequential, ordered spliterator over the remaining elements
+     */
+    public Spliterator<T> spliterator() {
+        return Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED);
+    }
+
+    /**
+     * @return A sequential stream over the remaining elements
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.util.BufferRecycler;
+import com.fasterxml.jackson.core.util.BufferRecyclers;
+
+/**
+ * Source of {@link BufferRecycler}s for {@link PooledJsonFactory}. A recycler is only used by one generator or
+ * parser at a time, between {@link #acquire()} and {@link #release}.
+ */
+public interface BufferRecyclerPool {
+    BufferRecycler acquire();
+
+    void release(BufferRecycler recycler);
+
+    /**
+     * Jackson's default behavior: one recycler per thread, held through a {@code ThreadLocal} and a
+     * {@code SoftReference}. Works well for a fixed set of platform threads, but with virtual threads every
+     * operation allocates fresh buffers.
+     */
+    static BufferRecyclerPool threadLocal() {
+        return ThreadLocalPool.INSTANCE;
+    }
+
+    /**
+     * No recycling at all, every operation allocates fresh buffers.
+     */
+    static BufferRecyclerPool nonRecycling() {
+        return NonRecyclingPool.INSTANCE;
+    }
+
+    /**
+     * A bounded, lock-free pool shared by all threads, see {@link StripedBufferRecyclerPool}.
+     */
+    static BufferRecyclerPool striped() {
+        return new StripedBufferRecyclerPool();
+    }
+
+    final class ThreadLocalPool implements BufferRecyclerPool {
+        static final ThreadLocalPool INSTANCE = new ThreadLocalPool();
+
+        private ThreadLocalPool() {
+        }
+
+        @Override
+        public BufferRecycler acquire() {
+            return BufferRecyclers.getBufferRecycler();
+        }
+
+        @Override
+        public void release(BufferRecycler recycler) {
+            // stays with the thread
+        }
+    }
+
+    final class NonRecyclingPool implements BufferRecyclerPool {
+        static final NonRecyclingPool INSTANCE = new NonRecyclingPool();
+
+        private NonRecyclingPool() {
+        }
+
+        @Override
+        public BufferRecycler acquire() {
+            return new BufferRecycler();
+        }
+
+        @Override
+        public void release(BufferRecycler recycler) {
+        }
+    }
+}
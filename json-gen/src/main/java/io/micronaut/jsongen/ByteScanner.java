@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import io.micronaut.core.annotation.Internal;
+
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Search primitives over UTF-8 encoded JSON, used by the code paths that work on raw bytes. All methods return the
+ * index of the first matching byte in {@code [off, end)}, or {@code end} if there is none.
+ * <p>
+ * The default implementation is {@link ScalarByteScanner}. Faster implementations (e.g. the {@code json-gen-vector}
+ * module) are picked up through {@link ServiceLoader}. Loading can be disabled with the system property
+ * {@value #DISABLE_PROPERTY}.
+ */
+@Internal
+public abstract class ByteScanner {
+    public static final String DISABLE_PROPERTY = "micronaut.jsongen.scanner.scalar";
+
+    /**
+     * @return The fastest scanner available on this JVM
+     */
+    public static ByteScanner getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Find the first byte that cannot be copied verbatim into a JSON string: control characters, {@code "},
+     * {@code \} and any non-ASCII byte.
+     */
+    public abstract int indexOfEscapeOrNonAscii(byte[] buf, int off, int end);
+
+    /**
+     * Find the first {@code "} or {@code \}, i.e. the end of the current string or the start of an escape sequence.
+     */
+    public abstract int indexOfQuoteOrBackslash(byte[] buf, int off, int end);
+
+    /**
+     * Find the first non-ASCII byte.
+     */
+    public abstract int indexOfNonAscii(byte[] buf, int off, int end);
+
+    /**
+     * Find the first occurrence of {@code value}.
+     */
+    public abstract int indexOf(byte[] buf, int off, int end, byte value);
+
+    private static final class Holder {
+        static final ByteScanner INSTANCE = load();
+
+        private static ByteScanner load() {
+            if (!Boolean.getBoolean(DISABLE_PROPERTY)) {
+                try {
+                    Iterator<ByteScanner> iterator = ServiceLoader.load(ByteScanner.class, ByteScanner.class.getClassLoader()).iterator();
+                    while (iterator.hasNext()) {
+                        try {
+                            return iterator.next();
+                        } catch (ServiceConfigurationError | LinkageError e) {
+                            // e.g. the vector implementation without --add-modules jdk.incubator.vector
+                        }
+                    }
+                } catch (ServiceConfigurationError ignored) {
+                }
+            }
+            return ScalarByteScanner.INSTANCE;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micronaut.core.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Serializes a value incrementally, producing its output in chunks of a fixed size. Output is only produced when the
+ * next chunk is requested, so at most about two chunks (plus whatever a single collection element needs) are buffered
+ * at a time, regardless of the size of the value. The second chunk is produced ahead, so that {@link #isComplete()}
+ * is accurate as soon as the last chunk has been returned.
+ * <p>
+ * Generated serializers implement {@link ResumableSerializer} and yield between collection elements. Other
+ * serializers write their whole value in one go.
+ * <p>
+ * Not thread-safe.
+ */
+public final class ChunkedSerializer implements Closeable {
+    /**
+     * Number of chunks {@link #nextChunk()} keeps buffered, including the one it returns.
+     */
+    private static final int LOOKAHEAD_CHUNKS = 2;
+
+    private final ChunkOutput output;
+    private final JsonGenerator generator;
+    private final ArrayDeque<SerializationFrame> stack = new ArrayDeque<>();
+    private boolean closed = false;
+
+    private ChunkedSerializer(JsonFactory factory, SerializationFrame rootFrame, int chunkSize) throws IOException {
+        this.output = new ChunkOutput(chunkSize);
+        this.generator = factory.createGenerator(output);
+        stack.push(rootFrame);
+    }
+
+    /**
+     * @param factory    The factory to create the generator with
+     * @param serializer The serializer to use
+     * @param value      The value to serialize
+     * @param chunkSize  Size of the chunks to produce. Only the last chunk may be smaller
+     */
+    public static <T> ChunkedSerializer create(JsonFactory factory, Serializer<T> serializer, T value, int chunkSize) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        return new ChunkedSerializer(factory, SerializationFrame.forSerializer(serializer, value), chunkSize);
+    }
+
+    /**
+     * Produce the next chunk of output.
+     *
+     * @return The next chunk, ready for reading, or {@code null} if all output has been produced
+     */
+    @Nullable
+    public ByteBuffer nextChunk() throws IOException {
+        // if the output ends exactly at a chunk boundary, the frames left on the stack may not write anything more,
+        // which is only known once they have run
+        while (output.chunks.size() < LOOKAHEAD_CHUNKS && !closed) {
+            writeUntilYield();
+            if (stack.isEmpty()) {
+                close();
+            } else {
+                generator.flush();
+            }
+        }
+        return output.chunks.poll();
+    }
+
+    /**
+     * @return {@code true} iff all output has been produced, i.e. the next {@link #nextChunk()} will return
+     * {@code null}
+     */
+    public boolean isComplete() {
+        return closed && output.chunks.isEmpty();
+    }
+
+    /**
+     * Push a child frame. Must only be called from {@link SerializationFrame#writeNext}, which must then return
+     * {@code false}. The child runs before the parent is resumed.
+     */
+    public void push(SerializationFrame frame) {
+        stack.push(frame);
+    }
+
+    /**
+     * @return {@code true} iff enough output is buffered for the next chunk and the one produced ahead, and frames
+     * should stop writing
+     */
+    public boolean shouldYield() {
+        return output.buffered() + Math.max(generator.getOutputBuffered(), 0) >= (long) output.chunkSize * LOOKAHEAD_CHUNKS;
+    }
+
+    private void writeUntilYield() throws IOException {
+        do {
+            SerializationFrame frame = stack.peek();
+            if (frame.writeNext(generator, this)) {
+                if (stack.peek() != frame) {
+                    throw new IllegalStateException("Frame pushed a child frame but reported completion");
+                }
+                stack.pop();
+            }
+        } while (!stack.isEmpty() && !shouldYield());
+    }
+
+    /**
+     * Finish the output. If serialization is not complete yet, it is aborted instead: every frame left on the stack is
+     * {@link SerializationFrame#abort() aborted}, and no further chunks are returned.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            boolean aborted = !stack.isEmpty();
+            try {
+                abortFrames();
+            } finally {
+                generator.close();
+                if (aborted) {
+                    output.chunks.clear();
+                } else {
+                    output.finish();
+                }
+            }
+        }
+    }
+
+    /**
+     * Abort all frames on the stack, innermost first. Every frame is aborted even if another one fails.
+     */
+    private void abortFrames() throws IOException {
+        Throwable failure = null;
+        while (!stack.isEmpty()) {
+            try {
+                stack.pop().abort();
+            } catch (IOException | RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+    }
+
+    private static final class ChunkOutput extends OutputStream {
+        final int chunkSize;
+        final ArrayDeque<ByteBuffer> chunks = new ArrayDeque<>();
+        private ByteBuffer current;
+
+        ChunkOutput(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        long buffered() {
+            return (long) chunks.size() * chunkSize + (current == null ? 0 : current.position());
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            while (len > 0) {
+                if (current == null) {
+                    current = ByteBuffer.allocate(chunkSize);
+                }
+                int n = Math.min(len, current.remaining());
+                current.put(b, off, n);
+                off += n;
+                len -= n;
+                if (!current.hasRemaining()) {
+                    current.flip();
+                    chunks.add(current);
+                    current = null;
+                }
+            }
+        }
+
+        void finish() {
+            if (current != null && current.position() > 0) {
+                current.flip();
+                chunks.add(current);
+            }
+            current = null;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * State of a partially deserialized value during non-blocking deserialization. Instead of pulling tokens from the
+ * parser, a frame is pushed one token at a time by {@link NonBlockingDeserializer}, and keeps all state it needs
+ * between tokens in fields.
+ * <p>
+ * Nested values that need more than one token are handled by pushing a child frame using
+ * {@link NonBlockingDeserializer#push}. The child receives the current token and all following tokens until it
+ * completes, at which point its result is passed back to {@link #onChildComplete}.
+ *
+ * @param <T> The deserialized type
+ */
+public abstract class DeserializationFrame<T> {
+    /**
+     * Process the current token of the decoder. The first call is with the first token of the value.
+     *
+     * @param decoder      The decoder, positioned at the token to process. Must not be advanced
+     * @param deserializer The deserializer to push child frames to
+     * @return {@code true} iff the value is complete and {@link #getResult()} may be called
+     */
+    public abstract boolean onToken(JsonParser decoder, NonBlockingDeserializer<?> deserializer) throws IOException;
+
+    /**
+     * Called when a child frame pushed by this frame has completed.
+     *
+     * @param decoder     The decoder, positioned at the last token of the child value
+     * @param childResult The result of the child frame
+     * @return {@code true} iff this value is complete as well
+     */
+    public boolean onChildComplete(JsonParser decoder, Object childResult) throws IOException {
+        throw new IllegalStateException("Unexpected child frame");
+    }
+
+    public abstract T getResult();
+
+    /**
+     * Create a frame for the given serializer. If the serializer does not support non-blocking deserialization, the
+     * raw input of the value is buffered and passed to the blocking {@link Serializer#deserialize} once complete.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> DeserializationFrame<T> forSerializer(Serializer<T> serializer) {
+        if (serializer instanceof ResumableDeserializer) {
+            return ((ResumableDeserializer<T>) serializer).newDeserializationFrame();
+        } else {
+            return new Capturing<>(serializer);
+        }
+    }
+
+    /**
+     * @return A frame that skips over a value, e.g. an unknown property
+     */
+    public static DeserializationFrame<Object> skip() {
+        return new Skipping();
+    }
+
+    private static final class Capturing<T> extends DeserializationFrame<T> {
+        private final Serializer<T> serializer;
+        private int depth = 0;
+        private T result;
+
+        Capturing(Serializer<T> serializer) {
+            this.serializer = serializer;
+        }
+
+        @Override
+        public boolean onToken(JsonParser decoder, NonBlockingDeserializer<?> deserializer) throws IOException {
+            JsonToken token = decoder.currentToken();
+            if (depth == 0) {
+                if (!token.isStructStart()) {
+                    // scalars are a single token, no need to buffer anything
+                    result = serializer.deserialize(decoder);
+                    return true;
+                }
+                deserializer.startCapture();
+            }
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            }
+            if (depth == 0) {
+                try (JsonParser captured = deserializer.finishCapture()) {
+                    result = serializer.deserialize(captured);
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public T getResult() {
+            return result;
+        }
+    }
+
+    private static final class Skipping extends DeserializationFrame<Object> {
+        private int depth = 0;
+
+        @Override
+        public boolean onToken(JsonParser decoder, NonBlockingDeserializer<?> deserializer) {
+            JsonToken token = decoder.currentToken();
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            }
+            return depth == 0;
+        }
+
+        @Override
+        public Object getResult() {
+            return null;
+        }
+    }
+}
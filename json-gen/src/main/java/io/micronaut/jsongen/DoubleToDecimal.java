@@ -0,0 +1,461 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import io.micronaut.core.annotation.Internal;
+
+import java.math.BigInteger;
+
+/**
+ * Shortest round-trip decimal rendering of {@code double} and {@code float} values, using Raffaello Giulietti's
+ * Schubfach algorithm. The output format is the same as {@link Double#toString(double)} (decimal notation for
+ * magnitudes in {@code [1e-3, 1e7)}, computerized scientific notation otherwise), but the digits are always the
+ * shortest that round-trip, and no intermediate objects are allocated.
+ * <p>
+ * Non-finite values are not supported, callers need to handle them separately.
+ */
+@Internal
+public final class DoubleToDecimal {
+    /**
+     * Upper bound for the number of chars written by {@link #toChars(double, char[], int)} and
+     * {@link #toChars(float, char[], int)}, e.g. {@code -2.2250738585072014E-308}.
+     */
+    public static final int MAX_CHARS = 24;
+
+    // double parameters
+    private static final int D_P = 53;
+    private static final int D_Q_MIN = -1074;
+    private static final long D_C_MIN = 1L << (D_P - 1);
+    private static final long D_T_MASK = D_C_MIN - 1;
+    private static final int D_BQ_MASK = 0x7ff;
+    private static final long D_C_TINY = 3;
+
+    // float parameters
+    private static final int F_P = 24;
+    private static final int F_Q_MIN = -149;
+    private static final int F_C_MIN = 1 << (F_P - 1);
+    private static final int F_T_MASK = F_C_MIN - 1;
+    private static final int F_BQ_MASK = 0xff;
+    private static final int F_C_TINY = 8;
+
+    private static final long MASK_63 = (1L << 63) - 1;
+    private static final long MASK_32 = (1L << 32) - 1;
+
+    /**
+     * Range of decimal exponents covered by {@link #G}.
+     */
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+
+    /**
+     * For each {@code k}, {@code 10^-k = beta * 2^r} with {@code 2^125 <= beta < 2^126}. Let
+     * {@code g = floor(beta) + 1}, then {@code G[2 * (k - K_MIN)]} holds the upper 63 bits of {@code g} and
+     * {@code G[2 * (k - K_MIN) + 1]} the lower 63 bits.
+     */
+    private static final long[] G = new long[(K_MAX - K_MIN + 1) * 2];
+
+    private static final long[] POW10 = new long[19];
+
+    /**
+     * {@code "00010203...9899"}, for writing two digits at a time.
+     */
+    private static final char[] DIGIT_PAIRS = new char[200];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+        for (int i = 0; i < 100; i++) {
+            DIGIT_PAIRS[i * 2] = (char) ('0' + i / 10);
+            DIGIT_PAIRS[i * 2 + 1] = (char) ('0' + i % 10);
+        }
+
+        BigInteger mask63 = BigInteger.valueOf(MASK_63);
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            int shift = 125 - flog2pow10(-k);
+            BigInteger g;
+            if (k <= 0) {
+                g = BigInteger.TEN.pow(-k).shiftLeft(shift);
+            } else {
+                g = BigInteger.ONE.shiftLeft(shift).divide(BigInteger.TEN.pow(k));
+            }
+            g = g.add(BigInteger.ONE);
+            G[(k - K_MIN) * 2] = g.shiftRight(63).longValue();
+            G[(k - K_MIN) * 2 + 1] = g.and(mask63).longValue();
+        }
+    }
+
+    private DoubleToDecimal() {
+    }
+
+    /**
+     * Write the shortest decimal representation of {@code v} to {@code buf}.
+     *
+     * @param v   The value to write. Must be finite
+     * @param buf The output buffer. Must have at least {@link #MAX_CHARS} chars available after {@code pos}
+     * @param pos The start position in {@code buf}
+     * @return The position after the last char written
+     */
+    public static int toChars(double v, char[] buf, int pos) {
+        long bits = Double.doubleToRawLongBits(v);
+        long t = bits & D_T_MASK;
+        int bq = (int) (bits >>> (D_P - 1)) & D_BQ_MASK;
+        if (bq == D_BQ_MASK) {
+            throw new IllegalArgumentException("Non-finite value");
+        }
+        if (bits < 0) {
+            buf[pos++] = '-';
+        }
+        if (bq != 0) {
+            // normal value
+            int mq = -D_Q_MIN + 1 - bq;
+            long c = D_C_MIN | t;
+            // integers are easy
+            if (0 < mq && mq < D_P) {
+                long f = c >> mq;
+                if (f << mq == c) {
+                    return format(f, 0, buf, pos);
+                }
+            }
+            return toDecimal(-mq, c, 0, buf, pos);
+        }
+        if (t != 0) {
+            // subnormal value
+            return t < D_C_TINY ? toDecimal(D_Q_MIN, 10 * t, -1, buf, pos) : toDecimal(D_Q_MIN, t, 0, buf, pos);
+        }
+        return writeZero(buf, pos);
+    }
+
+    /**
+     * Write the shortest decimal representation of {@code v} to {@code buf}.
+     *
+     * @param v   The value to write. Must be finite
+     * @param buf The output buffer. Must have at least {@link #MAX_CHARS} chars available after {@code pos}
+     * @param pos The start position in {@code buf}
+     * @return The position after the last char written
+     */
+    public static int toChars(float v, char[] buf, int pos) {
+        int bits = Float.floatToRawIntBits(v);
+        int t = bits & F_T_MASK;
+        int bq = (bits >>> (F_P - 1)) & F_BQ_MASK;
+        if (bq == F_BQ_MASK) {
+            throw new IllegalArgumentException("Non-finite value");
+        }
+        if (bits < 0) {
+            buf[pos++] = '-';
+        }
+        if (bq != 0) {
+            int mq = -F_Q_MIN + 1 - bq;
+            int c = F_C_MIN | t;
+            if (0 < mq && mq < F_P) {
+                int f = c >> mq;
+                if (f << mq == c) {
+                    return format(f, 0, buf, pos);
+                }
+            }
+            return toDecimal(-mq, c, 0, buf, pos);
+        }
+        if (t != 0) {
+            return t < F_C_TINY ? toDecimal(F_Q_MIN, 10 * t, -1, buf, pos) : toDecimal(F_Q_MIN, t, 0, buf, pos);
+        }
+        return writeZero(buf, pos);
+    }
+
+    /**
+     * Convenience method that renders {@code v} as a string.
+     */
+    public static String toString(double v) {
+        if (!Double.isFinite(v)) {
+            return Double.toString(v);
+        }
+        char[] buf = new char[MAX_CHARS];
+        return new String(buf, 0, toChars(v, buf, 0));
+    }
+
+    /**
+     * Convenience method that renders {@code v} as a string.
+     */
+    public static String toString(float v) {
+        if (!Float.isFinite(v)) {
+            return Float.toString(v);
+        }
+        char[] buf = new char[MAX_CHARS];
+        return new String(buf, 0, toChars(v, buf, 0));
+    }
+
+    private static int toDecimal(int q, long c, int dk, char[] buf, int pos) {
+        int out = (int) c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != D_C_MIN || q == D_Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            // the lower neighbour is closer, because c is the smallest significand for this exponent
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+        long g1 = G[(k - K_MIN) * 2];
+        long g0 = G[(k - K_MIN) * 2 + 1];
+
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            // try one digit less first
+            long sp10 = 10 * multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                return format(upin ? sp10 : tp10, k, buf, pos);
+            }
+        }
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            return format(uin ? s : t, k + dk, buf, pos);
+        }
+        // both candidates are in the rounding interval, pick the closer one (or the even one on a tie)
+        long cmp = vb - ((s + t) << 1);
+        return format(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk, buf, pos);
+    }
+
+    private static int toDecimal(int q, int c, int dk, char[] buf, int pos) {
+        int out = c & 0x1;
+        long cb = (long) c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != F_C_MIN || q == F_Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 33;
+        long g = G[(k - K_MIN) * 2] + 1;
+
+        int vb = rop(g, cb << h);
+        int vbl = rop(g, cbl << h);
+        int vbr = rop(g, cbr << h);
+
+        int s = vb >> 2;
+        if (s >= 100) {
+            int sp10 = 10 * (int) (s * 1_717_986_919L >>> 34);
+            int tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                return format(upin ? sp10 : tp10, k, buf, pos);
+            }
+        }
+        int t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            return format(uin ? s : t, k + dk, buf, pos);
+        }
+        int cmp = vb - ((s + t) << 1);
+        return format(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk, buf, pos);
+    }
+
+    /**
+     * Round-to-odd multiplication of the 126-bit {@code g1:g0} with {@code cp}.
+     */
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | ((z & MASK_63) + MASK_63) >>> 63;
+    }
+
+    private static int rop(long g, long cp) {
+        long x1 = multiplyHigh(g, cp);
+        long vbp = x1 >>> 31;
+        return (int) (vbp | ((x1 & MASK_32) + MASK_32) >>> 32);
+    }
+
+    /**
+     * Write {@code f * 10^e} in the {@link Double#toString} format.
+     */
+    private static int format(long f, int e, char[] buf, int pos) {
+        while (f % 10 == 0) {
+            f /= 10;
+            e++;
+        }
+        int len = digitCount(f);
+        // exponent of the leading digit
+        int sciExp = e + len - 1;
+        if (sciExp >= -3 && sciExp < 7) {
+            if (sciExp >= 0) {
+                int intDigits = sciExp + 1;
+                if (len <= intDigits) {
+                    pos = writeDigits(f, len, buf, pos);
+                    for (int i = len; i < intDigits; i++) {
+                        buf[pos++] = '0';
+                    }
+                    buf[pos++] = '.';
+                    buf[pos++] = '0';
+                } else {
+                    writeDigits(f, len, buf, pos + 1);
+                    // shift the integer digits one to the left to make room for the dot
+                    System.arraycopy(buf, pos + 1, buf, pos, intDigits);
+                    buf[pos + intDigits] = '.';
+                    pos += len + 1;
+                }
+            } else {
+                buf[pos++] = '0';
+                buf[pos++] = '.';
+                for (int i = -1; i > sciExp; i--) {
+                    buf[pos++] = '0';
+                }
+                pos = writeDigits(f, len, buf, pos);
+            }
+        } else {
+            writeDigits(f, len, buf, pos + 1);
+            buf[pos] = buf[pos + 1];
+            buf[pos + 1] = '.';
+            if (len == 1) {
+                buf[pos + 2] = '0';
+                pos += 3;
+            } else {
+                pos += len + 1;
+            }
+            buf[pos++] = 'E';
+            if (sciExp < 0) {
+                buf[pos++] = '-';
+                sciExp = -sciExp;
+            }
+            if (sciExp >= 100) {
+                buf[pos++] = (char) ('0' + sciExp / 100);
+                sciExp %= 100;
+                buf[pos++] = (char) ('0' + sciExp / 10);
+            } else if (sciExp >= 10) {
+                buf[pos++] = (char) ('0' + sciExp / 10);
+            }
+            buf[pos++] = (char) ('0' + sciExp % 10);
+        }
+        return pos;
+    }
+
+    /**
+     * Write the {@code len} digits of {@code f} to {@code buf}.
+     */
+    private static int writeDigits(long f, int len, char[] buf, int pos) {
+        int end = pos + len;
+        int i = end;
+        // work on 8-digit int chunks, int division is a lot cheaper
+        while (f >= 100_000_000) {
+            long q = f / 100_000_000;
+            i = writeChunk((int) (f - q * 100_000_000), 8, buf, i);
+            f = q;
+        }
+        writeChunk((int) f, i - pos, buf, i);
+        return end;
+    }
+
+    /**
+     * Write exactly {@code n} digits of {@code v} (with leading zeros), ending at {@code end}.
+     *
+     * @return The start position of the chunk
+     */
+    private static int writeChunk(int v, int n, char[] buf, int end) {
+        int i = end;
+        int stop = end - n;
+        while (i - stop >= 2) {
+            int q = v / 100;
+            int pair = (v - q * 100) << 1;
+            buf[--i] = DIGIT_PAIRS[pair + 1];
+            buf[--i] = DIGIT_PAIRS[pair];
+            v = q;
+        }
+        if (i > stop) {
+            buf[--i] = (char) ('0' + v % 10);
+        }
+        return stop;
+    }
+
+    private static int digitCount(long f) {
+        int len = flog10pow2(Long.SIZE - Long.numberOfLeadingZeros(f));
+        return f >= POW10[len] ? len + 1 : len;
+    }
+
+    private static int writeZero(char[] buf, int pos) {
+        buf[pos++] = '0';
+        buf[pos++] = '.';
+        buf[pos++] = '0';
+        return pos;
+    }
+
+    /**
+     * {@code floor(e * log10(2))}.
+     */
+    private static int flog10pow2(int e) {
+        return (int) (e * 661_971_961_083L >> 41);
+    }
+
+    /**
+     * {@code floor(e * log10(2) + log10(3/4))}.
+     */
+    private static int flog10threeQuartersPow2(int e) {
+        return (int) (e * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    /**
+     * {@code floor(e * log2(10))}.
+     */
+    static int flog2pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+
+    /**
+     * Same as {@code Math.multiplyHigh}, which is not available on java 8.
+     */
+    static long multiplyHigh(long x, long y) {
+        // Hacker's Delight, section 8-2
+        long x1 = x >> 32;
+        long x2 = x & 0xFFFFFFFFL;
+        long y1 = y >> 32;
+        long y2 = y & 0xFFFFFFFFL;
+        long z2 = x2 * y2;
+        long t = x1 * y2 + (z2 >>> 32);
+        long z1 = t & 0xFFFFFFFFL;
+        long z0 = t >> 32;
+        z1 += x2 * y1;
+        return x1 * y1 + z0 + (z1 >> 32);
+    }
+
+    /**
+     * Same as {@code Math.unsignedMultiplyHigh}, which is not available on java 8.
+     */
+    static long unsignedMultiplyHigh(long x, long y) {
+        long result = multiplyHigh(x, y);
+        result += y & (x >> 63);
+        result += x & (y >> 63);
+        return result;
+    }
+}
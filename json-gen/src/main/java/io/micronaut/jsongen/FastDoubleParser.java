@@ -0,0 +1,294 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import io.micronaut.core.annotation.Internal;
+
+import java.math.BigInteger;
+
+/**
+ * Exact parser for decimal floating point numbers, using Clinger's fast path and the Eisel-Lemire algorithm. Inputs
+ * that cannot be decided by either algorithm (very long or very close to a rounding boundary, subnormal results) fall
+ * back to {@link Double#parseDouble} / {@link Float#parseFloat}, so the result is always correctly rounded.
+ */
+@Internal
+public final class FastDoubleParser {
+    /**
+     * Returned by {@link #eiselLemire} if the result could not be determined.
+     */
+    private static final long FAIL = -1;
+
+    private static final int MAX_SIGNIFICANT_DIGITS = 19;
+
+    /**
+     * Range of decimal exponents covered by the power tables.
+     */
+    private static final int Q_MIN = -325;
+    private static final int Q_MAX = 308;
+
+    /**
+     * Upper and lower 64 bits of the normalized 128-bit significand of {@code 10^q}. Truncated for {@code q >= 0},
+     * rounded up for {@code q < 0}.
+     */
+    private static final long[] POW10_HIGH = new long[Q_MAX - Q_MIN + 1];
+    private static final long[] POW10_LOW = new long[Q_MAX - Q_MIN + 1];
+
+    /**
+     * Powers of ten that are exactly representable as double.
+     */
+    private static final double[] EXACT_POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final float[] EXACT_POW10_FLOAT = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    static {
+        BigInteger mask64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        BigInteger five = BigInteger.valueOf(5);
+        for (int q = Q_MIN; q <= Q_MAX; q++) {
+            // 10^q and 5^q have the same significand
+            BigInteger pow5 = five.pow(Math.abs(q));
+            BigInteger significand;
+            if (q >= 0) {
+                int excess = pow5.bitLength() - 128;
+                significand = excess >= 0 ? pow5.shiftRight(excess) : pow5.shiftLeft(-excess);
+            } else {
+                int b = pow5.bitLength() + 127;
+                significand = BigInteger.ONE.shiftLeft(b).divide(pow5).add(BigInteger.ONE);
+                if (significand.bitLength() > 128) {
+                    significand = significand.shiftRight(1);
+                }
+            }
+            POW10_HIGH[q - Q_MIN] = significand.shiftRight(64).longValue();
+            POW10_LOW[q - Q_MIN] = significand.and(mask64).longValue();
+        }
+    }
+
+    private FastDoubleParser() {
+    }
+
+    /**
+     * Parse a decimal number.
+     *
+     * @param buf The input
+     * @param off Start of the number in {@code buf}
+     * @param len Length of the number
+     * @return The correctly rounded value
+     * @throws NumberFormatException if the input is not a valid number
+     */
+    public static double parseDouble(char[] buf, int off, int len) throws NumberFormatException {
+        long bits = parseBits(buf, off, len, true);
+        if (bits != FAIL) {
+            return Double.longBitsToDouble(bits);
+        }
+        return Double.parseDouble(new String(buf, off, len));
+    }
+
+    /**
+     * Parse a decimal number.
+     *
+     * @param buf The input
+     * @param off Start of the number in {@code buf}
+     * @param len Length of the number
+     * @return The correctly rounded value
+     * @throws NumberFormatException if the input is not a valid number
+     */
+    public static float parseFloat(char[] buf, int off, int len) throws NumberFormatException {
+        long bits = parseBits(buf, off, len, false);
+        if (bits != FAIL) {
+            return Float.intBitsToFloat((int) bits);
+        }
+        return Float.parseFloat(new String(buf, off, len));
+    }
+
+    /**
+     * Parse the input as {@code digits * 10^exponent} (with at most 19 significant digits) and convert it to IEEE
+     * bits.
+     *
+     * @return The bits, or {@link #FAIL} if this method cannot parse the input (e.g. NaN, or difficult rounding)
+     */
+    private static long parseBits(char[] buf, int off, int len, boolean doublePrecision) {
+        int i = off;
+        int end = off + len;
+        boolean negative = false;
+        if (i < end && buf[i] == '-') {
+            negative = true;
+            i++;
+        }
+        boolean anyDigit = false;
+        int significantDigits = 0;
+        long digits = 0;
+        int exponent = 0;
+        // whether there were non-zero digits beyond the 19 we can fit in a long
+        boolean truncated = false;
+        while (i < end) {
+            int d = buf[i] - '0';
+            if (d < 0 || d > 9) {
+                break;
+            }
+            anyDigit = true;
+            if (significantDigits < MAX_SIGNIFICANT_DIGITS) {
+                digits = digits * 10 + d;
+                if (digits != 0) {
+                    significantDigits++;
+                }
+            } else {
+                truncated |= d != 0;
+                exponent++;
+            }
+            i++;
+        }
+        if (i < end && buf[i] == '.') {
+            i++;
+            while (i < end) {
+                int d = buf[i] - '0';
+                if (d < 0 || d > 9) {
+                    break;
+                }
+                anyDigit = true;
+                if (significantDigits < MAX_SIGNIFICANT_DIGITS) {
+                    digits = digits * 10 + d;
+                    if (digits != 0) {
+                        significantDigits++;
+                    }
+                    exponent--;
+                } else {
+                    truncated |= d != 0;
+                }
+                i++;
+            }
+        }
+        if (!anyDigit) {
+            return FAIL;
+        }
+        if (i < end && (buf[i] == 'e' || buf[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (buf[i] == '-' || buf[i] == '+')) {
+                negativeExponent = buf[i] == '-';
+                i++;
+            }
+            if (i == end) {
+                return FAIL;
+            }
+            int explicitExponent = 0;
+            while (i < end) {
+                int d = buf[i] - '0';
+                if (d < 0 || d > 9) {
+                    return FAIL;
+                }
+                if (explicitExponent < 100_000) {
+                    explicitExponent = explicitExponent * 10 + d;
+                }
+                i++;
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (i != end) {
+            return FAIL;
+        }
+
+        long signBit = negative ? 1L << (doublePrecision ? 63 : 31) : 0;
+        if (digits == 0) {
+            return signBit;
+        }
+        if (!truncated) {
+            // Clinger's fast path: both the significand and the power of ten are exact
+            if (doublePrecision) {
+                if (exponent >= -22 && exponent <= 22 && Long.compareUnsigned(digits, 1L << 53) <= 0) {
+                    double v = digits;
+                    v = exponent < 0 ? v / EXACT_POW10[-exponent] : v * EXACT_POW10[exponent];
+                    return Double.doubleToRawLongBits(v) | signBit;
+                }
+            } else {
+                if (exponent >= -10 && exponent <= 10 && Long.compareUnsigned(digits, 1L << 24) <= 0) {
+                    float v = digits;
+                    v = exponent < 0 ? v / EXACT_POW10_FLOAT[-exponent] : v * EXACT_POW10_FLOAT[exponent];
+                    return Float.floatToRawIntBits(v) | signBit;
+                }
+            }
+        }
+        int explicitBits = doublePrecision ? 52 : 23;
+        int exponentBiasP1 = doublePrecision ? 1024 : 128;
+        long bits = eiselLemire(digits, exponent, explicitBits, exponentBiasP1);
+        if (bits == FAIL) {
+            return FAIL;
+        }
+        // the actual significand is somewhere between digits and digits + 1. If both round the same, we're done
+        if (truncated && eiselLemire(digits + 1, exponent, explicitBits, exponentBiasP1) != bits) {
+            return FAIL;
+        }
+        return bits | signBit;
+    }
+
+    /**
+     * Eisel-Lemire algorithm, see "Number Parsing at a Gigabyte per Second" (Daniel Lemire, 2021).
+     *
+     * @param explicitBits   Number of explicitly stored significand bits of the target type (52 or 23)
+     * @param exponentBiasP1 Exponent bias of the target type, plus one
+     * @return The unsigned bits of {@code w * 10^q}, or {@link #FAIL}
+     */
+    private static long eiselLemire(long w, int q, int explicitBits, int exponentBiasP1) {
+        if (q < Q_MIN || q > Q_MAX) {
+            return FAIL;
+        }
+        long precisionMask = 0xFFFFFFFFFFFFFFFFL >>> (explicitBits + 3);
+        int exponent = (((152170 + 65536) * q) >> 16) + exponentBiasP1 + 63;
+        int lz = Long.numberOfLeadingZeros(w);
+        w <<= lz;
+
+        long factorHigh = POW10_HIGH[q - Q_MIN];
+        long lower = w * factorHigh;
+        long upper = DoubleToDecimal.unsignedMultiplyHigh(w, factorHigh);
+        if ((upper & precisionMask) == precisionMask && Long.compareUnsigned(lower + w, lower) < 0) {
+            // the first product may be off by one in the bits we care about, extend to 192 bits
+            long factorLow = POW10_LOW[q - Q_MIN];
+            long productLow = w * factorLow;
+            long productMiddle2 = DoubleToDecimal.unsignedMultiplyHigh(w, factorLow);
+            long productMiddle = lower + productMiddle2;
+            if (Long.compareUnsigned(productMiddle, lower) < 0) {
+                upper++;
+            }
+            if (productMiddle + 1 == 0 && (upper & precisionMask) == precisionMask && Long.compareUnsigned(productLow + w, productLow) < 0) {
+                return FAIL;
+            }
+            lower = productMiddle;
+        }
+
+        long upperBit = upper >>> 63;
+        long mantissa = upper >>> (upperBit + 64 - explicitBits - 3);
+        lz += (int) (1 ^ upperBit);
+        if (lower == 0 && (upper & precisionMask) == 0 && (mantissa & 3) == 1) {
+            // exactly between two values, can't decide round-to-even here
+            return FAIL;
+        }
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= 1L << (explicitBits + 1)) {
+            mantissa = 1L << explicitBits;
+            lz--;
+        }
+        mantissa &= ~(1L << explicitBits);
+        long realExponent = exponent - lz;
+        if (realExponent < 1 || realExponent > exponentBiasP1 * 2 - 2) {
+            // subnormal or overflow
+            return FAIL;
+        }
+        return mantissa | realExponent << explicitBits;
+    }
+}
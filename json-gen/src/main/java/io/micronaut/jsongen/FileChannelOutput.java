@@ -0,0 +1,177 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link OutputStream} that collects output in a large direct buffer and writes it to a {@link FileChannel}, for bulk
+ * exports through a {@link com.fasterxml.jackson.core.JsonGenerator} or {@link NdjsonWriter}. Writing from a direct
+ * buffer avoids the temporary copy the JDK makes for channel writes from heap buffers.
+ * <p>
+ * When the buffer is written out on {@link #flush()} and when the file content is forced to the storage device is
+ * controlled by {@link FlushPolicy} and {@link ForcePolicy}.
+ */
+public final class FileChannelOutput extends OutputStream {
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    private final FileChannel channel;
+    private final boolean closeChannel;
+    private final ByteBuffer buffer;
+    private final FlushPolicy flushPolicy;
+    private final ForcePolicy forcePolicy;
+    private boolean closed = false;
+
+    private FileChannelOutput(FileChannel channel, boolean closeChannel, int bufferSize, FlushPolicy flushPolicy, ForcePolicy forcePolicy) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
+        this.channel = channel;
+        this.closeChannel = closeChannel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.flushPolicy = flushPolicy;
+        this.forcePolicy = forcePolicy;
+    }
+
+    /**
+     * Write to the given channel, at its current position. The channel is not closed by {@link #close()}.
+     */
+    public FileChannelOutput(FileChannel channel, int bufferSize, FlushPolicy flushPolicy, ForcePolicy forcePolicy) {
+        this(channel, false, bufferSize, flushPolicy, forcePolicy);
+    }
+
+    /**
+     * Create or truncate the given file. The file is closed by {@link #close()}.
+     */
+    public static FileChannelOutput create(Path path, int bufferSize, FlushPolicy flushPolicy, ForcePolicy forcePolicy) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            return new FileChannelOutput(channel, true, bufferSize, flushPolicy, forcePolicy);
+        } catch (RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Create or truncate the given file, with a 1MiB buffer, writing only when the buffer is full and never forcing.
+     */
+    public static FileChannelOutput create(Path path) throws IOException {
+        return create(path, DEFAULT_BUFFER_SIZE, FlushPolicy.WHEN_FULL, ForcePolicy.NEVER);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.put(b, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (flushPolicy == FlushPolicy.WRITE_THROUGH) {
+            drain();
+            if (forcePolicy == ForcePolicy.ON_FLUSH) {
+                channel.force(false);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            drain();
+            if (forcePolicy != ForcePolicy.NEVER) {
+                channel.force(false);
+            }
+        } finally {
+            if (closeChannel) {
+                channel.close();
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    /**
+     * What {@link #flush()} does.
+     */
+    public enum FlushPolicy {
+        /**
+         * Write the buffered output to the channel.
+         */
+        WRITE_THROUGH,
+        /**
+         * Ignore flushes, only write when the buffer is full or on close. Generators flush on close, and some
+         * callers flush after every value, which would defeat the buffer.
+         */
+        WHEN_FULL
+    }
+
+    /**
+     * When to force the file content to the storage device with {@link FileChannel#force}. Metadata is not forced.
+     */
+    public enum ForcePolicy {
+        NEVER,
+        /**
+         * On close, after the remaining output has been written.
+         */
+        ON_CLOSE,
+        /**
+         * On close, and on every {@link #flush()} with {@link FlushPolicy#WRITE_THROUGH}.
+         */
+        ON_FLUSH
+    }
+}
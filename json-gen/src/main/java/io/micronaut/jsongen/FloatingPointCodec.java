@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.micronaut.core.annotation.Internal;
+
+import java.io.IOException;
+
+/**
+ * Floating point encoding and decoding for generated serializers. Replaces {@link JsonGenerator#writeNumber(double)}
+ * and {@link JsonParser#getDoubleValue()}, which go through {@link Double#toString} and {@link Double#parseDouble}.
+ */
+@Internal
+public final class FloatingPointCodec {
+    private FloatingPointCodec() {
+    }
+
+    public static void writeDouble(JsonGenerator encoder, double value) throws IOException {
+        if (!Double.isFinite(value)) {
+            // let jackson decide how to represent these
+            encoder.writeNumber(value);
+            return;
+        }
+        // writeNumber copies the digits right away, so the buffer only lives for this call. Unlike a buffer per
+        // thread, that keeps no memory around for idle (virtual) threads
+        char[] buf = new char[DoubleToDecimal.MAX_CHARS];
+        int len = DoubleToDecimal.toChars(value, buf, 0);
+        encoder.writeNumber(buf, 0, len);
+    }
+
+    public static void writeFloat(JsonGenerator encoder, float value) throws IOException {
+        if (!Float.isFinite(value)) {
+            encoder.writeNumber(value);
+            return;
+        }
+        char[] buf = new char[DoubleToDecimal.MAX_CHARS];
+        int len = DoubleToDecimal.toChars(value, buf, 0);
+        encoder.writeNumber(buf, 0, len);
+    }
+
+    /**
+     * Read the current number token as a double. The token type must already have been checked.
+     */
+    public static double readDouble(JsonParser decoder) throws IOException {
+        if (decoder.currentToken() == JsonToken.VALUE_NUMBER_FLOAT) {
+            try {
+                return FastDoubleParser.parseDouble(decoder.getTextCharacters(), decoder.getTextOffset(), decoder.getTextLength());
+            } catch (NumberFormatException ignored) {
+                // non-standard number syntax, e.g. NaN. Jackson knows what to do
+            }
+        }
+        return decoder.getDoubleValue();
+    }
+
+    /**
+     * Read the current number token as a float. The token type must already have been checked.
+     */
+    public static float readFloat(JsonParser decoder) throws IOException {
+        if (decoder.currentToken() == JsonToken.VALUE_NUMBER_FLOAT) {
+            try {
+                return FastDoubleParser.parseFloat(decoder.getTextCharacters(), decoder.getTextOffset(), decoder.getTextLength());
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return decoder.getFloatValue();
+    }
+}
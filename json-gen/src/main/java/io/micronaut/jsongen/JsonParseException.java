@@ -33,6 +33,20 @@ public final class JsonParseException extends JacksonException {
         return new JsonParseException(msg, null, parser, parser.getCurrentLocation());
     }
 
+    /**
+     * For unchecked exceptions thrown while deserializing, e.g. by hand-written serializers.
+     */
+    static JsonParseException from(JsonParser parser, String msg, Throwable cause) {
+        return new JsonParseException(msg, cause, parser, parser.getCurrentLocation());
+    }
+
+    /**
+     * For errors found by code that does not go through a {@link JsonParser}.
+     */
+    static JsonParseException from(JsonLocation location, String msg) {
+        return new JsonParseException(msg, null, null, location);
+    }
+
     @Override
     public JsonLocation getLocation() {
         return location;
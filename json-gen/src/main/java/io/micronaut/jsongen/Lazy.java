@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.core.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A property value that is only deserialized when it is first accessed. Generated deserializers keep the serialized
+ * form of the value, and bind it with the serializer of {@code T} on the first {@link #get()}. A value that was never
+ * accessed is written back as it was read, without going through the serializer.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @param <T> The type of the value
+ */
+public final class Lazy<T> {
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    @Nullable
+    private byte[] raw;
+    @Nullable
+    private Serializer<T> serializer;
+    private T value;
+
+    private Lazy(@Nullable byte[] raw, @Nullable Serializer<T> serializer, T value) {
+        this.raw = raw;
+        this.serializer = serializer;
+        this.value = value;
+    }
+
+    /**
+     * @return A lazy value that is already resolved to the given value
+     */
+    public static <T> Lazy<T> of(T value) {
+        return new Lazy<>(null, null, value);
+    }
+
+    /**
+     * Create a lazy value from its serialized form. Used by generated code.
+     *
+     * @param raw        The UTF-8 encoded JSON value
+     * @param serializer The serializer to bind the value with on first access
+     */
+    @Internal
+    public static <T> Lazy<T> ofRaw(byte[] raw, Serializer<T> serializer) {
+        return new Lazy<>(raw, serializer, null);
+    }
+
+    /**
+     * Get the value, deserializing it if this is the first access.
+     *
+     * @throws UncheckedIOException if the value could not be deserialized
+     */
+    public T get() {
+        if (raw != null) {
+            try (JsonParser parser = FACTORY.createParser(raw)) {
+                parser.nextToken();
+                value = serializer.deserialize(parser);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            raw = null;
+            serializer = null;
+        }
+        return value;
+    }
+
+    /**
+     * @return Whether the value has been deserialized already, or was never serialized in the first place
+     */
+    public boolean isResolved() {
+        return raw == null;
+    }
+
+    /**
+     * Write this value. If it was never accessed, the original serialized form is written as-is. Used by generated
+     * code.
+     *
+     * @param encoder    The generator to write to
+     * @param serializer The serializer to use for resolved values
+     */
+    @Internal
+    public void serialize(JsonGenerator encoder, Serializer<T> serializer) throws IOException {
+        if (raw != null) {
+            encoder.writeRawValue(new RawUtf8String(raw, raw.length));
+        } else {
+            serializer.serialize(encoder, value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return raw != null ? "Lazy[unresolved]" : "Lazy[" + value + "]";
+    }
+}
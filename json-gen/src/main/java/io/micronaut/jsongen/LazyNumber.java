@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * A number that is kept in its JSON text form until it is used, see {@link UntypedCodec}. This avoids the cost of
+ * parsing (and the risk of very long inputs) for big numbers that are only passed through.
+ */
+public final class LazyNumber extends Number {
+    private static final long serialVersionUID = 1L;
+
+    private final String text;
+
+    public LazyNumber(String text) {
+        this.text = text;
+    }
+
+    /**
+     * @return The exact value as a {@link BigInteger}, if this is an integer
+     * @throws NumberFormatException if this is not an integer
+     */
+    public BigInteger bigIntegerValue() {
+        return new BigInteger(text);
+    }
+
+    /**
+     * @return The exact value as a {@link BigDecimal}
+     */
+    public BigDecimal bigDecimalValue() {
+        return new BigDecimal(text);
+    }
+
+    @Override
+    public int intValue() {
+        return bigDecimalValue().intValue();
+    }
+
+    @Override
+    public long longValue() {
+        return bigDecimalValue().longValue();
+    }
+
+    @Override
+    public float floatValue() {
+        return Float.parseFloat(text);
+    }
+
+    @Override
+    public double doubleValue() {
+        return Double.parseDouble(text);
+    }
+
+    /**
+     * @return The JSON text of this number
+     */
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof LazyNumber && ((LazyNumber) o).text.equals(text);
+    }
+
+    @Override
+    public int hashCode() {
+        return text.hashCode();
+    }
+}
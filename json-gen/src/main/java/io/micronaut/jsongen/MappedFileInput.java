@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link InputStream} over a memory-mapped file, for bulk imports with {@link ArrayElementReader} or
+ * {@link NdjsonReader}. The file is mapped one region at a time, so files larger than 2GB are supported. Reads are
+ * bulk copies from the mapping straight into the parser buffer, without the intermediate buffers of
+ * {@link java.io.FileInputStream} / {@link java.io.BufferedInputStream}.
+ * <p>
+ * Mappings are released by the garbage collector, not on {@link #close()}.
+ */
+public final class MappedFileInput extends InputStream {
+    private static final long DEFAULT_REGION_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final boolean closeChannel;
+    private final long end;
+    private final long regionSize;
+
+    /**
+     * File position of the start of {@link #region}.
+     */
+    private long regionStart;
+    private MappedByteBuffer region;
+
+    private MappedFileInput(FileChannel channel, long position, long size, long regionSize, boolean closeChannel) {
+        if (regionSize <= 0 || regionSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Region size must be between 1 and 2^31-1");
+        }
+        this.channel = channel;
+        this.closeChannel = closeChannel;
+        this.end = position + size;
+        this.regionSize = regionSize;
+        this.regionStart = position;
+    }
+
+    /**
+     * Map {@code size} bytes of the given channel starting at {@code position}. The channel is not closed by
+     * {@link #close()}.
+     *
+     * @param regionSize Maximum size of a single mapping
+     */
+    public MappedFileInput(FileChannel channel, long position, long size, long regionSize) {
+        this(channel, position, size, regionSize, false);
+    }
+
+    /**
+     * Map the whole file. The file is closed by {@link #close()}.
+     */
+    public static MappedFileInput open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new MappedFileInput(channel, 0, channel.size(), DEFAULT_REGION_SIZE, true);
+        } catch (RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return Whether there are bytes left, mapping the next region if necessary
+     */
+    private boolean ensureRegion() throws IOException {
+        if (region != null) {
+            if (region.hasRemaining()) {
+                return true;
+            }
+            regionStart += region.capacity();
+            region = null;
+        }
+        if (regionStart >= end) {
+            return false;
+        }
+        region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, Math.min(regionSize, end - regionStart));
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureRegion()) {
+            return -1;
+        }
+        return region.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureRegion()) {
+            return -1;
+        }
+        int n = Math.min(len, region.remaining());
+        region.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        long position = regionStart + (region == null ? 0 : region.position());
+        long skipped = Math.min(n, end - position);
+        if (region != null && skipped <= region.remaining()) {
+            region.position(region.position() + (int) skipped);
+        } else {
+            // the target is in another region, map it on the next read
+            regionStart = position + skipped;
+            region = null;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        long position = regionStart + (region == null ? 0 : region.position());
+        return (int) Math.min(Integer.MAX_VALUE, end - position);
+    }
+
+    @Override
+    public void close() throws IOException {
+        region = null;
+        regionStart = end;
+        if (closeChannel) {
+            channel.close();
+        }
+    }
+}
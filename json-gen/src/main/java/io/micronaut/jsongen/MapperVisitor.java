@@ -15,6 +15,7 @@
  */
 package io.micronaut.jsongen;
 
+import com.squareup.javapoet.JavaFile;
 import io.micronaut.annotation.processing.visitor.JavaVisitorContext;
 import io.micronaut.core.annotation.NonNull;
 import io.micronaut.inject.ast.ClassElement;
@@ -31,12 +32,19 @@ import javax.tools.JavaFileObject;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.util.Arrays;
 
 public class MapperVisitor implements TypeElementVisitor<SerializableBean, SerializableBean> {
     @Override
     public void visitClass(ClassElement element, VisitorContext context) {
         SerializerLinker linker = new SerializerLinker(context);
         InlineBeanSerializerSymbol inlineBeanSerializer = linker.inlineBean;
+        // inline beans are only checked when another bean uses them, so this has to be reported here
+        if (element.booleanValue(SerializableBean.class, "inline").orElse(false) &&
+                element.intValue(SerializableBean.class, "outputCacheSize").orElse(0) > 0) {
+            context.fail("Output caching is not supported for inline beans", element);
+            return;
+        }
         if (!inlineBeanSerializer.canSerializeStandalone(element)) {
             return;
         }
@@ -53,13 +61,14 @@ public class MapperVisitor implements TypeElementVisitor<SerializableBean, Seria
             return;
         }
 
-        // todo: gen serviceloader
         // todo: support groovy/kt
         Filer filer = ((JavaVisitorContext) context).getProcessingEnv().getFiler();
         try {
-            JavaFileObject sourceFile = filer.createSourceFile(generationResult.getSerializerClassName().reflectionName());
-            try (Writer writer = sourceFile.openWriter()) {
-                generationResult.getGeneratedFile().writeTo(writer);
+            for (JavaFile file : Arrays.asList(generationResult.getGeneratedFile(), generationResult.getProviderFile())) {
+                JavaFileObject sourceFile = filer.createSourceFile(file.packageName + "." + file.typeSpec.name);
+                try (Writer writer = sourceFile.openWriter()) {
+                    file.writeTo(writer);
+                }
             }
         } catch (IOException e) {
             throw new UncheckedIOException(e);
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Parallel reader for newline-delimited JSON (NDJSON / JSON Lines). The input is split into blocks of whole lines,
+ * which are deserialized concurrently on a {@link ForkJoinPool}. Only a bounded number of blocks is in flight at a
+ * time, so memory use does not depend on the input size.
+ * <p>
+ * Instances are immutable and thread-safe.
+ *
+ * @param <T> The record type
+ */
+public final class NdjsonReader<T> {
+    private static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    private final JsonFactory factory;
+    private final Serializer<T> serializer;
+    private final ForkJoinPool pool;
+    private final int blockSize;
+    private final boolean ordered;
+    private final ErrorHandler errorHandler;
+
+    private NdjsonReader(JsonFactory factory, Serializer<T> serializer, ForkJoinPool pool, int blockSize, boolean ordered, ErrorHandler errorHandler) {
+        this.factory = factory;
+        this.serializer = serializer;
+        this.pool = pool;
+        this.blockSize = blockSize;
+        this.ordered = ordered;
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Create a reader with default settings: the common pool, 1MiB blocks, ordered output, and failing on the first
+     * bad line.
+     */
+    public NdjsonReader(JsonFactory factory, Serializer<T> serializer) {
+        this(factory, serializer, ForkJoinPool.commonPool(), DEFAULT_BLOCK_SIZE, true, ErrorHandler.FAIL);
+    }
+
+    public NdjsonReader<T> withPool(ForkJoinPool pool) {
+        return new NdjsonReader<>(factory, serializer, pool, blockSize, ordered, errorHandler);
+    }
+
+    /**
+     * @param blockSize Approximate number of bytes per parallel task. Lines longer than this are not split
+     */
+    public NdjsonReader<T> withBlockSize(int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        return new NdjsonReader<>(factory, serializer, pool, blockSize, ordered, errorHandler);
+    }
+
+    /**
+     * @param ordered If {@code true} (the default), records are passed to the consumer in input order, from the
+     *                calling thread. If {@code false}, records are passed to the consumer as soon as they are
+     *                deserialized, concurrently from the pool threads
+     */
+    public NdjsonReader<T> withOrdered(boolean ordered) {
+        return new NdjsonReader<>(factory, serializer, pool, blockSize, ordered, errorHandler);
+    }
+
+    public NdjsonReader<T> withErrorHandler(ErrorHandler errorHandler) {
+        return new NdjsonReader<>(factory, serializer, pool, blockSize, ordered, errorHandler);
+    }
+
+    /**
+     * Read all records from the given stream. Blank lines are ignored. The stream is not closed.
+     *
+     * @param input    The input
+     * @param consumer The consumer for deserialized records. Must be thread-safe if this reader is not ordered
+     * @throws IOException if reading fails, or a line fails to deserialize and the {@link ErrorHandler} rethrows
+     */
+    public void read(InputStream input, Consumer<? super T> consumer) throws IOException {
+        int maxInFlight = Math.max(2, pool.getParallelism() * 2);
+        ArrayDeque<CompletableFuture<List<T>>> inFlight = new ArrayDeque<>();
+        try {
+            byte[] carry = new byte[0];
+            long carryOffset = 0;
+            boolean eof = false;
+            while (!eof) {
+                byte[] block = Arrays.copyOf(carry, carry.length + blockSize);
+                int end = carry.length;
+                // the carry is the tail after the last line break, so it does not need to be searched again
+                int scanned = carry.length;
+                int cut;
+                while (true) {
+                    while (end < block.length) {
+                        int n = input.read(block, end, block.length - end);
+                        if (n == -1) {
+                            eof = true;
+                            break;
+                        }
+                        end += n;
+                    }
+                    cut = eof ? end : lastNewline(block, scanned, end) + 1;
+                    if (cut != 0 || eof) {
+                        break;
+                    }
+                    // no line break yet. Grow geometrically, so that a long line is copied O(log n) times
+                    if (block.length > Integer.MAX_VALUE / 2) {
+                        throw new IOException("Line at offset " + carryOffset + " is too long");
+                    }
+                    scanned = end;
+                    block = Arrays.copyOf(block, block.length * 2);
+                }
+                if (cut == 0) {
+                    // empty input
+                    continue;
+                }
+                byte[] fullBlock = block;
+                if (inFlight.size() >= maxInFlight) {
+                    drain(inFlight.poll(), consumer);
+                }
+                long blockOffset = carryOffset;
+                int blockEnd = cut;
+                inFlight.add(ParallelTasks.supplyAsync(() -> parseBlock(fullBlock, blockEnd, blockOffset, consumer), pool));
+                carry = Arrays.copyOfRange(block, cut, end);
+                carryOffset += cut;
+            }
+            while (!inFlight.isEmpty()) {
+                drain(inFlight.poll(), consumer);
+            }
+        } finally {
+            // on failure, don't leave tasks running in the background
+            for (CompletableFuture<List<T>> task : inFlight) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    private void drain(CompletableFuture<List<T>> task, Consumer<? super T> consumer) throws IOException {
+        for (T record : ParallelTasks.join(task)) {
+            consumer.accept(record);
+        }
+    }
+
+    private List<T> parseBlock(byte[] block, int end, long blockOffset, Consumer<? super T> consumer) throws IOException {
+        List<T> records = ordered ? new ArrayList<>() : Collections.emptyList();
+        ByteScanner scanner = ByteScanner.getInstance();
+        int lineStart = 0;
+        while (lineStart < end) {
+            int lineEnd = scanner.indexOf(block, lineStart, end, (byte) '\n');
+            T record;
+            boolean present;
+            try (JsonParser parser = factory.createParser(block, lineStart, lineEnd - lineStart)) {
+                try {
+                    present = parser.nextToken() != null;
+                    if (present) {
+                        record = serializer.deserialize(parser);
+                        if (parser.nextToken() != null) {
+                            throw JsonParseException.from(parser, "Unexpected content after record");
+                        }
+                    } else {
+                        record = null;
+                    }
+                } catch (RuntimeException e) {
+                    // e.g. from a hand-written serializer. Still only this line is bad
+                    throw JsonParseException.from(parser, "Failed to deserialize record: " + e, e);
+                }
+            } catch (IOException e) {
+                errorHandler.onError(blockOffset + lineStart, e);
+                present = false;
+                record = null;
+            }
+            if (present) {
+                if (ordered) {
+                    records.add(record);
+                } else {
+                    consumer.accept(record);
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return records;
+    }
+
+    private static int lastNewline(byte[] buf, int from, int end) {
+        for (int i = end - 1; i >= from; i--) {
+            if (buf[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decides what happens with lines that fail to deserialize.
+     */
+    @FunctionalInterface
+    public interface ErrorHandler {
+        /**
+         * Rethrow the error, aborting the read.
+         */
+        ErrorHandler FAIL = (offset, error) -> {
+            throw error;
+        };
+        /**
+         * Skip bad lines.
+         */
+        ErrorHandler SKIP = (offset, error) -> {
+        };
+
+        /**
+         * Called for every line that fails to deserialize. May be called concurrently from pool threads.
+         *
+         * @param offset Byte offset of the start of the line in the input
+         * @param error  The error. Unchecked exceptions from the serializer are wrapped in a
+         *               {@link JsonParseException}
+         * @throws IOException to abort the read
+         */
+        void onError(long offset, IOException error) throws IOException;
+    }
+}
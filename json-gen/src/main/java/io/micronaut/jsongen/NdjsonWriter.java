@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Parallel writer for newline-delimited JSON (NDJSON / JSON Lines). Records are grouped into batches, each batch is
+ * serialized into its own buffer on a {@link ForkJoinPool}, and the buffers are written to the output in order. Only a
+ * bounded number of batches is in flight at a time.
+ * <p>
+ * Instances are immutable and thread-safe.
+ *
+ * @param <T> The record type
+ */
+public final class NdjsonWriter<T> {
+    private static final int DEFAULT_BATCH_SIZE = 1024;
+
+    private final JsonFactory factory;
+    private final Serializer<T> serializer;
+    private final ForkJoinPool pool;
+    private final int batchSize;
+
+    private NdjsonWriter(JsonFactory factory, Serializer<T> serializer, ForkJoinPool pool, int batchSize) {
+        this.factory = factory;
+        this.serializer = serializer;
+        this.pool = pool;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Create a writer with default settings: the common pool, and 1024 records per batch.
+     */
+    public NdjsonWriter(JsonFactory factory, Serializer<T> serializer) {
+        this(factory, serializer, ForkJoinPool.commonPool(), DEFAULT_BATCH_SIZE);
+    }
+
+    public NdjsonWriter<T> withPool(ForkJoinPool pool) {
+        return new NdjsonWriter<>(factory, serializer, pool, batchSize);
+    }
+
+    /**
+     * @param batchSize Number of records per parallel task
+     */
+    public NdjsonWriter<T> withBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        return new NdjsonWriter<>(factory, serializer, pool, batchSize);
+    }
+
+    /**
+     * Write the given records, each followed by a line break. The output is not closed.
+     */
+    public void write(OutputStream output, Iterable<? extends T> records) throws IOException {
+        write(output, records.iterator());
+    }
+
+    /**
+     * Write the given records, each followed by a line break. The output is not closed. The iterator is only
+     * consumed from the calling thread.
+     */
+    public void write(OutputStream output, Iterator<? extends T> records) throws IOException {
+        int maxInFlight = Math.max(2, pool.getParallelism() * 2);
+        ArrayDeque<CompletableFuture<ByteArrayOutputStream>> inFlight = new ArrayDeque<>();
+        try {
+            while (records.hasNext()) {
+                List<T> batch = new ArrayList<>(batchSize);
+                while (batch.size() < batchSize && records.hasNext()) {
+                    batch.add(records.next());
+                }
+                if (inFlight.size() >= maxInFlight) {
+                    // writeTo does not copy the buffer
+                    ParallelTasks.join(inFlight.poll()).writeTo(output);
+                }
+                inFlight.add(ParallelTasks.supplyAsync(() -> serializeBatch(batch), pool));
+            }
+            while (!inFlight.isEmpty()) {
+                ParallelTasks.join(inFlight.poll()).writeTo(output);
+            }
+        } finally {
+            for (CompletableFuture<ByteArrayOutputStream> task : inFlight) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    private ByteArrayOutputStream serializeBatch(List<T> batch) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+        try (JsonGenerator generator = factory.createGenerator(buffer)) {
+            // we write our own line breaks
+            generator.setRootValueSeparator(null);
+            for (T record : batch) {
+                serializer.serialize(generator, record);
+                generator.writeRaw('\n');
+            }
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Deserializes a single value from input that arrives in chunks, without blocking and without buffering the full
+ * input. Chunks are passed to {@link #feed}, which parses as far as possible using jackson's non-blocking parser and
+ * returns once the chunk is exhausted. Progress is kept in a stack of {@link DeserializationFrame}s, so memory use is
+ * proportional to the nesting depth of the input (plus the raw input of values whose serializer does not implement
+ * {@link ResumableDeserializer}).
+ * <p>
+ * Instances are not thread-safe, but may be fed from different threads one after another.
+ *
+ * @param <T> The deserialized type
+ */
+public final class NonBlockingDeserializer<T> {
+    private final JsonFactory factory;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final ArrayDeque<DeserializationFrame<?>> stack = new ArrayDeque<>();
+
+    private boolean complete = false;
+    private T result;
+
+    /**
+     * The chunk currently being parsed, for {@link #startCapture()}.
+     */
+    private byte[] chunk;
+    private int chunkEnd;
+    /**
+     * Input offset of {@code chunk[0]}.
+     */
+    private long chunkBase;
+
+    private ByteArrayBuilder capture;
+    private long captureStart;
+
+    private NonBlockingDeserializer(JsonFactory factory, DeserializationFrame<T> rootFrame) throws IOException {
+        this.factory = factory;
+        this.parser = factory.createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        stack.push(rootFrame);
+    }
+
+    public static <T> NonBlockingDeserializer<T> create(JsonFactory factory, Serializer<T> serializer) throws IOException {
+        return new NonBlockingDeserializer<>(factory, DeserializationFrame.forSerializer(serializer));
+    }
+
+    /**
+     * Parse the next chunk of input. The chunk is not retained after this method returns.
+     *
+     * @return {@code true} iff the value is complete. Any further input is ignored
+     */
+    public boolean feed(byte[] data, int off, int len) throws IOException {
+        if (complete) {
+            return true;
+        }
+        feeder.feedInput(data, off, off + len);
+        chunk = data;
+        chunkEnd = off + len;
+        chunkBase = parser.getCurrentLocation().getByteOffset() - off;
+        if (capture != null) {
+            capture.write(data, off, len);
+        }
+        try {
+            advance();
+        } finally {
+            chunk = null;
+        }
+        return complete;
+    }
+
+    /**
+     * Signal that there is no more input.
+     *
+     * @throws IOException if the value is not complete yet
+     */
+    public void endOfInput() throws IOException {
+        if (complete) {
+            return;
+        }
+        feeder.endOfInput();
+        advance();
+        if (!complete) {
+            throw JsonParseException.from(parser, "Unexpected end of input");
+        }
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return The deserialized value
+     * @throws IllegalStateException if the value is not complete yet
+     */
+    public T getResult() {
+        if (!complete) {
+            throw new IllegalStateException("Not complete yet");
+        }
+        return result;
+    }
+
+    /**
+     * Push a child frame. Must only be called from {@link DeserializationFrame#onToken}, which must then return
+     * {@code false}. The current token is passed on to the child.
+     */
+    public void push(DeserializationFrame<?> frame) {
+        stack.push(frame);
+    }
+
+    /**
+     * Start buffering raw input, beginning at the current token, which must be {@code START_OBJECT} or
+     * {@code START_ARRAY}.
+     */
+    void startCapture() {
+        if (capture != null) {
+            throw new IllegalStateException("Already capturing");
+        }
+        // the struct start token is one byte, and the location is just after it
+        captureStart = parser.getCurrentLocation().getByteOffset() - 1;
+        capture = new ByteArrayBuilder();
+        int start = (int) (captureStart - chunkBase);
+        capture.write(chunk, start, chunkEnd - start);
+    }
+
+    /**
+     * Stop buffering after the current token, and return a blocking parser over the buffered input, positioned at
+     * the first token.
+     */
+    JsonParser finishCapture() throws IOException {
+        int length = (int) (parser.getCurrentLocation().getByteOffset() - captureStart);
+        byte[] bytes = capture.toByteArray();
+        capture = null;
+        JsonParser captured = factory.createParser(bytes.length == length ? bytes : Arrays.copyOf(bytes, length));
+        captured.nextToken();
+        return captured;
+    }
+
+    private void advance() throws IOException {
+        while (!complete) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.NOT_AVAILABLE || token == null) {
+                return;
+            }
+            dispatch();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void dispatch() throws IOException {
+        DeserializationFrame<?> frame = stack.peek();
+        boolean done = frame.onToken(parser, this);
+        while (true) {
+            DeserializationFrame<?> top = stack.peek();
+            if (top != frame) {
+                // child was pushed, it gets the same token
+                frame = top;
+                done = frame.onToken(parser, this);
+                continue;
+            }
+            if (!done) {
+                return;
+            }
+            stack.pop();
+            DeserializationFrame<?> parent = stack.peek();
+            if (parent == null) {
+                result = (T) frame.getResult();
+                complete = true;
+                parser.close();
+                return;
+            }
+            done = parent.onChildComplete(parser, frame.getResult());
+            frame = parent;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Deserializes the elements of one large in-memory JSON array in parallel. A {@link StructuralIndex} of the element
+ * boundaries is built first, then ranges of elements are deserialized concurrently on a {@link ForkJoinPool}, each
+ * range with one parser, directly into a result array of the right size.
+ * <p>
+ * For input that does not fit in memory, use {@link ArrayElementReader} or NDJSON with {@link NdjsonReader} instead.
+ * <p>
+ * Instances are immutable and thread-safe.
+ *
+ * @param <T> The element type
+ */
+public final class ParallelArrayReader<T> {
+    private static final int DEFAULT_MIN_TASK_SIZE = 64;
+    private static final byte[] OPEN = {'['};
+    private static final byte[] CLOSE = {']'};
+
+    private final JsonFactory factory;
+    private final Serializer<T> serializer;
+    private final ForkJoinPool pool;
+    private final int minTaskSize;
+
+    private ParallelArrayReader(JsonFactory factory, Serializer<T> serializer, ForkJoinPool pool, int minTaskSize) {
+        this.factory = factory;
+        this.serializer = serializer;
+        this.pool = pool;
+        this.minTaskSize = minTaskSize;
+    }
+
+    /**
+     * Create a reader with default settings: the common pool, and at least 64 elements per task.
+     */
+    public ParallelArrayReader(JsonFactory factory, Serializer<T> serializer) {
+        this(factory, serializer, ForkJoinPool.commonPool(), DEFAULT_MIN_TASK_SIZE);
+    }
+
+    public ParallelArrayReader<T> withPool(ForkJoinPool pool) {
+        return new ParallelArrayReader<>(factory, serializer, pool, minTaskSize);
+    }
+
+    /**
+     * @param minTaskSize Minimum number of elements per parallel task. Arrays shorter than this are deserialized on
+     *                    the calling thread
+     */
+    public ParallelArrayReader<T> withMinTaskSize(int minTaskSize) {
+        if (minTaskSize <= 0) {
+            throw new IllegalArgumentException("Task size must be positive");
+        }
+        return new ParallelArrayReader<>(factory, serializer, pool, minTaskSize);
+    }
+
+    /**
+     * Deserialize the array in {@code buf}.
+     *
+     * @return The elements, as a fixed-size list
+     */
+    public List<T> read(byte[] buf) throws IOException {
+        return read(buf, StructuralIndex.scanArray(buf));
+    }
+
+    /**
+     * Deserialize the elements of an array that has already been indexed.
+     *
+     * @param buf   The input the index was built from
+     * @param index The index
+     * @return The elements, as a fixed-size list
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> read(byte[] buf, StructuralIndex index) throws IOException {
+        int size = index.size();
+        Object[] result = new Object[size];
+        int tasks = Math.min(size / minTaskSize, pool.getParallelism() * 4);
+        if (tasks <= 1) {
+            readRange(buf, index, result, 0, size);
+        } else {
+            List<CompletableFuture<Void>> futures = new ArrayList<>(tasks);
+            try {
+                for (int i = 0; i < tasks; i++) {
+                    int from = (int) ((long) size * i / tasks);
+                    int to = (int) ((long) size * (i + 1) / tasks);
+                    futures.add(ParallelTasks.supplyAsync(() -> {
+                        readRange(buf, index, result, from, to);
+                        return null;
+                    }, pool));
+                }
+                for (CompletableFuture<Void> future : futures) {
+                    ParallelTasks.join(future);
+                }
+            } finally {
+                for (CompletableFuture<Void> future : futures) {
+                    future.cancel(false);
+                }
+            }
+        }
+        return Arrays.asList((T[]) result);
+    }
+
+    /**
+     * Deserialize a range of elements with a single parser. The input between the first and the last element of the
+     * range still has the original commas, so it is parsed as an array of its own by putting brackets around it.
+     */
+    private void readRange(byte[] buf, StructuralIndex index, Object[] result, int from, int to) throws IOException {
+        if (from == to) {
+            return;
+        }
+        int start = index.start(from);
+        InputStream input = new SequenceInputStream(Collections.enumeration(Arrays.asList(
+                new ByteArrayInputStream(OPEN),
+                new ByteArrayInputStream(buf, start, index.end(to - 1) - start),
+                new ByteArrayInputStream(CLOSE)
+        )));
+        try (JsonParser parser = factory.createParser(input)) {
+            parser.nextToken();
+            for (int i = from; i < to; i++) {
+                if (parser.nextToken() == JsonToken.END_ARRAY) {
+                    throw JsonParseException.from(parser, "Missing array element " + i);
+                }
+                result[i] = serializer.deserialize(parser);
+            }
+            if (parser.nextToken() != JsonToken.END_ARRAY || parser.nextToken() != null) {
+                throw JsonParseException.from(parser, "Unexpected content after array element " + (to - 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.UTF8JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Opt-in parallel serialization of large lists. Generated serializers check {@link #shouldSplit} for {@code List}
+ * and object array properties whose elements have their own {@link Serializer}. Above the threshold, the list is
+ * split into ranges, each range is serialized into its own buffer on a {@link ForkJoinPool}, and the buffers are
+ * written out in order.
+ * <p>
+ * Disabled by default. Enable with {@link #setThreshold} or the system property {@value #THRESHOLD_PROPERTY}.
+ */
+public final class ParallelSerialization {
+    public static final String THRESHOLD_PROPERTY = "micronaut.jsongen.parallel.threshold";
+
+    private static final int DISABLED = Integer.MAX_VALUE;
+    /**
+     * Ranges smaller than this aren't worth a task.
+     */
+    private static final int MIN_RANGE_SIZE = 256;
+    /**
+     * Ranges larger than this are passed to the output stream of the encoder directly.
+     */
+    private static final int DIRECT_WRITE_SIZE = 8192;
+    private static final JsonFactory RANGE_FACTORY = new JsonFactory();
+
+    private static volatile int threshold = Integer.getInteger(THRESHOLD_PROPERTY, DISABLED);
+    private static volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    private ParallelSerialization() {
+    }
+
+    /**
+     * @param threshold Minimum list size for parallel serialization, or {@link Integer#MAX_VALUE} to disable it
+     */
+    public static void setThreshold(int threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+        ParallelSerialization.threshold = threshold;
+    }
+
+    public static int getThreshold() {
+        return threshold;
+    }
+
+    public static void setPool(ForkJoinPool pool) {
+        ParallelSerialization.pool = pool;
+    }
+
+    /**
+     * Whether a list of the given size should be written with {@link #writeArray(JsonGenerator, List, Serializer)}.
+     * Pretty printed output is always serialized sequentially.
+     */
+    public static boolean shouldSplit(JsonGenerator encoder, int size) {
+        return size >= threshold && encoder.getPrettyPrinter() == null;
+    }
+
+    /**
+     * Write the given list as a JSON array, serializing ranges of elements in parallel. The feature flags and
+     * character escapes of {@code encoder} also apply to the elements.
+     */
+    public static <T> void writeArray(JsonGenerator encoder, List<? extends T> list, Serializer<T> serializer) throws IOException {
+        List<RangeBuffer> ranges = serializeRanges(list, serializer, () -> {
+            RangeBuffer buffer = new RangeBuffer();
+            JsonGenerator generator = RANGE_FACTORY.createGenerator(buffer);
+            for (JsonGenerator.Feature feature : JsonGenerator.Feature.values()) {
+                generator.configure(feature, encoder.isEnabled(feature));
+            }
+            generator.setCharacterEscapes(encoder.getCharacterEscapes());
+            generator.setHighestNonEscapedChar(encoder.getHighestEscapedChar());
+            return generator;
+        });
+        encoder.writeStartArray();
+        Object target = encoder.getOutputTarget();
+        for (RangeBuffer range : ranges) {
+            if (range.size() > DIRECT_WRITE_SIZE && encoder instanceof UTF8JsonGenerator && target instanceof OutputStream) {
+                // the generator copies a raw value that does not fit its buffer into an array of the exact size. To
+                // avoid that, it only writes the first byte (and the separator), the rest goes to the stream directly
+                encoder.writeRawValue(new RawUtf8String(range.buf(), 1));
+                boolean flushStream = encoder.isEnabled(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+                encoder.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+                encoder.flush();
+                encoder.configure(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM, flushStream);
+                ((OutputStream) target).write(range.buf(), 1, range.size() - 1);
+            } else {
+                // the generator adds the separators between ranges
+                encoder.writeRawValue(new RawUtf8String(range.buf(), range.size()));
+            }
+        }
+        encoder.writeEndArray();
+    }
+
+    /**
+     * Write the given list as a JSON array to a channel, serializing ranges of elements in parallel. The range
+     * buffers are passed to the channel in a single gathering write where possible.
+     */
+    public static <T> void writeArray(GatheringByteChannel channel, JsonFactory factory, List<? extends T> list, Serializer<T> serializer) throws IOException {
+        List<RangeBuffer> ranges = serializeRanges(list, serializer, () -> factory.createGenerator(new RangeBuffer()));
+        ByteBuffer[] buffers = new ByteBuffer[ranges.size() * 2 + 1];
+        buffers[0] = ByteBuffer.wrap(new byte[]{'['});
+        for (int i = 0; i < ranges.size(); i++) {
+            RangeBuffer range = ranges.get(i);
+            buffers[i * 2 + 1] = ByteBuffer.wrap(range.buf(), 0, range.size());
+            buffers[i * 2 + 2] = ByteBuffer.wrap(new byte[]{(byte) (i == ranges.size() - 1 ? ']' : ',')});
+        }
+        if (ranges.isEmpty()) {
+            buffers[0] = ByteBuffer.wrap(new byte[]{'[', ']'});
+        }
+        int first = 0;
+        while (first < buffers.length) {
+            channel.write(buffers, first, buffers.length - first);
+            while (first < buffers.length && !buffers[first].hasRemaining()) {
+                first++;
+            }
+        }
+    }
+
+    private static <T> List<RangeBuffer> serializeRanges(List<? extends T> list, Serializer<T> serializer, ParallelTasks.IOSupplier<JsonGenerator> generatorFactory) throws IOException {
+        int size = list.size();
+        ForkJoinPool pool = ParallelSerialization.pool;
+        int rangeCount = Math.max(1, Math.min(pool.getParallelism() * 4, size / MIN_RANGE_SIZE));
+        List<CompletableFuture<RangeBuffer>> futures = new ArrayList<>(rangeCount);
+        try {
+            for (int i = 0; i < rangeCount; i++) {
+                int from = (int) ((long) size * i / rangeCount);
+                int to = (int) ((long) size * (i + 1) / rangeCount);
+                if (from == to) {
+                    continue;
+                }
+                futures.add(ParallelTasks.supplyAsync(() -> {
+                    JsonGenerator generator = generatorFactory.get();
+                    try {
+                        // elements are separated by commas, not the root value separator
+                        generator.setRootValueSeparator(null);
+                        // iterate instead of calling get(j), which is linear for lists without random access
+                        boolean first = true;
+                        for (T item : list.subList(from, to)) {
+                            if (!first) {
+                                generator.writeRaw(',');
+                            }
+                            first = false;
+                            serializer.serialize(generator, item);
+                        }
+                    } finally {
+                        generator.close();
+                    }
+                    return (RangeBuffer) generator.getOutputTarget();
+                }, pool));
+            }
+            List<RangeBuffer> ranges = new ArrayList<>(futures.size());
+            for (CompletableFuture<RangeBuffer> future : futures) {
+                ranges.add(ParallelTasks.join(future));
+            }
+            return ranges;
+        } finally {
+            for (CompletableFuture<RangeBuffer> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Gives access to the buffer without copying.
+     */
+    private static final class RangeBuffer extends ByteArrayOutputStream {
+        RangeBuffer() {
+            super(8192);
+        }
+
+        byte[] buf() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.io.IOContext;
+import com.fasterxml.jackson.core.util.BufferRecycler;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * {@link JsonFactory} with helpers that run a {@link Serializer} on a generator or parser whose buffers come from a
+ * {@link BufferRecyclerPool}. The recycler is acquired when the operation starts and returned when the generator or
+ * parser is closed at the end of the operation, so the pool does not rely on thread-locals.
+ * <p>
+ * The inherited {@code createGenerator} and {@code createParser} methods are not affected and keep using jackson's
+ * thread-local recycling.
+ */
+public class PooledJsonFactory extends JsonFactory {
+    private static final long serialVersionUID = 1L;
+
+    private final BufferRecyclerPool pool;
+
+    public PooledJsonFactory(BufferRecyclerPool pool) {
+        this.pool = pool;
+    }
+
+    public PooledJsonFactory(JsonFactoryBuilder builder, BufferRecyclerPool pool) {
+        super(builder);
+        this.pool = pool;
+    }
+
+    protected PooledJsonFactory(PooledJsonFactory src) {
+        super(src, src.getCodec());
+        this.pool = src.pool;
+    }
+
+    public BufferRecyclerPool getPool() {
+        return pool;
+    }
+
+    @Override
+    public PooledJsonFactory copy() {
+        return new PooledJsonFactory(this);
+    }
+
+    /**
+     * Serialize {@code value} to UTF-8 encoded JSON.
+     */
+    public <T> byte[] writeValueAsBytes(Serializer<? super T> serializer, T value) throws IOException {
+        BufferRecycler recycler = pool.acquire();
+        try {
+            ByteArrayBuilder out = new ByteArrayBuilder(recycler);
+            try {
+                IOContext context = new IOContext(recycler, out, false);
+                context.setEncoding(JsonEncoding.UTF8);
+                try (JsonGenerator generator = _createUTF8Generator(_decorate(out, context), context)) {
+                    serializer.serialize(generator, value);
+                }
+                return out.toByteArray();
+            } finally {
+                out.release();
+            }
+        } finally {
+            pool.release(recycler);
+        }
+    }
+
+    /**
+     * Serialize {@code value} as UTF-8 encoded JSON to {@code out}. Like {@link #createGenerator(OutputStream)}, the
+     * stream is closed afterwards if {@link JsonGenerator.Feature#AUTO_CLOSE_TARGET} is enabled.
+     */
+    public <T> void writeValue(OutputStream out, Serializer<? super T> serializer, T value) throws IOException {
+        BufferRecycler recycler = pool.acquire();
+        try {
+            IOContext context = new IOContext(recycler, out, false);
+            context.setEncoding(JsonEncoding.UTF8);
+            try (JsonGenerator generator = _createUTF8Generator(_decorate(out, context), context)) {
+                serializer.serialize(generator, value);
+            }
+        } finally {
+            pool.release(recycler);
+        }
+    }
+
+    public <T> T readValue(Serializer<? extends T> serializer, byte[] data) throws IOException {
+        return readValue(serializer, data, 0, data.length);
+    }
+
+    public <T> T readValue(Serializer<? extends T> serializer, byte[] data, int offset, int len) throws IOException {
+        BufferRecycler recycler = pool.acquire();
+        try {
+            IOContext context = new IOContext(recycler, data, true);
+            JsonParser parser;
+            InputStream decorated = _inputDecorator == null ? null : _inputDecorator.decorate(context, data, offset, len);
+            if (decorated == null) {
+                parser = _createParser(data, offset, len, context);
+            } else {
+                parser = _createParser(decorated, context);
+            }
+            try (JsonParser p = parser) {
+                return readValue(serializer, p);
+            }
+        } finally {
+            pool.release(recycler);
+        }
+    }
+
+    /**
+     * Deserialize a value from {@code in}. Like {@link #createParser(InputStream)}, the stream is closed afterwards
+     * if {@link JsonParser.Feature#AUTO_CLOSE_SOURCE} is enabled.
+     */
+    public <T> T readValue(Serializer<? extends T> serializer, InputStream in) throws IOException {
+        BufferRecycler recycler = pool.acquire();
+        try {
+            IOContext context = new IOContext(recycler, in, false);
+            try (JsonParser parser = _createParser(_decorate(in, context), context)) {
+                return readValue(serializer, parser);
+            }
+        } finally {
+            pool.release(recycler);
+        }
+    }
+
+    private static <T> T readValue(Serializer<? extends T> serializer, JsonParser parser) throws IOException {
+        parser.nextToken(); // place parser at first token
+        return serializer.deserialize(parser);
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+/**
+ * Implemented by generated serializers of {@link SerializableBean#projection() projection} beans.
+ *
+ * @param <T> The projection type
+ */
+public interface ProjectionDeserializer<T> {
+    /**
+     * Like {@link Serializer#deserialize}, but returns as soon as all properties of the projection have been read. The
+     * remainder of the object is not parsed, and the decoder is left at the last token of the last property that was
+     * read. This is meant for extracting a few header fields from a large top-level document, where the rest of the
+     * input is discarded or handed on as raw bytes.
+     * <p>
+     * If a property is missing, the whole object is read and the decoder is left at its end, like with
+     * {@link Serializer#deserialize}. Duplicates of properties after the point where the projection is complete are
+     * not detected.
+     *
+     * @param decoder The decoder, positioned at the start of the object
+     * @return The projection
+     */
+    T deserializeProjection(JsonParser decoder) throws IOException;
+}
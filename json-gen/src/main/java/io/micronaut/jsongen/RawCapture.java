@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import io.micronaut.core.annotation.Internal;
+
+import java.io.IOException;
+
+/**
+ * Copies a single JSON value from a parser into compact UTF-8 bytes, token by token. Number texts are copied as they
+ * are, so no precision is lost, but insignificant whitespace is dropped and strings are re-escaped. Used by generated
+ * code for values that are kept in their serialized form, e.g. {@link Lazy}.
+ */
+@Internal
+public final class RawCapture {
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private final ByteArrayBuilder buffer = new ByteArrayBuilder();
+    private final JsonGenerator generator;
+    private int depth = 0;
+
+    public RawCapture() throws IOException {
+        generator = FACTORY.createGenerator(buffer);
+    }
+
+    /**
+     * Copy the current token of the parser.
+     *
+     * @param parser The parser, positioned at the token to copy. Is not advanced
+     * @return {@code true} iff the value is complete
+     */
+    public boolean copyToken(JsonParser parser) throws IOException {
+        depth += copyToken(parser, generator);
+        return depth == 0;
+    }
+
+    /**
+     * Copy the current token of the parser to the generator.
+     *
+     * @return The change in nesting depth
+     */
+    private static int copyToken(JsonParser parser, JsonGenerator generator) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == null) {
+            throw JsonParseException.from(parser, "Unexpected end of input");
+        }
+        switch (token) {
+            case START_OBJECT:
+                generator.writeStartObject();
+                return 1;
+            case START_ARRAY:
+                generator.writeStartArray();
+                return 1;
+            case END_OBJECT:
+                generator.writeEndObject();
+                return -1;
+            case END_ARRAY:
+                generator.writeEndArray();
+                return -1;
+            case FIELD_NAME:
+                generator.writeFieldName(parser.getCurrentName());
+                break;
+            case VALUE_STRING:
+                generator.writeString(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                break;
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                generator.writeNumber(parser.getText());
+                break;
+            case VALUE_TRUE:
+                generator.writeBoolean(true);
+                break;
+            case VALUE_FALSE:
+                generator.writeBoolean(false);
+                break;
+            case VALUE_NULL:
+                generator.writeNull();
+                break;
+            default:
+                throw JsonParseException.from(parser, "Unexpected token " + token);
+        }
+        return 0;
+    }
+
+    /**
+     * @return The captured bytes. The capture must not be used afterwards
+     */
+    public byte[] toByteArray() throws IOException {
+        generator.close();
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Capture the value at the current position of the parser. Afterwards, the parser is positioned at the last token
+     * of the value.
+     */
+    public static byte[] capture(JsonParser parser) throws IOException {
+        RawCapture capture = new RawCapture();
+        while (!capture.copyToken(parser)) {
+            parser.nextToken();
+        }
+        return capture.toByteArray();
+    }
+
+    /**
+     * Copy the value at the current position of the parser to the generator. Unlike
+     * {@link JsonGenerator#copyCurrentStructure}, number texts are copied as they are. Afterwards, the parser is
+     * positioned at the last token of the value.
+     */
+    public static void copy(JsonParser parser, JsonGenerator generator) throws IOException {
+        int depth = copyToken(parser, generator);
+        while (depth != 0) {
+            parser.nextToken();
+            depth += copyToken(parser, generator);
+        }
+    }
+
+    /**
+     * @return A frame that captures a value during non-blocking deserialization
+     */
+    public static DeserializationFrame<byte[]> newFrame() {
+        return new Frame();
+    }
+
+    private static final class Frame extends DeserializationFrame<byte[]> {
+        private RawCapture capture;
+        private byte[] result;
+
+        @Override
+        public boolean onToken(JsonParser decoder, NonBlockingDeserializer<?> deserializer) throws IOException {
+            if (capture == null) {
+                capture = new RawCapture();
+            }
+            if (capture.copyToken(decoder)) {
+                result = capture.toByteArray();
+                capture = null;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public byte[] getResult() {
+            return result;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micronaut.core.annotation.Internal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * An opaque JSON value, kept in its serialized UTF-8 form. Generated deserializers capture the whole subtree of a
+ * {@code RawJson} property without building a tree model, and generated serializers write it back with
+ * {@link JsonGenerator#writeRawValue}.
+ * <p>
+ * The content is not validated when writing, so a value created with {@link #of} or {@link #ofUtf8} must be a single
+ * well-formed JSON value.
+ */
+public final class RawJson {
+    private final byte[] utf8;
+
+    private RawJson(byte[] utf8) {
+        this.utf8 = utf8;
+    }
+
+    /**
+     * @param json The JSON text of the value
+     * @return The raw value
+     */
+    public static RawJson of(String json) {
+        return new RawJson(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param utf8 The UTF-8 encoded JSON value. The array is not copied and must not be modified afterwards
+     * @return The raw value
+     */
+    public static RawJson ofUtf8(byte[] utf8) {
+        return new RawJson(utf8);
+    }
+
+    /**
+     * @return The UTF-8 encoded JSON value. The array is not copied and must not be modified
+     */
+    public byte[] getUtf8() {
+        return utf8;
+    }
+
+    /**
+     * Write this value. Used by generated code.
+     */
+    @Internal
+    public void serialize(JsonGenerator encoder) throws IOException {
+        encoder.writeRawValue(new RawUtf8String(utf8, utf8.length));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof RawJson && Arrays.equals(utf8, ((RawJson) o).utf8);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(utf8);
+    }
+
+    /**
+     * @return The JSON text of the value
+     */
+    @Override
+    public String toString() {
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.core.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Properties of a JSON object that are kept in their serialized form, in the order they were read. A bean can declare
+ * a field of this type annotated with {@link com.fasterxml.jackson.annotation.JsonAnySetter} and
+ * {@link com.fasterxml.jackson.annotation.JsonAnyGetter} to capture the properties it does not know about, and forward
+ * them unchanged when it is serialized again. No tree model is built for the captured values.
+ * <p>
+ * Duplicate names are kept as they are. Instances are not thread-safe.
+ */
+public final class RawProperties {
+    private String[] names = new String[4];
+    private byte[][] values = new byte[4][];
+    private int size = 0;
+
+    /**
+     * @return The number of properties
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param index The index of the property, in insertion order
+     * @return The name of the property
+     */
+    public String getName(int index) {
+        checkIndex(index);
+        return names[index];
+    }
+
+    /**
+     * @param index The index of the property, in insertion order
+     * @return The value of the property
+     */
+    public RawJson getValue(int index) {
+        checkIndex(index);
+        return RawJson.ofUtf8(values[index]);
+    }
+
+    /**
+     * @param name The name of the property
+     * @return The value of the first property with the given name, or {@code null} if there is none
+     */
+    @Nullable
+    public RawJson get(String name) {
+        for (int i = 0; i < size; i++) {
+            if (names[i].equals(name)) {
+                return RawJson.ofUtf8(values[i]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Add a property at the end.
+     *
+     * @param name  The name of the property
+     * @param value The value of the property
+     */
+    public void add(String name, RawJson value) {
+        addRaw(name, value.getUtf8());
+    }
+
+    /**
+     * Add a property at the end. Used by generated code.
+     *
+     * @param name The name of the property
+     * @param utf8 The UTF-8 encoded value. The array is not copied
+     */
+    @Internal
+    public void addRaw(String name, byte[] utf8) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        names[size] = name;
+        values[size] = utf8;
+        size++;
+    }
+
+    /**
+     * Write all properties as fields of the current object. Used by generated code.
+     */
+    @Internal
+    public void serialize(JsonGenerator encoder) throws IOException {
+        for (int i = 0; i < size; i++) {
+            encoder.writeFieldName(names[i]);
+            encoder.writeRawValue(new RawUtf8String(values[i], values[i].length));
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < size; i++) {
+            if (i != 0) {
+                builder.append(", ");
+            }
+            builder.append(names[i]).append('=').append(RawJson.ofUtf8(values[i]));
+        }
+        return builder.append('}').toString();
+    }
+}
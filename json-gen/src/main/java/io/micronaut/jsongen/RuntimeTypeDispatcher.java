@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import io.micronaut.context.BeanLocator;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.type.Argument;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Finds the serializer for the runtime class of a value. Used by generated code for properties of an abstract or
+ * {@code Object} type, when the concrete class is not known at compile time.
+ * <p>
+ * Lookups are cached per class with a {@link ClassValue}, so after the first value of a class, dispatch costs about
+ * as much as a field read. Common JDK types (strings, boxed primitives, maps, iterables and arrays) are handled
+ * without a lookup.
+ */
+@Singleton
+public final class RuntimeTypeDispatcher {
+    private final Function<Class<?>, Serializer<?>> lookup;
+
+    private final ClassValue<Serializer<Object>> serializers = new ClassValue<Serializer<Object>>() {
+        @Override
+        protected Serializer<Object> computeValue(Class<?> type) {
+            return createSerializer(type);
+        }
+    };
+
+    /**
+     * @param lookup Finds the serializer for a class, or returns {@code null} if there is none. Called at most once
+     *               per class, unless there are concurrent lookups.
+     */
+    public RuntimeTypeDispatcher(Function<Class<?>, Serializer<?>> lookup) {
+        this.lookup = lookup;
+    }
+
+    @Inject
+    public RuntimeTypeDispatcher(BeanLocator beanLocator) {
+        this(type -> beanLocator.findBean(Argument.of(Serializer.class, type)).orElse(null));
+    }
+
+    /**
+     * Serialize a value using the serializer for its runtime class.
+     *
+     * @throws NoSuchElementException if there is no serializer for the class of the value
+     */
+    public void serialize(JsonGenerator encoder, @Nullable Object value) throws IOException {
+        if (value == null) {
+            encoder.writeNull();
+        } else {
+            serializerFor(value.getClass()).serialize(encoder, value);
+        }
+    }
+
+    /**
+     * @return The serializer for exactly the given type
+     * @throws NoSuchElementException if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Serializer<T> find(Class<T> type) {
+        return (Serializer<T>) serializerFor(type);
+    }
+
+    private Serializer<Object> serializerFor(Class<?> type) {
+        Serializer<Object> serializer = serializers.get(type);
+        if (serializer == null) {
+            throw new NoSuchElementException("No serializer for runtime type " + type.getName());
+        }
+        return serializer;
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private Serializer<Object> createSerializer(Class<?> type) {
+        if (CharSequence.class.isAssignableFrom(type) || type == Character.class) {
+            return (JsonSerializeOnly) (encoder, value) -> encoder.writeString(value.toString());
+        } else if (type == Boolean.class) {
+            return (JsonSerializeOnly) (encoder, value) -> encoder.writeBoolean((Boolean) value);
+        } else if (type == Integer.class || type == Short.class || type == Byte.class) {
+            return (JsonSerializeOnly) (encoder, value) -> encoder.writeNumber(((Number) value).intValue());
+        } else if (type == Long.class) {
+            return (JsonSerializeOnly) (encoder, value) -> encoder.writeNumber((Long) value);
+        } else if (type == Double.class) {
+            return (JsonSerializeOnly) (encoder, value) -> FloatingPointCodec.writeDouble(encoder, (Double) value);
+        } else if (type == Float.class) {
+            return (JsonSerializeOnly) (encoder, value) -> FloatingPointCodec.writeFloat(encoder, (Float) value);
+        } else if (type == BigDecimal.class) {
+            return (JsonSerializeOnly) (encoder, value) -> encoder.writeNumber((BigDecimal) value);
+        } else if (type == BigInteger.class) {
+            return (JsonSerializeOnly) (encoder, value) -> encoder.writeNumber((BigInteger) value);
+        } else if (type.isEnum() || (type.getSuperclass() != null && type.getSuperclass().isEnum())) {
+            // enum constants with a body are subclasses of the enum
+            return (JsonSerializeOnly) (encoder, value) -> encoder.writeString(((Enum<?>) value).name());
+        } else if (type == Object.class || type.isPrimitive()) {
+            // never the runtime class of a value, and the bean context would pick an arbitrary serializer
+            return null;
+        }
+        Serializer<?> serializer = lookup.apply(type);
+        if (serializer != null) {
+            return (Serializer<Object>) serializer;
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return (JsonSerializeOnly) (encoder, value) -> {
+                encoder.writeStartObject();
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    encoder.writeFieldName(String.valueOf(entry.getKey()));
+                    serialize(encoder, entry.getValue());
+                }
+                encoder.writeEndObject();
+            };
+        } else if (Iterable.class.isAssignableFrom(type)) {
+            return (JsonSerializeOnly) (encoder, value) -> {
+                encoder.writeStartArray();
+                for (Object item : (Iterable<?>) value) {
+                    serialize(encoder, item);
+                }
+                encoder.writeEndArray();
+            };
+        } else if (type.isArray() && !type.getComponentType().isPrimitive()) {
+            return (JsonSerializeOnly) (encoder, value) -> {
+                encoder.writeStartArray();
+                for (Object item : (Object[]) value) {
+                    serialize(encoder, item);
+                }
+                encoder.writeEndArray();
+            };
+        }
+        return null;
+    }
+
+    /**
+     * Built-in serializers. These are only used for values whose type is not known statically, so they can't
+     * deserialize.
+     */
+    @FunctionalInterface
+    private interface JsonSerializeOnly extends Serializer<Object> {
+        @Override
+        default Object deserialize(JsonParser decoder) {
+            throw new UnsupportedOperationException("Cannot deserialize values of unknown type");
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import io.micronaut.core.annotation.Internal;
+
+/**
+ * Byte-at-a-time {@link ByteScanner}. Also used by other implementations for the tail of the input.
+ */
+@Internal
+public final class ScalarByteScanner extends ByteScanner {
+    public static final ScalarByteScanner INSTANCE = new ScalarByteScanner();
+
+    private ScalarByteScanner() {
+    }
+
+    @Override
+    public int indexOfEscapeOrNonAscii(byte[] buf, int off, int end) {
+        for (int i = off; i < end; i++) {
+            byte b = buf[i];
+            // negative bytes are non-ASCII
+            if (b < 0x20 || b == '"' || b == '\\') {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    @Override
+    public int indexOfQuoteOrBackslash(byte[] buf, int off, int end) {
+        for (int i = off; i < end; i++) {
+            byte b = buf[i];
+            if (b == '"' || b == '\\') {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    @Override
+    public int indexOfNonAscii(byte[] buf, int off, int end) {
+        for (int i = off; i < end; i++) {
+            if (buf[i] < 0) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    @Override
+    public int indexOf(byte[] buf, int off, int end, byte value) {
+        for (int i = off; i < end; i++) {
+            if (buf[i] == value) {
+                return i;
+            }
+        }
+        return end;
+    }
+}
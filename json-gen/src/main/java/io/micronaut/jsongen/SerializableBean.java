@@ -24,4 +24,20 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 public @interface SerializableBean {
     boolean inline() default false;
+
+    /**
+     * Whether this bean is a projection, i.e. a view of a larger document that only declares the few properties it
+     * needs. Unknown properties are skipped, and deserialization stops looking at property names as soon as all
+     * declared properties have been read. The generated serializer also implements {@link ProjectionDeserializer},
+     * which does not read the remainder of the object at all.
+     */
+    boolean projection() default false;
+
+    /**
+     * If positive, the generated serializer caches the serialized form of each instance, using at most this many bytes
+     * in total, see {@link SerializedOutputCache}. Meant for reference data that is serialized often without changing.
+     * Instances are cached by identity, so mutable beans must be invalidated through {@link CachingSerializer} when
+     * they change. Not supported for inline beans.
+     */
+    int outputCacheSize() default 0;
 }
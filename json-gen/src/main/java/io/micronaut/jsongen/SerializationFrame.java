@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * State of a partially serialized value during incremental serialization. {@link ChunkedSerializer} calls
+ * {@link #writeNext} repeatedly until the frame reports that it is done. Between calls, the frame keeps its position
+ * (e.g. the iterator of a collection) in fields.
+ * <p>
+ * Nested values can be delegated to a child frame using {@link ChunkedSerializer#push}. The child runs to completion
+ * before this frame is called again.
+ */
+public abstract class SerializationFrame {
+    /**
+     * Write the next part of the value. Implementations should return early when
+     * {@link ChunkedSerializer#shouldYield()} is {@code true}.
+     *
+     * @param encoder    The generator to write to
+     * @param serializer The serializer to push child frames to
+     * @return {@code true} iff the value has been written completely. Must be {@code false} if a child frame was
+     * pushed
+     */
+    public abstract boolean writeNext(JsonGenerator encoder, ChunkedSerializer serializer) throws IOException;
+
+    /**
+     * Release the resources of a value that will not be written completely, because {@link ChunkedSerializer#close()}
+     * was called before this frame completed. Never called after {@link #writeNext} returned {@code true}.
+     * <p>
+     * The default implementation does nothing.
+     */
+    public void abort() throws IOException {
+    }
+
+    /**
+     * Create a frame for the given serializer. If the serializer does not support incremental serialization, the
+     * frame writes the whole value at once using the blocking {@link Serializer#serialize}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> SerializationFrame forSerializer(Serializer<T> serializer, T value) {
+        if (serializer instanceof ResumableSerializer) {
+            return ((ResumableSerializer<T>) serializer).newSerializationFrame(value);
+        } else {
+            return new Blocking<>(serializer, value);
+        }
+    }
+
+    private static final class Blocking<T> extends SerializationFrame {
+        private final Serializer<T> serializer;
+        private final T value;
+
+        Blocking(Serializer<T> serializer, T value) {
+            this.serializer = serializer;
+            this.value = value;
+        }
+
+        @Override
+        public boolean writeNext(JsonGenerator encoder, ChunkedSerializer serializer) throws IOException {
+            this.serializer.serialize(encoder, value);
+            return true;
+        }
+    }
+}
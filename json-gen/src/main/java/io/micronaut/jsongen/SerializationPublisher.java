@@ -0,0 +1,184 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Publisher} that serializes a value using a {@link ChunkedSerializer}. Chunks are only produced when
+ * requested, on the thread calling {@link Subscription#request}, so a slow subscriber suspends serialization instead
+ * of letting output pile up in memory.
+ * <p>
+ * Each subscriber gets its own serialization of the value.
+ *
+ * @param <T> The serialized type
+ */
+public final class SerializationPublisher<T> implements Publisher<ByteBuffer> {
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    private final JsonFactory factory;
+    private final Serializer<T> serializer;
+    private final T value;
+    private final int chunkSize;
+
+    public SerializationPublisher(JsonFactory factory, Serializer<T> serializer, T value, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.factory = factory;
+        this.serializer = serializer;
+        this.value = value;
+        this.chunkSize = chunkSize;
+    }
+
+    public SerializationPublisher(JsonFactory factory, Serializer<T> serializer, T value) {
+        this(factory, serializer, value, DEFAULT_CHUNK_SIZE);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber");
+        }
+        subscriber.onSubscribe(new ChunkSubscription(subscriber));
+    }
+
+    private final class ChunkSubscription implements Subscription {
+        private final Subscriber<? super ByteBuffer> subscriber;
+
+        private final AtomicLong requested = new AtomicLong();
+        /**
+         * Number of pending {@link #drain()} calls. Only the thread that increments this from 0 drains, which also
+         * keeps {@code onNext} from recursing into {@code request}.
+         */
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled = false;
+        private volatile Throwable invalidRequest = null;
+
+        // only accessed while draining
+        private ChunkedSerializer chunked;
+        private boolean done = false;
+
+        ChunkSubscription(Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Non-positive request: " + n + " (rule 3.9)");
+            } else {
+                long current;
+                long next;
+                do {
+                    current = requested.get();
+                    next = current + n;
+                    if (next < 0) {
+                        next = Long.MAX_VALUE;
+                    }
+                } while (!requested.compareAndSet(current, next));
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (!done) {
+                    emit();
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit() {
+            if (cancelled) {
+                terminate(null);
+                return;
+            }
+            Throwable invalidRequest = this.invalidRequest;
+            if (invalidRequest != null) {
+                terminate(invalidRequest);
+                return;
+            }
+            long emitted = 0;
+            long requested = this.requested.get();
+            try {
+                if (chunked == null) {
+                    chunked = ChunkedSerializer.create(factory, serializer, value, chunkSize);
+                }
+                while (emitted != requested && !cancelled) {
+                    ByteBuffer chunk = chunked.nextChunk();
+                    if (chunk == null) {
+                        break;
+                    }
+                    subscriber.onNext(chunk);
+                    emitted++;
+                }
+            } catch (IOException | RuntimeException e) {
+                terminate(e);
+                return;
+            }
+            if (cancelled) {
+                terminate(null);
+                return;
+            }
+            if (chunked.isComplete()) {
+                // no demand needed for onComplete
+                terminate(null);
+                subscriber.onComplete();
+                return;
+            }
+            if (requested != Long.MAX_VALUE) {
+                this.requested.addAndGet(-emitted);
+            }
+        }
+
+        private void terminate(Throwable error) {
+            done = true;
+            if (chunked != null) {
+                try {
+                    chunked.close();
+                } catch (IOException e) {
+                    if (error == null && !cancelled) {
+                        error = e;
+                    }
+                }
+                chunked = null;
+            }
+            if (error != null) {
+                subscriber.onError(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import io.micronaut.core.annotation.Internal;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Cache of the serialized form of bean instances, used by generated serializers of beans with a
+ * {@link SerializableBean#outputCacheSize() cache size}. On a hit, the cached bytes are written with
+ * {@link JsonGenerator#writeRawValue}, also when the bean is nested in a larger document.
+ * <p>
+ * Entries are keyed by instance identity, and hold their key weakly, so a bean that is no longer used is dropped from
+ * the cache. The total size of the cached output is bounded, least recently used entries are evicted first. The cache
+ * does not notice when a bean is modified: mutable beans must be {@link #invalidate invalidated} after each change.
+ * <p>
+ * The cached output is written by a generator with default settings. Encoders with settings that change the output
+ * (a pretty printer, character escapes, or features such as {@link JsonGenerator.Feature#ESCAPE_NON_ASCII}) bypass
+ * the cache. This class is thread-safe.
+ *
+ * @param <T> The bean type
+ */
+public final class SerializedOutputCache<T> {
+    private static final JsonFactory FACTORY = new JsonFactory();
+    /**
+     * The features that change the output. The others only control the target stream.
+     */
+    private static final int OUTPUT_FEATURES = ~(JsonGenerator.Feature.AUTO_CLOSE_TARGET.getMask() |
+            JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT.getMask() |
+            JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM.getMask());
+    private static final int DEFAULT_FEATURES = FACTORY.getGeneratorFeatures() & OUTPUT_FEATURES;
+
+    private final long maxBytes;
+    private final Writer<T> writer;
+
+    private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+    private final LinkedHashMap<Key<T>, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size = 0;
+
+    /**
+     * @param maxBytes The maximum total size of the cached output
+     * @param writer   Writes a value without the cache
+     */
+    @Internal
+    public SerializedOutputCache(long maxBytes, Writer<T> writer) {
+        this.maxBytes = maxBytes;
+        this.writer = writer;
+    }
+
+    /**
+     * Write the given value, from the cache if possible. Used by generated code.
+     */
+    @Internal
+    public void serialize(JsonGenerator encoder, T value) throws IOException {
+        if (value == null || !hasDefaultOutput(encoder)) {
+            writer.write(encoder, value);
+            return;
+        }
+        byte[] cached = get(value);
+        if (cached == null) {
+            ByteArrayBuilder buffer = new ByteArrayBuilder();
+            try (JsonGenerator generator = FACTORY.createGenerator(buffer)) {
+                writer.write(generator, value);
+            }
+            cached = buffer.toByteArray();
+            put(value, cached);
+        }
+        encoder.writeRawValue(new RawUtf8String(cached, cached.length));
+    }
+
+    private static boolean hasDefaultOutput(JsonGenerator encoder) {
+        return encoder.getPrettyPrinter() == null &&
+                encoder.getCharacterEscapes() == null &&
+                encoder.getHighestEscapedChar() == 0 &&
+                (encoder.getFeatureMask() & OUTPUT_FEATURES) == DEFAULT_FEATURES;
+    }
+
+    private synchronized byte[] get(T value) {
+        expungeStaleEntries();
+        return entries.get(new Key<>(value, null));
+    }
+
+    private synchronized void put(T value, byte[] output) {
+        if (output.length > maxBytes) {
+            return;
+        }
+        expungeStaleEntries();
+        byte[] previous = entries.put(new Key<>(value, queue), output);
+        if (previous != null) {
+            size -= previous.length;
+        }
+        size += output.length;
+        Iterator<byte[]> eldest = entries.values().iterator();
+        while (size > maxBytes) {
+            size -= eldest.next().length;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * @return The size of the cached output of the given bean, or {@code -1} if it is not cached. Used by generated
+     * code, so that {@link Serializer#serializedSize} agrees with a cached, possibly stale output
+     */
+    @Internal
+    public synchronized long getCachedSize(T value) {
+        expungeStaleEntries();
+        byte[] cached = entries.get(new Key<>(value, null));
+        return cached == null ? -1 : cached.length;
+    }
+
+    /**
+     * Remove the cached output of the given bean, e.g. after it was modified.
+     */
+    public synchronized void invalidate(T value) {
+        byte[] removed = entries.remove(new Key<>(value, null));
+        if (removed != null) {
+            size -= removed.length;
+        }
+    }
+
+    /**
+     * Remove all cached output.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * @return The total size of the cached output, in bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    private void expungeStaleEntries() {
+        Reference<? extends T> stale;
+        while ((stale = queue.poll()) != null) {
+            byte[] removed = entries.remove(stale);
+            if (removed != null) {
+                size -= removed.length;
+            }
+        }
+    }
+
+    /**
+     * Writes a value without going through the cache.
+     */
+    @FunctionalInterface
+    public interface Writer<T> {
+        void write(JsonGenerator encoder, T value) throws IOException;
+    }
+
+    /**
+     * Weak key with identity semantics. A cleared key is only equal to itself, so it can still be removed once it is
+     * enqueued.
+     */
+    private static final class Key<T> extends WeakReference<T> {
+        private final int hash;
+
+        Key(T referent, ReferenceQueue<T> queue) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Object referent = get();
+            return referent != null && referent == ((Key<?>) o).get();
+        }
+    }
+}
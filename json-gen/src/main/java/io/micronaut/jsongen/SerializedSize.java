@@ -0,0 +1,193 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micronaut.core.annotation.Internal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.stream.BaseStream;
+
+/**
+ * Size computation for {@link Serializer#serializedSize}. All sizes are in bytes of the compact UTF-8 output of a
+ * generator with default settings, i.e. no pretty printer, no custom character escapes, and {@code NaN} and the
+ * infinities written as strings.
+ */
+@Internal
+public final class SerializedSize {
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private SerializedSize() {
+    }
+
+    /**
+     * Fallback for serializers that cannot compute their size: serialize the value, counting the output instead of
+     * keeping it. Streams, iterators and spliterators can only be consumed once, so their size is unknown.
+     *
+     * @return The size in bytes, or {@code -1} if the value must not be serialized to measure it
+     */
+    public static <T> long measure(Serializer<T> serializer, T value) throws IOException {
+        if (value instanceof BaseStream || value instanceof Iterator || value instanceof Spliterator) {
+            return -1;
+        }
+        CountingOutput output = new CountingOutput();
+        try (JsonGenerator generator = FACTORY.createGenerator(output)) {
+            serializer.serialize(generator, value);
+        }
+        return output.count;
+    }
+
+    /**
+     * @return The size of the given value as a quoted and escaped string, or of {@code null}
+     */
+    public static long ofString(String value) {
+        if (value == null) {
+            return 4;
+        }
+        long size = 2 + value.length();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c < 0x20) {
+                    // \b, \t, \n, \f and \r have a short escape, all other control chars are written as six-char unicode escapes
+                    size += c == '\b' || c == '\t' || c == '\n' || c == '\f' || c == '\r' ? 1 : 5;
+                } else if (c == '"' || c == '\\') {
+                    size += 1;
+                }
+            } else if (c < 0x800) {
+                size += 1;
+            } else if (Character.isSurrogate(c)) {
+                // jackson escapes each half of a surrogate pair separately
+                size += 5;
+            } else {
+                size += 2;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return The UTF-8 length of a value written with {@link JsonGenerator#writeRawValue(String)}
+     */
+    public static long ofRawString(String value) {
+        long size = value.length();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    size += 1;
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    // four bytes for two chars
+                    size += 2;
+                    i++;
+                } else {
+                    size += 2;
+                }
+            }
+        }
+        return size;
+    }
+
+    public static int ofInt(int value) {
+        if (value < 0) {
+            // -MIN_VALUE overflows, MAX_VALUE has the same number of digits
+            return 1 + ofInt(value == Integer.MIN_VALUE ? Integer.MAX_VALUE : -value);
+        }
+        int digits = 1;
+        for (long limit = 10; limit <= value; limit *= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    public static int ofLong(long value) {
+        if (value < 0) {
+            return 1 + ofLong(value == Long.MIN_VALUE ? Long.MAX_VALUE : -value);
+        }
+        int digits = 1;
+        // stop before the limit overflows, MAX_VALUE has 19 digits
+        for (long limit = 10; digits < 19 && limit <= value; limit *= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    public static int ofDouble(double value) {
+        if (!Double.isFinite(value)) {
+            return nonFinite(value);
+        }
+        return DoubleToDecimal.toChars(value, new char[DoubleToDecimal.MAX_CHARS], 0);
+    }
+
+    public static int ofFloat(float value) {
+        if (!Float.isFinite(value)) {
+            return nonFinite(value);
+        }
+        return DoubleToDecimal.toChars(value, new char[DoubleToDecimal.MAX_CHARS], 0);
+    }
+
+    private static int nonFinite(double value) {
+        // "NaN", "Infinity" or "-Infinity"
+        return Double.isNaN(value) ? 5 : value > 0 ? 10 : 11;
+    }
+
+    /**
+     * @return The size of the given fields, including one separator (comma or closing brace) after each field
+     */
+    public static long ofFields(RawProperties properties) {
+        if (properties == null) {
+            return 0;
+        }
+        long size = 0;
+        for (int i = 0; i < properties.size(); i++) {
+            size += ofString(properties.getName(i)) + properties.getValue(i).getUtf8().length + 2;
+        }
+        return size;
+    }
+
+    /**
+     * @return The size of the given fields, including one separator (comma or closing brace) after each field
+     */
+    public static long ofFields(Map<String, RawJson> properties) {
+        if (properties == null) {
+            return 0;
+        }
+        long size = 0;
+        for (Map.Entry<String, RawJson> entry : properties.entrySet()) {
+            size += ofString(entry.getKey()) + entry.getValue().getUtf8().length + 2;
+        }
+        return size;
+    }
+
+    private static final class CountingOutput extends OutputStream {
+        long count = 0;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -32,4 +32,23 @@ public interface Serializer<T> {
     T deserialize(JsonParser decoder) throws IOException;
 
     void serialize(JsonGenerator encoder, T value) throws IOException;
+
+    /**
+     * Compute the number of bytes {@link #serialize} writes for the given value, e.g. to set a {@code Content-Length}
+     * or to allocate a buffer of the right size. The size is that of the compact UTF-8 output of a generator with
+     * default settings.
+     * <p>
+     * Generated serializers count digits and escapes without encoding anything, where all their properties support it.
+     * The default implementation serializes the value and counts the output.
+     * <p>
+     * A {@link java.util.stream.Stream}, {@link java.util.Iterator} or {@link java.util.Spliterator} can only be
+     * consumed once, so values that contain one are not measured: their size is unknown, and this method returns
+     * {@code -1}.
+     *
+     * @param value The value to measure
+     * @return The serialized size in bytes, or {@code -1} if it is unknown
+     */
+    default long serializedSize(T value) throws IOException {
+        return SerializedSize.measure(this, value);
+    }
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import java.util.List;
+
+/**
+ * Creates a generated {@link Serializer} without dependency injection. Every generated {@code X$Serializer} has an
+ * {@code X$SerializerProvider}, registered for {@link java.util.ServiceLoader}, see {@link SerializerRegistry}.
+ */
+public interface SerializerProvider {
+    /**
+     * @return The type handled by the serializer
+     */
+    Class<?> getValueType();
+
+    /**
+     * Create the serializer, taking its dependencies from the given registry.
+     */
+    Serializer<?> create(SerializerRegistry registry);
+
+    /**
+     * Create the serializer for a parameterization of a generic value type. By default, the type arguments are
+     * ignored.
+     *
+     * @param typeArguments The canonical names of the type arguments, e.g. {@code ["example.C"]} for
+     *                      {@code B<C>}. Empty for the raw type.
+     */
+    default Serializer<?> create(SerializerRegistry registry, List<String> typeArguments) {
+        return create(registry);
+    }
+}
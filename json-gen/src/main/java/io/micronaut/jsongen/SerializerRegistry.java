@@ -0,0 +1,195 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.core.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lookup of generated serializers without a bean context, for CLI tools and functions where starting an
+ * {@code ApplicationContext} is too expensive. The {@link SerializerProvider}s are found through
+ * {@link ServiceLoader} once, when the registry is created. Serializers are then created on first lookup, together
+ * with the serializers they depend on, and reused afterwards. A generic type gets one serializer per
+ * parameterization, e.g. {@code B<C>}, from the provider of its raw type.
+ * <p>
+ * Serializers that are not generated (e.g. hand-written ones that would otherwise be beans) can be added with
+ * {@link #register}.
+ */
+public final class SerializerRegistry {
+    private static volatile SerializerRegistry defaultRegistry;
+
+    /**
+     * Keyed by canonical name of the raw type, i.e. {@link Class#getCanonicalName()}. Guarded by {@code this}.
+     */
+    private final Map<String, SerializerProvider> providers;
+    /**
+     * Keyed by canonical type name including type arguments, in the format of the javapoet {@code TypeName}.
+     */
+    private final Map<String, Serializer<?>> serializers = new ConcurrentHashMap<>();
+    private final RuntimeTypeDispatcher runtimeTypeDispatcher = new RuntimeTypeDispatcher(this::find);
+
+    private SerializerRegistry(Map<String, SerializerProvider> providers) {
+        this.providers = providers;
+    }
+
+    /**
+     * @return A shared registry of the serializers visible to the class loader of this class
+     */
+    public static SerializerRegistry getDefault() {
+        SerializerRegistry registry = defaultRegistry;
+        if (registry == null) {
+            synchronized (SerializerRegistry.class) {
+                registry = defaultRegistry;
+                if (registry == null) {
+                    registry = load(SerializerRegistry.class.getClassLoader());
+                    defaultRegistry = registry;
+                }
+            }
+        }
+        return registry;
+    }
+
+    /**
+     * Create a new registry of the serializers visible to the given class loader.
+     */
+    public static SerializerRegistry load(ClassLoader classLoader) {
+        Map<String, SerializerProvider> providers = new HashMap<>();
+        for (SerializerProvider provider : ServiceLoader.load(SerializerProvider.class, classLoader)) {
+            providers.put(typeName(provider.getValueType()), provider);
+        }
+        return new SerializerRegistry(providers);
+    }
+
+    private static String typeName(Class<?> type) {
+        String canonicalName = type.getCanonicalName();
+        return canonicalName == null ? type.getName() : canonicalName;
+    }
+
+    /**
+     * Add or replace the serializer for the given type. Serializers that were already created keep the old
+     * dependency.
+     */
+    public <T> void register(Class<T> type, Serializer<T> serializer) {
+        serializers.put(typeName(type), serializer);
+    }
+
+    /**
+     * Add or replace the provider for its value type, e.g. for providers that are not visible to the
+     * {@link ServiceLoader}. Has no effect if the serializer for the type was already created.
+     */
+    public synchronized void register(SerializerProvider provider) {
+        providers.put(typeName(provider.getValueType()), provider);
+    }
+
+    /**
+     * @return The serializer for the given type, or {@code null} if there is none
+     */
+    @Nullable
+    public <T> Serializer<T> find(Class<T> type) {
+        return find(typeName(type));
+    }
+
+    /**
+     * @return The serializer for the given type
+     * @throws NoSuchElementException if there is none
+     */
+    public <T> Serializer<T> get(Class<T> type) {
+        return resolve(typeName(type));
+    }
+
+    /**
+     * Used by generated providers to look up dependencies.
+     *
+     * @param typeName The canonical name of the type, including type arguments
+     */
+    @Internal
+    public <T> Serializer<T> resolve(String typeName) {
+        Serializer<T> serializer = find(typeName);
+        if (serializer == null) {
+            throw new NoSuchElementException("No serializer for " + typeName);
+        }
+        return serializer;
+    }
+
+    /**
+     * Used by generated providers for properties of abstract types.
+     */
+    @Internal
+    public RuntimeTypeDispatcher getRuntimeTypeDispatcher() {
+        return runtimeTypeDispatcher;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    private <T> Serializer<T> find(String typeName) {
+        Serializer<?> serializer = serializers.get(typeName);
+        if (serializer == null) {
+            serializer = create(typeName);
+        }
+        return (Serializer<T>) serializer;
+    }
+
+    @Nullable
+    private synchronized Serializer<?> create(String typeName) {
+        Serializer<?> serializer = serializers.get(typeName);
+        if (serializer == null) {
+            int argumentsStart = typeName.indexOf('<');
+            String rawTypeName = argumentsStart == -1 ? typeName : typeName.substring(0, argumentsStart);
+            SerializerProvider provider = providers.get(rawTypeName);
+            if (provider == null) {
+                // a registered serializer for the raw type handles all parameterizations
+                return argumentsStart == -1 ? null : serializers.get(rawTypeName);
+            }
+            // not computeIfAbsent: creating a serializer looks up its dependencies recursively
+            serializer = provider.create(this, typeArguments(typeName, argumentsStart));
+            serializers.put(typeName, serializer);
+        }
+        return serializer;
+    }
+
+    /**
+     * Split {@code Map<K, List<V>>} into {@code [K, List<V>]}.
+     */
+    private static List<String> typeArguments(String typeName, int argumentsStart) {
+        if (argumentsStart == -1) {
+            return Collections.emptyList();
+        }
+        List<String> arguments = new ArrayList<>();
+        int depth = 0;
+        int start = argumentsStart + 1;
+        for (int i = start; i < typeName.length(); i++) {
+            char c = typeName.charAt(i);
+            if (c == '<') {
+                depth++;
+            } else if (c == '>' && depth > 0) {
+                depth--;
+            } else if ((c == ',' && depth == 0) || c == '>') {
+                arguments.add(typeName.substring(start, i).trim());
+                start = i + 1;
+            }
+        }
+        return arguments;
+    }
+}
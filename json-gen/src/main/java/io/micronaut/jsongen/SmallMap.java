@@ -0,0 +1,218 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Insertion-ordered map backed by a single array of alternating keys and values, for the small objects produced by
+ * {@link UntypedCodec}. Lookups are linear, which is faster than hashing for a handful of short keys, and there are no
+ * per-entry objects. Larger objects use a {@link java.util.LinkedHashMap} instead.
+ */
+final class SmallMap extends AbstractMap<String, Object> {
+    /**
+     * Maximum size of maps created by {@link UntypedCodec}. The map itself works with any size, but gets slow.
+     */
+    static final int MAX_SIZE = 8;
+
+    private Object[] entries;
+    private int size;
+    private int modCount;
+
+    /**
+     * @param entries Alternating keys and values, must not contain duplicate keys. The array is used directly
+     * @param size    Number of entries in the array
+     */
+    SmallMap(Object[] entries, int size) {
+        this.entries = entries;
+        this.size = size;
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < size * 2; i += 2) {
+            if (entries[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) != -1;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int i = indexOf(key);
+        return i == -1 ? null : entries[i + 1];
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        Objects.requireNonNull(key, "key");
+        int i = indexOf(key);
+        if (i != -1) {
+            Object old = entries[i + 1];
+            entries[i + 1] = value;
+            return old;
+        }
+        if (size * 2 == entries.length) {
+            entries = Arrays.copyOf(entries, Math.max(4, entries.length * 2));
+        }
+        entries[size * 2] = key;
+        entries[size * 2 + 1] = value;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int i = indexOf(key);
+        if (i == -1) {
+            return null;
+        }
+        Object old = entries[i + 1];
+        removeAt(i);
+        return old;
+    }
+
+    private void removeAt(int i) {
+        System.arraycopy(entries, i + 2, entries, i, size * 2 - i - 2);
+        size--;
+        entries[size * 2] = null;
+        entries[size * 2 + 1] = null;
+        modCount++;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(entries, 0, size * 2, null);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private final class EntryIterator implements Iterator<Entry<String, Object>> {
+        private int next = 0;
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next < size * 2;
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next += 2;
+            return new MapEntry(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last == -1) {
+                throw new IllegalStateException();
+            }
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(last);
+            next = last;
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    private final class MapEntry implements Map.Entry<String, Object> {
+        private final int index;
+
+        MapEntry(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public String getKey() {
+            return (String) entries[index];
+        }
+
+        @Override
+        public Object getValue() {
+            return entries[index + 1];
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            Object old = entries[index + 1];
+            entries[index + 1] = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+            return getKey().equals(other.getKey()) && Objects.equals(getValue(), other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return getKey().hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
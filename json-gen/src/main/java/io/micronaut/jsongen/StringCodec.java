@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.UTF8JsonGenerator;
+import io.micronaut.core.annotation.Internal;
+
+import java.io.IOException;
+
+/**
+ * String encoding for generated serializers. When writing to a UTF-8 byte stream, strings that are plain ASCII
+ * without anything to escape are copied into the output buffer as they are, without jackson's per-char escape lookup.
+ * The output is identical in either case.
+ */
+@Internal
+public final class StringCodec {
+    /**
+     * Below this length, the extra scan is not worth it.
+     */
+    static final int MIN_BULK_LENGTH = 16;
+
+    private StringCodec() {
+    }
+
+    public static void writeString(JsonGenerator encoder, String value) throws IOException {
+        if (value != null && value.length() >= MIN_BULK_LENGTH && canWriteBulk(encoder) && isPlainAscii(value)) {
+            // the empty raw value writes the separator before the string, like writeString would. The raw writes copy
+            // the chars through the generator's own buffers, so nothing is allocated per string
+            encoder.writeRawValue("");
+            encoder.writeRaw('"');
+            encoder.writeRaw(value);
+            encoder.writeRaw('"');
+            return;
+        }
+        encoder.writeString(value);
+    }
+
+    /**
+     * @return {@code true} iff the string only has ASCII chars that jackson writes without escaping by default, i.e. no
+     * control chars, {@code "} or {@code \}
+     */
+    private static boolean isPlainAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c >= 0x80 || c == '"' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean canWriteBulk(JsonGenerator encoder) {
+        return encoder instanceof UTF8JsonGenerator
+                && encoder.getCharacterEscapes() == null
+                && encoder.getHighestEscapedChar() == 0;
+    }
+}
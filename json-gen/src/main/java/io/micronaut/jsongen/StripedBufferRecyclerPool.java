@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.util.BufferRecycler;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free {@link BufferRecyclerPool} that does not depend on thread identity for reuse, so it also works
+ * for short-lived virtual threads.
+ * <p>
+ * The slots are split into stripes to reduce contention. A thread always starts at the same stripe, chosen by its
+ * id. The default number of stripes is the number of processors, which is also the default number of carrier
+ * threads for virtual threads. If the stripe is empty, {@link #acquire()} allocates a new recycler; if it is full,
+ * {@link #release} drops the recycler. The pool never holds more than {@code stripes * slotsPerStripe} recyclers.
+ */
+public final class StripedBufferRecyclerPool implements BufferRecyclerPool {
+    private static final int DEFAULT_SLOTS_PER_STRIPE = 4;
+
+    private final AtomicReferenceArray<BufferRecycler> slots;
+    private final int stripeMask;
+    private final int slotsPerStripe;
+
+    public StripedBufferRecyclerPool() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_SLOTS_PER_STRIPE);
+    }
+
+    /**
+     * @param stripes        Number of stripes, rounded up to a power of two
+     * @param slotsPerStripe Maximum number of recyclers held per stripe
+     */
+    public StripedBufferRecyclerPool(int stripes, int slotsPerStripe) {
+        if (stripes < 1 || slotsPerStripe < 1) {
+            throw new IllegalArgumentException("Need at least one stripe and slot");
+        }
+        int stripeCount = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripeMask = stripeCount - 1;
+        this.slotsPerStripe = slotsPerStripe;
+        this.slots = new AtomicReferenceArray<>(stripeCount * slotsPerStripe);
+    }
+
+    @Override
+    public BufferRecycler acquire() {
+        int start = stripeStart();
+        for (int i = start; i < start + slotsPerStripe; i++) {
+            if (slots.get(i) != null) {
+                BufferRecycler recycler = slots.getAndSet(i, null);
+                if (recycler != null) {
+                    return recycler;
+                }
+            }
+        }
+        return new BufferRecycler();
+    }
+
+    @Override
+    public void release(BufferRecycler recycler) {
+        int start = stripeStart();
+        for (int i = start; i < start + slotsPerStripe; i++) {
+            if (slots.get(i) == null && slots.compareAndSet(i, null, recycler)) {
+                return;
+            }
+        }
+        // stripe is full, let the gc have it
+    }
+
+    private int stripeStart() {
+        long id = Thread.currentThread().getId();
+        // thread ids are sequential, spread them over the stripes
+        int hash = (int) ((id * 0x9E3779B97F4A7C15L) >>> 32);
+        return (hash & stripeMask) * slotsPerStripe;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonLocation;
+
+import java.util.Arrays;
+
+/**
+ * Boundaries of the elements of a top-level JSON array, found in a single pass over the input. The scan only tracks
+ * nesting depth, strings and escapes, it does not validate the elements themselves: that is left to whatever parses
+ * them afterwards, e.g. {@link ParallelArrayReader}.
+ */
+public final class StructuralIndex {
+    private final int[] bounds;
+    private final int size;
+
+    private StructuralIndex(int[] bounds, int size) {
+        this.bounds = bounds;
+        this.size = size;
+    }
+
+    /**
+     * Index the array in {@code buf[off, end)}. Leading and trailing whitespace is permitted.
+     *
+     * @throws JsonParseException if the input is not an array, or the nesting is unbalanced
+     */
+    public static StructuralIndex scanArray(byte[] buf, int off, int end) throws JsonParseException {
+        ByteScanner scanner = ByteScanner.getInstance();
+        int i = skipWhitespace(buf, off, end);
+        if (i == end || buf[i] != '[') {
+            throw error(i, "Expected array");
+        }
+        i++;
+        int[] bounds = new int[32];
+        int size = 0;
+        int depth = 0;
+        int elementStart = i;
+        // whether we've seen anything but whitespace since elementStart
+        boolean nonEmpty = false;
+        while (true) {
+            if (i >= end) {
+                throw error(end, "Unexpected end of input");
+            }
+            byte b = buf[i];
+            switch (b) {
+                case '"':
+                    i = skipString(scanner, buf, i + 1, end);
+                    nonEmpty = true;
+                    break;
+                case '[':
+                case '{':
+                    depth++;
+                    nonEmpty = true;
+                    break;
+                case ']':
+                case '}':
+                    if (depth > 0) {
+                        depth--;
+                        break;
+                    }
+                    if (b == '}') {
+                        throw error(i, "Unbalanced '}'");
+                    }
+                    if (nonEmpty) {
+                        bounds = add(bounds, size++, elementStart, i);
+                    } else if (size != 0) {
+                        throw error(i, "Expected array element");
+                    }
+                    if (skipWhitespace(buf, i + 1, end) != end) {
+                        throw error(i + 1, "Unexpected content after array");
+                    }
+                    return new StructuralIndex(bounds, size);
+                case ',':
+                    if (depth == 0) {
+                        if (!nonEmpty) {
+                            throw error(i, "Expected array element");
+                        }
+                        bounds = add(bounds, size++, elementStart, i);
+                        elementStart = i + 1;
+                        nonEmpty = false;
+                    }
+                    break;
+                case ' ':
+                case '\t':
+                case '\r':
+                case '\n':
+                    break;
+                default:
+                    nonEmpty = true;
+                    break;
+            }
+            i++;
+        }
+    }
+
+    public static StructuralIndex scanArray(byte[] buf) throws JsonParseException {
+        return scanArray(buf, 0, buf.length);
+    }
+
+    /**
+     * @return The number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Start offset of the given element. May point at leading whitespace
+     */
+    public int start(int element) {
+        checkIndex(element);
+        return bounds[element * 2];
+    }
+
+    /**
+     * @return End offset (exclusive) of the given element. May include trailing whitespace
+     */
+    public int end(int element) {
+        checkIndex(element);
+        return bounds[element * 2 + 1];
+    }
+
+    private void checkIndex(int element) {
+        if (element < 0 || element >= size) {
+            throw new IndexOutOfBoundsException(String.valueOf(element));
+        }
+    }
+
+    /**
+     * @param i Index just after the opening quote
+     * @return Index of the closing quote
+     */
+    private static int skipString(ByteScanner scanner, byte[] buf, int i, int end) throws JsonParseException {
+        while (true) {
+            i = scanner.indexOfQuoteOrBackslash(buf, i, end);
+            if (i >= end) {
+                throw error(end, "Unterminated string");
+            }
+            if (buf[i] == '"') {
+                return i;
+            }
+            // skip the escaped character. For \\uXXXX, the hex digits are never quotes or backslashes
+            i += 2;
+        }
+    }
+
+    private static int skipWhitespace(byte[] buf, int i, int end) {
+        while (i < end && (buf[i] == ' ' || buf[i] == '\t' || buf[i] == '\r' || buf[i] == '\n')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int[] add(int[] bounds, int index, int start, int end) {
+        if (index * 2 + 2 > bounds.length) {
+            bounds = Arrays.copyOf(bounds, bounds.length * 2);
+        }
+        bounds[index * 2] = start;
+        bounds[index * 2 + 1] = end;
+        return bounds;
+    }
+
+    private static JsonParseException error(int offset, String msg) {
+        return JsonParseException.from(new JsonLocation(null, offset, -1, -1), msg);
+    }
+}
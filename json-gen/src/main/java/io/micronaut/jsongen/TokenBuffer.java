@@ -0,0 +1,400 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.core.base.ParserMinimalBase;
+import com.fasterxml.jackson.core.json.JsonReadContext;
+import com.fasterxml.jackson.core.util.JsonParserSequence;
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.core.annotation.Nullable;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Compact buffer of parser tokens, used by generated code to look ahead in the input, e.g. for a type property that
+ * is not the first property of an object. Only the token types and texts are stored, no tree is built. The buffered
+ * tokens can be replayed with {@link #asParser}.
+ */
+@Internal
+public final class TokenBuffer {
+    private JsonToken[] tokens = new JsonToken[16];
+    /**
+     * Text of each token: field names, string and number values. {@code null} for other tokens.
+     */
+    private String[] texts = new String[16];
+    private int size = 0;
+
+    /**
+     * Append the current token of the given parser.
+     */
+    public void append(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        switch (token) {
+            case FIELD_NAME:
+            case VALUE_STRING:
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                append(token, parser.getText());
+                break;
+            case VALUE_EMBEDDED_OBJECT:
+                throw new UnsupportedOperationException("Embedded objects cannot be buffered");
+            default:
+                append(token, null);
+                break;
+        }
+    }
+
+    private void append(JsonToken token, @Nullable String text) {
+        if (size == tokens.length) {
+            tokens = Arrays.copyOf(tokens, size * 2);
+            texts = Arrays.copyOf(texts, size * 2);
+        }
+        tokens[size] = token;
+        texts[size] = text;
+        size++;
+    }
+
+    /**
+     * Append the current token of the given parser and, if it starts an object or array, all tokens up to and
+     * including the matching end. The parser is left at the last token of the value.
+     */
+    public void copyCurrentStructure(JsonParser parser) throws IOException {
+        int depth = 0;
+        while (true) {
+            JsonToken token = parser.currentToken();
+            if (token == null) {
+                throw JsonParseException.from(parser, "Unexpected end of input");
+            }
+            append(parser);
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            }
+            if (depth == 0) {
+                return;
+            }
+            parser.nextToken();
+        }
+    }
+
+    /**
+     * Buffer the start of an object, up to a given string property, e.g. the type property of
+     * {@code @JsonTypeInfo}. The property itself is not buffered.
+     *
+     * @param parser   The parser, positioned at the first token after the {@code START_OBJECT} token, i.e. a
+     *                 {@code FIELD_NAME} or the {@code END_OBJECT}. The {@code START_OBJECT} is added to the buffer
+     *                 by this method. On return, the parser is positioned at the value of the property if it was
+     *                 found, or at the {@code END_OBJECT} token otherwise
+     * @param property The property to look for
+     * @return The value of the property, or {@code null} if the object does not have it. In that case the whole
+     * object has been buffered
+     */
+    @Nullable
+    public String bufferUntilProperty(JsonParser parser, String property) throws IOException {
+        append(JsonToken.START_OBJECT, null);
+        JsonToken token = parser.currentToken();
+        while (true) {
+            if (token == JsonToken.END_OBJECT) {
+                append(parser);
+                return null;
+            }
+            if (token != JsonToken.FIELD_NAME) {
+                throw JsonParseException.from(parser, "Unexpected token " + token + ", expected END_OBJECT or FIELD_NAME");
+            }
+            if (property.equals(parser.getCurrentName())) {
+                if (parser.nextToken() != JsonToken.VALUE_STRING) {
+                    throw JsonParseException.from(parser, "Unexpected token " + parser.currentToken() + ", expected VALUE_STRING for property " + property);
+                }
+                return parser.getText();
+            }
+            append(parser);
+            parser.nextToken();
+            copyCurrentStructure(parser);
+            token = parser.nextToken();
+        }
+    }
+
+    /**
+     * Create a parser that continues an object whose start has already been consumed, e.g. after reading its type
+     * property.
+     *
+     * @param continuation The parser, positioned inside an object, before a {@code FIELD_NAME} or the
+     *                     {@code END_OBJECT}
+     * @return A parser positioned at a {@code START_OBJECT}, followed by the remaining tokens of the object and the
+     * rest of the input
+     */
+    public static JsonParser continueObject(JsonParser continuation) throws IOException {
+        TokenBuffer buffer = new TokenBuffer();
+        buffer.append(JsonToken.START_OBJECT, null);
+        return buffer.asParser(continuation);
+    }
+
+    /**
+     * @return A parser that replays the buffered tokens, positioned at the first of them
+     */
+    public JsonParser asParser() throws IOException {
+        JsonParser parser = new Replay(this, null);
+        parser.nextToken();
+        return parser;
+    }
+
+    /**
+     * @param continuation The parser to continue with once the buffered tokens are exhausted
+     * @return A parser that replays the buffered tokens, positioned at the first of them, and then continues with the
+     * tokens after the current token of {@code continuation}
+     */
+    public JsonParser asParser(JsonParser continuation) throws IOException {
+        JsonParser parser = JsonParserSequence.createFlattened(false, new Replay(this, continuation), continuation);
+        parser.nextToken();
+        return parser;
+    }
+
+    private static final class Replay extends ParserMinimalBase {
+        private final TokenBuffer buffer;
+        @Nullable
+        private final JsonParser continuation;
+        private int index = -1;
+        private JsonReadContext context = JsonReadContext.createRootContext(null);
+        private boolean closed = false;
+
+        Replay(TokenBuffer buffer, @Nullable JsonParser continuation) {
+            this.buffer = buffer;
+            this.continuation = continuation;
+        }
+
+        @Override
+        public JsonToken nextToken() throws IOException {
+            if (++index >= buffer.size) {
+                _currToken = null;
+                return null;
+            }
+            JsonToken token = buffer.tokens[index];
+            switch (token) {
+                case START_OBJECT:
+                    context = context.createChildObjectContext(-1, -1);
+                    break;
+                case START_ARRAY:
+                    context = context.createChildArrayContext(-1, -1);
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    // like jackson, the end token already belongs to the parent context
+                    context = context.clearAndGetParent();
+                    break;
+                case FIELD_NAME:
+                    context.setCurrentName(buffer.texts[index]);
+                    break;
+                default:
+                    break;
+            }
+            _currToken = token;
+            return token;
+        }
+
+        @Override
+        protected void _handleEOF() {
+        }
+
+        @Override
+        public String getCurrentName() {
+            if (_currToken == JsonToken.START_OBJECT || _currToken == JsonToken.START_ARRAY) {
+                JsonReadContext parent = context.getParent();
+                return parent == null ? null : parent.getCurrentName();
+            }
+            return context.getCurrentName();
+        }
+
+        @Override
+        public void overrideCurrentName(String name) {
+            try {
+                context.setCurrentName(name);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public JsonStreamContext getParsingContext() {
+            return context;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public ObjectCodec getCodec() {
+            return continuation == null ? null : continuation.getCodec();
+        }
+
+        @Override
+        public void setCodec(ObjectCodec oc) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Version version() {
+            return Version.unknownVersion();
+        }
+
+        @Override
+        public JsonLocation getTokenLocation() {
+            // the buffered tokens were read before the current location of the continuation, this is the best we have
+            return continuation == null ? JsonLocation.NA : continuation.getTokenLocation();
+        }
+
+        @Override
+        public JsonLocation getCurrentLocation() {
+            return continuation == null ? JsonLocation.NA : continuation.getCurrentLocation();
+        }
+
+        @Override
+        public String getText() {
+            if (_currToken == null) {
+                return null;
+            }
+            String text = buffer.texts[index];
+            return text == null ? _currToken.asString() : text;
+        }
+
+        @Override
+        public char[] getTextCharacters() {
+            String text = getText();
+            return text == null ? null : text.toCharArray();
+        }
+
+        @Override
+        public boolean hasTextCharacters() {
+            return false;
+        }
+
+        @Override
+        public int getTextLength() {
+            String text = getText();
+            return text == null ? 0 : text.length();
+        }
+
+        @Override
+        public int getTextOffset() {
+            return 0;
+        }
+
+        @Override
+        public byte[] getBinaryValue(Base64Variant b64variant) throws IOException {
+            if (_currToken != JsonToken.VALUE_STRING) {
+                _reportError("Current token (" + _currToken + ") not VALUE_STRING, can not access as binary");
+            }
+            return b64variant.decode(getText());
+        }
+
+        private String numberText() throws IOException {
+            if (_currToken != JsonToken.VALUE_NUMBER_INT && _currToken != JsonToken.VALUE_NUMBER_FLOAT) {
+                _reportError("Current token (" + _currToken + ") not numeric, can not use numeric value accessors");
+            }
+            return buffer.texts[index];
+        }
+
+        @Override
+        public Number getNumberValue() throws IOException {
+            switch (getNumberType()) {
+                case INT:
+                    return getIntValue();
+                case LONG:
+                    return getLongValue();
+                case BIG_INTEGER:
+                    return getBigIntegerValue();
+                default:
+                    return getDoubleValue();
+            }
+        }
+
+        @Override
+        public NumberType getNumberType() throws IOException {
+            String text = numberText();
+            if (_currToken == JsonToken.VALUE_NUMBER_FLOAT) {
+                return NumberType.DOUBLE;
+            }
+            try {
+                long value = Long.parseLong(text);
+                return value == (int) value ? NumberType.INT : NumberType.LONG;
+            } catch (NumberFormatException e) {
+                return NumberType.BIG_INTEGER;
+            }
+        }
+
+        @Override
+        public int getIntValue() throws IOException {
+            if (_currToken == JsonToken.VALUE_NUMBER_INT) {
+                long value = getLongValue();
+                if (value != (int) value) {
+                    reportOverflowInt();
+                }
+                return (int) value;
+            }
+            return (int) getDoubleValue();
+        }
+
+        @Override
+        public long getLongValue() throws IOException {
+            String text = numberText();
+            if (_currToken == JsonToken.VALUE_NUMBER_INT) {
+                try {
+                    return Long.parseLong(text);
+                } catch (NumberFormatException e) {
+                    reportOverflowLong();
+                }
+            }
+            return (long) getDoubleValue();
+        }
+
+        @Override
+        public BigInteger getBigIntegerValue() throws IOException {
+            return getDecimalValue().toBigInteger();
+        }
+
+        @Override
+        public float getFloatValue() throws IOException {
+            return Float.parseFloat(numberText());
+        }
+
+        @Override
+        public double getDoubleValue() throws IOException {
+            return Double.parseDouble(numberText());
+        }
+
+        @Override
+        public BigDecimal getDecimalValue() throws IOException {
+            return new BigDecimal(numberText());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+/**
+ * Copies a JSON object from a parser to a generator, applying a {@link TranscodingFilter}, without binding it to a
+ * bean. Implementations are generated for each type annotated with {@link TranscodingFilter}.
+ */
+public interface Transcoder {
+    /**
+     * Transcode the object at the current position of the decoder.
+     *
+     * @param decoder The decoder, positioned at the start of the object. Left at the end of the object
+     * @param encoder The encoder to write the filtered object to
+     */
+    void transcode(JsonParser decoder, JsonGenerator encoder) throws IOException;
+}
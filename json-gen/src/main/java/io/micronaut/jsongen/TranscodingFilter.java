@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generate a {@link Transcoder} that filters JSON objects described by a {@link SerializableBean} model, e.g. to drop
+ * internal fields on pass-through traffic. The transcoder copies kept properties from input to output as they are,
+ * and never instantiates the model, so it replaces a deserialize-modify-serialize round trip.
+ * <p>
+ * The generated class is named {@code <Annotated>$Transcoder}. If the annotated type is an interface, the generated
+ * class implements it, so an interface extending {@link Transcoder} can be used for injection.
+ * <p>
+ * Unknown properties are handled like the model would handle them: they are copied if the model has a
+ * {@link com.fasterxml.jackson.annotation.JsonAnySetter}, dropped if it ignores unknown properties, and rejected
+ * otherwise. Property values are not validated against the model, and properties are written in input order.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface TranscodingFilter {
+    /**
+     * @return The bean describing the input objects
+     */
+    Class<?> model();
+
+    /**
+     * @return Names of the properties to drop
+     */
+    String[] exclude() default {};
+
+    /**
+     * @return Properties to write under a different name
+     */
+    Rename[] rename() default {};
+
+    /**
+     * A property to write under a different name.
+     */
+    @interface Rename {
+        /**
+         * @return The name of the property in the model
+         */
+        String from();
+
+        /**
+         * @return The name to write
+         */
+        String to();
+    }
+}
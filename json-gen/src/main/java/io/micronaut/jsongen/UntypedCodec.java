@@ -0,0 +1,269 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.micronaut.core.annotation.Nullable;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Serializer for values without a static type, e.g. {@code Object} or {@code Map<String, Object>} properties. JSON
+ * values are mapped to natural java types:
+ * <ul>
+ *     <li>objects to {@code Map<String, Object>}, with a compact array-backed implementation for up to
+ *     {@value SmallMap#MAX_SIZE} entries and a {@link LinkedHashMap} beyond that</li>
+ *     <li>arrays to {@link ArrayList}</li>
+ *     <li>strings to {@link String}, booleans to {@link Boolean}</li>
+ *     <li>integers to {@link Integer} or {@link Long} if they fit, {@link BigInteger} otherwise, or
+ *     {@link LazyNumber} if lazy big numbers are enabled</li>
+ *     <li>floating point numbers to {@link Double}</li>
+ * </ul>
+ * Serialization checks the common runtime classes first, and leaves the rest (beans, enums, arrays...) to a
+ * {@link RuntimeTypeDispatcher}, if there is one.
+ */
+public final class UntypedCodec implements Serializer<Object> {
+    /**
+     * Codec with eager big numbers and no fallback for serialization. Used by generated code for deserialization.
+     */
+    public static final UntypedCodec DEFAULT = new UntypedCodec(false, null);
+
+    private final boolean lazyBigNumbers;
+    @Nullable
+    private final RuntimeTypeDispatcher fallback;
+    private final Serializer<Map<String, Object>> objectSerializer = new Serializer<Map<String, Object>>() {
+        @Override
+        public Map<String, Object> deserialize(JsonParser decoder) throws IOException {
+            return deserializeObject(decoder);
+        }
+
+        @Override
+        public void serialize(JsonGenerator encoder, Map<String, Object> value) throws IOException {
+            UntypedCodec.this.serialize(encoder, value);
+        }
+    };
+
+    /**
+     * @param lazyBigNumbers Whether to return integers that do not fit in a {@code long} as {@link LazyNumber}
+     *                       instead of {@link BigInteger}
+     * @param fallback       Serializer for values that are not of a natural type
+     */
+    public UntypedCodec(boolean lazyBigNumbers, @Nullable RuntimeTypeDispatcher fallback) {
+        this.lazyBigNumbers = lazyBigNumbers;
+        this.fallback = fallback;
+    }
+
+    /**
+     * @return A view of this codec that only accepts JSON objects
+     */
+    public Serializer<Map<String, Object>> objects() {
+        return objectSerializer;
+    }
+
+    @Override
+    public void serialize(JsonGenerator encoder, @Nullable Object value) throws IOException {
+        write(encoder, value, fallback);
+    }
+
+    /**
+     * Write a value of a natural type.
+     *
+     * @param fallback Serializer for other values
+     * @throws NoSuchElementException if the value is not of a natural type, and there is no serializer for it
+     */
+    public static void write(JsonGenerator encoder, @Nullable Object value, @Nullable RuntimeTypeDispatcher fallback) throws IOException {
+        if (value == null) {
+            encoder.writeNull();
+        } else if (value instanceof String) {
+            StringCodec.writeString(encoder, (String) value);
+        } else if (value instanceof Integer) {
+            encoder.writeNumber((Integer) value);
+        } else if (value instanceof Boolean) {
+            encoder.writeBoolean((Boolean) value);
+        } else if (value instanceof Map) {
+            encoder.writeStartObject(value);
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                encoder.writeFieldName(String.valueOf(entry.getKey()));
+                write(encoder, entry.getValue(), fallback);
+            }
+            encoder.writeEndObject();
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            encoder.writeStartArray(list, list.size());
+            if (list instanceof RandomAccess) {
+                for (int i = 0; i < list.size(); i++) {
+                    write(encoder, list.get(i), fallback);
+                }
+            } else {
+                for (Object item : list) {
+                    write(encoder, item, fallback);
+                }
+            }
+            encoder.writeEndArray();
+        } else if (value instanceof Long) {
+            encoder.writeNumber((Long) value);
+        } else if (value instanceof Double) {
+            FloatingPointCodec.writeDouble(encoder, (Double) value);
+        } else if (value instanceof LazyNumber) {
+            encoder.writeNumber(value.toString());
+        } else if (value instanceof BigInteger) {
+            encoder.writeNumber((BigInteger) value);
+        } else if (value instanceof BigDecimal) {
+            encoder.writeNumber((BigDecimal) value);
+        } else if (fallback != null) {
+            fallback.serialize(encoder, value);
+        } else {
+            throw new NoSuchElementException("No serializer for runtime type " + value.getClass().getName());
+        }
+    }
+
+    /**
+     * Read a value of any type. The decoder must be positioned at the first token of the value.
+     */
+    @Override
+    @Nullable
+    public Object deserialize(JsonParser decoder) throws IOException {
+        JsonToken token = decoder.currentToken();
+        if (token == null) {
+            throw JsonParseException.from(decoder, "Unexpected end of input");
+        }
+        switch (token) {
+            case START_OBJECT:
+                return readObject(decoder);
+            case START_ARRAY:
+                return readArray(decoder);
+            case VALUE_STRING:
+                return decoder.getText();
+            case VALUE_NUMBER_INT:
+                return readInteger(decoder);
+            case VALUE_NUMBER_FLOAT:
+                return FloatingPointCodec.readDouble(decoder);
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            case VALUE_EMBEDDED_OBJECT:
+                return decoder.getEmbeddedObject();
+            default:
+                throw JsonParseException.from(decoder, "Unexpected token " + token + ", expected a value");
+        }
+    }
+
+    /**
+     * Read a JSON object. The decoder must be positioned at the {@code START_OBJECT} token.
+     */
+    public Map<String, Object> deserializeObject(JsonParser decoder) throws IOException {
+        if (decoder.currentToken() != JsonToken.START_OBJECT) {
+            throw JsonParseException.from(decoder, "Unexpected token " + decoder.currentToken() + ", expected START_OBJECT");
+        }
+        return readObject(decoder);
+    }
+
+    private Object readInteger(JsonParser decoder) throws IOException {
+        switch (decoder.getNumberType()) {
+            case INT:
+                return decoder.getIntValue();
+            case LONG:
+                return decoder.getLongValue();
+            default:
+                return lazyBigNumbers ? new LazyNumber(decoder.getText()) : decoder.getBigIntegerValue();
+        }
+    }
+
+    private Map<String, Object> readObject(JsonParser decoder) throws IOException {
+        Object[] entries = null;
+        int size = 0;
+        while (true) {
+            JsonToken token = decoder.nextToken();
+            if (token == JsonToken.END_OBJECT) {
+                return new SmallMap(entries == null ? new Object[0] : entries, size);
+            }
+            if (token != JsonToken.FIELD_NAME) {
+                throw JsonParseException.from(decoder, "Unexpected token " + token + ", expected END_OBJECT or FIELD_NAME");
+            }
+            String key = decoder.getCurrentName();
+            decoder.nextToken();
+            Object value = deserialize(decoder);
+            int existing = -1;
+            for (int i = 0; i < size * 2; i += 2) {
+                if (entries[i].equals(key)) {
+                    existing = i;
+                    break;
+                }
+            }
+            if (existing != -1) {
+                // last value wins, like in databind
+                entries[existing + 1] = value;
+                continue;
+            }
+            if (size == SmallMap.MAX_SIZE) {
+                return readLargeObject(decoder, entries, key, value);
+            }
+            if (entries == null) {
+                entries = new Object[8];
+            } else if (size * 2 == entries.length) {
+                entries = Arrays.copyOf(entries, SmallMap.MAX_SIZE * 2);
+            }
+            entries[size * 2] = key;
+            entries[size * 2 + 1] = value;
+            size++;
+        }
+    }
+
+    /**
+     * Continue reading an object that has too many entries for a {@link SmallMap}.
+     */
+    private Map<String, Object> readLargeObject(JsonParser decoder, Object[] entries, String key, Object value) throws IOException {
+        Map<String, Object> map = new LinkedHashMap<>(SmallMap.MAX_SIZE * 4);
+        for (int i = 0; i < SmallMap.MAX_SIZE * 2; i += 2) {
+            map.put((String) entries[i], entries[i + 1]);
+        }
+        map.put(key, value);
+        while (true) {
+            JsonToken token = decoder.nextToken();
+            if (token == JsonToken.END_OBJECT) {
+                return map;
+            }
+            if (token != JsonToken.FIELD_NAME) {
+                throw JsonParseException.from(decoder, "Unexpected token " + token + ", expected END_OBJECT or FIELD_NAME");
+            }
+            String nextKey = decoder.getCurrentName();
+            decoder.nextToken();
+            map.put(nextKey, deserialize(decoder));
+        }
+    }
+
+    private List<Object> readArray(JsonParser decoder) throws IOException {
+        List<Object> list = new ArrayList<>();
+        while (decoder.nextToken() != JsonToken.END_ARRAY) {
+            list.add(deserialize(decoder));
+        }
+        return list;
+    }
+}
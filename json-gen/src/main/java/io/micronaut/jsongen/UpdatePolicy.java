@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+/**
+ * Options for {@link UpdatingDeserializer#deserializeInto}.
+ */
+public final class UpdatePolicy {
+    /**
+     * Properties that are absent from the input keep their current value. This matches jackson's
+     * {@code readerForUpdating}.
+     */
+    public static final UpdatePolicy KEEP_ABSENT = new UpdatePolicy(false, false);
+    /**
+     * Properties that are absent from the input are reset to {@code null}, {@code 0} or {@code false}. For beans
+     * without field initializers, the updated instance is then equal to one returned by
+     * {@link Serializer#deserialize}.
+     */
+    public static final UpdatePolicy RESET_ABSENT = new UpdatePolicy(true, false);
+
+    private final boolean resetAbsent;
+    private final boolean reuseLists;
+
+    private UpdatePolicy(boolean resetAbsent, boolean reuseLists) {
+        this.resetAbsent = resetAbsent;
+        this.reuseLists = reuseLists;
+    }
+
+    /**
+     * @param reuseLists Whether a non-null {@link java.util.List} (or {@link java.util.Collection}) property should be
+     *                   cleared and refilled instead of being replaced by a new list. A reset absent list is cleared,
+     *                   too. The list must be mutable.
+     * @return A policy with the given list handling
+     */
+    public UpdatePolicy withReuseLists(boolean reuseLists) {
+        return new UpdatePolicy(resetAbsent, reuseLists);
+    }
+
+    public boolean isResetAbsent() {
+        return resetAbsent;
+    }
+
+    public boolean isReuseLists() {
+        return reuseLists;
+    }
+}
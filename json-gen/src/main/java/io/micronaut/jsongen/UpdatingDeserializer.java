@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+/**
+ * Implemented by generated serializers of setter- or field-based beans, i.e. beans without creator parameters. Instead
+ * of allocating a new instance, the properties of an existing instance are overwritten in place, which lets hot loops
+ * reuse the same object for every value they read.
+ *
+ * @param <T> The deserialized type
+ */
+public interface UpdatingDeserializer<T> {
+    /**
+     * Read an object from the decoder and write the properties it contains into {@code target}. Like
+     * {@link Serializer#deserialize}, the decoder must be positioned at the first token of the value, and is left at
+     * its last token.
+     *
+     * @param decoder The decoder to read from
+     * @param target  The instance to update
+     * @param policy  How to treat properties that are absent from the input, and existing lists
+     */
+    void deserializeInto(JsonParser decoder, T target, UpdatePolicy policy) throws IOException;
+
+    /**
+     * Like {@link #deserializeInto(JsonParser, Object, UpdatePolicy)}, with {@link UpdatePolicy#KEEP_ABSENT}.
+     */
+    default void deserializeInto(JsonParser decoder, T target) throws IOException {
+        deserializeInto(decoder, target, UpdatePolicy.KEEP_ABSENT);
+    }
+}
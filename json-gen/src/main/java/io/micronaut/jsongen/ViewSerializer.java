@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen;
+
+/**
+ * Implemented by generated serializers of beans that use {@link com.fasterxml.jackson.annotation.JsonView}. For every
+ * view, the processor generates a specialized serializer whose property set is fixed at compile time, so there is no
+ * per-property filtering at runtime.
+ * <p>
+ * The serializer itself (i.e. without a view) reads and writes all properties. Nested values that are handled by
+ * other serializers are written with the same view, see {@link #withView}.
+ *
+ * @param <T> The serialized type
+ */
+public interface ViewSerializer<T> {
+    /**
+     * Get the serializer for a view. Like with jackson's {@code writerWithView}, properties are included if they have
+     * no {@link com.fasterxml.jackson.annotation.JsonView} annotation, or if the given view is assignable to one of the
+     * annotation's classes. Properties that are not included are neither written, nor read: their values are skipped
+     * during deserialization.
+     * <p>
+     * Generated serializers cache the returned serializer for every view class.
+     *
+     * @param view The active view
+     * @return A serializer for the given view
+     * @throws IllegalArgumentException If the view is assignable to a combination of view classes that no serializer
+     *                                  was generated for, i.e. it extends several unrelated view classes
+     */
+    Serializer<T> forView(Class<?> view);
+
+    /**
+     * Get the serializer to use for a nested value while a view is active.
+     *
+     * @param serializer The serializer of the nested value
+     * @param view       The active view
+     * @param <T>        The serialized type
+     * @return The serializer for the given view if the serializer supports views, or the serializer itself otherwise
+     */
+    static <T> Serializer<T> withView(Serializer<T> serializer, Class<?> view) {
+        if (serializer instanceof ViewSerializer) {
+            @SuppressWarnings("unchecked")
+            ViewSerializer<T> viewSerializer = (ViewSerializer<T>) serializer;
+            return viewSerializer.forView(view);
+        }
+        return serializer;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen.generator;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.jsongen.DeserializationFrame;
+import io.micronaut.jsongen.NonBlockingDeserializer;
+
+import javax.lang.model.element.Modifier;
+import java.io.IOException;
+
+import static io.micronaut.jsongen.generator.Names.DECODER;
+
+/**
+ * Generates a {@link DeserializationFrame} implementation as an inner class of the serializer. All state that has to
+ * survive between tokens must be kept in fields declared with {@link #addField}.
+ */
+public final class FrameGenerator {
+    /**
+     * Name of the {@link NonBlockingDeserializer} parameter of {@code onToken}.
+     */
+    public static final String DESERIALIZER = "deserializer";
+    private static final String CHILD_RESULT = "childResult";
+
+    private final GeneratorContext context;
+    private final String className;
+    private final TypeName resultType;
+    private final CodeBlock afterChild;
+
+    private final TypeSpec.Builder frameType;
+    private final String resultField;
+    private final String pendingChildField;
+    private final CodeBlock.Builder childCases = CodeBlock.builder();
+    private int childCount = 0;
+
+    private FrameGenerator(GeneratorContext parent, String nameHint, TypeName resultType, CodeBlock afterChild) {
+        this.className = parent.newNestedClassName(nameHint);
+        this.resultType = resultType.box();
+        this.afterChild = afterChild;
+        this.context = parent.newFrameContext(this, DECODER, DESERIALIZER, CHILD_RESULT);
+        this.frameType = TypeSpec.classBuilder(className)
+                .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
+                .superclass(ParameterizedTypeName.get(ClassName.get(DeserializationFrame.class), this.resultType));
+        this.resultField = context.newLocalVariable("result");
+        this.pendingChildField = context.newLocalVariable("pendingChild");
+        frameType.addField(this.resultType, resultField, Modifier.PRIVATE);
+    }
+
+    /**
+     * @param parent     The context the frame is created in
+     * @param nameHint   Name hint for the frame class
+     * @param resultType The type of the value this frame produces
+     * @param afterChild Code to run in {@code onChildComplete}, after the child result has been set. Must return
+     *                   whether this frame is complete
+     */
+    public static FrameGenerator create(GeneratorContext parent, String nameHint, TypeName resultType, CodeBlock afterChild) {
+        return new FrameGenerator(parent, nameHint, resultType, afterChild);
+    }
+
+    /**
+     * @return The context to use for the {@code onToken} code of this frame
+     */
+    public GeneratorContext getContext() {
+        return context;
+    }
+
+    /**
+     * @return The name of the field that holds the result. Must be set before {@code onToken} returns {@code true}
+     */
+    public String getResultField() {
+        return resultField;
+    }
+
+    /**
+     * Add a field to this frame.
+     *
+     * @param name        The field name, allocated through {@link #getContext()}
+     * @param initializer The initial value, or {@code null} to use the default value
+     */
+    public void addField(TypeName type, String name, @Nullable CodeBlock initializer) {
+        FieldSpec.Builder field = FieldSpec.builder(type, name, Modifier.PRIVATE);
+        if (initializer != null) {
+            field.initializer(initializer);
+        }
+        frameType.addField(field.build());
+    }
+
+    CodeBlock pushChildFrame(CodeBlock frameExpression, TypeName childResultType, SerializerSymbol.Setter setter) {
+        int index = childCount++;
+        childCases.add("case $L:\n", index).indent()
+                .add(setter.createSetStatement(CodeBlock.of("($T) $N", childResultType.box(), CHILD_RESULT)))
+                .add(afterChild)
+                .unindent();
+        return CodeBlock.builder()
+                .addStatement("$N.push($L)", DESERIALIZER, frameExpression)
+                .addStatement("this.$N = $L", pendingChildField, index)
+                .build();
+    }
+
+    /**
+     * Finish this frame class and add it to the serializer.
+     *
+     * @param onToken The body of {@code onToken}
+     * @return Expression that creates a new instance of this frame
+     */
+    public CodeBlock finish(CodeBlock onToken) {
+        frameType.addMethod(MethodSpec.methodBuilder("onToken")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(boolean.class)
+                .addParameter(JsonParser.class, DECODER)
+                .addParameter(ParameterizedTypeName.get(ClassName.get(NonBlockingDeserializer.class), WildcardTypeName.subtypeOf(Object.class)), DESERIALIZER)
+                .addException(IOException.class)
+                .addCode(onToken)
+                .build());
+        if (childCount != 0) {
+            frameType.addField(int.class, pendingChildField, Modifier.PRIVATE);
+            frameType.addMethod(MethodSpec.methodBuilder("onChildComplete")
+                    .addAnnotation(Override.class)
+                    .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class).addMember("value", "$S", "unchecked").build())
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(boolean.class)
+                    .addParameter(JsonParser.class, DECODER)
+                    .addParameter(Object.class, CHILD_RESULT)
+                    .addException(IOException.class)
+                    .beginControlFlow("switch (this.$N)", pendingChildField)
+                    .addCode(childCases.build())
+                    .addCode("default:\n$>throw new $T();\n$<", AssertionError.class)
+                    .endControlFlow()
+                    .build());
+        }
+        frameType.addMethod(MethodSpec.methodBuilder("getResult")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(resultType)
+                .addStatement("return this.$N", resultField)
+                .build());
+        context.addNestedClass(frameType.build());
+        return CodeBlock.of("new $N()", className);
+    }
+}
@@ -15,12 +15,24 @@
  */
 package io.micronaut.jsongen.generator;
 
+import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.NameAllocator;
+import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import io.micronaut.context.BeanProvider;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.jsongen.Serializer;
+import io.micronaut.jsongen.ViewSerializer;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public final class GeneratorContext {
     private final ProblemReporter problemReporter;
@@ -35,20 +47,59 @@ public final class GeneratorContext {
 
     private final Map<TypeName, Injected> injected;
 
+    /**
+     * The generated serializer class.
+     */
+    private final ClassName ownerClass;
+    private final NestedClasses nestedClasses;
+
+    /**
+     * The frame whose {@code onToken} method we're generating code for, if any.
+     */
+    @Nullable
+    private final FrameGenerator frame;
+    /**
+     * The frame whose {@code writeNext} method we're generating code for, if any.
+     */
+    @Nullable
+    private final SerializationFrameGenerator serializationFrame;
+    /**
+     * Whether we're generating code for some other inner class of the serializer, see {@link #newInnerClassContext}.
+     */
+    private final boolean innerClass;
+    /**
+     * The view-specific serializer we're generating code for, or {@code null} if no view is active, see
+     * {@link #withActiveViews}.
+     */
+    @Nullable
+    private final ViewVariant viewVariant;
+
     private GeneratorContext(
             ProblemReporter problemReporter, String readablePath,
             NameAllocator fields,
             NameAllocator localVariables,
-            Map<TypeName, Injected> injected) {
+            Map<TypeName, Injected> injected,
+            ClassName ownerClass,
+            NestedClasses nestedClasses,
+            @Nullable FrameGenerator frame,
+            @Nullable SerializationFrameGenerator serializationFrame,
+            boolean innerClass,
+            @Nullable ViewVariant viewVariant) {
         this.problemReporter = problemReporter;
         this.readablePath = readablePath;
         this.fields = fields;
         this.localVariables = localVariables;
         this.injected = injected;
+        this.ownerClass = ownerClass;
+        this.nestedClasses = nestedClasses;
+        this.frame = frame;
+        this.serializationFrame = serializationFrame;
+        this.innerClass = innerClass;
+        this.viewVariant = viewVariant;
     }
 
-    static GeneratorContext create(ProblemReporter problemReporter, String rootReadablePath) {
-        return new GeneratorContext(problemReporter, rootReadablePath, new NameAllocator(), null, new HashMap<>());
+    static GeneratorContext create(ProblemReporter problemReporter, String rootReadablePath, ClassName ownerClass) {
+        return new GeneratorContext(problemReporter, rootReadablePath, new NameAllocator(), null, new HashMap<>(), ownerClass, new NestedClasses(), null, null, false, null);
     }
 
     public String getReadablePath() {
@@ -57,7 +108,7 @@ public final class GeneratorContext {
 
     public GeneratorContext withSubPath(String element) {
         // the other variables are mutable, so we can just reuse them
-        return new GeneratorContext(problemReporter, readablePath + "->" + element, fields, localVariables, injected);
+        return new GeneratorContext(problemReporter, readablePath + "->" + element, fields, localVariables, injected, ownerClass, nestedClasses, frame, serializationFrame, innerClass, viewVariant);
     }
 
     public GeneratorContext newMethodContext(String... usedLocals) {
@@ -72,7 +123,62 @@ public final class GeneratorContext {
                 throw new IllegalArgumentException("Duplicate or illegal local variable name: " + usedLocal);
             }
         }
-        return new GeneratorContext(problemReporter, readablePath, fields, localVariables, injected);
+        return new GeneratorContext(problemReporter, readablePath, fields, localVariables, injected, ownerClass, nestedClasses, frame, serializationFrame, innerClass, viewVariant);
+    }
+
+    /**
+     * Create a context for the methods of a {@link io.micronaut.jsongen.DeserializationFrame} class. Frame fields and
+     * method locals share one namespace, so that locals never shadow fields.
+     */
+    GeneratorContext newFrameContext(FrameGenerator frame, String... usedLocals) {
+        return new GeneratorContext(problemReporter, readablePath, fields, newLocalAllocator(usedLocals), injected, ownerClass, nestedClasses, frame, null, false, viewVariant);
+    }
+
+    /**
+     * Like {@link #newFrameContext}, for {@link io.micronaut.jsongen.SerializationFrame} classes.
+     */
+    GeneratorContext newSerializationFrameContext(SerializationFrameGenerator serializationFrame, String... usedLocals) {
+        return new GeneratorContext(problemReporter, readablePath, fields, newLocalAllocator(usedLocals), injected, ownerClass, nestedClasses, null, serializationFrame, false, viewVariant);
+    }
+
+    /**
+     * Create a context for the methods of some other (non-static) inner class of the serializer.
+     */
+    GeneratorContext newInnerClassContext(String... usedLocals) {
+        return new GeneratorContext(problemReporter, readablePath, fields, newLocalAllocator(usedLocals), injected, ownerClass, nestedClasses, null, null, true, viewVariant);
+    }
+
+    /**
+     * Create a class-level context for a view-specific serializer, which is generated as an inner class of the
+     * serializer. Properties that are limited to other views are skipped by the code generated in this context, and
+     * injected serializers are resolved for the active view, see {@link #requestSerializer}.
+     *
+     * @param activeViews  Binary names of the view classes the active view is assignable to
+     * @param variantClass The view-specific serializer class. Its nested classes are collected separately, see
+     *                     {@link #getNestedClasses}
+     */
+    GeneratorContext withActiveViews(Set<String> activeViews, ClassName variantClass) {
+        if (this.localVariables != null) {
+            throw new IllegalStateException("Views can only be selected at class level");
+        }
+        ViewVariant variant = new ViewVariant(activeViews, ownerClass);
+        return new GeneratorContext(problemReporter, readablePath, fields, null, injected, variantClass, new NestedClasses(nestedClasses.names), null, null, true, variant);
+    }
+
+    /**
+     * @return Binary names of the view classes the active view is assignable to, or {@code null} if no view is active
+     */
+    @Nullable
+    public Set<String> getActiveViews() {
+        return viewVariant == null ? null : viewVariant.activeViews;
+    }
+
+    private static NameAllocator newLocalAllocator(String... usedLocals) {
+        NameAllocator localVariables = new NameAllocator();
+        for (String usedLocal : usedLocals) {
+            localVariables.newName(usedLocal);
+        }
+        return localVariables;
     }
 
     /**
@@ -86,16 +192,131 @@ public final class GeneratorContext {
     }
 
     public Injected requestInjection(TypeName type) {
-        return injected.computeIfAbsent(type, t -> {
+        Injected injected = this.injected.computeIfAbsent(type, t -> {
             String fieldName = fields.newName(t.toString());
-            return new Injected(fieldName);
+            return new Injected(fieldName, CodeBlock.of("this.$N", fieldName));
         });
+        if (viewVariant != null) {
+            // the injected fields belong to the serializer that the view-specific serializer is nested in
+            return new Injected(injected.fieldName, CodeBlock.of("$T.this.$N", viewVariant.serializerClass, injected.fieldName));
+        }
+        if (frame != null || serializationFrame != null || innerClass) {
+            // frames are inner classes of the serializer
+            return new Injected(injected.fieldName, CodeBlock.of("$T.this.$N", ownerClass, injected.fieldName));
+        }
+        return injected;
     }
 
     public Map<TypeName, Injected> getInjected() {
         return injected;
     }
 
+    /**
+     * Get an expression for the injected serializer of the given type. In a view-specific serializer, the expression
+     * evaluates to the serializer for the active view, see {@link ViewSerializer#withView}.
+     *
+     * @param type     The serialized type
+     * @param provider Whether to inject a {@link BeanProvider} of the serializer, so that it is only resolved on first
+     *                 use. This is necessary for recursive structures
+     * @return The expression for the serializer
+     */
+    CodeBlock requestSerializer(TypeName type, boolean provider) {
+        TypeName serializerType = ParameterizedTypeName.get(ClassName.get(Serializer.class), type);
+        TypeName injectedType = provider ? ParameterizedTypeName.get(ClassName.get(BeanProvider.class), serializerType) : serializerType;
+        CodeBlock accessExpression = requestInjection(injectedType).getAccessExpression();
+        if (provider) {
+            accessExpression = CodeBlock.of("$L.get()", accessExpression);
+        }
+        if (viewVariant == null) {
+            return accessExpression;
+        }
+        CodeBlock injectedExpression = accessExpression;
+        ViewDependency dependency = viewVariant.dependencies.computeIfAbsent(injectedType, t -> new ViewDependency(fields.newName(t + "ForView"), serializerType, injectedExpression));
+        return CodeBlock.of("$T.this.$N()", ownerClass, dependency.fieldName);
+    }
+
+    /**
+     * @return The injected serializers that the view-specific serializer of this context resolves for its view, see
+     * {@link #requestSerializer}
+     */
+    Collection<ViewDependency> getViewDependencies() {
+        if (viewVariant == null) {
+            throw new IllegalStateException("Not generating a view-specific serializer");
+        }
+        return viewVariant.dependencies.values();
+    }
+
+    /**
+     * Generate code that continues deserialization of the current value in a child frame, see
+     * {@link SerializerSymbol#deserializeResumable}.
+     *
+     * @param frameExpression Expression creating the child frame
+     * @param resultType      Result type of the child frame
+     * @param setter          Setter to call with the result of the child frame once it completes
+     * @return The code that pushes the child frame
+     */
+    public CodeBlock pushChildFrame(CodeBlock frameExpression, TypeName resultType, SerializerSymbol.Setter setter) {
+        if (frame == null) {
+            throw new IllegalStateException("Not generating a resumable deserializer");
+        }
+        return frame.pushChildFrame(frameExpression, resultType, setter);
+    }
+
+    /**
+     * Generate code that continues serialization of the current value in a child frame, see
+     * {@link SerializerSymbol#serializeResumable}. The generated code returns from {@code writeNext}, so it must be the
+     * last statement of its block.
+     *
+     * @param frameExpression Expression creating the child frame
+     * @return The code that pushes the child frame
+     */
+    public CodeBlock pushSerializationFrame(CodeBlock frameExpression) {
+        if (serializationFrame == null) {
+            throw new IllegalStateException("Not generating a resumable serializer");
+        }
+        return SerializationFrameGenerator.pushChildFrame(frameExpression);
+    }
+
+    ClassName getOwnerClass() {
+        return ownerClass;
+    }
+
+    /**
+     * Create a new unique field name of the serializer class, with a name similar to the given {@code nameHint}.
+     */
+    String newFieldName(String nameHint) {
+        return fields.newName(nameHint);
+    }
+
+    String newNestedClassName(String nameHint) {
+        return nestedClasses.names.newName(nameHint);
+    }
+
+    void addNestedClass(TypeSpec type) {
+        nestedClasses.types.add(type);
+    }
+
+    /**
+     * Find a nested class that was registered with {@link #registerNestedClass}, so that it can be shared by all
+     * properties that need it.
+     */
+    @Nullable
+    String findNestedClass(String key) {
+        return nestedClasses.byKey.get(key);
+    }
+
+    /**
+     * Register the name of a nested class for {@link #findNestedClass}. This should happen before the class body is
+     * generated, so that recursive types can refer to the class.
+     */
+    void registerNestedClass(String key, String className) {
+        nestedClasses.byKey.put(key, className);
+    }
+
+    List<TypeSpec> getNestedClasses() {
+        return nestedClasses.types;
+    }
+
     public ProblemReporter getProblemReporter() {
         return problemReporter;
     }
@@ -105,13 +326,71 @@ public final class GeneratorContext {
 
         private final CodeBlock accessExpression;
 
-        private Injected(String fieldName) {
+        private Injected(String fieldName, CodeBlock accessExpression) {
             this.fieldName = fieldName;
-            this.accessExpression = CodeBlock.of("this.$N", fieldName);
+            this.accessExpression = accessExpression;
         }
 
         public CodeBlock getAccessExpression() {
             return accessExpression;
         }
     }
+
+    /**
+     * An injected serializer that a view-specific serializer resolves for its view on first use.
+     */
+    static final class ViewDependency {
+        /**
+         * Name of both the field that holds the resolved serializer, and of the method that resolves it.
+         */
+        final String fieldName;
+        final TypeName serializerType;
+        /**
+         * Expression for the injected serializer, in the scope of the view-specific serializer.
+         */
+        final CodeBlock injectedExpression;
+
+        private ViewDependency(String fieldName, TypeName serializerType, CodeBlock injectedExpression) {
+            this.fieldName = fieldName;
+            this.serializerType = serializerType;
+            this.injectedExpression = injectedExpression;
+        }
+    }
+
+    /**
+     * Additional classes nested in the serializer, e.g. deserialization frames.
+     */
+    private static final class NestedClasses {
+        final NameAllocator names;
+        final List<TypeSpec> types = new ArrayList<>();
+        final Map<String, String> byKey = new HashMap<>();
+
+        NestedClasses() {
+            this(new NameAllocator());
+        }
+
+        /**
+         * @param names Allocator shared with the enclosing classes, so that nested classes never hide each other
+         */
+        NestedClasses(NameAllocator names) {
+            this.names = names;
+        }
+    }
+
+    /**
+     * State of a view-specific serializer class.
+     */
+    private static final class ViewVariant {
+        final Set<String> activeViews;
+        /**
+         * The serializer class that the view-specific serializer is nested in, and that holds the injected fields.
+         */
+        final ClassName serializerClass;
+        final Map<TypeName, ViewDependency> dependencies = new LinkedHashMap<>();
+
+        ViewVariant(Set<String> activeViews, ClassName serializerClass) {
+            this.activeViews = activeViews;
+            this.serializerClass = serializerClass;
+        }
+    }
 }
@@ -15,12 +15,11 @@
  */
 package io.micronaut.jsongen.generator;
 
-import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
-import com.squareup.javapoet.ParameterizedTypeName;
 import io.micronaut.context.BeanProvider;
 import io.micronaut.inject.ast.ClassElement;
-import io.micronaut.jsongen.Serializer;
+import io.micronaut.jsongen.DeserializationFrame;
+import io.micronaut.jsongen.SerializationFrame;
 
 final class InjectingSerializerSymbol implements SerializerSymbol {
     private final SerializerLinker linker;
@@ -60,20 +59,38 @@ final class InjectingSerializerSymbol implements SerializerSymbol {
         return CodeBlock.of("$L.serialize($N, $L);\n", getSerializerAccess(generatorContext, type), Names.ENCODER, readExpression);
     }
 
+    @Override
+    public CodeBlock serializedSize(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression, String sizeVariable) {
+        String valueSize = generatorContext.newLocalVariable("valueSize");
+        return CodeBlock.builder()
+                .addStatement("long $N = $L.serializedSize($L)", valueSize, getSerializerAccess(generatorContext, type), readExpression)
+                .addStatement("if ($N == -1) return -1", valueSize)
+                .addStatement("$N += $N", sizeVariable, valueSize)
+                .build();
+    }
+
     @Override
     public CodeBlock deserialize(GeneratorContext generatorContext, ClassElement type, Setter setter) {
         return setter.createSetStatement(CodeBlock.of("$L.deserialize($N)", getSerializerAccess(generatorContext, type), Names.DECODER));
     }
 
-    private CodeBlock getSerializerAccess(GeneratorContext generatorContext, ClassElement type) {
-        ParameterizedTypeName serializerType = ParameterizedTypeName.get(ClassName.get(Serializer.class), PoetUtil.toTypeName(type));
-        if (provider) {
-            serializerType = ParameterizedTypeName.get(ClassName.get(BeanProvider.class), serializerType);
-        }
-        CodeBlock accessExpression = generatorContext.requestInjection(serializerType).getAccessExpression();
-        if (provider) {
-            accessExpression = CodeBlock.of("$L.get()", accessExpression);
-        }
-        return accessExpression;
+    @Override
+    public CodeBlock serializeResumable(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression) {
+        return generatorContext.pushSerializationFrame(
+                CodeBlock.of("$T.forSerializer($L, $L)", SerializationFrame.class, getSerializerAccess(generatorContext, type), readExpression)
+        );
+    }
+
+    @Override
+    public CodeBlock deserializeResumable(GeneratorContext generatorContext, ClassElement type, Setter setter) {
+        return generatorContext.pushChildFrame(
+                CodeBlock.of("$T.forSerializer($L)", DeserializationFrame.class, getSerializerAccess(generatorContext, type)),
+                PoetUtil.toTypeName(type),
+                setter
+        );
+    }
+
+    CodeBlock getSerializerAccess(GeneratorContext generatorContext, ClassElement type) {
+        return generatorContext.requestSerializer(PoetUtil.toTypeName(type), provider);
     }
 }
@@ -51,6 +51,36 @@ class InlineEnumSerializerSymbol implements SerializerSymbol {
         return builder.build();
     }
 
+    @Override
+    public CodeBlock serializedSize(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression, String sizeVariable) {
+        EnumDefinition enumDefinition = new EnumDefinition((EnumElement) type);
+
+        CodeBlock.Builder builder = CodeBlock.builder();
+        builder.beginControlFlow("switch ($L)", readExpression);
+        for (int i = 0; i < enumDefinition.constants.size(); i++) {
+            CodeBlock literalSize = enumDefinition.valueSerializer.serializedSize(
+                    generatorContext,
+                    enumDefinition.valueType,
+                    enumDefinition.serializedLiterals.get(i),
+                    sizeVariable
+            );
+            if (literalSize == null) {
+                return null;
+            }
+            builder.beginControlFlow("case $N:", enumDefinition.constants.get(i));
+            builder.add(literalSize);
+            builder.addStatement("break");
+            builder.endControlFlow();
+        }
+
+        builder.beginControlFlow("default:");
+        builder.addStatement("throw new $T()", IncompatibleClassChangeError.class);
+        builder.endControlFlow();
+
+        builder.endControlFlow();
+        return builder.build();
+    }
+
     @Override
     public CodeBlock deserialize(GeneratorContext generatorContext, ClassElement type, Setter setter) {
         EnumDefinition enumDefinition = new EnumDefinition((EnumElement) type);
@@ -16,12 +16,19 @@
 package io.micronaut.jsongen.generator;
 
 import com.fasterxml.jackson.core.JsonToken;
+import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
 import io.micronaut.core.annotation.NonNull;
 import io.micronaut.inject.ast.ClassElement;
 import io.micronaut.jsongen.JsonParseException;
+import io.micronaut.jsongen.ParallelSerialization;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Spliterators;
 
 import static io.micronaut.jsongen.generator.Names.DECODER;
 import static io.micronaut.jsongen.generator.Names.ENCODER;
@@ -31,7 +38,7 @@ import static io.micronaut.jsongen.generator.Names.ENCODER;
  * {@link io.micronaut.jsongen.Serializer} implementation.
  */
 abstract class InlineIterableSerializerSymbol implements SerializerSymbol {
-    private final SerializerLinker linker;
+    final SerializerLinker linker;
 
     InlineIterableSerializerSymbol(SerializerLinker linker) {
         this.linker = linker;
@@ -58,15 +65,110 @@ abstract class InlineIterableSerializerSymbol implements SerializerSymbol {
     public CodeBlock serialize(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression) {
         ClassElement elementType = getElementType(type);
         SerializerSymbol elementSerializer = linker.findSymbol(elementType);
-        return CodeBlock.builder()
-                .addStatement("$N.writeStartArray()", ENCODER)
+        CodeBlock.Builder block = CodeBlock.builder();
+        boolean splittable = elementSerializer instanceof InjectingSerializerSymbol && this instanceof Ranges && ((Ranges) this).supportsRanges(type);
+        if (splittable) {
+            // large lists of elements with their own serializer can be written in parallel, see ParallelSerialization
+            Ranges ranges = (Ranges) this;
+            String valueVariable = generatorContext.newLocalVariable("value");
+            block.addStatement("$T $N = $L", PoetUtil.toTypeName(type), valueVariable, readExpression);
+            readExpression = CodeBlock.of("$N", valueVariable);
+            block.beginControlFlow("if ($T.shouldSplit($N, $L))", ParallelSerialization.class, ENCODER, ranges.sizeExpression(readExpression));
+            block.addStatement("$T.writeArray($N, $L, $L)",
+                    ParallelSerialization.class,
+                    ENCODER,
+                    ranges.listExpression(readExpression),
+                    ((InjectingSerializerSymbol) elementSerializer).getSerializerAccess(generatorContext, elementType));
+            block.nextControlFlow("else");
+        }
+        block.addStatement("$N.writeStartArray()", ENCODER)
                 .beginControlFlow("for ($T item : $L)", PoetUtil.toTypeName(elementType), readExpression)
                 .add(elementSerializer.serialize(generatorContext.withSubPath("[*]"), elementType, CodeBlock.of("item")))
                 .endControlFlow()
-                .addStatement("$N.writeEndArray()", ENCODER)
+                .addStatement("$N.writeEndArray()", ENCODER);
+        if (splittable) {
+            block.endControlFlow();
+        }
+        return block.build();
+    }
+
+    /**
+     * Each element is followed by one separator, either a comma or the closing bracket. An empty array only has the
+     * closing bracket.
+     */
+    @Override
+    public CodeBlock serializedSize(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression, String sizeVariable) {
+        ClassElement elementType = getElementType(type);
+        String itemVariable = generatorContext.newLocalVariable("item");
+        CodeBlock elementSize = linker.findSymbol(elementType).serializedSize(generatorContext.withSubPath("[*]"), elementType, CodeBlock.of("$N", itemVariable), sizeVariable);
+        if (elementSize == null) {
+            return null;
+        }
+        String startVariable = generatorContext.newLocalVariable("start");
+        return CodeBlock.builder()
+                .addStatement("long $N = ++$N", startVariable, sizeVariable)
+                .beginControlFlow("for ($T $N : $L)", PoetUtil.toTypeName(elementType), itemVariable, readExpression)
+                .add(elementSize)
+                .addStatement("$N++", sizeVariable)
+                .endControlFlow()
+                .addStatement("if ($N == $N) $N++", sizeVariable, startVariable, sizeVariable)
                 .build();
     }
 
+    /**
+     * Serializes the elements one by one, yielding between elements when the output buffer is full.
+     */
+    @Override
+    public CodeBlock serializeResumable(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression) {
+        ClassElement elementType = getElementType(type);
+        SerializerSymbol elementSerializer = linker.findSymbol(elementType);
+        TypeName elementTypeName = PoetUtil.toTypeName(elementType);
+
+        SerializationFrameGenerator frame = SerializationFrameGenerator.create(generatorContext, frameName(elementType, type.isArray() ? "ArraySerialization" : "ListSerialization"), PoetUtil.toTypeName(type));
+        GeneratorContext frameContext = frame.getContext();
+        CodeBlock.Builder writeNext = CodeBlock.builder();
+        CodeBlock atEnd;
+        CodeBlock next;
+        if (type.isArray()) {
+            String indexVariable = frameContext.newLocalVariable("index");
+            frame.addField(TypeName.INT, indexVariable, CodeBlock.of("-1"));
+            writeNext.beginControlFlow("if ($N == -1)", indexVariable);
+            writeNext.addStatement("$N.writeStartArray()", ENCODER);
+            writeNext.addStatement("$N = 0", indexVariable);
+            writeNext.endControlFlow();
+            atEnd = CodeBlock.of("$N == $N.length", indexVariable, frame.getValueField());
+            next = CodeBlock.of("$N[$N++]", frame.getValueField(), indexVariable);
+        } else {
+            String iteratorVariable = frameContext.newLocalVariable("iterator");
+            frame.addField(ParameterizedTypeName.get(ClassName.get(Iterator.class), elementTypeName.box()), iteratorVariable, null);
+            writeNext.beginControlFlow("if ($N == null)", iteratorVariable);
+            writeNext.addStatement("$N.writeStartArray()", ENCODER);
+            writeNext.addStatement("$N = $L", iteratorVariable, iteratorExpression(type, CodeBlock.of("$N", frame.getValueField())));
+            writeNext.endControlFlow();
+            atEnd = CodeBlock.of("!$N.hasNext()", iteratorVariable);
+            next = CodeBlock.of("$N.next()", iteratorVariable);
+        }
+        String itemVariable = frameContext.newLocalVariable("item");
+        writeNext.beginControlFlow("while (true)");
+        writeNext.beginControlFlow("if ($L)", atEnd);
+        CodeBlock afterIteration = afterIteration(type, CodeBlock.of("$N", frame.getValueField()));
+        if (!afterIteration.isEmpty()) {
+            // e.g. close a stream that is left unfinished when serialization is aborted
+            frame.setAbort(afterIteration);
+        }
+        writeNext.add(afterIteration);
+        writeNext.addStatement("$N.writeEndArray()", ENCODER);
+        writeNext.addStatement("return true");
+        writeNext.endControlFlow();
+        writeNext.add("if ($N.shouldYield()) return false;\n", SerializationFrameGenerator.SERIALIZER);
+        writeNext.addStatement("$T $N = $L", elementTypeName, itemVariable, next);
+        // this may push a child frame and return
+        writeNext.add(elementSerializer.serializeResumable(frameContext.withSubPath("[*]"), elementType, CodeBlock.of("$N", itemVariable)));
+        writeNext.endControlFlow();
+
+        return generatorContext.pushSerializationFrame(frame.finish(writeNext.build(), readExpression));
+    }
+
     @Override
     public CodeBlock deserialize(GeneratorContext generatorContext, ClassElement type, Setter setter) {
         ClassElement elementType = getElementType(type);
@@ -75,22 +177,93 @@ abstract class InlineIterableSerializerSymbol implements SerializerSymbol {
         String intermediateVariable = generatorContext.newLocalVariable("intermediate");
 
         CodeBlock.Builder block = CodeBlock.builder();
-        block.add("if ($N.currentToken() != $T.START_ARRAY) throw $T.from($N, \"Unexpected token \" + $N.currentToken() + \", expected START_OBJECT\");\n", DECODER, JsonToken.class, JsonParseException.class, DECODER, DECODER);
+        block.add(checkStartArray());
         block.add(createIntermediate(elementType, intermediateVariable));
         block.beginControlFlow("while ($N.nextToken() != $T.END_ARRAY)", DECODER, JsonToken.class);
         block.add(elementDeserializer.deserialize(generatorContext, elementType, expr -> CodeBlock.of("$N.add($L);\n", intermediateVariable, expr)));
         block.endControlFlow();
-        block.add(setter.createSetStatement(finishDeserialize(elementType, intermediateVariable)));
+        block.add(setter.createSetStatement(finishDeserialize(type, elementType, intermediateVariable)));
         return block.build();
     }
 
+    @Override
+    public CodeBlock deserializeResumable(GeneratorContext generatorContext, ClassElement type, Setter setter) {
+        ClassElement elementType = getElementType(type);
+        SerializerSymbol elementDeserializer = linker.findSymbol(elementType);
+
+        FrameGenerator frame = FrameGenerator.create(generatorContext, frameName(elementType, "List"), PoetUtil.toTypeName(type), CodeBlock.of("return false;\n"));
+        GeneratorContext frameContext = frame.getContext();
+        String intermediateVariable = frameContext.newLocalVariable("intermediate");
+        frame.addField(ParameterizedTypeName.get(ClassName.get(ArrayList.class), PoetUtil.toTypeName(elementType).box()), intermediateVariable, null);
+
+        CodeBlock.Builder onToken = CodeBlock.builder();
+        onToken.beginControlFlow("if ($N == null)", intermediateVariable);
+        onToken.add(checkStartArray());
+        onToken.addStatement("$N = new $T<>()", intermediateVariable, ArrayList.class);
+        onToken.addStatement("return false");
+        onToken.endControlFlow();
+        onToken.beginControlFlow("if ($N.currentToken() == $T.END_ARRAY)", DECODER, JsonToken.class);
+        onToken.addStatement("this.$N = $L", frame.getResultField(), finishDeserialize(type, elementType, intermediateVariable));
+        onToken.addStatement("return true");
+        onToken.endControlFlow();
+        onToken.add(elementDeserializer.deserializeResumable(frameContext, elementType, expr -> CodeBlock.of("$N.add($L);\n", intermediateVariable, expr)));
+        onToken.addStatement("return false");
+
+        return generatorContext.pushChildFrame(frame.finish(onToken.build()), PoetUtil.toTypeName(type), setter);
+    }
+
+    /**
+     * Iterables with random access, which can be split into ranges for parallel serialization, see
+     * {@link ParallelSerialization}.
+     */
+    interface Ranges {
+        /**
+         * @return Whether values of this type support {@link #sizeExpression} and {@link #listExpression}
+         */
+        boolean supportsRanges(ClassElement type);
+
+        /**
+         * @return Expression for the number of elements of the given value
+         */
+        CodeBlock sizeExpression(CodeBlock value);
+
+        /**
+         * @return Expression that views the given value as a {@link java.util.List}
+         */
+        CodeBlock listExpression(CodeBlock value);
+    }
+
+    /**
+     * @return Expression that creates an {@link Iterator} over the given collection value
+     */
+    protected CodeBlock iteratorExpression(ClassElement type, CodeBlock value) {
+        return CodeBlock.of("$L.iterator()", value);
+    }
+
+    /**
+     * @return Code to run once all elements of the given value have been serialized, or when resumable serialization
+     * is aborted before that
+     */
+    protected CodeBlock afterIteration(ClassElement type, CodeBlock value) {
+        return CodeBlock.of("");
+    }
+
+    static String frameName(ClassElement elementType, String kind) {
+        String simpleName = elementType.getSimpleName();
+        return Character.toUpperCase(simpleName.charAt(0)) + simpleName.substring(1) + kind + "Frame";
+    }
+
+    protected final CodeBlock checkStartArray() {
+        return CodeBlock.of("if ($N.currentToken() != $T.START_ARRAY) throw $T.from($N, \"Unexpected token \" + $N.currentToken() + \", expected START_OBJECT\");\n", DECODER, JsonToken.class, JsonParseException.class, DECODER, DECODER);
+    }
+
     protected CodeBlock createIntermediate(ClassElement elementType, String intermediateVariable) {
         return CodeBlock.of("$T<$T> $N = new $T<>();\n", ArrayList.class, PoetUtil.toTypeName(elementType), intermediateVariable, ArrayList.class);
     }
 
-    protected abstract CodeBlock finishDeserialize(ClassElement elementType, String intermediateVariable);
+    protected abstract CodeBlock finishDeserialize(ClassElement type, ClassElement elementType, String intermediateVariable);
 
-    static class ArrayImpl extends InlineIterableSerializerSymbol {
+    static class ArrayImpl extends InlineIterableSerializerSymbol implements Ranges {
         ArrayImpl(SerializerLinker linker) {
             super(linker);
         }
@@ -103,11 +276,83 @@ abstract class InlineIterableSerializerSymbol implements SerializerSymbol {
         @Override
         @NonNull
         protected ClassElement getElementType(ClassElement type) {
-            return type.fromArray();
+            return PoetUtil.fromArray(type);
         }
 
         @Override
-        protected CodeBlock finishDeserialize(ClassElement elementType, String intermediateVariable) {
+        public CodeBlock deserialize(GeneratorContext generatorContext, ClassElement type, Setter setter) {
+            ClassElement elementType = getElementType(type);
+            if (!elementType.isPrimitive() || elementType.isArray()) {
+                return super.deserialize(generatorContext, type, setter);
+            }
+
+            // primitive arrays can't go through an ArrayList without boxing, so we grow the array ourselves.
+            SerializerSymbol elementDeserializer = linker.findSymbol(elementType);
+            String arrayVariable = generatorContext.newLocalVariable("intermediate");
+            String sizeVariable = generatorContext.newLocalVariable("intermediateSize");
+
+            CodeBlock.Builder block = CodeBlock.builder();
+            block.add(checkStartArray());
+            block.addStatement("$T $N = new $T[8]", PoetUtil.toTypeName(type), arrayVariable, PoetUtil.toTypeName(elementType));
+            block.addStatement("int $N = 0", sizeVariable);
+            block.beginControlFlow("while ($N.nextToken() != $T.END_ARRAY)", DECODER, JsonToken.class);
+            block.addStatement("if ($N == $N.length) $N = $T.copyOf($N, $N * 2)", sizeVariable, arrayVariable, arrayVariable, Arrays.class, arrayVariable, sizeVariable);
+            block.add(elementDeserializer.deserialize(generatorContext, elementType, expr -> CodeBlock.of("$N[$N++] = $L;\n", arrayVariable, sizeVariable, expr)));
+            block.endControlFlow();
+            block.add(setter.createSetStatement(CodeBlock.of("$N == $N.length ? $N : $T.copyOf($N, $N)", sizeVariable, arrayVariable, arrayVariable, Arrays.class, arrayVariable, sizeVariable)));
+            return block.build();
+        }
+
+        @Override
+        public CodeBlock deserializeResumable(GeneratorContext generatorContext, ClassElement type, Setter setter) {
+            ClassElement elementType = getElementType(type);
+            if (!elementType.isPrimitive() || elementType.isArray()) {
+                return super.deserializeResumable(generatorContext, type, setter);
+            }
+
+            SerializerSymbol elementDeserializer = linker.findSymbol(elementType);
+            FrameGenerator frame = FrameGenerator.create(generatorContext, frameName(elementType, "Array"), PoetUtil.toTypeName(type), CodeBlock.of("return false;\n"));
+            GeneratorContext frameContext = frame.getContext();
+            String arrayVariable = frameContext.newLocalVariable("intermediate");
+            String sizeVariable = frameContext.newLocalVariable("intermediateSize");
+            frame.addField(PoetUtil.toTypeName(type), arrayVariable, null);
+            frame.addField(TypeName.INT, sizeVariable, null);
+
+            CodeBlock.Builder onToken = CodeBlock.builder();
+            onToken.beginControlFlow("if ($N == null)", arrayVariable);
+            onToken.add(checkStartArray());
+            onToken.addStatement("$N = new $T[8]", arrayVariable, PoetUtil.toTypeName(elementType));
+            onToken.addStatement("return false");
+            onToken.endControlFlow();
+            onToken.beginControlFlow("if ($N.currentToken() == $T.END_ARRAY)", DECODER, JsonToken.class);
+            onToken.addStatement("this.$N = $N == $N.length ? $N : $T.copyOf($N, $N)", frame.getResultField(), sizeVariable, arrayVariable, arrayVariable, Arrays.class, arrayVariable, sizeVariable);
+            onToken.addStatement("return true");
+            onToken.endControlFlow();
+            onToken.addStatement("if ($N == $N.length) $N = $T.copyOf($N, $N * 2)", sizeVariable, arrayVariable, arrayVariable, Arrays.class, arrayVariable, sizeVariable);
+            // primitives are always a single token
+            onToken.add(elementDeserializer.deserialize(frameContext, elementType, expr -> CodeBlock.of("$N[$N++] = $L;\n", arrayVariable, sizeVariable, expr)));
+            onToken.addStatement("return false");
+
+            return generatorContext.pushChildFrame(frame.finish(onToken.build()), PoetUtil.toTypeName(type), setter);
+        }
+
+        @Override
+        public boolean supportsRanges(ClassElement type) {
+            return true;
+        }
+
+        @Override
+        public CodeBlock sizeExpression(CodeBlock value) {
+            return CodeBlock.of("$L.length", value);
+        }
+
+        @Override
+        public CodeBlock listExpression(CodeBlock value) {
+            return CodeBlock.of("$T.asList($L)", Arrays.class, value);
+        }
+
+        @Override
+        protected CodeBlock finishDeserialize(ClassElement type, ClassElement elementType, String intermediateVariable) {
             return CodeBlock.of("$N.toArray(new $T[0])", intermediateVariable, PoetUtil.toTypeName(elementType));
         }
     }
@@ -115,7 +360,7 @@ abstract class InlineIterableSerializerSymbol implements SerializerSymbol {
     /**
      * Can also do {@link Iterable} and {@link java.util.List}.
      */
-    static class ArrayListImpl extends InlineIterableSerializerSymbol {
+    static class ArrayListImpl extends InlineIterableSerializerSymbol implements Ranges {
         ArrayListImpl(SerializerLinker linker) {
             super(linker);
         }
@@ -135,16 +380,16 @@ abstract class InlineIterableSerializerSymbol implements SerializerSymbol {
             return type.getTypeArguments(Iterable.class).get("T");
             */
             if (type.getName().equals("java.util.ArrayList")) {
-                return type.getTypeArguments().get("E");
+                return PoetUtil.typeArgument(type, "E");
             }
             if (type.getName().equals("java.util.List")) {
-                return type.getTypeArguments().get("E");
+                return PoetUtil.typeArgument(type, "E");
             }
             if (type.getName().equals("java.util.Collection")) {
-                return type.getTypeArguments().get("E");
+                return PoetUtil.typeArgument(type, "E");
             }
             if (type.getName().equals("java.util.Iterable")) {
-                return type.getTypeArguments().get("T");
+                return PoetUtil.typeArgument(type, "T");
             }
 
             // raw type? todo
@@ -152,8 +397,125 @@ abstract class InlineIterableSerializerSymbol implements SerializerSymbol {
         }
 
         @Override
-        protected CodeBlock finishDeserialize(ClassElement elementType, String intermediateVariable) {
+        public boolean supportsRanges(ClassElement type) {
+            return type.getName().equals("java.util.List") || type.getName().equals("java.util.ArrayList");
+        }
+
+        @Override
+        public CodeBlock sizeExpression(CodeBlock value) {
+            return CodeBlock.of("$L.size()", value);
+        }
+
+        @Override
+        public CodeBlock listExpression(CodeBlock value) {
+            return value;
+        }
+
+        @Override
+        protected CodeBlock finishDeserialize(ClassElement type, ClassElement elementType, String intermediateVariable) {
             return CodeBlock.of("$N", intermediateVariable);
         }
     }
+
+    /**
+     * Single-use sources of elements: {@link java.util.stream.Stream}, {@link Iterator} and
+     * {@link java.util.Spliterator}. These are serialized element by element without collecting them first, streams
+     * are closed afterwards. Deserialization goes through an {@link ArrayList}.
+     */
+    static class CursorImpl extends InlineIterableSerializerSymbol {
+        private static final String STREAM = "java.util.stream.Stream";
+        private static final String ITERATOR = "java.util.Iterator";
+        private static final String SPLITERATOR = "java.util.Spliterator";
+
+        CursorImpl(SerializerLinker linker) {
+            super(linker);
+        }
+
+        @Override
+        public boolean canSerialize(ClassElement type) {
+            return type.getName().equals(STREAM) ||
+                    type.getName().equals(ITERATOR) ||
+                    type.getName().equals(SPLITERATOR);
+        }
+
+        @Override
+        @NonNull
+        protected ClassElement getElementType(ClassElement type) {
+            if (type.getName().equals(ITERATOR)) {
+                return PoetUtil.typeArgument(type, "E");
+            } else {
+                return PoetUtil.typeArgument(type, "T");
+            }
+        }
+
+        @Override
+        public CodeBlock serialize(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression) {
+            ClassElement elementType = getElementType(type);
+            SerializerSymbol elementSerializer = linker.findSymbol(elementType);
+            String iteratorVariable = generatorContext.newLocalVariable("iterator");
+            String itemVariable = generatorContext.newLocalVariable("item");
+
+            CodeBlock.Builder block = CodeBlock.builder();
+            block.addStatement("$N.writeStartArray()", ENCODER);
+            CodeBlock source = readExpression;
+            if (type.getName().equals(STREAM)) {
+                String streamVariable = generatorContext.newLocalVariable("stream");
+                block.beginControlFlow("try ($T $N = $L)", PoetUtil.toTypeName(type), streamVariable, readExpression);
+                source = CodeBlock.of("$N", streamVariable);
+            }
+            block.addStatement("$T<$T> $N = $L", Iterator.class, PoetUtil.toTypeName(elementType).box(), iteratorVariable, iteratorExpression(type, source));
+            block.beginControlFlow("while ($N.hasNext())", iteratorVariable);
+            block.addStatement("$T $N = $N.next()", PoetUtil.toTypeName(elementType), itemVariable, iteratorVariable);
+            block.add(elementSerializer.serialize(generatorContext.withSubPath("[*]"), elementType, CodeBlock.of("$N", itemVariable)));
+            block.endControlFlow();
+            if (type.getName().equals(STREAM)) {
+                block.endControlFlow();
+            }
+            block.addStatement("$N.writeEndArray()", ENCODER);
+            return block.build();
+        }
+
+        /**
+         * Cursors can only be consumed once, and measuring one by serializing would leave nothing to serialize
+         * afterwards, so the size of a value that contains a cursor is unknown. A {@code null} cursor only serializes
+         * if the property is nullable, which is measured by {@link NullableSerializerSymbol}.
+         */
+        @Override
+        public CodeBlock serializedSize(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression, String sizeVariable) {
+            return CodeBlock.of("if ($L != null) return -1;\n", readExpression);
+        }
+
+        @Override
+        protected CodeBlock iteratorExpression(ClassElement type, CodeBlock value) {
+            switch (type.getName()) {
+                case ITERATOR:
+                    return value;
+                case SPLITERATOR:
+                    return CodeBlock.of("$T.iterator($L)", Spliterators.class, value);
+                default:
+                    return super.iteratorExpression(type, value);
+            }
+        }
+
+        @Override
+        protected CodeBlock afterIteration(ClassElement type, CodeBlock value) {
+            if (type.getName().equals(STREAM)) {
+                return CodeBlock.of("$L.close();\n", value);
+            } else {
+                return super.afterIteration(type, value);
+            }
+        }
+
+        @Override
+        protected CodeBlock finishDeserialize(ClassElement type, ClassElement elementType, String intermediateVariable) {
+            switch (type.getName()) {
+                case ITERATOR:
+                    return CodeBlock.of("$N.iterator()", intermediateVariable);
+                case SPLITERATOR:
+                    return CodeBlock.of("$N.spliterator()", intermediateVariable);
+                default:
+                    return CodeBlock.of("$N.stream()", intermediateVariable);
+            }
+        }
+    }
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen.generator;
+
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.TypeName;
+import io.micronaut.inject.ast.ClassElement;
+import io.micronaut.jsongen.Lazy;
+import io.micronaut.jsongen.RawCapture;
+import io.micronaut.jsongen.SerializationFrame;
+
+/**
+ * Symbol for {@link Lazy} properties. The serialized form of the value is captured during deserialization, and the
+ * serializer of the value type is only used when the value is accessed, or when a resolved value is written.
+ * View-specific serializers resolve the value before writing it, because the captured form may contain properties
+ * outside the view.
+ */
+final class LazySerializerSymbol implements SerializerSymbol {
+    private final InjectingSerializerSymbol valueSymbol;
+
+    LazySerializerSymbol(SerializerLinker linker) {
+        // the value serializer is only needed on access, so a provider is fine, and avoids issues with cycles
+        this.valueSymbol = (InjectingSerializerSymbol) new InjectingSerializerSymbol(linker).withRecursiveSerialization();
+    }
+
+    @Override
+    public boolean canSerialize(ClassElement type) {
+        return type.getName().equals(Lazy.class.getName());
+    }
+
+    @Override
+    public void visitDependencies(DependencyVisitor visitor, ClassElement type) {
+        valueSymbol.visitDependencies(visitor, getValueType(type));
+    }
+
+    @Override
+    public CodeBlock serialize(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression) {
+        CodeBlock serializer = valueSymbol.getSerializerAccess(generatorContext, getValueType(type));
+        if (generatorContext.getActiveViews() != null) {
+            return CodeBlock.of("$L.serialize($N, $L.get());\n", serializer, Names.ENCODER, readExpression);
+        }
+        return CodeBlock.of("$L.serialize($N, $L);\n", readExpression, Names.ENCODER, serializer);
+    }
+
+    @Override
+    public CodeBlock serializeResumable(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression) {
+        ClassElement valueType = getValueType(type);
+        CodeBlock serializer = valueSymbol.getSerializerAccess(generatorContext, valueType);
+        if (generatorContext.getActiveViews() != null) {
+            return generatorContext.pushSerializationFrame(CodeBlock.of(
+                    "$T.forSerializer($L, $L.get())", SerializationFrame.class, serializer, readExpression));
+        }
+        String variable = generatorContext.newLocalVariable("lazy");
+        return CodeBlock.builder()
+                .addStatement("$T $N = $L", PoetUtil.toTypeName(type), variable, readExpression)
+                .beginControlFlow("if ($N.isResolved())", variable)
+                // a resolved value may be arbitrarily large, continue in a frame of the value serializer
+                .add(generatorContext.pushSerializationFrame(CodeBlock.of(
+                        "$T.forSerializer($L, $N.get())", SerializationFrame.class, serializer, variable)))
+                .nextControlFlow("else")
+                .addStatement("$N.serialize($N, $L)", variable, Names.ENCODER, serializer)
+                .endControlFlow()
+                .build();
+    }
+
+    @Override
+    public CodeBlock deserialize(GeneratorContext generatorContext, ClassElement type, Setter setter) {
+        CodeBlock serializer = valueSymbol.getSerializerAccess(generatorContext, getValueType(type));
+        return setter.createSetStatement(CodeBlock.of(
+                "$T.ofRaw($T.capture($N), $L)", Lazy.class, RawCapture.class, Names.DECODER, serializer));
+    }
+
+    @Override
+    public CodeBlock deserializeResumable(GeneratorContext generatorContext, ClassElement type, Setter setter) {
+        CodeBlock serializer = valueSymbol.getSerializerAccess(generatorContext, getValueType(type));
+        return generatorContext.pushChildFrame(
+                CodeBlock.of("$T.newFrame()", RawCapture.class),
+                ArrayTypeName.of(TypeName.BYTE),
+                expr -> setter.createSetStatement(CodeBlock.of("$T.ofRaw($L, $L)", Lazy.class, expr, serializer))
+        );
+    }
+
+    private static ClassElement getValueType(ClassElement type) {
+        ClassElement valueType = PoetUtil.typeArgument(type, "T");
+        if (valueType == null) {
+            throw new UnsupportedOperationException("Raw Lazy type is not supported");
+        }
+        return valueType;
+    }
+}
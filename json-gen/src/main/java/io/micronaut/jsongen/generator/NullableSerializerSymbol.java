@@ -39,6 +39,36 @@ public class NullableSerializerSymbol implements SerializerSymbol {
                 .build();
     }
 
+    @Override
+    public CodeBlock serializeResumable(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression) {
+        String variable = generatorContext.newLocalVariable("tmp");
+        return CodeBlock.builder()
+                .addStatement("$T $N = $L", PoetUtil.toTypeName(type), variable, readExpression)
+                .beginControlFlow("if ($N == null)", variable)
+                .addStatement("$N.writeNull()", Names.ENCODER)
+                .nextControlFlow("else")
+                .add(delegate.serializeResumable(generatorContext, type, CodeBlock.of("$N", variable)))
+                .endControlFlow()
+                .build();
+    }
+
+    @Override
+    public CodeBlock serializedSize(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression, String sizeVariable) {
+        String variable = generatorContext.newLocalVariable("tmp");
+        CodeBlock delegateSize = delegate.serializedSize(generatorContext, type, CodeBlock.of("$N", variable), sizeVariable);
+        if (delegateSize == null) {
+            return null;
+        }
+        return CodeBlock.builder()
+                .addStatement("$T $N = $L", PoetUtil.toTypeName(type), variable, readExpression)
+                .beginControlFlow("if ($N == null)", variable)
+                .addStatement("$N += 4", sizeVariable)
+                .nextControlFlow("else")
+                .add(delegateSize)
+                .endControlFlow()
+                .build();
+    }
+
     @Override
     public CodeBlock deserialize(GeneratorContext generatorContext, ClassElement type, Setter setter) {
         return CodeBlock.builder()
@@ -49,4 +79,15 @@ public class NullableSerializerSymbol implements SerializerSymbol {
                 .endControlFlow()
                 .build();
     }
+
+    @Override
+    public CodeBlock deserializeResumable(GeneratorContext generatorContext, ClassElement type, Setter setter) {
+        return CodeBlock.builder()
+                .beginControlFlow("if ($N.currentToken() == $T.VALUE_NULL)", Names.DECODER, JsonToken.class)
+                .add(setter.createSetStatement(CodeBlock.of("null")))
+                .nextControlFlow("else")
+                .add(delegate.deserializeResumable(generatorContext, type, setter))
+                .endControlFlow()
+                .build();
+    }
 }
@@ -19,18 +19,46 @@ import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.inject.ast.ClassElement;
 import io.micronaut.inject.ast.PrimitiveElement;
 
+import java.util.Arrays;
 import java.util.Map;
 
 public final class PoetUtil {
     private PoetUtil() {
     }
 
+    /**
+     * Like {@link ClassElement#fromArray()}, but returns the canonical {@link PrimitiveElement} constants for primitive
+     * arrays, so that they can be compared using {@code equals}.
+     */
+    public static ClassElement fromArray(ClassElement array) {
+        ClassElement component = array.fromArray();
+        if (component.isPrimitive() && !component.isArray()) {
+            return PrimitiveElement.valueOf(component.getName());
+        }
+        return component;
+    }
+
+    /**
+     * Like {@code type.getTypeArguments().get(name)}, but returns a plain {@code Object} for arguments named
+     * {@code java.lang.Object}. Type arguments always claim to be {@link ClassElement#isTypeVariable() type variables},
+     * so a {@code List<T>} cannot be told apart from a {@code List<Object>}. Both are treated as the latter.
+     */
+    @Nullable
+    public static ClassElement typeArgument(ClassElement type, String name) {
+        ClassElement argument = type.getTypeArguments().get(name);
+        if (argument != null && !argument.isArray() && argument.getName().equals(Object.class.getName())) {
+            return ClassElement.of(Object.class);
+        }
+        return argument;
+    }
+
     public static TypeName toTypeName(ClassElement clazz) {
         if (clazz.isArray()) {
-            return ArrayTypeName.of(toTypeName(clazz.fromArray()));
+            return ArrayTypeName.of(toTypeName(fromArray(clazz)));
         }
         if (clazz.isPrimitive()) {
             if (clazz.equals(PrimitiveElement.BYTE)) {
@@ -55,7 +83,9 @@ public final class PoetUtil {
                 throw new AssertionError("unknown primitive type " + clazz);
             }
         }
-        ClassName className = ClassName.get(clazz.getPackageName(), clazz.getSimpleName()); // TODO: nested types
+        // the simple name of nested classes is the binary name, e.g. Outer$Inner
+        String[] simpleNames = clazz.getSimpleName().split("\\$");
+        ClassName className = ClassName.get(clazz.getPackageName(), simpleNames[0], Arrays.copyOfRange(simpleNames, 1, simpleNames.length));
         Map<String, ClassElement> typeArguments = clazz.getTypeArguments();
         if (typeArguments.isEmpty()) {
             if (clazz.getName().equals("<any>")) {
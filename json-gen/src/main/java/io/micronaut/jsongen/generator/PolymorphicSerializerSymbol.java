@@ -0,0 +1,446 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen.generator;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import io.micronaut.core.annotation.AnnotationClassValue;
+import io.micronaut.core.annotation.AnnotationValue;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.inject.ast.ClassElement;
+import io.micronaut.inject.visitor.VisitorContext;
+import io.micronaut.jsongen.DeserializationFrame;
+import io.micronaut.jsongen.JsonParseException;
+import io.micronaut.jsongen.RuntimeTypeDispatcher;
+import io.micronaut.jsongen.Serializer;
+import io.micronaut.jsongen.TokenBuffer;
+import io.micronaut.jsongen.generator.bean.InlineBeanSerializerSymbol;
+
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static io.micronaut.jsongen.generator.Names.DECODER;
+import static io.micronaut.jsongen.generator.Names.ENCODER;
+
+/**
+ * Symbol for properties whose declared type does not determine the serializer: abstract types that are marked as
+ * polymorphic with {@link JsonTypeInfo} or {@link JsonSubTypes}, or that are sealed. {@code Object} is handled by
+ * {@link UntypedSerializerSymbol}.
+ * <p>
+ * If the subtypes are known (sealed, or listed in {@link JsonSubTypes}), the generated code compares the runtime
+ * class against each of them and calls the subtype serializer directly. Everything else goes through the
+ * {@link RuntimeTypeDispatcher}.
+ * <p>
+ * If the type has {@link JsonTypeInfo}, the type id is written as configured (see {@link TypeInfoDefinition}), and
+ * deserialization dispatches on the type id instead of using the {@link RuntimeTypeDispatcher}.
+ */
+final class PolymorphicSerializerSymbol implements SerializerSymbol {
+    private static final String TYPE_ID = "typeId";
+
+    private final SerializerLinker linker;
+    @Nullable
+    private final VisitorContext typeResolutionContext;
+    private final boolean recursive;
+
+    PolymorphicSerializerSymbol(SerializerLinker linker, @Nullable VisitorContext typeResolutionContext) {
+        this(linker, typeResolutionContext, false);
+    }
+
+    private PolymorphicSerializerSymbol(SerializerLinker linker, @Nullable VisitorContext typeResolutionContext, boolean recursive) {
+        this.linker = linker;
+        this.typeResolutionContext = typeResolutionContext;
+        this.recursive = recursive;
+    }
+
+    @Override
+    public boolean canSerialize(ClassElement type) {
+        if (type.isArray() || type.isPrimitive()) {
+            return false;
+        }
+        if (!type.isAbstract() && !type.isInterface()) {
+            return false;
+        }
+        ClassElement declaration = resolve(type.getName()).orElse(type);
+        return declaration.hasAnnotation(JsonTypeInfo.class) ||
+                declaration.hasAnnotation(JsonSubTypes.class) ||
+                !getPermittedSubclasses(declaration).isEmpty();
+    }
+
+    @Override
+    public SerializerSymbol withRecursiveSerialization() {
+        return new PolymorphicSerializerSymbol(linker, typeResolutionContext, true);
+    }
+
+    @Override
+    public void visitDependencies(DependencyVisitor visitor, ClassElement type) {
+        for (ClassElement subtype : findSubtypes(type)) {
+            visitor.visitStructureElement(findSubtypeSymbol(subtype), subtype, null);
+        }
+        TypeInfoDefinition typeInfo = TypeInfoDefinition.find(new ProblemReporter(), typeResolutionContext, type);
+        if (typeInfo != null && typeInfo.defaultImpl != null) {
+            Optional<ClassElement> defaultImpl = resolve(typeInfo.defaultImpl);
+            if (defaultImpl.isPresent()) {
+                visitor.visitStructureElement(findSubtypeSymbol(defaultImpl.get()), defaultImpl.get(), null);
+            }
+        }
+    }
+
+    private SerializerSymbol findSubtypeSymbol(ClassElement subtype) {
+        SerializerSymbol symbol = linker.findSymbol(subtype);
+        return recursive ? symbol.withRecursiveSerialization() : symbol;
+    }
+
+    @Override
+    public CodeBlock serialize(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression) {
+        CodeBlock dispatcher = getDispatcherAccess(generatorContext);
+        TypeInfoDefinition typeInfo = TypeInfoDefinition.find(generatorContext.getProblemReporter(), typeResolutionContext, type);
+        List<ClassElement> subtypes = findSubtypes(type);
+        if (subtypes.isEmpty() && !isWrapper(typeInfo)) {
+            return CodeBlock.of("$L.serialize($N, $L);\n", dispatcher, ENCODER, readExpression);
+        }
+
+        String valueVariable = generatorContext.newLocalVariable("value");
+        String classVariable = generatorContext.newLocalVariable("valueClass");
+        CodeBlock.Builder builder = CodeBlock.builder();
+        builder.addStatement("$T $N = $L", PoetUtil.toTypeName(type), valueVariable, readExpression);
+        builder.addStatement("$T<?> $N = $N.getClass()", Class.class, classVariable, valueVariable);
+        boolean first = true;
+        for (ClassElement subtype : subtypes) {
+            TypeName subtypeName = PoetUtil.toTypeName(subtype);
+            if (first) {
+                builder.beginControlFlow("if ($N == $T.class)", classVariable, subtypeName);
+                first = false;
+            } else {
+                builder.nextControlFlow("else if ($N == $T.class)", classVariable, subtypeName);
+            }
+            CodeBlock serializeSubtype = findSubtypeSymbol(subtype).serialize(generatorContext, subtype, CodeBlock.of("(($T) $N)", subtypeName, valueVariable));
+            builder.add(wrapTypeId(typeInfo, typeInfo == null ? null : CodeBlock.of("$S", typeInfo.getTypeId(subtype)), serializeSubtype));
+        }
+        // subclasses of the known subtypes, or types that are not part of the closed hierarchy after all
+        if (!first) {
+            builder.nextControlFlow("else");
+        }
+        CodeBlock runtimeTypeId = null;
+        if (typeInfo != null) {
+            runtimeTypeId = typeInfo.use == JsonTypeInfo.Id.CLASS ?
+                    CodeBlock.of("$N.getName()", classVariable) :
+                    CodeBlock.of("$N.getName().substring($N.getName().lastIndexOf('.') + 1)", classVariable, classVariable);
+        }
+        builder.add(wrapTypeId(typeInfo, runtimeTypeId, CodeBlock.of("$L.serialize($N, $N);\n", dispatcher, ENCODER, valueVariable)));
+        if (!first) {
+            builder.endControlFlow();
+        }
+        return builder.build();
+    }
+
+    private static boolean isWrapper(@Nullable TypeInfoDefinition typeInfo) {
+        return typeInfo != null && typeInfo.include != JsonTypeInfo.As.PROPERTY;
+    }
+
+    /**
+     * Wrap the serialization code of a value in a type id wrapper, if the type info asks for one. Type properties are
+     * written by the bean serializer of the subtype instead.
+     */
+    private static CodeBlock wrapTypeId(@Nullable TypeInfoDefinition typeInfo, @Nullable CodeBlock typeId, CodeBlock serialize) {
+        if (!isWrapper(typeInfo)) {
+            return serialize;
+        }
+        CodeBlock.Builder builder = CodeBlock.builder();
+        if (typeInfo.include == JsonTypeInfo.As.WRAPPER_OBJECT) {
+            builder.addStatement("$N.writeStartObject()", ENCODER);
+            builder.addStatement("$N.writeFieldName($L)", ENCODER, typeId);
+            builder.add(serialize);
+            builder.addStatement("$N.writeEndObject()", ENCODER);
+        } else {
+            builder.addStatement("$N.writeStartArray()", ENCODER);
+            builder.addStatement("$N.writeString($L)", ENCODER, typeId);
+            builder.add(serialize);
+            builder.addStatement("$N.writeEndArray()", ENCODER);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public CodeBlock deserialize(GeneratorContext generatorContext, ClassElement type, Setter setter) {
+        TypeInfoDefinition typeInfo = TypeInfoDefinition.find(generatorContext.getProblemReporter(), typeResolutionContext, type);
+        if (typeInfo != null) {
+            return setter.createSetStatement(CodeBlock.of("new $N().deserialize($N)", getTypeIdDeserializer(generatorContext, type, typeInfo), DECODER));
+        }
+        return setter.createSetStatement(CodeBlock.of("$L.find($T.class).deserialize($N)", getDispatcherAccess(generatorContext), rawType(type), DECODER));
+    }
+
+    @Override
+    public CodeBlock deserializeResumable(GeneratorContext generatorContext, ClassElement type, Setter setter) {
+        TypeInfoDefinition typeInfo = TypeInfoDefinition.find(generatorContext.getProblemReporter(), typeResolutionContext, type);
+        CodeBlock serializer;
+        if (typeInfo != null) {
+            // the type id may come after other properties, so the blocking implementation is as good as it gets
+            serializer = CodeBlock.of("new $N()", getTypeIdDeserializer(generatorContext, type, typeInfo));
+        } else {
+            serializer = CodeBlock.of("$L.find($T.class)", getDispatcherAccess(generatorContext), rawType(type));
+        }
+        return generatorContext.pushChildFrame(
+                CodeBlock.of("$T.forSerializer($L)", DeserializationFrame.class, serializer),
+                PoetUtil.toTypeName(type),
+                setter
+        );
+    }
+
+    /**
+     * Generate a nested {@link Serializer} class (deserialization only) that reads the type id, and then dispatches to
+     * the subtype code in a {@code switch} on the id. The class is shared by all properties of the same type.
+     * <p>
+     * For {@link JsonTypeInfo.As#PROPERTY}, the type property is usually the first property of the object, and the
+     * subtype code continues right after it. Otherwise, the properties before the type property are kept in a
+     * {@link TokenBuffer} and replayed to the subtype code.
+     *
+     * @return The simple name of the nested class
+     */
+    private String getTypeIdDeserializer(GeneratorContext generatorContext, ClassElement type, TypeInfoDefinition typeInfo) {
+        String key = "TypeIdDeserializer:" + type.getName() + ":" + recursive;
+        String existing = generatorContext.findNestedClass(key);
+        if (existing != null) {
+            return existing;
+        }
+        String className = generatorContext.newNestedClassName(type.getSimpleName().replace('$', '_') + "TypeIdDeserializer");
+        generatorContext.registerNestedClass(key, className);
+
+        TypeName typeName = PoetUtil.toTypeName(type);
+        GeneratorContext classContext = generatorContext.newInnerClassContext(DECODER, TYPE_ID);
+
+        CodeBlock.Builder readTypeId = CodeBlock.builder();
+        switch (typeInfo.include) {
+            case PROPERTY:
+                readTypeId.add("if ($N.currentToken() != $T.START_OBJECT) throw $T.from($N, \"Unexpected token \" + $N.currentToken() + \", expected START_OBJECT\");\n",
+                        DECODER, JsonToken.class, JsonParseException.class, DECODER, DECODER);
+                readTypeId.beginControlFlow("if ($N.nextToken() == $T.FIELD_NAME && $S.equals($N.getCurrentName()))", DECODER, JsonToken.class, typeInfo.property, DECODER);
+                readTypeId.add("// fast path: the type id is the first property\n");
+                readTypeId.add("if ($N.nextToken() != $T.VALUE_STRING) throw $T.from($N, \"Unexpected token \" + $N.currentToken() + \", expected VALUE_STRING\");\n",
+                        DECODER, JsonToken.class, JsonParseException.class, DECODER, DECODER);
+                readTypeId.addStatement("return deserialize($N.getText(), $N)", DECODER, DECODER);
+                readTypeId.endControlFlow();
+                readTypeId.addStatement("$T prefix = new $T()", TokenBuffer.class, TokenBuffer.class);
+                readTypeId.addStatement("$T $N = prefix.bufferUntilProperty($N, $S)", String.class, TYPE_ID, DECODER, typeInfo.property);
+                readTypeId.addStatement("return deserialize($N, prefix.asParser($N))", TYPE_ID, DECODER);
+                break;
+            case WRAPPER_OBJECT:
+                readTypeId.add("if ($N.currentToken() != $T.START_OBJECT) throw $T.from($N, \"Unexpected token \" + $N.currentToken() + \", expected START_OBJECT\");\n",
+                        DECODER, JsonToken.class, JsonParseException.class, DECODER, DECODER);
+                readTypeId.add("if ($N.nextToken() != $T.FIELD_NAME) throw $T.from($N, \"Unexpected token \" + $N.currentToken() + \", expected FIELD_NAME\");\n",
+                        DECODER, JsonToken.class, JsonParseException.class, DECODER, DECODER);
+                readTypeId.addStatement("$T $N = $N.getCurrentName()", String.class, TYPE_ID, DECODER);
+                readTypeId.addStatement("$N.nextToken()", DECODER);
+                readTypeId.addStatement("$T value = deserialize($N, $N)", typeName, TYPE_ID, DECODER);
+                readTypeId.add("if ($N.nextToken() != $T.END_OBJECT) throw $T.from($N, \"Unexpected token \" + $N.currentToken() + \", expected END_OBJECT\");\n",
+                        DECODER, JsonToken.class, JsonParseException.class, DECODER, DECODER);
+                readTypeId.addStatement("return value");
+                break;
+            case WRAPPER_ARRAY:
+                readTypeId.add("if ($N.currentToken() != $T.START_ARRAY) throw $T.from($N, \"Unexpected token \" + $N.currentToken() + \", expected START_ARRAY\");\n",
+                        DECODER, JsonToken.class, JsonParseException.class, DECODER, DECODER);
+                readTypeId.add("if ($N.nextToken() != $T.VALUE_STRING) throw $T.from($N, \"Unexpected token \" + $N.currentToken() + \", expected VALUE_STRING\");\n",
+                        DECODER, JsonToken.class, JsonParseException.class, DECODER, DECODER);
+                readTypeId.addStatement("$T $N = $N.getText()", String.class, TYPE_ID, DECODER);
+                readTypeId.addStatement("$N.nextToken()", DECODER);
+                readTypeId.addStatement("$T value = deserialize($N, $N)", typeName, TYPE_ID, DECODER);
+                readTypeId.add("if ($N.nextToken() != $T.END_ARRAY) throw $T.from($N, \"Unexpected token \" + $N.currentToken() + \", expected END_ARRAY\");\n",
+                        DECODER, JsonToken.class, JsonParseException.class, DECODER, DECODER);
+                readTypeId.addStatement("return value");
+                break;
+            default:
+                throw new AssertionError(typeInfo.include);
+        }
+
+        CodeBlock.Builder dispatch = CodeBlock.builder();
+        dispatch.beginControlFlow("if ($N != null)", TYPE_ID);
+        dispatch.beginControlFlow("switch ($N)", TYPE_ID);
+        Set<String> seenIds = new HashSet<>();
+        for (ClassElement subtype : findSubtypes(type)) {
+            for (String id : typeInfo.getTypeIds(subtype)) {
+                if (!seenIds.add(id)) {
+                    generatorContext.getProblemReporter().fail("Duplicate type id " + id + " in the subtypes of " + type.getName(), subtype);
+                }
+                dispatch.add("case $S:\n", id);
+            }
+            dispatch.indent();
+            dispatch.add(deserializeSubtype(classContext.withSubPath(subtype.getSimpleName()), typeInfo, subtype));
+            dispatch.unindent();
+        }
+        dispatch.endControlFlow();
+        dispatch.endControlFlow();
+        ClassElement defaultImpl = typeInfo.defaultImpl == null ? null : resolve(typeInfo.defaultImpl).orElse(null);
+        if (defaultImpl != null) {
+            dispatch.add(deserializeSubtype(classContext.withSubPath(defaultImpl.getSimpleName()), typeInfo, defaultImpl));
+        } else {
+            dispatch.addStatement("throw $T.from($N, $N == null ? $S : $S + $N)",
+                    JsonParseException.class, DECODER, TYPE_ID, "Missing type id for " + type.getName(), "Unknown type id for " + type.getName() + ": ", TYPE_ID);
+        }
+
+        generatorContext.addNestedClass(TypeSpec.classBuilder(className)
+                .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
+                .addSuperinterface(ParameterizedTypeName.get(ClassName.get(Serializer.class), typeName))
+                .addMethod(MethodSpec.methodBuilder("serialize")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .addParameter(JsonGenerator.class, ENCODER)
+                        .addParameter(typeName, "value")
+                        .addStatement("throw new $T()", UnsupportedOperationException.class)
+                        .build())
+                .addMethod(MethodSpec.methodBuilder("deserialize")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(typeName)
+                        .addParameter(JsonParser.class, DECODER)
+                        .addException(IOException.class)
+                        .addCode(readTypeId.build())
+                        .build())
+                .addMethod(MethodSpec.methodBuilder("deserialize")
+                        .addModifiers(Modifier.PRIVATE)
+                        .returns(typeName)
+                        .addParameter(ParameterSpec.builder(String.class, TYPE_ID).addAnnotation(Nullable.class).build())
+                        .addParameter(JsonParser.class, DECODER)
+                        .addException(IOException.class)
+                        .addCode(dispatch.build())
+                        .build())
+                .build());
+        return className;
+    }
+
+    /**
+     * Generate the code that deserializes one subtype once its type id is known, and returns it.
+     */
+    private CodeBlock deserializeSubtype(GeneratorContext context, TypeInfoDefinition typeInfo, ClassElement subtype) {
+        SerializerSymbol symbol = findSubtypeSymbol(subtype);
+        Setter setter = expr -> CodeBlock.of("return $L;\n", expr);
+        if (typeInfo.include != JsonTypeInfo.As.PROPERTY) {
+            return symbol.deserialize(context, subtype, setter);
+        }
+        if (symbol instanceof InlineBeanSerializerSymbol) {
+            return ((InlineBeanSerializerSymbol) symbol).deserializeAfterTypeId(context, subtype, setter);
+        }
+        // the decoder may be positioned at the type id, inside the object
+        return CodeBlock.builder()
+                .add("if ($N.currentToken() != $T.START_OBJECT) $N = $T.continueObject($N);\n", DECODER, JsonToken.class, DECODER, TokenBuffer.class, DECODER)
+                .add(symbol.deserialize(context, subtype, setter))
+                .build();
+    }
+
+    private static CodeBlock getDispatcherAccess(GeneratorContext generatorContext) {
+        return generatorContext.requestInjection(ClassName.get(RuntimeTypeDispatcher.class)).getAccessExpression();
+    }
+
+    private static TypeName rawType(ClassElement type) {
+        TypeName typeName = PoetUtil.toTypeName(type);
+        return typeName instanceof ParameterizedTypeName ? ((ParameterizedTypeName) typeName).rawType : typeName;
+    }
+
+    /**
+     * Find the concrete subtypes of a closed hierarchy, i.e. the {@link JsonSubTypes} or permitted subclasses, and
+     * theirs, transitively. Generic subtypes are skipped, they can only be handled by the
+     * {@link RuntimeTypeDispatcher}.
+     */
+    private List<ClassElement> findSubtypes(ClassElement type) {
+        if (typeResolutionContext == null) {
+            return Collections.emptyList();
+        }
+        Map<String, ClassElement> subtypes = new LinkedHashMap<>();
+        collectSubtypes(resolve(type.getName()).orElse(type), subtypes);
+        List<ClassElement> concrete = new ArrayList<>();
+        for (ClassElement subtype : subtypes.values()) {
+            if (!subtype.isAbstract() && !subtype.isInterface() && !subtype.isPrivate() && subtype.getTypeArguments().isEmpty()) {
+                concrete.add(subtype);
+            }
+        }
+        return concrete;
+    }
+
+    private void collectSubtypes(ClassElement declaration, Map<String, ClassElement> subtypes) {
+        List<String> names = new ArrayList<>(getPermittedSubclasses(declaration));
+        AnnotationValue<JsonSubTypes> jsonSubTypes = declaration.getAnnotation(JsonSubTypes.class);
+        if (jsonSubTypes != null) {
+            for (AnnotationValue<JsonSubTypes.Type> subtype : jsonSubTypes.getAnnotations("value", JsonSubTypes.Type.class)) {
+                subtype.annotationClassValue("value").map(AnnotationClassValue::getName).ifPresent(names::add);
+            }
+        }
+        for (String name : names) {
+            Optional<ClassElement> subtype = resolve(name);
+            if (subtype.isPresent() && !subtypes.containsKey(subtype.get().getName())) {
+                subtypes.put(subtype.get().getName(), subtype.get());
+                collectSubtypes(subtype.get(), subtypes);
+            }
+        }
+    }
+
+    private Optional<ClassElement> resolve(String name) {
+        if (typeResolutionContext == null) {
+            return Optional.empty();
+        }
+        return TypeInfoDefinition.resolve(typeResolutionContext, name);
+    }
+
+    /**
+     * {@code TypeElement.getPermittedSubclasses} was added in java 17, so call it reflectively.
+     *
+     * @return The canonical names of the permitted subclasses, or an empty list if the type is not sealed
+     */
+    private static List<String> getPermittedSubclasses(ClassElement declaration) {
+        Object nativeType = declaration.getNativeType();
+        if (!(nativeType instanceof TypeElement)) {
+            return Collections.emptyList();
+        }
+        Method getPermittedSubclasses;
+        try {
+            getPermittedSubclasses = TypeElement.class.getMethod("getPermittedSubclasses");
+        } catch (NoSuchMethodException e) {
+            return Collections.emptyList();
+        }
+        List<?> mirrors;
+        try {
+            mirrors = (List<?>) getPermittedSubclasses.invoke(nativeType);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            return Collections.emptyList();
+        }
+        List<String> names = new ArrayList<>(mirrors.size());
+        for (Object mirror : mirrors) {
+            if (mirror instanceof DeclaredType) {
+                names.add(((TypeElement) ((DeclaredType) mirror).asElement()).getQualifiedName().toString());
+            }
+        }
+        return names;
+    }
+}
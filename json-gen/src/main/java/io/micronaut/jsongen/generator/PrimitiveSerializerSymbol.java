@@ -19,7 +19,9 @@ import com.fasterxml.jackson.core.JsonToken;
 import com.squareup.javapoet.CodeBlock;
 import io.micronaut.inject.ast.ClassElement;
 import io.micronaut.inject.ast.PrimitiveElement;
+import io.micronaut.jsongen.FloatingPointCodec;
 import io.micronaut.jsongen.JsonParseException;
+import io.micronaut.jsongen.SerializedSize;
 
 import static io.micronaut.jsongen.generator.Names.DECODER;
 import static io.micronaut.jsongen.generator.Names.ENCODER;
@@ -44,11 +46,30 @@ final class PrimitiveSerializerSymbol implements SerializerSymbol {
     public CodeBlock serialize(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression) {
         if (type.equals(PrimitiveElement.BOOLEAN)) {
             return CodeBlock.of("$N.writeBoolean($L);\n", ENCODER, readExpression);
+        } else if (type.equals(PrimitiveElement.DOUBLE)) {
+            return CodeBlock.of("$T.writeDouble($N, $L);\n", FloatingPointCodec.class, ENCODER, readExpression);
+        } else if (type.equals(PrimitiveElement.FLOAT)) {
+            return CodeBlock.of("$T.writeFloat($N, $L);\n", FloatingPointCodec.class, ENCODER, readExpression);
         } else {
             return CodeBlock.of("$N.writeNumber($L);\n", ENCODER, readExpression);
         }
     }
 
+    @Override
+    public CodeBlock serializedSize(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression, String sizeVariable) {
+        if (type.equals(PrimitiveElement.BOOLEAN)) {
+            return CodeBlock.of("$N += $L ? 4 : 5;\n", sizeVariable, readExpression);
+        } else if (type.equals(PrimitiveElement.DOUBLE)) {
+            return CodeBlock.of("$N += $T.ofDouble($L);\n", sizeVariable, SerializedSize.class, readExpression);
+        } else if (type.equals(PrimitiveElement.FLOAT)) {
+            return CodeBlock.of("$N += $T.ofFloat($L);\n", sizeVariable, SerializedSize.class, readExpression);
+        } else if (type.equals(PrimitiveElement.LONG)) {
+            return CodeBlock.of("$N += $T.ofLong($L);\n", sizeVariable, SerializedSize.class, readExpression);
+        } else {
+            return CodeBlock.of("$N += $T.ofInt($L);\n", sizeVariable, SerializedSize.class, readExpression);
+        }
+    }
+
     @Override
     public CodeBlock deserialize(GeneratorContext generatorContext, ClassElement type, Setter setter) {
         if (!type.isPrimitive() || type.isArray()) {
@@ -56,7 +77,7 @@ final class PrimitiveSerializerSymbol implements SerializerSymbol {
         }
         return CodeBlock.builder()
                 .add(checkCorrectToken(generatorContext, type))
-                .add(setter.createSetStatement(CodeBlock.of(deserializeExpression(type))))
+                .add(setter.createSetStatement(deserializeExpression(type)))
                 .build();
     }
 
@@ -88,23 +109,23 @@ final class PrimitiveSerializerSymbol implements SerializerSymbol {
         }
     }
 
-    private String deserializeExpression(ClassElement type) {
+    private CodeBlock deserializeExpression(ClassElement type) {
         if (type.equals(PrimitiveElement.BOOLEAN)) {
-            return DECODER + ".getBooleanValue()";
+            return CodeBlock.of("$N.getBooleanValue()", DECODER);
         } else if (type.equals(PrimitiveElement.BYTE)) {
-            return DECODER + ".getByteValue()";
+            return CodeBlock.of("$N.getByteValue()", DECODER);
         } else if (type.equals(PrimitiveElement.SHORT)) {
-            return DECODER + ".getShortValue()";
+            return CodeBlock.of("$N.getShortValue()", DECODER);
         } else if (type.equals(PrimitiveElement.CHAR)) {
-            return "(char) " + DECODER + ".getIntValue()"; // TODO
+            return CodeBlock.of("(char) $N.getIntValue()", DECODER); // TODO
         } else if (type.equals(PrimitiveElement.INT)) {
-            return DECODER + ".getIntValue()";
+            return CodeBlock.of("$N.getIntValue()", DECODER);
         } else if (type.equals(PrimitiveElement.LONG)) {
-            return DECODER + ".getLongValue()";
+            return CodeBlock.of("$N.getLongValue()", DECODER);
         } else if (type.equals(PrimitiveElement.FLOAT)) {
-            return DECODER + ".getFloatValue()";
+            return CodeBlock.of("$T.readFloat($N)", FloatingPointCodec.class, DECODER);
         } else if (type.equals(PrimitiveElement.DOUBLE)) {
-            return DECODER + ".getDoubleValue()";
+            return CodeBlock.of("$T.readDouble($N)", FloatingPointCodec.class, DECODER);
         } else {
             throw new AssertionError("unknown primitive type " + type);
         }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen.generator;
+
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.TypeName;
+import io.micronaut.inject.ast.ClassElement;
+import io.micronaut.jsongen.RawCapture;
+import io.micronaut.jsongen.RawJson;
+import io.micronaut.jsongen.SerializedSize;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Symbol for values that are passed through in their serialized form: {@link RawJson}, and {@code String} properties
+ * annotated with {@link com.fasterxml.jackson.annotation.JsonRawValue}. The subtree is captured with
+ * {@link RawCapture} when reading, and written with {@link com.fasterxml.jackson.core.JsonGenerator#writeRawValue}.
+ */
+public abstract class RawValueSerializerSymbol implements SerializerSymbol {
+    public static final RawValueSerializerSymbol RAW_JSON = new RawValueSerializerSymbol() {
+        @Override
+        public boolean canSerialize(ClassElement type) {
+            return type.getName().equals(RawJson.class.getName());
+        }
+
+        @Override
+        public CodeBlock serialize(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression) {
+            return CodeBlock.of("$L.serialize($N);\n", readExpression, Names.ENCODER);
+        }
+
+        @Override
+        public CodeBlock serializedSize(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression, String sizeVariable) {
+            return CodeBlock.of("$N += $L.getUtf8().length;\n", sizeVariable, readExpression);
+        }
+
+        @Override
+        CodeBlock fromCaptured(CodeBlock bytes) {
+            return CodeBlock.of("$T.ofUtf8($L)", RawJson.class, bytes);
+        }
+    };
+
+    /**
+     * Not part of the linker chain, only used for {@code @JsonRawValue} properties.
+     */
+    public static final RawValueSerializerSymbol STRING = new RawValueSerializerSymbol() {
+        @Override
+        public boolean canSerialize(ClassElement type) {
+            return type.isAssignable(String.class);
+        }
+
+        @Override
+        public CodeBlock serialize(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression) {
+            return CodeBlock.of("$N.writeRawValue($L);\n", Names.ENCODER, readExpression);
+        }
+
+        @Override
+        public CodeBlock serializedSize(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression, String sizeVariable) {
+            return CodeBlock.of("$N += $T.ofRawString($L);\n", sizeVariable, SerializedSize.class, readExpression);
+        }
+
+        @Override
+        CodeBlock fromCaptured(CodeBlock bytes) {
+            return CodeBlock.of("new $T($L, $T.UTF_8)", String.class, bytes, StandardCharsets.class);
+        }
+    };
+
+    private RawValueSerializerSymbol() {
+    }
+
+    /**
+     * @param bytes Expression of the captured UTF-8 bytes
+     * @return Expression converting the captured bytes to the property type
+     */
+    abstract CodeBlock fromCaptured(CodeBlock bytes);
+
+    @Override
+    public void visitDependencies(DependencyVisitor visitor, ClassElement type) {
+        // opaque, no dependencies
+    }
+
+    @Override
+    public CodeBlock deserialize(GeneratorContext generatorContext, ClassElement type, Setter setter) {
+        return setter.createSetStatement(fromCaptured(CodeBlock.of("$T.capture($N)", RawCapture.class, Names.DECODER)));
+    }
+
+    @Override
+    public CodeBlock deserializeResumable(GeneratorContext generatorContext, ClassElement type, Setter setter) {
+        return generatorContext.pushChildFrame(
+                CodeBlock.of("$T.newFrame()", RawCapture.class),
+                ArrayTypeName.of(TypeName.BYTE),
+                expr -> setter.createSetStatement(fromCaptured(expr))
+        );
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen.generator;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.jsongen.ChunkedSerializer;
+import io.micronaut.jsongen.SerializationFrame;
+
+import javax.lang.model.element.Modifier;
+import java.io.IOException;
+
+import static io.micronaut.jsongen.generator.Names.ENCODER;
+
+/**
+ * Generates a {@link SerializationFrame} implementation as an inner class of the serializer. The value to serialize is
+ * passed to the constructor and kept in {@link #getValueField()}, any other state that has to survive between calls of
+ * {@code writeNext} must be kept in fields declared with {@link #addField}.
+ */
+public final class SerializationFrameGenerator {
+    /**
+     * Name of the {@link ChunkedSerializer} parameter of {@code writeNext}.
+     */
+    public static final String SERIALIZER = "serializer";
+
+    private final GeneratorContext context;
+    private final String className;
+    private final TypeName valueType;
+    private final String valueField;
+    private final TypeSpec.Builder frameType;
+
+    private SerializationFrameGenerator(GeneratorContext parent, String nameHint, TypeName valueType) {
+        this.className = parent.newNestedClassName(nameHint);
+        this.valueType = valueType;
+        this.context = parent.newSerializationFrameContext(this, ENCODER, SERIALIZER);
+        this.valueField = context.newLocalVariable("value");
+        this.frameType = TypeSpec.classBuilder(className)
+                .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
+                .superclass(SerializationFrame.class)
+                .addField(valueType, valueField, Modifier.PRIVATE, Modifier.FINAL)
+                .addMethod(MethodSpec.constructorBuilder()
+                        .addParameter(valueType, valueField)
+                        .addStatement("this.$N = $N", valueField, valueField)
+                        .build());
+    }
+
+    /**
+     * @param parent    The context the frame is created in
+     * @param nameHint  Name hint for the frame class
+     * @param valueType The type of the value this frame serializes
+     */
+    public static SerializationFrameGenerator create(GeneratorContext parent, String nameHint, TypeName valueType) {
+        return new SerializationFrameGenerator(parent, nameHint, valueType);
+    }
+
+    /**
+     * @return The context to use for the {@code writeNext} code of this frame
+     */
+    public GeneratorContext getContext() {
+        return context;
+    }
+
+    /**
+     * @return The name of the field that holds the value to serialize
+     */
+    public String getValueField() {
+        return valueField;
+    }
+
+    /**
+     * Add a field to this frame.
+     *
+     * @param name        The field name, allocated through {@link #getContext()}
+     * @param initializer The initial value, or {@code null} to use the default value
+     */
+    public void addField(TypeName type, String name, @Nullable CodeBlock initializer) {
+        FieldSpec.Builder field = FieldSpec.builder(type, name, Modifier.PRIVATE);
+        if (initializer != null) {
+            field.initializer(initializer);
+        }
+        frameType.addField(field.build());
+    }
+
+    /**
+     * Override {@link io.micronaut.jsongen.SerializationFrame#abort()}.
+     *
+     * @param abort The body of {@code abort}
+     */
+    public void setAbort(CodeBlock abort) {
+        frameType.addMethod(MethodSpec.methodBuilder("abort")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addException(IOException.class)
+                .addCode(abort)
+                .build());
+    }
+
+    /**
+     * Finish this frame class and add it to the serializer.
+     *
+     * @param writeNext       The body of {@code writeNext}
+     * @param valueExpression The value to serialize
+     * @return Expression that creates a new instance of this frame
+     */
+    public CodeBlock finish(CodeBlock writeNext, CodeBlock valueExpression) {
+        frameType.addMethod(MethodSpec.methodBuilder("writeNext")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(boolean.class)
+                .addParameter(JsonGenerator.class, ENCODER)
+                .addParameter(ChunkedSerializer.class, SERIALIZER)
+                .addException(IOException.class)
+                .addCode(writeNext)
+                .build());
+        context.addNestedClass(frameType.build());
+        return CodeBlock.of("new $N($L)", className, valueExpression);
+    }
+
+    static CodeBlock pushChildFrame(CodeBlock frameExpression) {
+        return CodeBlock.builder()
+                .addStatement("$N.push($L)", SERIALIZER, frameExpression)
+                .addStatement("return false")
+                .build();
+    }
+}
@@ -29,19 +29,30 @@ public final class SerializerLinker {
 
     final InlineIterableSerializerSymbol.ArrayImpl array = new InlineIterableSerializerSymbol.ArrayImpl(this);
     final InlineIterableSerializerSymbol.ArrayListImpl arrayList = new InlineIterableSerializerSymbol.ArrayListImpl(this);
+    final InlineIterableSerializerSymbol.CursorImpl cursor = new InlineIterableSerializerSymbol.CursorImpl(this);
+
+    private final LazySerializerSymbol lazy;
 
     private final List<SerializerSymbol> symbolList;
 
     public SerializerLinker(VisitorContext typeResolutionContext) {
         inlineBean = new InlineBeanSerializerSymbol(this, typeResolutionContext);
+        lazy = new LazySerializerSymbol(this);
         symbolList = Arrays.asList(
                 array,
                 arrayList,
+                cursor,
                 PrimitiveSerializerSymbol.INSTANCE,
                 StringSerializerSymbol.INSTANCE,
                 InlineEnumSerializerSymbol.INSTANCE,
+                lazy,
+                RawValueSerializerSymbol.RAW_JSON,
                 // for serializing beans inline (@SerializableBean(inline=true))
                 inlineBean,
+                // Object and Map<String, Object>
+                UntypedSerializerSymbol.INSTANCE,
+                // abstract types marked as polymorphic
+                new PolymorphicSerializerSymbol(this, typeResolutionContext),
                 new InjectingSerializerSymbol(this)
         );
     }
@@ -42,6 +42,40 @@ public interface SerializerSymbol {
      */
     CodeBlock serialize(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression);
 
+    /**
+     * Generate code for incremental serialization, i.e. code that runs in
+     * {@link io.micronaut.jsongen.SerializationFrame#writeNext}.
+     * <p>
+     * Values of bounded size can be written right away, anything that should be able to yield (collections, and
+     * everything that contains them) needs to continue in a child frame using
+     * {@link GeneratorContext#pushSerializationFrame}.
+     * <p>
+     * The default implementation delegates to {@link #serialize}, i.e. never yields.
+     */
+    default CodeBlock serializeResumable(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression) {
+        return serialize(generatorContext, type, readExpression);
+    }
+
+    /**
+     * Generate code that adds the number of bytes {@link #serialize} writes for the value of {@code readExpression} to
+     * the {@code long} variable {@code sizeVariable}, without writing anything. See
+     * {@link io.micronaut.jsongen.Serializer#serializedSize}.
+     * <p>
+     * The default implementation returns {@code null}, i.e. the size can only be found by serializing the value. Values
+     * that must not be serialized more than once make the generated code return {@code -1} from the enclosing
+     * {@code serializedSize} method instead.
+     *
+     * @param generatorContext The context of the generator, e.g. declared local variables.
+     * @param type The type of the value being measured.
+     * @param readExpression The expression that reads the value. Must only be evaluated once.
+     * @param sizeVariable The variable to add the size to.
+     * @return The code block containing statements that compute the size, or {@code null} if not supported.
+     */
+    @Nullable
+    default CodeBlock serializedSize(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression, String sizeVariable) {
+        return null;
+    }
+
     /**
      * Generate code that reads a value from {@link Names#DECODER}.
      * <p>
@@ -55,6 +89,20 @@ public interface SerializerSymbol {
      */
     CodeBlock deserialize(GeneratorContext generatorContext, ClassElement type, Setter setter);
 
+    /**
+     * Generate code for non-blocking deserialization, i.e. code that runs in
+     * {@link io.micronaut.jsongen.DeserializationFrame#onToken}.
+     * <p>
+     * Decoder is positioned at the first token of the value, and must not be advanced. Values that consist of a
+     * single token can be passed to the setter right away, anything else needs to continue in a child frame using
+     * {@link GeneratorContext#pushChildFrame}.
+     * <p>
+     * The default implementation delegates to {@link #deserialize}, which is only correct for single-token values.
+     */
+    default CodeBlock deserializeResumable(GeneratorContext generatorContext, ClassElement type, Setter setter) {
+        return deserialize(generatorContext, type, setter);
+    }
+
     @FunctionalInterface
     interface Setter {
         /**
@@ -18,18 +18,53 @@ package io.micronaut.jsongen.generator;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.squareup.javapoet.*;
+import io.micronaut.context.BeanProvider;
 import io.micronaut.context.annotation.Secondary;
+import io.micronaut.core.annotation.Generated;
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.inject.ast.ClassElement;
+import io.micronaut.inject.ast.Element;
+import io.micronaut.jsongen.CachingSerializer;
+import io.micronaut.jsongen.DeserializationFrame;
+import io.micronaut.jsongen.ProjectionDeserializer;
+import io.micronaut.jsongen.ResumableDeserializer;
+import io.micronaut.jsongen.ResumableSerializer;
+import io.micronaut.jsongen.RuntimeTypeDispatcher;
+import io.micronaut.jsongen.SerializationFrame;
+import io.micronaut.jsongen.SerializedOutputCache;
 import io.micronaut.jsongen.Serializer;
+import io.micronaut.jsongen.SerializerProvider;
+import io.micronaut.jsongen.SerializerRegistry;
+import io.micronaut.jsongen.UpdatePolicy;
+import io.micronaut.jsongen.UpdatingDeserializer;
+import io.micronaut.jsongen.ViewSerializer;
+import io.micronaut.jsongen.generator.bean.InlineBeanSerializerSymbol;
 import jakarta.inject.Inject;
 
 import javax.lang.model.element.Modifier;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static io.micronaut.jsongen.generator.Names.DECODER;
 import static io.micronaut.jsongen.generator.Names.ENCODER;
 
 public final class SingletonSerializerGenerator {
+    private static final String REGISTRY = "registry";
+    private static final String TYPE_ARGUMENTS = "typeArguments";
+    /**
+     * Every combination gets its own specialized serializer class, so this bounds the generated code for beans with
+     * many unrelated views.
+     */
+    private static final int MAX_VIEW_COMBINATIONS = 64;
+
     private SingletonSerializerGenerator() {
     }
 
@@ -57,8 +92,47 @@ public final class SingletonSerializerGenerator {
             SerializerSymbol symbol,
             ClassElement valueType
     ) {
-        GeneratorContext classContext = GeneratorContext.create(problemReporter, valueName.toString());
+        GeneratorContext classContext = GeneratorContext.create(problemReporter, valueName.toString(), serializerName);
+
+        TypeSpec.Builder serializer = TypeSpec.classBuilder(serializerName.simpleName())
+                .addAnnotation(Secondary.class)
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL);
+        addSerializerMethods(serializer, classContext, valueName, symbol, valueType);
+        if (symbol instanceof InlineBeanSerializerSymbol) {
+            List<ClassElement> views = ((InlineBeanSerializerSymbol) symbol).getViews(valueType);
+            if (!views.isEmpty()) {
+                serializer.addSuperinterface(ParameterizedTypeName.get(ClassName.get(ViewSerializer.class), valueName));
+                addForView(serializer, problemReporter, classContext, valueName, symbol, valueType, views);
+            }
+        }
+        serializer.addTypes(classContext.getNestedClasses());
+
+        MethodSpec.Builder constructorBuilder = MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addAnnotation(Inject.class);
+        CodeBlock.Builder constructorCodeBuilder = CodeBlock.builder();
+        classContext.getInjected().forEach((type, injected) -> {
+            constructorBuilder.addParameter(type, injected.fieldName);
+            constructorCodeBuilder.addStatement("this.$N = $N", injected.fieldName, injected.fieldName);
+            serializer.addField(type, injected.fieldName, Modifier.PRIVATE, Modifier.FINAL);
+        });
+        constructorBuilder.addCode(constructorCodeBuilder.build());
+        serializer.addMethod(constructorBuilder.build());
+
+        JavaFile generatedFile = JavaFile.builder(serializerName.packageName(), serializer.build()).build();
+        ClassName providerName = serializerName.peerClass(serializerName.simpleName() + "Provider");
+        JavaFile providerFile = JavaFile.builder(providerName.packageName(), generateProvider(providerName, serializerName, valueName, classContext)).build();
+        return new GenerationResult(serializerName, generatedFile, providerFile);
+    }
 
+    /**
+     * Add the methods of {@link Serializer}, {@link ResumableDeserializer}, {@link ResumableSerializer} and, where
+     * supported, {@link ProjectionDeserializer} and {@link UpdatingDeserializer} to the given serializer class.
+     *
+     * @param serializer   The class to add the methods to
+     * @param classContext The class-level context of that class
+     */
+    private static void addSerializerMethods(TypeSpec.Builder serializer, GeneratorContext classContext, TypeName valueName, SerializerSymbol symbol, ClassElement valueType) {
         MethodSpec deserialize = MethodSpec.methodBuilder("deserialize")
                 .addAnnotation(Override.class)
                 .addModifiers(Modifier.PUBLIC)
@@ -68,53 +142,401 @@ public final class SingletonSerializerGenerator {
                 .addCode(symbol.deserialize(classContext.newMethodContext(DECODER), valueType, expr -> CodeBlock.of("return $L;\n", expr)))
                 .build();
 
-        MethodSpec serialize = MethodSpec.methodBuilder("serialize")
+        MethodSpec.Builder serialize = MethodSpec.methodBuilder("serialize")
                 .addAnnotation(Override.class)
                 .addModifiers(Modifier.PUBLIC)
                 .addParameter(JsonGenerator.class, ENCODER)
                 .addParameter(valueName, "value")
-                .addException(IOException.class)
-                .addCode(symbol.serialize(classContext.newMethodContext("value", ENCODER), valueType, CodeBlock.of("value")))
+                .addException(IOException.class);
+        CodeBlock serializeCode = symbol.serialize(classContext.newMethodContext("value", ENCODER), valueType, CodeBlock.of("value"));
+        // only the main serializer has a cache, so that the cached output does not grow with the number of view variants
+        int outputCacheSize = symbol instanceof InlineBeanSerializerSymbol && classContext.getActiveViews() == null ?
+                ((InlineBeanSerializerSymbol) symbol).getOutputCacheSize(valueType) : 0;
+        if (outputCacheSize > 0) {
+            TypeName cacheType = ParameterizedTypeName.get(ClassName.get(SerializedOutputCache.class), valueName);
+            serializer.addField(FieldSpec.builder(cacheType, "outputCache", Modifier.PRIVATE, Modifier.FINAL)
+                            .initializer("new $T<>($L, this::serializeUncached)", SerializedOutputCache.class, outputCacheSize)
+                            .build())
+                    .addSuperinterface(ParameterizedTypeName.get(ClassName.get(CachingSerializer.class), valueName))
+                    .addMethod(MethodSpec.methodBuilder("getOutputCache")
+                            .addAnnotation(Override.class)
+                            .addModifiers(Modifier.PUBLIC)
+                            .returns(cacheType)
+                            .addStatement("return outputCache")
+                            .build())
+                    .addMethod(MethodSpec.methodBuilder("serializeUncached")
+                            .addModifiers(Modifier.PRIVATE)
+                            .addParameter(JsonGenerator.class, ENCODER)
+                            .addParameter(valueName, "value")
+                            .addException(IOException.class)
+                            .addCode(serializeCode)
+                            .build());
+            serialize.addStatement("outputCache.serialize($N, value)", ENCODER);
+        } else {
+            serialize.addCode(serializeCode);
+        }
+
+        // without an exact count, the Serializer default measures by serializing, unless that would consume a cursor
+        String sizeVariable = "size";
+        CodeBlock sizeCode = symbol.serializedSize(classContext.newMethodContext("value", sizeVariable, "cached"), valueType, CodeBlock.of("value"), sizeVariable);
+        boolean unknownSize = sizeCode == null && containsCursor(symbol, valueType);
+        if (sizeCode != null || unknownSize) {
+            MethodSpec.Builder serializedSize = MethodSpec.methodBuilder("serializedSize")
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(valueName, "value")
+                    .returns(TypeName.LONG)
+                    .addException(IOException.class);
+            if (outputCacheSize > 0) {
+                // a cache hit is written as it was cached, even if the bean changed since
+                serializedSize.addStatement("long cached = outputCache.getCachedSize(value)")
+                        .beginControlFlow("if (cached != -1)")
+                        .addStatement("return cached")
+                        .endControlFlow();
+            }
+            if (unknownSize) {
+                serializedSize.addStatement("return -1");
+            } else {
+                serializedSize.addStatement("long $N = 0", sizeVariable)
+                        .addCode(sizeCode)
+                        .addStatement("return $N", sizeVariable);
+            }
+            serializer.addMethod(serializedSize.build());
+        }
+
+        // the root frame only holds the value, the symbol will usually push a child frame right away
+        FrameGenerator rootFrame = FrameGenerator.create(classContext, "RootFrame", valueName, CodeBlock.of("return true;\n"));
+        String completeField = rootFrame.getContext().newLocalVariable("complete");
+        rootFrame.addField(TypeName.BOOLEAN, completeField, null);
+        CodeBlock rootFrameCreation = rootFrame.finish(CodeBlock.builder()
+                .add(symbol.deserializeResumable(rootFrame.getContext(), valueType, expr -> CodeBlock.builder()
+                        .addStatement("this.$N = $L", rootFrame.getResultField(), expr)
+                        .addStatement("this.$N = true", completeField)
+                        .build()))
+                .addStatement("return this.$N", completeField)
+                .build());
+        MethodSpec newDeserializationFrame = MethodSpec.methodBuilder("newDeserializationFrame")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(ParameterizedTypeName.get(ClassName.get(DeserializationFrame.class), valueName))
+                .addStatement("return $L", rootFrameCreation)
                 .build();
 
-        TypeSpec.Builder serializer = TypeSpec.classBuilder(serializerName.simpleName())
-                .addAnnotation(Secondary.class)
-                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+        // the root frame writes the value directly, or pushes a child frame and is done once that child is done
+        SerializationFrameGenerator rootSerializationFrame = SerializationFrameGenerator.create(classContext, "RootSerializationFrame", valueName);
+        String startedField = rootSerializationFrame.getContext().newLocalVariable("started");
+        rootSerializationFrame.addField(TypeName.BOOLEAN, startedField, null);
+        CodeBlock rootSerializationFrameCreation = rootSerializationFrame.finish(CodeBlock.builder()
+                .beginControlFlow("if (!$N)", startedField)
+                .addStatement("$N = true", startedField)
+                .add(symbol.serializeResumable(rootSerializationFrame.getContext(), valueType, CodeBlock.of("$N", rootSerializationFrame.getValueField())))
+                .endControlFlow()
+                .addStatement("return true")
+                .build(), CodeBlock.of("value"));
+        MethodSpec newSerializationFrame = MethodSpec.methodBuilder("newSerializationFrame")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(SerializationFrame.class)
+                .addParameter(valueName, "value")
+                .addStatement("return $L", rootSerializationFrameCreation)
+                .build();
+
+        serializer
                 .addSuperinterface(ParameterizedTypeName.get(ClassName.get(Serializer.class), valueName))
-                .addMethod(serialize)
-                .addMethod(deserialize);
+                .addSuperinterface(ParameterizedTypeName.get(ClassName.get(ResumableDeserializer.class), valueName))
+                .addSuperinterface(ParameterizedTypeName.get(ClassName.get(ResumableSerializer.class), valueName))
+                .addMethod(serialize.build())
+                .addMethod(deserialize)
+                .addMethod(newDeserializationFrame)
+                .addMethod(newSerializationFrame);
 
-        MethodSpec.Builder constructorBuilder = MethodSpec.constructorBuilder()
+        if (symbol instanceof InlineBeanSerializerSymbol && ((InlineBeanSerializerSymbol) symbol).isProjection(valueType)) {
+            MethodSpec deserializeProjection = MethodSpec.methodBuilder("deserializeProjection")
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(JsonParser.class, DECODER)
+                    .returns(valueName)
+                    .addException(IOException.class)
+                    .addCode(((InlineBeanSerializerSymbol) symbol).deserializeProjection(classContext.newMethodContext(DECODER), valueType, expr -> CodeBlock.of("return $L;\n", expr)))
+                    .build();
+            serializer.addSuperinterface(ParameterizedTypeName.get(ClassName.get(ProjectionDeserializer.class), valueName))
+                    .addMethod(deserializeProjection);
+        }
+
+        // setter / field based beans can also be updated in place
+        if (symbol instanceof InlineBeanSerializerSymbol && ((InlineBeanSerializerSymbol) symbol).supportsDeserializeInto(valueType)) {
+            MethodSpec deserializeInto = MethodSpec.methodBuilder("deserializeInto")
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(JsonParser.class, DECODER)
+                    .addParameter(valueName, "target")
+                    .addParameter(UpdatePolicy.class, "policy")
+                    .addException(IOException.class)
+                    .addCode(((InlineBeanSerializerSymbol) symbol).deserializeInto(classContext.newMethodContext(DECODER, "target", "policy"), valueType, CodeBlock.of("target"), CodeBlock.of("policy")))
+                    .build();
+            serializer.addSuperinterface(ParameterizedTypeName.get(ClassName.get(UpdatingDeserializer.class), valueName))
+                    .addMethod(deserializeInto);
+        }
+    }
+
+    /**
+     * @return Whether the inline structure of the given type contains a stream, iterator or spliterator, i.e. a value
+     * that can only be serialized once
+     */
+    private static boolean containsCursor(SerializerSymbol symbol, ClassElement type) {
+        if (symbol instanceof InlineIterableSerializerSymbol.CursorImpl) {
+            return true;
+        }
+        Set<String> visited = new HashSet<>();
+        boolean[] found = {false};
+        symbol.visitDependencies(new SerializerSymbol.DependencyVisitor() {
+            @Override
+            public boolean visitStructure() {
+                return !found[0];
+            }
+
+            @Override
+            public void visitStructureElement(SerializerSymbol dependencySymbol, ClassElement dependencyType, @Nullable Element element) {
+                if (dependencySymbol instanceof InlineIterableSerializerSymbol.CursorImpl) {
+                    found[0] = true;
+                } else if (visited.add(dependencyType.getName())) {
+                    dependencySymbol.visitDependencies(this, dependencyType);
+                }
+            }
+
+            @Override
+            public void visitInjected(ClassElement dependencyType, boolean provider) {
+                // the structure behind an injected serializer is not known here
+            }
+        }, type);
+        return found[0];
+    }
+
+    /**
+     * Generate a specialized inner serializer class for every combination of views that can be active, and the
+     * {@link ViewSerializer#forView} method that picks one at runtime. Bit {@code i} of the combination is set if the
+     * active view is assignable to {@code views.get(i)}. Each variant instance holds the active view, so that it can
+     * pass it on to the serializers of nested values, and {@code forView} keeps one instance per view class.
+     */
+    private static void addForView(TypeSpec.Builder serializer, ProblemReporter problemReporter, GeneratorContext classContext, TypeName valueName, SerializerSymbol symbol, ClassElement valueType, List<ClassElement> declaredViews) {
+        List<ClassElement> views = declaredViews;
+        if (views.size() > 31) {
+            problemReporter.fail("Too many views, at most 31 are supported", valueType);
+            views = views.subList(0, 31);
+        }
+        // the combinations of the declared views, and of a view that is unrelated to all of them
+        Map<Integer, String> combinations = new LinkedHashMap<>();
+        combinations.put(0, "Other");
+        for (ClassElement candidate : views) {
+            int mask = 0;
+            for (int i = 0; i < views.size(); i++) {
+                ClassElement view = views.get(i);
+                if (candidate.getName().equals(view.getName()) || candidate.isAssignable(view)) {
+                    mask |= 1 << i;
+                }
+            }
+            combinations.putIfAbsent(mask, candidate.getSimpleName().substring(candidate.getSimpleName().lastIndexOf('$') + 1));
+        }
+        // a view class can extend several unrelated declared views, so any union of the combinations above can be
+        // active as well
+        List<Integer> declared = new ArrayList<>(combinations.keySet());
+        List<Integer> pending = new ArrayList<>(declared);
+        while (!pending.isEmpty()) {
+            int mask = pending.remove(pending.size() - 1);
+            for (int other : declared) {
+                int union = mask | other;
+                if (!combinations.containsKey(union)) {
+                    if (combinations.size() >= MAX_VIEW_COMBINATIONS) {
+                        problemReporter.fail("Too many combinations of views, at most " + MAX_VIEW_COMBINATIONS + " are supported", valueType);
+                        pending.clear();
+                        break;
+                    }
+                    combinations.put(union, combinations.get(mask) + combinations.get(other));
+                    pending.add(union);
+                }
+            }
+        }
+
+        String viewField = classContext.newFieldName("view");
+        ParameterizedTypeName classType = ParameterizedTypeName.get(ClassName.get(Class.class), WildcardTypeName.subtypeOf(Object.class));
+        ParameterizedTypeName serializerType = ParameterizedTypeName.get(ClassName.get(Serializer.class), valueName);
+        CodeBlock.Builder newViewSerializer = CodeBlock.builder();
+        newViewSerializer.addStatement("int mask = 0");
+        for (int i = 0; i < views.size(); i++) {
+            TypeName viewName = PoetUtil.toTypeName(views.get(i));
+            if (viewName instanceof ParameterizedTypeName) {
+                viewName = ((ParameterizedTypeName) viewName).rawType;
+            }
+            newViewSerializer.addStatement("if ($T.class.isAssignableFrom($N)) mask |= 0x$L", viewName, viewField, Integer.toHexString(1 << i));
+        }
+        newViewSerializer.beginControlFlow("switch (mask)");
+        for (Map.Entry<Integer, String> combination : combinations.entrySet()) {
+            int mask = combination.getKey();
+            Set<String> activeViews = new TreeSet<>();
+            for (int i = 0; i < views.size(); i++) {
+                if ((mask & (1 << i)) != 0) {
+                    activeViews.add(views.get(i).getName());
+                }
+            }
+            String variantName = classContext.newNestedClassName(combination.getValue() + "View");
+            GeneratorContext variantContext = classContext.withActiveViews(activeViews, classContext.getOwnerClass().nestedClass(variantName));
+            TypeSpec.Builder variant = TypeSpec.classBuilder(variantName)
+                    .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
+                    .addField(classType, viewField, Modifier.PRIVATE, Modifier.FINAL)
+                    .addMethod(MethodSpec.constructorBuilder()
+                            .addParameter(classType, viewField)
+                            .addStatement("this.$N = $N", viewField, viewField)
+                            .build());
+            addSerializerMethods(variant, variantContext, valueName, symbol, valueType);
+            // serializers of nested values are resolved for the view on first use, so that recursive structures do
+            // not resolve each other eagerly
+            for (GeneratorContext.ViewDependency dependency : variantContext.getViewDependencies()) {
+                variant.addField(dependency.serializerType, dependency.fieldName, Modifier.PRIVATE)
+                        .addMethod(MethodSpec.methodBuilder(dependency.fieldName)
+                                .addModifiers(Modifier.PRIVATE)
+                                .returns(dependency.serializerType)
+                                .addStatement("$T resolved = this.$N", dependency.serializerType, dependency.fieldName)
+                                .beginControlFlow("if (resolved == null)")
+                                .addStatement("resolved = $T.withView($L, this.$N)", ViewSerializer.class, dependency.injectedExpression, viewField)
+                                .addStatement("this.$N = resolved", dependency.fieldName)
+                                .endControlFlow()
+                                .addStatement("return resolved")
+                                .build());
+            }
+            variant.addTypes(variantContext.getNestedClasses());
+            classContext.addNestedClass(variant.build());
+            newViewSerializer.addStatement("case 0x$L: return new $N($N)", Integer.toHexString(mask), variantName, viewField);
+        }
+        newViewSerializer.addStatement("default: throw new $T($S + $N.getName())", IllegalArgumentException.class, "No serializer was generated for this combination of views: ", viewField);
+        newViewSerializer.endControlFlow();
+
+        String cacheField = classContext.newFieldName("viewSerializers");
+        String newViewSerializerMethod = classContext.newFieldName("newViewSerializer");
+        serializer.addField(FieldSpec.builder(ParameterizedTypeName.get(ClassName.get(Map.class), classType, serializerType), cacheField, Modifier.PRIVATE, Modifier.FINAL)
+                        .initializer("new $T<>()", ConcurrentHashMap.class)
+                        .build())
+                .addMethod(MethodSpec.methodBuilder("forView")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .addParameter(classType, "view")
+                        .returns(serializerType)
+                        .addStatement("return $N.computeIfAbsent(view, this::$N)", cacheField, newViewSerializerMethod)
+                        .build())
+                .addMethod(MethodSpec.methodBuilder(newViewSerializerMethod)
+                        .addModifiers(Modifier.PRIVATE)
+                        .addParameter(classType, viewField)
+                        .returns(serializerType)
+                        .addCode(newViewSerializer.build())
+                        .build());
+    }
+
+    /**
+     * Generate the {@link SerializerProvider}, which calls the constructor with dependencies from a
+     * {@link SerializerRegistry} instead of the bean context. This is a top-level class because micronaut only writes
+     * service entries for those.
+     */
+    private static TypeSpec generateProvider(ClassName providerName, ClassName serializerName, TypeName valueName, GeneratorContext classContext) {
+        // a generic value type with a single type variable. Its properties of that type variable are injected as
+        // Serializer<Object>, declared Object properties are untyped and not injected
+        boolean singleTypeVariable = valueName instanceof ParameterizedTypeName && ((ParameterizedTypeName) valueName).typeArguments.size() == 1;
+        CodeBlock.Builder arguments = CodeBlock.builder();
+        boolean first = true;
+        for (TypeName injectedType : classContext.getInjected().keySet()) {
+            if (!first) {
+                arguments.add(", ");
+            }
+            first = false;
+            if (injectedType.equals(ClassName.get(RuntimeTypeDispatcher.class))) {
+                arguments.add("$N.getRuntimeTypeDispatcher()", REGISTRY);
+            } else if (injectedType instanceof ParameterizedTypeName && ((ParameterizedTypeName) injectedType).rawType.equals(ClassName.get(BeanProvider.class))) {
+                // used to break dependency cycles, so it must be lazy
+                TypeName serializerType = ((ParameterizedTypeName) injectedType).typeArguments.get(0);
+                arguments.add("() -> $N.resolve($L)", REGISTRY, serializedTypeName(serializerType, singleTypeVariable));
+            } else {
+                arguments.add("$N.resolve($L)", REGISTRY, serializedTypeName(injectedType, singleTypeVariable));
+            }
+        }
+        TypeName rawValueName = valueName instanceof ParameterizedTypeName ? ((ParameterizedTypeName) valueName).rawType : valueName;
+        MethodSpec.Builder create = MethodSpec.methodBuilder("create")
+                .addAnnotation(Override.class)
                 .addModifiers(Modifier.PUBLIC)
-                .addAnnotation(Inject.class);
-        CodeBlock.Builder constructorCodeBuilder = CodeBlock.builder();
-        classContext.getInjected().forEach((type, injected) -> {
-            constructorBuilder.addParameter(type, injected.fieldName);
-            constructorCodeBuilder.addStatement("this.$N = $N", injected.fieldName, injected.fieldName);
-            serializer.addField(type, injected.fieldName, Modifier.PRIVATE, Modifier.FINAL);
-        });
-        constructorBuilder.addCode(constructorCodeBuilder.build());
-        serializer.addMethod(constructorBuilder.build());
+                .returns(serializerName)
+                .addParameter(SerializerRegistry.class, REGISTRY);
+        MethodSpec createParameterized = null;
+        if (singleTypeVariable) {
+            create.addStatement("return create($N, $T.emptyList())", REGISTRY, Collections.class);
+            createParameterized = MethodSpec.methodBuilder("create")
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(serializerName)
+                    .addParameter(SerializerRegistry.class, REGISTRY)
+                    .addParameter(ParameterizedTypeName.get(List.class, String.class), TYPE_ARGUMENTS)
+                    .addStatement("return new $T($L)", serializerName, arguments.build())
+                    .build();
+        } else {
+            create.addStatement("return new $T($L)", serializerName, arguments.build());
+        }
+        TypeSpec.Builder provider = TypeSpec.classBuilder(providerName.simpleName())
+                .addAnnotation(AnnotationSpec.builder(Generated.class)
+                        .addMember("service", "$S", SerializerProvider.class.getName())
+                        .build())
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addSuperinterface(SerializerProvider.class)
+                .addMethod(MethodSpec.methodBuilder("getValueType")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(ParameterizedTypeName.get(ClassName.get(Class.class), WildcardTypeName.subtypeOf(Object.class)))
+                        .addStatement("return $T.class", rawValueName)
+                        .build())
+                .addMethod(create.build());
+        if (createParameterized != null) {
+            provider.addMethod(createParameterized);
+        }
+        return provider.build();
+    }
 
-        JavaFile generatedFile = JavaFile.builder(serializerName.packageName(), serializer.build()).build();
-        return new GenerationResult(serializerName, generatedFile);
+    /**
+     * @param serializerType     {@code Serializer<T>}
+     * @param singleTypeVariable Whether {@code Serializer<Object>} stands for the only type variable of the value type
+     * @return An expression for the registry key of {@code T}
+     */
+    private static CodeBlock serializedTypeName(TypeName serializerType, boolean singleTypeVariable) {
+        if (!(serializerType instanceof ParameterizedTypeName) || !((ParameterizedTypeName) serializerType).rawType.equals(ClassName.get(Serializer.class))) {
+            throw new IllegalArgumentException("Unsupported injected type: " + serializerType);
+        }
+        TypeName serializedType = ((ParameterizedTypeName) serializerType).typeArguments.get(0);
+        if (singleTypeVariable && serializedType.equals(ClassName.OBJECT)) {
+            // the raw type has no type argument to look up
+            return CodeBlock.of("$N.isEmpty() ? $S : $N.get(0)", TYPE_ARGUMENTS, serializedType.toString(), TYPE_ARGUMENTS);
+        }
+        return CodeBlock.of("$S", serializedType.toString());
     }
 
     public static final class GenerationResult {
         private final ClassName serializerClassName;
         private final JavaFile generatedFile;
+        private final JavaFile providerFile;
 
-        private GenerationResult(ClassName serializerClassName, JavaFile generatedFile) {
+        private GenerationResult(ClassName serializerClassName, JavaFile generatedFile, JavaFile providerFile) {
             this.serializerClassName = serializerClassName;
             this.generatedFile = generatedFile;
+            this.providerFile = providerFile;
         }
 
         public ClassName getSerializerClassName() {
             return serializerClassName;
         }
 
+
         public JavaFile getGeneratedFile() {
             return generatedFile;
         }
+
+        /**
+         * @return The {@link SerializerProvider} for the serializer, registered as a service
+         */
+        public JavaFile getProviderFile() {
+            return providerFile;
+        }
     }
 }
@@ -19,6 +19,8 @@ import com.fasterxml.jackson.core.JsonToken;
 import com.squareup.javapoet.CodeBlock;
 import io.micronaut.inject.ast.ClassElement;
 import io.micronaut.jsongen.JsonParseException;
+import io.micronaut.jsongen.SerializedSize;
+import io.micronaut.jsongen.StringCodec;
 
 import static io.micronaut.jsongen.generator.Names.DECODER;
 import static io.micronaut.jsongen.generator.Names.ENCODER;
@@ -42,7 +44,12 @@ final class StringSerializerSymbol implements SerializerSymbol {
     @Override
     public CodeBlock serialize(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression) {
         // todo: handle charsequence
-        return CodeBlock.of("$N.writeString($L);\n", ENCODER, readExpression);
+        return CodeBlock.of("$T.writeString($N, $L);\n", StringCodec.class, ENCODER, readExpression);
+    }
+
+    @Override
+    public CodeBlock serializedSize(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression, String sizeVariable) {
+        return CodeBlock.of("$N += $T.ofString($L);\n", sizeVariable, SerializedSize.class, readExpression);
     }
 
     @Override
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen.generator;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import io.micronaut.core.annotation.AnnotationClassValue;
+import io.micronaut.core.annotation.AnnotationValue;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.inject.ast.ClassElement;
+import io.micronaut.inject.visitor.VisitorContext;
+
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The {@link JsonTypeInfo} configuration of a polymorphic hierarchy, as seen from one of its types. Only
+ * {@link JsonTypeInfo.Id#NAME} and {@link JsonTypeInfo.Id#CLASS} ids are supported, included as a
+ * {@link JsonTypeInfo.As#PROPERTY property}, {@link JsonTypeInfo.As#WRAPPER_OBJECT wrapper object} or
+ * {@link JsonTypeInfo.As#WRAPPER_ARRAY wrapper array}.
+ * <p>
+ * The type property is written and skipped by the bean serializers of the subtypes themselves, like jackson does.
+ * Wrappers are only added where the declared type is polymorphic, see {@link PolymorphicSerializerSymbol}.
+ */
+public final class TypeInfoDefinition {
+    private final VisitorContext typeResolutionContext;
+
+    public final JsonTypeInfo.Id use;
+    public final JsonTypeInfo.As include;
+    /**
+     * Name of the type property, only used for {@link JsonTypeInfo.As#PROPERTY}.
+     */
+    public final String property;
+    /**
+     * Binary name of the type to use if the type id is missing or unknown, or {@code null} to fail in that case.
+     */
+    @Nullable
+    public final String defaultImpl;
+
+    private TypeInfoDefinition(VisitorContext typeResolutionContext, JsonTypeInfo.Id use, JsonTypeInfo.As include, String property, @Nullable String defaultImpl) {
+        this.typeResolutionContext = typeResolutionContext;
+        this.use = use;
+        this.include = include;
+        this.property = property;
+        this.defaultImpl = defaultImpl;
+    }
+
+    /**
+     * Find the type info of the given type, i.e. the {@link JsonTypeInfo} annotation on the type or the closest
+     * supertype that has one.
+     *
+     * @return The type info, or {@code null} if the type has none, or if it is {@link JsonTypeInfo.Id#NONE}
+     */
+    @Nullable
+    public static TypeInfoDefinition find(ProblemReporter problemReporter, @Nullable VisitorContext typeResolutionContext, ClassElement type) {
+        if (typeResolutionContext == null) {
+            return null;
+        }
+        for (ClassElement declaration : hierarchy(typeResolutionContext, type)) {
+            AnnotationValue<JsonTypeInfo> annotation = declaration.getAnnotation(JsonTypeInfo.class);
+            if (annotation == null) {
+                continue;
+            }
+            JsonTypeInfo.Id use = annotation.enumValue("use", JsonTypeInfo.Id.class).orElse(JsonTypeInfo.Id.NONE);
+            JsonTypeInfo.As include = annotation.enumValue("include", JsonTypeInfo.As.class).orElse(JsonTypeInfo.As.PROPERTY);
+            if (use == JsonTypeInfo.Id.NONE) {
+                return null;
+            }
+            if (use != JsonTypeInfo.Id.NAME && use != JsonTypeInfo.Id.CLASS) {
+                problemReporter.fail("Unsupported type id kind " + use + ", only NAME and CLASS are supported", declaration);
+                return null;
+            }
+            if (include != JsonTypeInfo.As.PROPERTY && include != JsonTypeInfo.As.WRAPPER_OBJECT && include != JsonTypeInfo.As.WRAPPER_ARRAY) {
+                problemReporter.fail("Unsupported type id inclusion " + include + ", only PROPERTY, WRAPPER_OBJECT and WRAPPER_ARRAY are supported", declaration);
+                return null;
+            }
+            String property = annotation.stringValue("property").filter(s -> !s.isEmpty()).orElse(use.getDefaultPropertyName());
+            String defaultImpl = annotation.annotationClassValue("defaultImpl")
+                    .map(AnnotationClassValue::getName)
+                    .filter(name -> !name.equals(JsonTypeInfo.class.getName()) && !name.equals(Void.class.getName()))
+                    .orElse(null);
+            return new TypeInfoDefinition(typeResolutionContext, use, include, property, defaultImpl);
+        }
+        return null;
+    }
+
+    /**
+     * @return The type id to write for the given subtype
+     */
+    public String getTypeId(ClassElement subtype) {
+        return getTypeIds(subtype).get(0);
+    }
+
+    /**
+     * @return All type ids that should be accepted for the given subtype. The first one is the one used for
+     * serialization
+     */
+    public List<String> getTypeIds(ClassElement subtype) {
+        if (use == JsonTypeInfo.Id.CLASS) {
+            return Collections.singletonList(subtype.getName());
+        }
+        Set<String> ids = new LinkedHashSet<>();
+        // names in @JsonSubTypes of the supertypes
+        for (ClassElement declaration : hierarchy(typeResolutionContext, subtype)) {
+            AnnotationValue<JsonSubTypes> subTypes = declaration.getAnnotation(JsonSubTypes.class);
+            if (subTypes == null) {
+                continue;
+            }
+            for (AnnotationValue<JsonSubTypes.Type> entry : subTypes.getAnnotations("value", JsonSubTypes.Type.class)) {
+                Optional<String> entryType = entry.annotationClassValue("value").map(AnnotationClassValue::getName);
+                if (entryType.isPresent() && isSameType(entryType.get(), subtype)) {
+                    entry.stringValue("name").filter(s -> !s.isEmpty()).ifPresent(ids::add);
+                    Collections.addAll(ids, entry.stringValues("names"));
+                }
+            }
+        }
+        if (ids.isEmpty()) {
+            ClassElement declaration = resolve(typeResolutionContext, subtype.getName()).orElse(subtype);
+            ids.add(declaration.stringValue(JsonTypeName.class).filter(s -> !s.isEmpty()).orElseGet(() -> {
+                // jackson default: the binary name without the package
+                String name = subtype.getName();
+                return name.substring(name.lastIndexOf('.') + 1);
+            }));
+        }
+        return new ArrayList<>(ids);
+    }
+
+    private static boolean isSameType(String name, ClassElement type) {
+        // annotation class values may use the canonical name for nested classes
+        return name.equals(type.getName()) || name.equals(type.getName().replace('$', '.'));
+    }
+
+    /**
+     * @return The given type and all its supertypes, resolved so that class-level annotations are available
+     */
+    private static List<ClassElement> hierarchy(VisitorContext typeResolutionContext, ClassElement type) {
+        List<ClassElement> result = new ArrayList<>();
+        Set<String> seen = new LinkedHashSet<>();
+        List<String> queue = new ArrayList<>();
+        queue.add(type.getName());
+        while (!queue.isEmpty()) {
+            String name = queue.remove(0);
+            if (!seen.add(name)) {
+                continue;
+            }
+            ClassElement declaration = resolve(typeResolutionContext, name).orElse(null);
+            if (declaration == null) {
+                continue;
+            }
+            result.add(declaration);
+            declaration.getSuperType().ifPresent(superType -> queue.add(superType.getName()));
+            Object nativeType = declaration.getNativeType();
+            if (nativeType instanceof TypeElement) {
+                for (TypeMirror itf : ((TypeElement) nativeType).getInterfaces()) {
+                    if (itf instanceof DeclaredType) {
+                        queue.add(((TypeElement) ((DeclaredType) itf).asElement()).getQualifiedName().toString());
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Resolve a class by its binary name, as stored in annotation class values.
+     */
+    public static Optional<ClassElement> resolve(VisitorContext typeResolutionContext, String name) {
+        Optional<ClassElement> element = typeResolutionContext.getClassElement(name);
+        if (!element.isPresent() && name.indexOf('$') != -1) {
+            // binary name of a nested class
+            element = typeResolutionContext.getClassElement(name.replace('$', '.'));
+        }
+        return element;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen.generator;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import io.micronaut.inject.ast.ClassElement;
+import io.micronaut.jsongen.DeserializationFrame;
+import io.micronaut.jsongen.RuntimeTypeDispatcher;
+import io.micronaut.jsongen.UntypedCodec;
+
+import java.util.Map;
+
+import static io.micronaut.jsongen.generator.Names.DECODER;
+import static io.micronaut.jsongen.generator.Names.ENCODER;
+
+/**
+ * Symbol for untyped values, i.e. {@code Object} and {@code Map<String, Object>}, using the natural mapping of
+ * {@link UntypedCodec}. {@code List<Object>} is handled by the iterable symbols, with this symbol for the elements.
+ */
+final class UntypedSerializerSymbol implements SerializerSymbol {
+    static final UntypedSerializerSymbol INSTANCE = new UntypedSerializerSymbol();
+
+    private UntypedSerializerSymbol() {
+    }
+
+    @Override
+    public boolean canSerialize(ClassElement type) {
+        return isObject(type) || isObjectMap(type);
+    }
+
+    private static boolean isObject(ClassElement type) {
+        // a property of a type variable is named after the bound, but uses the injected serializer for the argument
+        return !type.isArray() && !type.isTypeVariable() && type.getName().equals(Object.class.getName());
+    }
+
+    private static boolean isObjectMap(ClassElement type) {
+        if (type.isArray() || !type.getName().equals(Map.class.getName())) {
+            return false;
+        }
+        ClassElement keyType = type.getTypeArguments().get("K");
+        ClassElement valueType = PoetUtil.typeArgument(type, "V");
+        return keyType != null && !keyType.isArray() && keyType.getName().equals(String.class.getName()) &&
+                valueType != null && isObject(valueType);
+    }
+
+    @Override
+    public void visitDependencies(DependencyVisitor visitor, ClassElement type) {
+        // values of other types are serialized through the RuntimeTypeDispatcher, which is not a dependency
+    }
+
+    @Override
+    public CodeBlock serialize(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression) {
+        CodeBlock dispatcher = generatorContext.requestInjection(ClassName.get(RuntimeTypeDispatcher.class)).getAccessExpression();
+        return CodeBlock.of("$T.write($N, $L, $L);\n", UntypedCodec.class, ENCODER, readExpression, dispatcher);
+    }
+
+    @Override
+    public CodeBlock deserialize(GeneratorContext generatorContext, ClassElement type, Setter setter) {
+        if (isObject(type)) {
+            return setter.createSetStatement(CodeBlock.of("$T.DEFAULT.deserialize($N)", UntypedCodec.class, DECODER));
+        } else {
+            return setter.createSetStatement(CodeBlock.of("$T.DEFAULT.deserializeObject($N)", UntypedCodec.class, DECODER));
+        }
+    }
+
+    @Override
+    public CodeBlock deserializeResumable(GeneratorContext generatorContext, ClassElement type, Setter setter) {
+        if (isObject(type)) {
+            // scalars are a single token, only structures need a child frame
+            return CodeBlock.builder()
+                    .beginControlFlow("if (!$N.currentToken().isStructStart())", DECODER)
+                    .add(deserialize(generatorContext, type, setter))
+                    .nextControlFlow("else")
+                    .add(generatorContext.pushChildFrame(
+                            CodeBlock.of("$T.forSerializer($T.DEFAULT)", DeserializationFrame.class, UntypedCodec.class),
+                            PoetUtil.toTypeName(type),
+                            setter
+                    ))
+                    .endControlFlow()
+                    .build();
+        } else {
+            return generatorContext.pushChildFrame(
+                    CodeBlock.of("$T.forSerializer($T.DEFAULT.objects())", DeserializationFrame.class, UntypedCodec.class),
+                    PoetUtil.toTypeName(type),
+                    setter
+            );
+        }
+    }
+}
@@ -24,6 +24,15 @@ import java.util.Set;
 
 class BeanDefinition {
     boolean ignoreUnknownProperties;
+    /**
+     * Whether this is a {@link io.micronaut.jsongen.SerializableBean#projection() projection}.
+     */
+    boolean projection;
+    /**
+     * The {@link io.micronaut.jsongen.SerializableBean#outputCacheSize() output cache size}, or 0 if the output is not
+     * cached.
+     */
+    int outputCacheSize;
 
     MethodElement creator;
     List<Property> creatorProps;
@@ -39,6 +48,15 @@ class BeanDefinition {
 
     List<Property> props;
 
+    /**
+     * The element annotated with {@link com.fasterxml.jackson.annotation.JsonAnySetter} (for deserialization) or
+     * {@link com.fasterxml.jackson.annotation.JsonAnyGetter} (for serialization), if any. Either a
+     * {@link io.micronaut.jsongen.RawProperties} field, a setter taking a {@code String} name and a
+     * {@link io.micronaut.jsongen.RawJson} value, or a getter returning {@code RawProperties} or
+     * {@code Map<String, RawJson>}.
+     */
+    Element anyProperty;
+
     final static class Property {
         final String name;
 
@@ -51,14 +69,23 @@ class BeanDefinition {
         final boolean permitRecursiveSerialization;
         final boolean nullable;
         final boolean unwrapped;
+        /**
+         * Whether this property is annotated with {@link com.fasterxml.jackson.annotation.JsonRawValue}.
+         */
+        final boolean rawValue;
 
         final Set<String> aliases;
+        /**
+         * Binary names of the {@link com.fasterxml.jackson.annotation.JsonView} classes this property is included in.
+         * Empty if the property is included in all views.
+         */
+        final Set<String> views;
 
         private Property(String name, FieldElement field, MethodElement getter, MethodElement setter, ParameterElement creatorParameter) {
-            this(name, field, getter, setter, creatorParameter, false, false, false, Collections.emptySet());
+            this(name, field, getter, setter, creatorParameter, false, false, false, false, Collections.emptySet(), Collections.emptySet());
         }
 
-        private Property(String name, FieldElement field, MethodElement getter, MethodElement setter, ParameterElement creatorParameter, boolean permitRecursiveSerialization, boolean nullable, boolean unwrapped, Set<String> aliases) {
+        private Property(String name, FieldElement field, MethodElement getter, MethodElement setter, ParameterElement creatorParameter, boolean permitRecursiveSerialization, boolean nullable, boolean unwrapped, boolean rawValue, Set<String> aliases, Set<String> views) {
             this.name = name;
             this.field = field;
             this.getter = getter;
@@ -67,23 +94,33 @@ class BeanDefinition {
             this.permitRecursiveSerialization = permitRecursiveSerialization;
             this.nullable = nullable;
             this.unwrapped = unwrapped;
+            this.rawValue = rawValue;
             this.aliases = aliases;
+            this.views = views;
         }
 
         public Property withPermitRecursiveSerialization(boolean value) {
-            return new Property(name, field, getter, setter, creatorParameter, value, nullable, unwrapped, aliases);
+            return new Property(name, field, getter, setter, creatorParameter, value, nullable, unwrapped, rawValue, aliases, views);
         }
 
         public Property withNullable(boolean value) {
-            return new Property(name, field, getter, setter, creatorParameter, permitRecursiveSerialization, value, unwrapped, aliases);
+            return new Property(name, field, getter, setter, creatorParameter, permitRecursiveSerialization, value, unwrapped, rawValue, aliases, views);
         }
 
         public Property withUnwrapped(boolean value) {
-            return new Property(name, field, getter, setter, creatorParameter, permitRecursiveSerialization, nullable, value, aliases);
+            return new Property(name, field, getter, setter, creatorParameter, permitRecursiveSerialization, nullable, value, rawValue, aliases, views);
+        }
+
+        public Property withRawValue(boolean value) {
+            return new Property(name, field, getter, setter, creatorParameter, permitRecursiveSerialization, nullable, unwrapped, value, aliases, views);
         }
 
         public Property withAliases(Set<String> value) {
-            return new Property(name, field, getter, setter, creatorParameter, permitRecursiveSerialization, nullable, unwrapped, value);
+            return new Property(name, field, getter, setter, creatorParameter, permitRecursiveSerialization, nullable, unwrapped, rawValue, value, views);
+        }
+
+        public Property withViews(Set<String> value) {
+            return new Property(name, field, getter, setter, creatorParameter, permitRecursiveSerialization, nullable, unwrapped, rawValue, aliases, value);
         }
 
         public ClassElement getType() {
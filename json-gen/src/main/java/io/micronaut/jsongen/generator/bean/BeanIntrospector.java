@@ -17,10 +17,14 @@ package io.micronaut.jsongen.generator.bean;
 
 import com.fasterxml.jackson.annotation.*;
 import io.micronaut.core.annotation.AnnotatedElement;
+import io.micronaut.core.annotation.AnnotationClassValue;
 import io.micronaut.core.annotation.AnnotationValue;
 import io.micronaut.core.annotation.Nullable;
 import io.micronaut.inject.ast.*;
+import io.micronaut.jsongen.RawJson;
+import io.micronaut.jsongen.RawProperties;
 import io.micronaut.jsongen.RecursiveSerialization;
+import io.micronaut.jsongen.SerializableBean;
 import io.micronaut.jsongen.generator.ProblemReporter;
 
 import java.util.*;
@@ -70,7 +74,12 @@ class BeanIntrospector {
             built = built.withPermitRecursiveSerialization(prop.permitRecursiveSerialization);
             built = built.withNullable(prop.nullable);
             built = built.withUnwrapped(prop.unwrapped);
+            built = built.withRawValue(prop.rawValue);
+            if (prop.rawValue && !built.getType().isAssignable(String.class)) {
+                problemReporter.fail("@JsonRawValue is only supported on String properties, use RawJson for other raw values", built.getElement());
+            }
             built = built.withAliases(prop.aliases);
+            built = built.withViews(prop.views);
             completeProps.put(prop, built);
         }
         beanDefinition.props = new ArrayList<>(completeProps.values());
@@ -90,8 +99,11 @@ class BeanIntrospector {
                 beanDefinition.creatorDelegatingProperty = completeProps.get(scanner.creatorDelegatingProperty);
             }
         }
-        beanDefinition.ignoreUnknownProperties = scanner.ignoreUnknownProperties;
+        beanDefinition.ignoreUnknownProperties = scanner.ignoreUnknownProperties || scanner.projection;
+        beanDefinition.projection = scanner.projection;
+        beanDefinition.outputCacheSize = scanner.outputCacheSize;
         beanDefinition.valueProperty = completeProps.get(scanner.valueProperty);
+        beanDefinition.anyProperty = forSerialization ? scanner.anyGetter : scanner.anySetter;
         return beanDefinition;
     }
 
@@ -126,6 +138,22 @@ class BeanIntrospector {
         PropBuilder valueProperty;
 
         boolean ignoreUnknownProperties;
+        boolean projection;
+        int outputCacheSize;
+
+        /**
+         * Element annotated with {@link JsonAnySetter}, see {@link BeanDefinition#anyProperty}.
+         */
+        Element anySetter;
+        /**
+         * Element annotated with {@link JsonAnyGetter}, see {@link BeanDefinition#anyProperty}.
+         */
+        Element anyGetter;
+
+        /**
+         * Views of properties without their own {@link JsonView}, from the class-level annotation.
+         */
+        Set<String> defaultViews = Collections.emptySet();
 
         Scanner(ProblemReporter problemReporter, boolean forSerialization) {
             this.problemReporter = problemReporter;
@@ -161,6 +189,12 @@ class BeanIntrospector {
             return value.orElse(true);
         }
 
+        private Set<String> getViews(AnnotationValue<JsonView> jsonView) {
+            return Arrays.stream(jsonView.annotationClassValues("value"))
+                    .map(AnnotationClassValue::getName)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+        }
+
         private <T extends Element> Accessor<T> makeAccessor(T element, String implicitName) {
             String explicitName = getExplicitName(element);
             String finalName = implicitName;
@@ -183,6 +217,18 @@ class BeanIntrospector {
             if (jsonIgnoreProperties != null) {
                 ignoreUnknownProperties = jsonIgnoreProperties.get("ignoreUnknown", Boolean.class).orElse(false);
             }
+            AnnotationValue<SerializableBean> serializableBean = ElementUtil.getAnnotation(SerializableBean.class, clazz, additionalAnnotationSource);
+            if (serializableBean != null) {
+                projection = serializableBean.get("projection", Boolean.class).orElse(false);
+                outputCacheSize = serializableBean.get("outputCacheSize", Integer.class).orElse(0);
+                if (outputCacheSize > 0 && serializableBean.get("inline", Boolean.class).orElse(false)) {
+                    problemReporter.fail("Output caching is not supported for inline beans", clazz);
+                }
+            }
+            AnnotationValue<JsonView> jsonView = ElementUtil.getAnnotation(JsonView.class, clazz, additionalAnnotationSource);
+            if (jsonView != null) {
+                defaultViews = getViews(jsonView);
+            }
 
             // todo: check we don't have another candidate when replacing properties of the definition
 
@@ -190,6 +236,9 @@ class BeanIntrospector {
             defaultConstructor = clazz.getDefaultConstructor().orElse(null);
 
             for (FieldElement field : clazz.getEnclosedElements(ElementQuery.ALL_FIELDS.onlyInstance())) {
+                if (handleAnyAccessor(field)) {
+                    continue;
+                }
                 PropBuilder prop = getByImplicitName(field.getName());
                 prop.field = makeAccessor(field, field.getName());
             }
@@ -200,14 +249,17 @@ class BeanIntrospector {
 
             for (PropertyElement beanProperty : clazz.getBeanProperties()) {
                 String implicitName = beanProperty.getName();
-                PropBuilder prop = getByImplicitName(implicitName);
                 beanProperty.getReadMethod().ifPresent(readMethod -> {
                     visitedMethods.add(new MethodElementWrapper(readMethod));
-                    prop.getter = makeAccessor(readMethod, implicitName);
+                    if (!handleAnyAccessor(readMethod)) {
+                        getByImplicitName(implicitName).getter = makeAccessor(readMethod, implicitName);
+                    }
                 });
                 beanProperty.getWriteMethod().ifPresent(writeMethod -> {
                     visitedMethods.add(new MethodElementWrapper(writeMethod));
-                    prop.setter = makeAccessor(writeMethod, implicitName);
+                    if (!handleAnyAccessor(writeMethod)) {
+                        getByImplicitName(implicitName).setter = makeAccessor(writeMethod, implicitName);
+                    }
                 });
             }
 
@@ -216,6 +268,9 @@ class BeanIntrospector {
                     // skip methods we already visited for properties
                     continue;
                 }
+                if (handleAnyAccessor(method)) {
+                    continue;
+                }
 
                 // if we have an explicit @JsonProperty, fall back to just the method name as the implicit name
                 if (method.getParameters().length == 0) {
@@ -289,6 +344,13 @@ class BeanIntrospector {
                             prop.annotatedElementsInOrder(forSerialization).findFirst().get());
                 }
 
+                prop.rawValue = prop.annotatedElementsInOrder(forSerialization)
+                        .map(element -> element.getAnnotation(JsonRawValue.class))
+                        .filter(Objects::nonNull)
+                        .findFirst()
+                        .map(annotation -> annotation.booleanValue("value").orElse(true))
+                        .orElse(false);
+
                 prop.aliases = prop.annotatedElementsInOrder(forSerialization)
                         .flatMap(element -> {
                             AnnotationValue<JsonAlias> aliasAnnotation = element.getAnnotation(JsonAlias.class);
@@ -300,8 +362,68 @@ class BeanIntrospector {
                         })
                         .collect(Collectors.toSet());
 
+                // the first @JsonView wins, like other annotations
+                prop.views = prop.annotatedElementsInOrder(forSerialization)
+                        .map(element -> element.getAnnotation(JsonView.class))
+                        .filter(Objects::nonNull)
+                        .findFirst()
+                        .map(this::getViews)
+                        .orElse(defaultViews);
+
+
+            }
+        }
 
+        /**
+         * Record the element if it is annotated with {@link JsonAnySetter} or {@link JsonAnyGetter}.
+         *
+         * @return {@code true} iff the element is an any accessor, and should not be used for a normal property
+         */
+        private boolean handleAnyAccessor(Element element) {
+            boolean setter = element.hasAnnotation(JsonAnySetter.class);
+            boolean getter = element.hasAnnotation(JsonAnyGetter.class);
+            if (!setter && !getter) {
+                return false;
+            }
+            if (element.isPrivate()) {
+                problemReporter.fail("Any accessors must not be private", element);
+            }
+            if (setter) {
+                if (anySetter != null) {
+                    problemReporter.fail("Multiple elements annotated with @JsonAnySetter", element);
+                }
+                boolean valid;
+                if (element instanceof MethodElement) {
+                    ParameterElement[] parameters = ((MethodElement) element).getParameters();
+                    valid = parameters.length == 2 &&
+                            parameters[0].getType().isAssignable(String.class) &&
+                            parameters[1].getType().getName().equals(RawJson.class.getName());
+                } else {
+                    valid = isRawProperties(((FieldElement) element).getType());
+                }
+                if (!valid) {
+                    problemReporter.fail("@JsonAnySetter must be placed on a RawProperties field, or on a method with a String and a RawJson parameter", element);
+                }
+                anySetter = element;
+            }
+            if (getter) {
+                if (anyGetter != null) {
+                    problemReporter.fail("Multiple elements annotated with @JsonAnyGetter", element);
+                }
+                boolean valid;
+                if (element instanceof MethodElement) {
+                    MethodElement method = (MethodElement) element;
+                    ClassElement returnType = method.getGenericReturnType();
+                    valid = method.getParameters().length == 0 && (isRawProperties(returnType) || isRawJsonMap(returnType));
+                } else {
+                    valid = isRawProperties(((FieldElement) element).getType());
+                }
+                if (!valid) {
+                    problemReporter.fail("@JsonAnyGetter must be placed on a RawProperties field, or on a method returning RawProperties or Map<String, RawJson>", element);
+                }
+                anyGetter = element;
             }
+            return true;
         }
 
         private void handleCreator(MethodElement method) {
@@ -368,14 +490,30 @@ class BeanIntrospector {
         }
     }
 
+    static boolean isRawProperties(ClassElement type) {
+        return type.getName().equals(RawProperties.class.getName());
+    }
+
+    static boolean isRawJsonMap(ClassElement type) {
+        if (!type.getName().equals(Map.class.getName())) {
+            return false;
+        }
+        ClassElement keyType = type.getTypeArguments().get("K");
+        ClassElement valueType = type.getTypeArguments().get("V");
+        return keyType != null && keyType.isAssignable(String.class) &&
+                valueType != null && valueType.getName().equals(RawJson.class.getName());
+    }
+
     private static class PropBuilder {
         String name;
 
         boolean permitRecursiveSerialization;
         boolean nullable;
         boolean unwrapped;
+        boolean rawValue;
 
         Set<String> aliases;
+        Set<String> views;
 
         @Nullable
         Accessor<FieldElement> field;
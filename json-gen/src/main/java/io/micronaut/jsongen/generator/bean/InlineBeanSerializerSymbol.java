@@ -15,20 +15,35 @@
  */
 package io.micronaut.jsongen.generator.bean;
 
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.core.JsonToken;
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
 import io.micronaut.core.annotation.AnnotatedElement;
 import io.micronaut.core.annotation.AnnotationValue;
 import io.micronaut.core.annotation.Nullable;
 import io.micronaut.inject.ast.ClassElement;
 import io.micronaut.inject.ast.ConstructorElement;
+import io.micronaut.inject.ast.Element;
+import io.micronaut.inject.ast.FieldElement;
+import io.micronaut.inject.ast.MethodElement;
 import io.micronaut.inject.ast.PrimitiveElement;
 import io.micronaut.inject.visitor.VisitorContext;
+import io.micronaut.jsongen.DeserializationFrame;
 import io.micronaut.jsongen.JsonParseException;
+import io.micronaut.jsongen.RawCapture;
+import io.micronaut.jsongen.RawJson;
+import io.micronaut.jsongen.RawProperties;
 import io.micronaut.jsongen.SerializableBean;
+import io.micronaut.jsongen.SerializedSize;
 import io.micronaut.jsongen.generator.*;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static io.micronaut.jsongen.generator.Names.DECODER;
@@ -104,7 +119,7 @@ public class InlineBeanSerializerSymbol implements SerializerSymbol {
     }
 
     private SerializerSymbol findSymbol(BeanDefinition.Property prop) {
-        SerializerSymbol symbol = linker.findSymbol(prop.getType());
+        SerializerSymbol symbol = prop.rawValue ? RawValueSerializerSymbol.STRING : linker.findSymbol(prop.getType());
         if (prop.permitRecursiveSerialization) {
             symbol = symbol.withRecursiveSerialization();
         }
@@ -138,12 +153,191 @@ public class InlineBeanSerializerSymbol implements SerializerSymbol {
             serialize.addStatement("$T $N = $L", PoetUtil.toTypeName(type), objectVarName, readExpression);
             // passing the value to writeStartObject helps with debugging, but will not affect functionality
             serialize.addStatement("$N.writeStartObject($N)", ENCODER, objectVarName);
+            writeTypeProperty(generatorContext, type, serialize);
             serializeBeanProperties(generatorContext, definition, CodeBlock.of("$N", objectVarName), serialize);
             serialize.addStatement("$N.writeEndObject()", ENCODER);
             return serialize.build();
         }
     }
 
+    @Override
+    public CodeBlock serializeResumable(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression) {
+        BeanDefinition definition = introspect(generatorContext.getProblemReporter(), type, true);
+        if (generatorContext.getProblemReporter().isFailed()) {
+            return CodeBlock.of("");
+        }
+        if (definition.valueProperty != null) {
+            return findSymbol(definition.valueProperty).serializeResumable(
+                    generatorContext,
+                    definition.valueProperty.getType(),
+                    getPropertyAccessExpression(readExpression, definition.valueProperty)
+            );
+        }
+
+        // each property gets its own state, so that we can continue with the next property once a child frame is done
+        SerializationFrameGenerator frame = SerializationFrameGenerator.create(generatorContext, type.getSimpleName() + "SerializationFrame", PoetUtil.toTypeName(type));
+        GeneratorContext frameContext = frame.getContext();
+        String stateVariable = frameContext.newLocalVariable("state");
+        frame.addField(TypeName.INT, stateVariable, null);
+
+        CodeBlock.Builder start = CodeBlock.builder();
+        start.addStatement("$N.writeStartObject($N)", ENCODER, frame.getValueField());
+        writeTypeProperty(generatorContext, type, start);
+        List<CodeBlock> propertyCode = new ArrayList<>();
+        collectPropertiesResumable(frameContext, frame, definition, CodeBlock.of("$N", frame.getValueField()), start, propertyCode);
+
+        CodeBlock.Builder writeNext = CodeBlock.builder();
+        writeNext.beginControlFlow("switch ($N)", stateVariable);
+        writeNext.add("case 0:\n").indent().add(start.build()).unindent();
+        for (int i = 0; i < propertyCode.size(); i++) {
+            writeNext.add("case $L:\n", i + 1).indent();
+            writeNext.addStatement("$N = $L", stateVariable, i + 2);
+            writeNext.add(propertyCode.get(i));
+            writeNext.unindent();
+        }
+        writeNext.add("case $L:\n", propertyCode.size() + 1).indent();
+        writeNext.addStatement("$N.writeEndObject()", ENCODER);
+        writeNext.addStatement("return true");
+        writeNext.unindent();
+        writeNext.add("default:\n").indent();
+        writeNext.addStatement("throw new $T()", AssertionError.class);
+        writeNext.unindent();
+        writeNext.endControlFlow();
+
+        return generatorContext.pushSerializationFrame(frame.finish(writeNext.build(), readExpression));
+    }
+
+    /**
+     * Every field is followed by one separator, either a comma or the closing brace. An object without fields only has
+     * the closing brace.
+     */
+    @Override
+    public CodeBlock serializedSize(GeneratorContext generatorContext, ClassElement type, CodeBlock readExpression, String sizeVariable) {
+        BeanDefinition definition = introspect(generatorContext.getProblemReporter(), type, true);
+        if (generatorContext.getProblemReporter().isFailed()) {
+            return null;
+        }
+        if (definition.valueProperty != null) {
+            return findSymbol(definition.valueProperty).serializedSize(
+                    generatorContext,
+                    definition.valueProperty.getType(),
+                    getPropertyAccessExpression(readExpression, definition.valueProperty),
+                    sizeVariable
+            );
+        }
+
+        String objectVarName = generatorContext.newLocalVariable("object");
+        CodeBlock.Builder fields = CodeBlock.builder();
+        TypeInfoDefinition typeInfo = TypeInfoDefinition.find(generatorContext.getProblemReporter(), typeResolutionContext, type);
+        boolean hasFields = false;
+        if (typeInfo != null && typeInfo.include == JsonTypeInfo.As.PROPERTY) {
+            fields.addStatement("$N += $L", sizeVariable, SerializedSize.ofString(typeInfo.property) + SerializedSize.ofString(typeInfo.getTypeId(type)) + 2);
+            hasFields = true;
+        }
+        Boolean propertiesHaveFields = sizeBeanProperties(generatorContext, definition, CodeBlock.of("$N", objectVarName), sizeVariable, fields);
+        if (propertiesHaveFields == null) {
+            return null;
+        }
+
+        CodeBlock.Builder size = CodeBlock.builder();
+        size.addStatement("$T $N = $L", PoetUtil.toTypeName(type), objectVarName, readExpression);
+        if (hasFields || propertiesHaveFields) {
+            size.addStatement("$N++", sizeVariable);
+            size.add(fields.build());
+        } else {
+            // only any properties, or none at all
+            String startVariable = generatorContext.newLocalVariable("start");
+            size.addStatement("long $N = ++$N", startVariable, sizeVariable);
+            size.add(fields.build());
+            size.addStatement("if ($N == $N) $N++", sizeVariable, startVariable, sizeVariable);
+        }
+        return size.build();
+    }
+
+    /**
+     * Size counterpart of {@link #serializeBeanProperties}.
+     *
+     * @return Whether the bean always has at least one field, or {@code null} if the size of a property cannot be
+     * computed
+     */
+    @Nullable
+    private Boolean sizeBeanProperties(GeneratorContext generatorContext, BeanDefinition definition, CodeBlock beanReadExpression, String sizeVariable, CodeBlock.Builder size) {
+        boolean hasFields = false;
+        for (BeanDefinition.Property prop : definition.props) {
+            if (!isInView(generatorContext, prop)) {
+                continue;
+            }
+            CodeBlock propRead = getPropertyAccessExpression(beanReadExpression, prop);
+            GeneratorContext subGenerator = generatorContext.withSubPath(prop.name);
+            if (prop.unwrapped) {
+                String tempVariable = generatorContext.newLocalVariable(prop.name);
+                size.addStatement("$T $N = $L", PoetUtil.toTypeName(prop.getType()), tempVariable, propRead);
+                BeanDefinition subDefinition = introspect(generatorContext.getProblemReporter(), prop.getType(), true);
+                Boolean subHasFields = sizeBeanProperties(subGenerator, subDefinition, CodeBlock.of("$N", tempVariable), sizeVariable, size);
+                if (subHasFields == null) {
+                    return null;
+                }
+                hasFields |= subHasFields;
+            } else {
+                CodeBlock valueSize = findSymbol(prop).serializedSize(subGenerator, prop.getType(), propRead, sizeVariable);
+                if (valueSize == null) {
+                    return null;
+                }
+                // name, colon and separator
+                size.addStatement("$N += $L", sizeVariable, SerializedSize.ofString(prop.name) + 2);
+                size.add(valueSize);
+                hasFields = true;
+            }
+        }
+        if (definition.anyProperty != null) {
+            CodeBlock read = definition.anyProperty instanceof FieldElement ?
+                    CodeBlock.of("$L.$N", beanReadExpression, definition.anyProperty.getName()) :
+                    CodeBlock.of("$L.$N()", beanReadExpression, definition.anyProperty.getName());
+            size.addStatement("$N += $T.ofFields($L)", sizeVariable, SerializedSize.class, read);
+        }
+        return hasFields;
+    }
+
+    /**
+     * Write the {@link com.fasterxml.jackson.annotation.JsonTypeInfo.As#PROPERTY type property}, if the type (or one of
+     * its supertypes) asks for one.
+     */
+    private void writeTypeProperty(GeneratorContext generatorContext, ClassElement type, CodeBlock.Builder serialize) {
+        TypeInfoDefinition typeInfo = TypeInfoDefinition.find(generatorContext.getProblemReporter(), typeResolutionContext, type);
+        if (typeInfo != null && typeInfo.include == JsonTypeInfo.As.PROPERTY) {
+            serialize.addStatement("$N.writeStringField($S, $S)", ENCODER, typeInfo.property, typeInfo.getTypeId(type));
+        }
+    }
+
+    /**
+     * Resumable variant of {@link #serializeBeanProperties}. Unwrapped beans are read into frame fields in the start
+     * state, every other property produces one entry in {@code propertyCode}.
+     */
+    private void collectPropertiesResumable(GeneratorContext frameContext, SerializationFrameGenerator frame, BeanDefinition definition, CodeBlock beanReadExpression, CodeBlock.Builder start, List<CodeBlock> propertyCode) {
+        for (BeanDefinition.Property prop : definition.props) {
+            if (!isInView(frameContext, prop)) {
+                continue;
+            }
+            CodeBlock propRead = getPropertyAccessExpression(beanReadExpression, prop);
+            GeneratorContext subGenerator = frameContext.withSubPath(prop.name);
+            if (prop.unwrapped) {
+                String tempVariable = frameContext.newLocalVariable(prop.name);
+                frame.addField(PoetUtil.toTypeName(prop.getType()), tempVariable, null);
+                start.addStatement("$N = $L", tempVariable, propRead);
+                BeanDefinition subDefinition = introspect(frameContext.getProblemReporter(), prop.getType(), true);
+                collectPropertiesResumable(subGenerator, frame, subDefinition, CodeBlock.of("$N", tempVariable), start, propertyCode);
+            } else {
+                propertyCode.add(CodeBlock.builder()
+                        .addStatement("$N.writeFieldName($S)", ENCODER, prop.name)
+                        .add(findSymbol(prop).serializeResumable(subGenerator, prop.getType(), propRead))
+                        .build());
+            }
+        }
+        if (definition.anyProperty != null) {
+            propertyCode.add(serializeAnyProperties(frameContext, definition.anyProperty, beanReadExpression));
+        }
+    }
+
     /**
      * @param generatorContext   Generator context
      * @param definition         Definition of the bean we're serializing
@@ -152,6 +346,9 @@ public class InlineBeanSerializerSymbol implements SerializerSymbol {
      */
     private void serializeBeanProperties(GeneratorContext generatorContext, BeanDefinition definition, CodeBlock beanReadExpression, CodeBlock.Builder serialize) {
         for (BeanDefinition.Property prop : definition.props) {
+            if (!isInView(generatorContext, prop)) {
+                continue;
+            }
             CodeBlock propRead = getPropertyAccessExpression(beanReadExpression, prop);
             GeneratorContext subGenerator = generatorContext.withSubPath(prop.name);
             if (prop.unwrapped) {
@@ -164,6 +361,41 @@ public class InlineBeanSerializerSymbol implements SerializerSymbol {
                 serialize.add(findSymbol(prop).serialize(subGenerator, prop.getType(), propRead));
             }
         }
+        if (definition.anyProperty != null) {
+            serialize.add(serializeAnyProperties(generatorContext, definition.anyProperty, beanReadExpression));
+        }
+    }
+
+    /**
+     * Write the properties returned by the {@link com.fasterxml.jackson.annotation.JsonAnyGetter} as fields of the
+     * current object.
+     */
+    private static CodeBlock serializeAnyProperties(GeneratorContext generatorContext, Element anyGetter, CodeBlock beanReadExpression) {
+        CodeBlock read;
+        ClassElement type;
+        if (anyGetter instanceof FieldElement) {
+            read = CodeBlock.of("$L.$N", beanReadExpression, anyGetter.getName());
+            type = ((FieldElement) anyGetter).getGenericType();
+        } else {
+            read = CodeBlock.of("$L.$N()", beanReadExpression, anyGetter.getName());
+            type = ((MethodElement) anyGetter).getGenericReturnType();
+        }
+        CodeBlock.Builder serialize = CodeBlock.builder();
+        String variable = generatorContext.newLocalVariable("any");
+        serialize.addStatement("$T $N = $L", PoetUtil.toTypeName(type), variable, read);
+        serialize.beginControlFlow("if ($N != null)", variable);
+        if (BeanIntrospector.isRawProperties(type)) {
+            serialize.addStatement("$N.serialize($N)", variable, ENCODER);
+        } else {
+            String entryVariable = generatorContext.newLocalVariable("entry");
+            TypeName entryType = ParameterizedTypeName.get(ClassName.get(Map.Entry.class), ClassName.get(String.class), ClassName.get(RawJson.class));
+            serialize.beginControlFlow("for ($T $N : $N.entrySet())", entryType, entryVariable, variable);
+            serialize.addStatement("$N.writeFieldName($N.getKey())", ENCODER, entryVariable);
+            serialize.addStatement("$N.getValue().serialize($N)", entryVariable, ENCODER);
+            serialize.endControlFlow();
+        }
+        serialize.endControlFlow();
+        return serialize.build();
     }
 
     private CodeBlock getPropertyAccessExpression(CodeBlock beanReadExpression, BeanDefinition.Property prop) {
@@ -181,6 +413,204 @@ public class InlineBeanSerializerSymbol implements SerializerSymbol {
         return new DeserGen(generatorContext, type).generate(setter);
     }
 
+    /**
+     * Like {@link #deserialize}, but the decoder may also be positioned at the type id, i.e. the value of the
+     * {@link com.fasterxml.jackson.annotation.JsonTypeInfo.As#PROPERTY type property}, instead of the start of the
+     * object. The caller is responsible for checking that the value is an object.
+     */
+    public CodeBlock deserializeAfterTypeId(GeneratorContext generatorContext, ClassElement type, Setter setter) {
+        DeserGen deserGen = new DeserGen(generatorContext, type);
+        if (deserGen.rootDefinition.creatorDelegatingProperty != null) {
+            generatorContext.getProblemReporter().fail("Delegating creators are not supported for types with a type property", type);
+            return CodeBlock.of("");
+        }
+        deserGen.afterTypeId = true;
+        return deserGen.generate(setter);
+    }
+
+    /**
+     * @return Whether the given type is a {@link SerializableBean#projection() projection} that supports
+     * {@link #deserializeProjection}
+     */
+    public boolean isProjection(ClassElement type) {
+        ProblemReporter problemReporter = new ProblemReporter();
+        BeanDefinition definition = introspect(problemReporter, type, false);
+        return !problemReporter.isFailed() && definition.projection && definition.creatorDelegatingProperty == null;
+    }
+
+    /**
+     * @return The {@link SerializableBean#outputCacheSize() output cache size} of the given type, or 0 if its output
+     * should not be cached
+     */
+    public int getOutputCacheSize(ClassElement type) {
+        ProblemReporter problemReporter = new ProblemReporter();
+        BeanDefinition definition = introspect(problemReporter, type, true);
+        return problemReporter.isFailed() ? 0 : definition.outputCacheSize;
+    }
+
+    /**
+     * Generate code for {@link io.micronaut.jsongen.ProjectionDeserializer#deserializeProjection}. Like
+     * {@link #deserialize}, but the generated code stops reading as soon as all properties of the projection have been
+     * read, leaving the decoder inside the object.
+     */
+    public CodeBlock deserializeProjection(GeneratorContext generatorContext, ClassElement type, Setter setter) {
+        DeserGen deserGen = new DeserGen(generatorContext, type);
+        deserGen.returnWhenComplete = true;
+        return deserGen.generate(setter);
+    }
+
+    /**
+     * @return The {@link com.fasterxml.jackson.annotation.JsonView} classes that properties of the given type
+     * (including unwrapped ones) are limited to, in declaration order
+     */
+    public List<ClassElement> getViews(ClassElement type) {
+        Set<String> names = new LinkedHashSet<>();
+        collectViews(type, names, new HashSet<>());
+        List<ClassElement> views = new ArrayList<>();
+        if (typeResolutionContext != null) {
+            for (String name : names) {
+                TypeInfoDefinition.resolve(typeResolutionContext, name).ifPresent(views::add);
+            }
+        }
+        return views;
+    }
+
+    private void collectViews(ClassElement type, Set<String> names, Set<String> visited) {
+        if (!visited.add(type.getName())) {
+            return;
+        }
+        for (boolean ser : new boolean[]{true, false}) {
+            ProblemReporter problemReporter = new ProblemReporter();
+            BeanDefinition definition = introspect(problemReporter, type, ser);
+            if (problemReporter.isFailed()) {
+                // reported by the codegen
+                continue;
+            }
+            for (BeanDefinition.Property prop : definition.props) {
+                names.addAll(prop.views);
+                if (prop.unwrapped) {
+                    collectViews(prop.getType(), names, visited);
+                }
+            }
+        }
+        // nested beans that are serialized inline (also as list elements) are filtered by the view-specific code of
+        // this type. Injected serializers select their own view
+        visitDependencies(new DependencyVisitor() {
+            @Override
+            public boolean visitStructure() {
+                return true;
+            }
+
+            @Override
+            public void visitStructureElement(SerializerSymbol dependencySymbol, ClassElement dependencyType, @Nullable Element element) {
+                if (dependencySymbol instanceof InlineBeanSerializerSymbol) {
+                    collectViews(dependencyType, names, visited);
+                } else {
+                    dependencySymbol.visitDependencies(this, dependencyType);
+                }
+            }
+
+            @Override
+            public void visitInjected(ClassElement dependencyType, boolean provider) {
+            }
+        }, type);
+    }
+
+    /**
+     * @return Whether {@link #deserializeInto} supports the given type, i.e. whether all its properties are set
+     * through setters or fields. Creator parameters and unwrapped properties are not supported.
+     */
+    public boolean supportsDeserializeInto(ClassElement type) {
+        ProblemReporter problemReporter = new ProblemReporter();
+        BeanDefinition definition = introspect(problemReporter, type, false);
+        return !problemReporter.isFailed() &&
+                definition.creatorDelegatingProperty == null &&
+                definition.creatorProps.isEmpty() &&
+                definition.props.stream().noneMatch(prop -> prop.unwrapped);
+    }
+
+    /**
+     * Generate code for {@link io.micronaut.jsongen.UpdatingDeserializer#deserializeInto}, which overwrites the
+     * properties of an existing instance instead of creating a new one.
+     *
+     * @param generatorContext The context of the generator
+     * @param type             The bean type, must be {@link #supportsDeserializeInto supported}
+     * @param targetExpression The instance to update. May be evaluated multiple times.
+     * @param policyExpression The {@link io.micronaut.jsongen.UpdatePolicy}. May be evaluated multiple times.
+     * @return The code that performs the deserialization
+     */
+    public CodeBlock deserializeInto(GeneratorContext generatorContext, ClassElement type, CodeBlock targetExpression, CodeBlock policyExpression) {
+        return new DeserGen(generatorContext, type).generateInto(targetExpression, policyExpression);
+    }
+
+    @Override
+    public CodeBlock deserializeResumable(GeneratorContext generatorContext, ClassElement type, Setter setter) {
+        BeanDefinition definition = introspect(generatorContext.getProblemReporter(), type, false);
+        if (generatorContext.getProblemReporter().isFailed()) {
+            return CodeBlock.of("");
+        }
+        if (definition.creatorDelegatingProperty != null) {
+            // no frame of our own, the delegate does all the work
+            return findSymbol(definition.creatorDelegatingProperty).deserializeResumable(
+                    generatorContext,
+                    definition.creatorDelegatingProperty.getType(),
+                    expr -> setter.createSetStatement(getCreatorCall(type, definition, expr))
+            );
+        }
+
+        FrameGenerator frame = FrameGenerator.create(generatorContext, type.getSimpleName() + "Frame", PoetUtil.toTypeName(type), CodeBlock.of("return false;\n"));
+        CodeBlock onToken = new DeserGen(frame.getContext(), type).generateFrame(frame);
+        return generatorContext.pushChildFrame(frame.finish(onToken), PoetUtil.toTypeName(type), setter);
+    }
+
+    /**
+     * @return Whether the property is part of the active view of the given context. Properties without
+     * {@link com.fasterxml.jackson.annotation.JsonView} are part of all views, like with jackson's default
+     * {@code DEFAULT_VIEW_INCLUSION}.
+     */
+    private static boolean isInView(GeneratorContext generatorContext, BeanDefinition.Property prop) {
+        Set<String> activeViews = generatorContext.getActiveViews();
+        return activeViews == null || prop.views.isEmpty() || prop.views.stream().anyMatch(activeViews::contains);
+    }
+
+    private static CodeBlock getCreatorCall(ClassElement type, BeanDefinition definition, CodeBlock creatorParameters) {
+        if (definition.creator instanceof ConstructorElement) {
+            return CodeBlock.of("new $T($L)", PoetUtil.toTypeName(type), creatorParameters);
+        } else if (definition.creator.isStatic()) {
+            return CodeBlock.of(
+                    "$T.$N($L)",
+                    PoetUtil.toTypeName(definition.creator.getDeclaringType()),
+                    definition.creator.getName(),
+                    creatorParameters
+            );
+        } else {
+            throw new AssertionError("bad creator, should have been detected in BeanIntrospector");
+        }
+    }
+
+    /**
+     * @return A statement that writes {@code value} to the given property of {@code bean} through its setter or field
+     */
+    private static CodeBlock setPropertyStatement(CodeBlock bean, BeanDefinition.Property prop, CodeBlock value) {
+        if (prop.setter != null) {
+            return CodeBlock.of("$L.$N($L);\n", bean, prop.setter.getName(), value);
+        } else if (prop.field != null) {
+            return CodeBlock.of("$L.$N = $L;\n", bean, prop.field.getName(), value);
+        } else {
+            throw new AssertionError("Cannot set property, should have been filtered out during introspection");
+        }
+    }
+
+    /**
+     * @return Whether the type is a list that {@link #deserializeInto} may clear and refill
+     */
+    private static boolean isReusableList(ClassElement type) {
+        return (type.getName().equals("java.util.List") ||
+                type.getName().equals("java.util.ArrayList") ||
+                type.getName().equals("java.util.Collection")) &&
+                type.getTypeArguments().get("E") != null;
+    }
+
     private static String getDefaultValueExpression(ClassElement clazz) {
         if (clazz.isPrimitive() && !clazz.isArray()) {
             if (clazz.equals(PrimitiveElement.VOID)) {
@@ -202,6 +632,10 @@ public class InlineBeanSerializerSymbol implements SerializerSymbol {
         private final BeanDefinition rootDefinition;
         private final Map<BeanDefinition.Property, BeanDefinition> unwrappedDefinitions = new HashMap<>(); // filled in introspectRecursive
         private final List<BeanDefinition.Property> leafProperties = new ArrayList<>(); // filled in introspectRecursive
+        /**
+         * Properties that are not part of the active view. Their values are skipped. Filled in introspectRecursive.
+         */
+        private final Set<BeanDefinition.Property> skippedProperties = new HashSet<>();
         /**
          * Names of the local variables properties are saved in.
          */
@@ -209,6 +643,27 @@ public class InlineBeanSerializerSymbol implements SerializerSymbol {
 
         private final DuplicatePropertyManager duplicatePropertyManager;
 
+        /**
+         * Name of the local variable (or frame field) that collects unknown properties for the
+         * {@link com.fasterxml.jackson.annotation.JsonAnySetter}, or {@code null} if there is none.
+         */
+        @Nullable
+        private final String unknownVariable;
+
+        /**
+         * Name of the type property that is skipped during deserialization, see {@link TypeInfoDefinition}.
+         */
+        @Nullable
+        private final String typeProperty;
+        /**
+         * Whether the decoder may already be past the start of the object, see {@link #deserializeAfterTypeId}.
+         */
+        boolean afterTypeId = false;
+        /**
+         * Whether a projection should stop reading once it is complete, see {@link #deserializeProjection}.
+         */
+        boolean returnWhenComplete = false;
+
         /**
          * Main deser code.
          */
@@ -218,17 +673,30 @@ public class InlineBeanSerializerSymbol implements SerializerSymbol {
             this.generatorContext = generatorContext;
             this.rootType = type;
 
-            rootDefinition = introspectRecursive(type);
+            rootDefinition = introspectRecursive(type, false);
             localVariableNames = leafProperties.stream()
                     .collect(Collectors.toMap(prop -> prop, prop -> generatorContext.newLocalVariable(prop.name)));
-            duplicatePropertyManager = new DuplicatePropertyManager(generatorContext, leafProperties);
+            duplicatePropertyManager = new DuplicatePropertyManager(generatorContext, leafProperties, skippedProperties);
+            unknownVariable = rootDefinition.anyProperty == null ? null : generatorContext.newLocalVariable("unknown");
+
+            TypeInfoDefinition typeInfo = TypeInfoDefinition.find(generatorContext.getProblemReporter(), typeResolutionContext, type);
+            typeProperty = typeInfo != null && typeInfo.include == JsonTypeInfo.As.PROPERTY ? typeInfo.property : null;
+            for (BeanDefinition.Property prop : leafProperties) {
+                if (prop.name.equals(typeProperty) || prop.aliases.contains(typeProperty)) {
+                    generatorContext.getProblemReporter().fail("Property " + prop.name + " conflicts with the type property", prop.getElement());
+                }
+            }
         }
 
-        private BeanDefinition introspectRecursive(ClassElement type) {
+        private BeanDefinition introspectRecursive(ClassElement type, boolean skipped) {
             BeanDefinition def = introspect(generatorContext.getProblemReporter(), type, false);
             for (BeanDefinition.Property prop : def.props) {
+                boolean skippedProp = skipped || !isInView(generatorContext, prop);
+                if (skippedProp) {
+                    skippedProperties.add(prop);
+                }
                 if (prop.unwrapped) {
-                    unwrappedDefinitions.put(prop, introspectRecursive(prop.getType()));
+                    unwrappedDefinitions.put(prop, introspectRecursive(prop.getType(), skippedProp));
                 } else {
                     leafProperties.add(prop);
                 }
@@ -251,8 +719,10 @@ public class InlineBeanSerializerSymbol implements SerializerSymbol {
                 );
             }
 
-            deserialize.add("if ($N.currentToken() != $T.START_OBJECT) throw $T.from($N, \"Unexpected token \" + $N.currentToken() + \", expected START_OBJECT\");\n",
-                    DECODER, JsonToken.class, JsonParseException.class, DECODER, DECODER);
+            if (!afterTypeId) {
+                deserialize.add("if ($N.currentToken() != $T.START_OBJECT) throw $T.from($N, \"Unexpected token \" + $N.currentToken() + \", expected START_OBJECT\");\n",
+                        DECODER, JsonToken.class, JsonParseException.class, DECODER, DECODER);
+            }
 
             duplicatePropertyManager.emitMaskDeclarations(deserialize);
 
@@ -261,13 +731,140 @@ public class InlineBeanSerializerSymbol implements SerializerSymbol {
                 deserialize.addStatement("$T $N = $L", PoetUtil.toTypeName(prop.getType()), localVariableNames.get(prop), getDefaultValueExpression(prop.getType()));
             }
 
-            // main parse loop
-            deserialize.beginControlFlow("while (true)");
+            emitParseLoop(this::deserializeProperty, returnWhenComplete ? label -> CodeBlock.of("break $N;\n", label) : skipRemainingWhenComplete());
+
+            duplicatePropertyManager.emitCheckRequired(deserialize);
+
+            // assemble the result object
+
+            String resultVariable = combineLocalsToResultVariable(rootType, rootDefinition);
+            applyUnknownProperties(CodeBlock.of("$N", resultVariable));
+            deserialize.add(setter.createSetStatement(CodeBlock.of("$N", resultVariable)));
+            return deserialize.build();
+        }
+
+        /**
+         * Variant of {@link #generate} that writes each property into {@code target} as soon as it is read. Absent
+         * properties are reset afterwards if the policy asks for it, and lists that can be read back from the target
+         * are cleared and refilled if the policy allows reuse.
+         */
+        private CodeBlock generateInto(CodeBlock target, CodeBlock policy) {
+            if (generatorContext.getProblemReporter().isFailed()) {
+                return CodeBlock.of("");
+            }
+
+            // reading the current list needs a getter or field, which is only part of the serialization view
+            ProblemReporter readProblemReporter = new ProblemReporter();
+            BeanDefinition readDefinition = introspect(readProblemReporter, rootType, true);
+            Map<BeanDefinition.Property, BeanDefinition.Property> listReaders = new HashMap<>();
+            if (!readProblemReporter.isFailed()) {
+                for (BeanDefinition.Property prop : leafProperties) {
+                    if (!isReusableList(prop.getType())) {
+                        continue;
+                    }
+                    for (BeanDefinition.Property reader : readDefinition.props) {
+                        if (reader.name.equals(prop.name) && !reader.unwrapped && reader.getType().getName().equals(prop.getType().getName())) {
+                            listReaders.put(prop, reader);
+                        }
+                    }
+                }
+            }
+
+            deserialize.add("if ($N.currentToken() != $T.START_OBJECT) throw $T.from($N, \"Unexpected token \" + $N.currentToken() + \", expected START_OBJECT\");\n",
+                    DECODER, JsonToken.class, JsonParseException.class, DECODER, DECODER);
+            duplicatePropertyManager.emitMaskDeclarations(deserialize);
+
+            emitParseLoop(prop -> {
+                duplicatePropertyManager.emitReadVariable(deserialize, prop);
+                GeneratorContext subContext = generatorContext.withSubPath(prop.name);
+                CodeBlock replace = findSymbol(prop).deserialize(subContext, prop.getType(), expr -> setPropertyStatement(target, prop, expr));
+                BeanDefinition.Property reader = listReaders.get(prop);
+                if (reader == null) {
+                    deserialize.add(replace);
+                    return;
+                }
+                ClassElement elementType = PoetUtil.typeArgument(prop.getType(), "E");
+                String existingVariable = generatorContext.newLocalVariable(prop.name);
+                deserialize.addStatement("$T $N = $L", PoetUtil.toTypeName(prop.getType()), existingVariable, getPropertyAccessExpression(target, reader));
+                deserialize.beginControlFlow("if ($L.isReuseLists() && $N != null && $N.currentToken() == $T.START_ARRAY)", policy, existingVariable, DECODER, JsonToken.class);
+                deserialize.addStatement("$N.clear()", existingVariable);
+                deserialize.beginControlFlow("while ($N.nextToken() != $T.END_ARRAY)", DECODER, JsonToken.class);
+                deserialize.add(linker.findSymbol(elementType).deserialize(subContext, elementType, expr -> CodeBlock.of("$N.add($L);\n", existingVariable, expr)));
+                deserialize.endControlFlow();
+                deserialize.nextControlFlow("else");
+                deserialize.add(replace);
+                deserialize.endControlFlow();
+            }, skipRemainingWhenComplete());
+            applyUnknownProperties(target);
+
+            deserialize.beginControlFlow("if ($L.isResetAbsent())", policy);
+            for (BeanDefinition.Property prop : leafProperties) {
+                if (skippedProperties.contains(prop)) {
+                    continue;
+                }
+                deserialize.beginControlFlow("if ($L)", duplicatePropertyManager.isAbsentExpression(prop));
+                CodeBlock reset = setPropertyStatement(target, prop, CodeBlock.of(getDefaultValueExpression(prop.getType())));
+                BeanDefinition.Property reader = listReaders.get(prop);
+                if (reader == null) {
+                    deserialize.add(reset);
+                } else {
+                    String existingVariable = generatorContext.newLocalVariable(prop.name);
+                    deserialize.addStatement("$T $N = $L", PoetUtil.toTypeName(prop.getType()), existingVariable, getPropertyAccessExpression(target, reader));
+                    deserialize.beginControlFlow("if ($L.isReuseLists() && $N != null)", policy, existingVariable);
+                    deserialize.addStatement("$N.clear()", existingVariable);
+                    deserialize.nextControlFlow("else");
+                    deserialize.add(reset);
+                    deserialize.endControlFlow();
+                }
+                deserialize.endControlFlow();
+            }
+            deserialize.endControlFlow();
+            return deserialize.build();
+        }
+
+        /**
+         * For projections, the code that skips the remaining properties once all properties of the projection have been
+         * read, without looking at their names.
+         *
+         * @return The completion code for {@link #emitParseLoop}, or {@code null} if this is not a projection
+         */
+        @Nullable
+        private Function<String, CodeBlock> skipRemainingWhenComplete() {
+            if (!rootDefinition.projection) {
+                return null;
+            }
+            return label -> CodeBlock.builder()
+                    .beginControlFlow("while ($N.nextToken() != $T.END_OBJECT)", DECODER, JsonToken.class)
+                    .addStatement("$N.nextToken()", DECODER)
+                    .addStatement("$N.skipChildren()", DECODER)
+                    .endControlFlow()
+                    .addStatement("break $N", label)
+                    .build();
+        }
+
+        /**
+         * Emit the main parse loop, which reads field names until the end of the object and passes each known
+         * property to {@code propertyHandler}. The decoder is positioned at the value when the handler code runs.
+         *
+         * @param onComplete If not {@code null}, creates code that runs as soon as all properties have been read, given
+         *                   the label of the loop. The code must leave the loop.
+         */
+        private void emitParseLoop(Consumer<BeanDefinition.Property> propertyHandler, @Nullable Function<String, CodeBlock> onComplete) {
+            if (unknownVariable != null) {
+                deserialize.addStatement("$T $N = null", RawProperties.class, unknownVariable);
+            }
+            String loopLabel = null;
+            if (onComplete == null) {
+                deserialize.beginControlFlow("while (true)");
+            } else {
+                loopLabel = generatorContext.newLocalVariable("properties");
+                deserialize.beginControlFlow("$N: while (true)", loopLabel);
+            }
             String tokenVariable = generatorContext.newLocalVariable("token");
             deserialize.addStatement("$T $N = $N.nextToken()", JsonToken.class, tokenVariable, DECODER);
             deserialize.add("if ($N == $T.END_OBJECT) break;\n", tokenVariable, JsonToken.class);
-            deserialize.add("if ($N != $T.FIELD_NAME) throw $T.from($N, \"Unexpected token \" + token + \", expected END_OBJECT or FIELD_NAME\");\n",
-                    tokenVariable, JsonToken.class, JsonParseException.class, DECODER);
+            deserialize.add("if ($N != $T.FIELD_NAME) throw $T.from($N, \"Unexpected token \" + $N + \", expected END_OBJECT or FIELD_NAME\");\n",
+                    tokenVariable, JsonToken.class, JsonParseException.class, DECODER, tokenVariable);
             String fieldNameVariable = generatorContext.newLocalVariable("fieldName");
             deserialize.addStatement("$T $N = $N.getCurrentName()", String.class, fieldNameVariable, DECODER);
             deserialize.addStatement("$N.nextToken()", DECODER);
@@ -278,14 +875,33 @@ public class InlineBeanSerializerSymbol implements SerializerSymbol {
                     deserialize.addStatement("case $S:\n", alias);
                 }
                 deserialize.beginControlFlow("case $S:", prop.name);
-                deserializeProperty(prop);
+                if (skippedProperties.contains(prop)) {
+                    // not part of the active view
+                    deserialize.addStatement("$N.skipChildren()", DECODER);
+                } else {
+                    propertyHandler.accept(prop);
+                    if (onComplete != null) {
+                        deserialize.beginControlFlow("if ($L)", duplicatePropertyManager.allReadExpression(skippedProperties));
+                        deserialize.add(onComplete.apply(loopLabel));
+                        deserialize.endControlFlow();
+                    }
+                }
+                deserialize.addStatement("break");
+                deserialize.endControlFlow();
+            }
+            if (typeProperty != null) {
+                // already handled by the polymorphic deserializer, if any
+                deserialize.beginControlFlow("case $S:", typeProperty);
+                deserialize.addStatement("$N.skipChildren()", DECODER);
                 deserialize.addStatement("break");
                 deserialize.endControlFlow();
             }
 
             // unknown properties
             deserialize.beginControlFlow("default:");
-            if (rootDefinition.ignoreUnknownProperties) {
+            if (unknownVariable != null) {
+                deserialize.add(addUnknownProperty(CodeBlock.of("$N", fieldNameVariable), CodeBlock.of("$T.capture($N)", RawCapture.class, DECODER)));
+            } else if (rootDefinition.ignoreUnknownProperties) {
                 deserialize.addStatement("$N.skipChildren()", DECODER);
             } else {
                 // todo: do we really want to output a potentially attacker-controlled field name to the logs here?
@@ -296,16 +912,181 @@ public class InlineBeanSerializerSymbol implements SerializerSymbol {
 
             deserialize.endControlFlow();
             deserialize.endControlFlow();
+        }
 
-            duplicatePropertyManager.emitCheckRequired(deserialize);
+        /**
+         * Resumable variant of {@link #generate}. The locals become fields of the frame, and the parse loop is
+         * replaced by a state machine: {@code START} expects the start of the object, {@code NAME} a field name or the
+         * end of the object, and {@code VALUE} the value of the property selected by the previous field name.
+         *
+         * @return The code for {@code onToken}
+         */
+        private CodeBlock generateFrame(FrameGenerator frame) {
+            duplicatePropertyManager.declareMaskFields(frame);
+            for (BeanDefinition.Property prop : leafProperties) {
+                frame.addField(PoetUtil.toTypeName(prop.getType()), localVariableNames.get(prop), CodeBlock.of(getDefaultValueExpression(prop.getType())));
+            }
+            String stateVariable = generatorContext.newLocalVariable("state");
+            frame.addField(TypeName.INT, stateVariable, null);
+            String propertyVariable = generatorContext.newLocalVariable("property");
+            frame.addField(TypeName.INT, propertyVariable, null);
+            String unknownNameVariable = null;
+            if (unknownVariable != null) {
+                frame.addField(ClassName.get(RawProperties.class), unknownVariable, null);
+                unknownNameVariable = generatorContext.newLocalVariable("unknownName");
+                frame.addField(ClassName.get(String.class), unknownNameVariable, null);
+            }
+            int stateStart = 0;
+            int stateName = 1;
+            int stateValue = 2;
+            int unknownProperty = -1;
+            int capturedProperty = -2;
 
-            // assemble the result object
+            deserialize.beginControlFlow("switch ($N)", stateVariable);
+
+            deserialize.add("case $L:\n", stateStart).indent();
+            deserialize.add("if ($N.currentToken() != $T.START_OBJECT) throw $T.from($N, \"Unexpected token \" + $N.currentToken() + \", expected START_OBJECT\");\n",
+                    DECODER, JsonToken.class, JsonParseException.class, DECODER, DECODER);
+            deserialize.addStatement("$N = $L", stateVariable, stateName);
+            deserialize.addStatement("return false");
+            deserialize.unindent();
 
+            deserialize.add("case $L:\n", stateName).indent();
+            String tokenVariable = generatorContext.newLocalVariable("token");
+            deserialize.addStatement("$T $N = $N.currentToken()", JsonToken.class, tokenVariable, DECODER);
+            deserialize.beginControlFlow("if ($N == $T.END_OBJECT)", tokenVariable, JsonToken.class);
+            duplicatePropertyManager.emitCheckRequired(deserialize);
             String resultVariable = combineLocalsToResultVariable(rootType, rootDefinition);
-            deserialize.add(setter.createSetStatement(CodeBlock.of("$N", resultVariable)));
+            applyUnknownProperties(CodeBlock.of("$N", resultVariable));
+            deserialize.addStatement("this.$N = $N", frame.getResultField(), resultVariable);
+            deserialize.addStatement("return true");
+            deserialize.endControlFlow();
+            deserialize.add("if ($N != $T.FIELD_NAME) throw $T.from($N, \"Unexpected token \" + $N + \", expected END_OBJECT or FIELD_NAME\");\n",
+                    tokenVariable, JsonToken.class, JsonParseException.class, DECODER, tokenVariable);
+            String fieldNameVariable = generatorContext.newLocalVariable("fieldName");
+            deserialize.addStatement("$T $N = $N.getCurrentName()", String.class, fieldNameVariable, DECODER);
+            // without any known property, every name is rejected, and the statements after the switch are unreachable
+            boolean rejectsAllNames = leafProperties.isEmpty() && typeProperty == null && unknownVariable == null && !rootDefinition.ignoreUnknownProperties;
+            if (rejectsAllNames) {
+                deserialize.addStatement("throw $T.from($N, $S + $N)",
+                        JsonParseException.class, DECODER, "Unknown property for type " + rootType.getName() + ": ", fieldNameVariable);
+                deserialize.unindent();
+            } else {
+                deserialize.beginControlFlow("switch ($N)", fieldNameVariable);
+                for (int i = 0; i < leafProperties.size(); i++) {
+                    BeanDefinition.Property prop = leafProperties.get(i);
+                    for (String alias : prop.aliases) {
+                        deserialize.add("case $S:\n", alias);
+                    }
+                    deserialize.add("case $S:\n", prop.name).indent();
+                    deserialize.addStatement("$N = $L", propertyVariable, skippedProperties.contains(prop) ? unknownProperty : i);
+                    deserialize.addStatement("break");
+                    deserialize.unindent();
+                }
+                if (typeProperty != null) {
+                    deserialize.add("case $S:\n", typeProperty).indent();
+                    deserialize.addStatement("$N = $L", propertyVariable, unknownProperty);
+                    deserialize.addStatement("break");
+                    deserialize.unindent();
+                }
+                deserialize.add("default:\n").indent();
+                if (unknownVariable != null) {
+                    deserialize.addStatement("$N = $N", unknownNameVariable, fieldNameVariable);
+                    deserialize.addStatement("$N = $L", propertyVariable, capturedProperty);
+                    deserialize.addStatement("break");
+                } else if (rootDefinition.ignoreUnknownProperties) {
+                    deserialize.addStatement("$N = $L", propertyVariable, unknownProperty);
+                    deserialize.addStatement("break");
+                } else {
+                    deserialize.addStatement("throw $T.from($N, $S + $N)",
+                            JsonParseException.class, DECODER, "Unknown property for type " + rootType.getName() + ": ", fieldNameVariable);
+                }
+                deserialize.unindent();
+                deserialize.endControlFlow();
+                deserialize.addStatement("$N = $L", stateVariable, stateValue);
+                deserialize.addStatement("return false");
+                deserialize.unindent();
+            }
+
+            deserialize.add("case $L:\n", stateValue).indent();
+            // the value may continue in a child frame, the next token we see is the next field name
+            deserialize.addStatement("$N = $L", stateVariable, stateName);
+            deserialize.beginControlFlow("switch ($N)", propertyVariable);
+            for (int i = 0; i < leafProperties.size(); i++) {
+                BeanDefinition.Property prop = leafProperties.get(i);
+                deserialize.beginControlFlow("case $L:", i);
+                duplicatePropertyManager.emitReadVariable(deserialize, prop);
+                deserialize.add(findSymbol(prop).deserializeResumable(
+                        generatorContext.withSubPath(prop.name),
+                        prop.getType(),
+                        expr -> CodeBlock.of("$N = $L;\n", localVariableNames.get(prop), expr)
+                ));
+                deserialize.addStatement("break");
+                deserialize.endControlFlow();
+            }
+            if (unknownVariable != null) {
+                String nameVariable = unknownNameVariable;
+                deserialize.beginControlFlow("case $L:", capturedProperty);
+                deserialize.add(generatorContext.pushChildFrame(
+                        CodeBlock.of("$T.newFrame()", RawCapture.class),
+                        ArrayTypeName.of(TypeName.BYTE),
+                        expr -> addUnknownProperty(CodeBlock.of("$N", nameVariable), expr)
+                ));
+                deserialize.addStatement("break");
+                deserialize.endControlFlow();
+            }
+            deserialize.add("default:\n").indent();
+            // unknown property
+            deserialize.beginControlFlow("if ($N.currentToken().isStructStart())", DECODER);
+            deserialize.add(generatorContext.pushChildFrame(CodeBlock.of("$T.skip()", DeserializationFrame.class), TypeName.OBJECT, expr -> CodeBlock.of("")));
+            deserialize.endControlFlow();
+            deserialize.addStatement("break");
+            deserialize.unindent();
+            deserialize.endControlFlow();
+            deserialize.addStatement("return false");
+            deserialize.unindent();
+
+            deserialize.add("default:\n").indent();
+            deserialize.addStatement("throw new $T()", AssertionError.class);
+            deserialize.unindent();
+
+            deserialize.endControlFlow();
             return deserialize.build();
         }
 
+        /**
+         * @return Code that adds an unknown property to {@link #unknownVariable}
+         */
+        private CodeBlock addUnknownProperty(CodeBlock name, CodeBlock utf8) {
+            return CodeBlock.builder()
+                    .beginControlFlow("if ($N == null)", unknownVariable)
+                    .addStatement("$N = new $T()", unknownVariable, RawProperties.class)
+                    .endControlFlow()
+                    .addStatement("$N.addRaw($L, $L)", unknownVariable, name, utf8)
+                    .build();
+        }
+
+        /**
+         * Pass the collected unknown properties to the {@link com.fasterxml.jackson.annotation.JsonAnySetter} of the
+         * given bean, if there is one.
+         */
+        private void applyUnknownProperties(CodeBlock bean) {
+            if (unknownVariable == null) {
+                return;
+            }
+            Element anySetter = rootDefinition.anyProperty;
+            deserialize.beginControlFlow("if ($N != null)", unknownVariable);
+            if (anySetter instanceof FieldElement) {
+                deserialize.addStatement("$L.$N = $N", bean, anySetter.getName(), unknownVariable);
+            } else {
+                String indexVariable = generatorContext.newLocalVariable("i");
+                deserialize.beginControlFlow("for (int $N = 0; $N < $N.size(); $N++)", indexVariable, indexVariable, unknownVariable, indexVariable);
+                deserialize.addStatement("$L.$N($N.getName($N), $N.getValue($N))", bean, anySetter.getName(), unknownVariable, indexVariable, unknownVariable, indexVariable);
+                deserialize.endControlFlow();
+            }
+            deserialize.endControlFlow();
+        }
+
         private void deserializeProperty(BeanDefinition.Property prop) {
             duplicatePropertyManager.emitReadVariable(deserialize, prop);
 
@@ -341,34 +1122,13 @@ public class InlineBeanSerializerSymbol implements SerializerSymbol {
 
             deserialize.addStatement("$T $N = $L", PoetUtil.toTypeName(type), resultVariable, getCreatorCall(type, definition, creatorParameters.build()));
             for (BeanDefinition.Property prop : definition.props) {
-                String localVariable = allPropertyLocals.get(prop);
-                if (prop.setter != null) {
-                    deserialize.addStatement("$N.$N($N)", resultVariable, prop.setter.getName(), localVariable);
-                } else if (prop.field != null) {
-                    deserialize.addStatement("$N.$N = $N", resultVariable, prop.field.getName(), localVariable);
-                } else {
-                    if (prop.creatorParameter == null) {
-                        throw new AssertionError("Cannot set property, should have been filtered out during introspection");
-                    }
+                if (prop.creatorParameter == null && !skippedProperties.contains(prop)) {
+                    deserialize.add(setPropertyStatement(CodeBlock.of("$N", resultVariable), prop, CodeBlock.of("$N", allPropertyLocals.get(prop))));
                 }
             }
             return resultVariable;
         }
 
-        private CodeBlock getCreatorCall(ClassElement type, BeanDefinition definition, CodeBlock creatorParameters) {
-            if (definition.creator instanceof ConstructorElement) {
-                return CodeBlock.of("new $T($L)", PoetUtil.toTypeName(type), creatorParameters);
-            } else if (definition.creator.isStatic()) {
-                return CodeBlock.of(
-                        "$T.$N($L)",
-                        PoetUtil.toTypeName(definition.creator.getDeclaringType()),
-                        definition.creator.getName(),
-                        creatorParameters
-                );
-            } else {
-                throw new AssertionError("bad creator, should have been detected in BeanIntrospector");
-            }
-        }
     }
 
     /**
@@ -386,7 +1146,8 @@ public class InlineBeanSerializerSymbol implements SerializerSymbol {
 
         DuplicatePropertyManager(
                 GeneratorContext context,
-                Collection<BeanDefinition.Property> properties
+                Collection<BeanDefinition.Property> properties,
+                Set<BeanDefinition.Property> skippedProperties
         ) {
             requiredMask = new BitSet(properties.size());
             this.properties = properties;
@@ -396,7 +1157,7 @@ public class InlineBeanSerializerSymbol implements SerializerSymbol {
             for (BeanDefinition.Property property : properties) {
                 offsets.put(property, offset);
                 // todo: only require when required=true is set
-                if (property.creatorParameter != null) {
+                if (property.creatorParameter != null && !skippedProperties.contains(property)) {
                     requiredMask.set(offset);
                 }
 
@@ -410,6 +1171,12 @@ public class InlineBeanSerializerSymbol implements SerializerSymbol {
             }
         }
 
+        void declareMaskFields(FrameGenerator frame) {
+            for (String maskVariable : maskVariables) {
+                frame.addField(TypeName.LONG, maskVariable, null);
+            }
+        }
+
         void emitMaskDeclarations(CodeBlock.Builder output) {
             for (String maskVariable : maskVariables) {
                 output.addStatement("long $N = 0", maskVariable);
@@ -431,6 +1198,34 @@ public class InlineBeanSerializerSymbol implements SerializerSymbol {
             output.addStatement("$N |= $L", maskVariable, mask);
         }
 
+        /**
+         * @return An expression that is {@code true} if all properties except the given ones have been read
+         */
+        CodeBlock allReadExpression(Set<BeanDefinition.Property> except) {
+            long[] expected = new long[maskVariables.size()];
+            offsets.forEach((prop, offset) -> {
+                if (!except.contains(prop)) {
+                    expected[offset / 64] |= 1L << offset;
+                }
+            });
+            CodeBlock.Builder builder = CodeBlock.builder();
+            for (int i = 0; i < expected.length; i++) {
+                if (i != 0) {
+                    builder.add(" && ");
+                }
+                builder.add("$N == $L", maskVariables.get(i), toHexLiteral(expected[i]));
+            }
+            return builder.build();
+        }
+
+        /**
+         * @return An expression that is {@code true} if the given property has not been read
+         */
+        CodeBlock isAbsentExpression(BeanDefinition.Property prop) {
+            int offset = offsets.get(prop);
+            return CodeBlock.of("($N & $L) == 0", maskVariable(offset), mask(offset));
+        }
+
         private String maskVariable(int offset) {
             return maskVariables.get(offset / 64);
         }
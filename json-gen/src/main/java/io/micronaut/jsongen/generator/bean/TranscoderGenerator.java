@@ -0,0 +1,204 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen.generator.bean;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
+import io.micronaut.core.annotation.AnnotationClassValue;
+import io.micronaut.core.annotation.AnnotationValue;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.inject.ast.ClassElement;
+import io.micronaut.inject.visitor.VisitorContext;
+import io.micronaut.jsongen.JsonParseException;
+import io.micronaut.jsongen.RawCapture;
+import io.micronaut.jsongen.Transcoder;
+import io.micronaut.jsongen.TranscodingFilter;
+import io.micronaut.jsongen.generator.PoetUtil;
+import io.micronaut.jsongen.generator.ProblemReporter;
+import io.micronaut.jsongen.generator.TypeInfoDefinition;
+import jakarta.inject.Singleton;
+
+import javax.lang.model.element.Modifier;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static io.micronaut.jsongen.generator.Names.DECODER;
+import static io.micronaut.jsongen.generator.Names.ENCODER;
+
+/**
+ * Generates the {@link Transcoder} for a type annotated with {@link TranscodingFilter}. The generated code has the
+ * same parse loop as a deserializer of the model, but each property value is copied to the encoder with
+ * {@link RawCapture#copy} or skipped, instead of being bound.
+ */
+public final class TranscoderGenerator {
+    private TranscoderGenerator() {
+    }
+
+    /**
+     * @param problemReporter       Reporter for problems with the filter or its model
+     * @param typeResolutionContext Context used to resolve the model
+     * @param filterType            The type annotated with {@link TranscodingFilter}
+     * @return The generated transcoder, or {@code null} if there were problems
+     */
+    @Nullable
+    public static JavaFile generate(ProblemReporter problemReporter, VisitorContext typeResolutionContext, ClassElement filterType) {
+        AnnotationValue<TranscodingFilter> filter = filterType.getAnnotation(TranscodingFilter.class);
+        if (filter == null) {
+            return null;
+        }
+        ClassElement model = filter.annotationClassValue("model")
+                .map(AnnotationClassValue::getName)
+                .flatMap(typeResolutionContext::getClassElement)
+                .orElse(null);
+        if (model == null) {
+            problemReporter.fail("Cannot resolve the model of this transcoding filter", filterType);
+            return null;
+        }
+        BeanDefinition definition = BeanIntrospector.introspect(problemReporter, model, Collections.emptyList(), false);
+        if (problemReporter.isFailed()) {
+            return null;
+        }
+        if (definition.creatorDelegatingProperty != null) {
+            problemReporter.fail("Transcoding filters do not support models with a delegating creator", filterType);
+            return null;
+        }
+
+        // all names a property can appear under in the input, by canonical name
+        Map<String, Set<String>> inputNames = new LinkedHashMap<>();
+        collectInputNames(problemReporter, definition, inputNames);
+
+        Set<String> excluded = new HashSet<>(Arrays.asList(filter.stringValues("exclude")));
+        for (String name : excluded) {
+            if (!inputNames.containsKey(name)) {
+                problemReporter.fail("Excluded property " + name + " is not a property of " + model.getName(), filterType);
+            }
+        }
+        Map<String, String> outputNames = new HashMap<>();
+        for (AnnotationValue<TranscodingFilter.Rename> rename : filter.getAnnotations("rename", TranscodingFilter.Rename.class)) {
+            String from = rename.stringValue("from").orElse("");
+            String to = rename.stringValue("to").orElse("");
+            if (!inputNames.containsKey(from)) {
+                problemReporter.fail("Renamed property " + from + " is not a property of " + model.getName(), filterType);
+            } else if (excluded.contains(from)) {
+                problemReporter.fail("Property " + from + " is both excluded and renamed", filterType);
+            } else if (outputNames.put(from, to) != null) {
+                problemReporter.fail("Property " + from + " is renamed more than once", filterType);
+            }
+        }
+        Set<String> written = new HashSet<>();
+        for (String name : inputNames.keySet()) {
+            if (!excluded.contains(name) && !written.add(outputNames.getOrDefault(name, name))) {
+                problemReporter.fail("Multiple properties are written as " + outputNames.getOrDefault(name, name), filterType);
+            }
+        }
+        if (problemReporter.isFailed()) {
+            return null;
+        }
+
+        CodeBlock.Builder transcode = CodeBlock.builder();
+        transcode.add("if ($N.currentToken() != $T.START_OBJECT) throw $T.from($N, \"Unexpected token \" + $N.currentToken() + \", expected START_OBJECT\");\n",
+                DECODER, JsonToken.class, JsonParseException.class, DECODER, DECODER);
+        transcode.addStatement("$N.writeStartObject()", ENCODER);
+        transcode.beginControlFlow("while (true)");
+        transcode.addStatement("$T token = $N.nextToken()", JsonToken.class, DECODER);
+        transcode.add("if (token == $T.END_OBJECT) break;\n", JsonToken.class);
+        transcode.add("if (token != $T.FIELD_NAME) throw $T.from($N, \"Unexpected token \" + token + \", expected END_OBJECT or FIELD_NAME\");\n",
+                JsonToken.class, JsonParseException.class, DECODER);
+        transcode.addStatement("$T fieldName = $N.getCurrentName()", String.class, DECODER);
+        transcode.addStatement("$N.nextToken()", DECODER);
+        transcode.beginControlFlow("switch (fieldName)");
+        for (Map.Entry<String, Set<String>> entry : inputNames.entrySet()) {
+            for (String alias : entry.getValue()) {
+                transcode.add("case $S:\n", alias);
+            }
+            transcode.beginControlFlow("case $S:", entry.getKey());
+            if (excluded.contains(entry.getKey())) {
+                transcode.addStatement("$N.skipChildren()", DECODER);
+            } else {
+                // aliases are written under the canonical name, like a round trip through the model would
+                transcode.addStatement("$N.writeFieldName($S)", ENCODER, outputNames.getOrDefault(entry.getKey(), entry.getKey()));
+                transcode.addStatement("$T.copy($N, $N)", RawCapture.class, DECODER, ENCODER);
+            }
+            transcode.addStatement("break");
+            transcode.endControlFlow();
+        }
+        TypeInfoDefinition typeInfo = TypeInfoDefinition.find(problemReporter, typeResolutionContext, model);
+        if (typeInfo != null && typeInfo.include == JsonTypeInfo.As.PROPERTY && !inputNames.containsKey(typeInfo.property)) {
+            transcode.beginControlFlow("case $S:", typeInfo.property);
+            transcode.addStatement("$N.writeFieldName(fieldName)", ENCODER);
+            transcode.addStatement("$T.copy($N, $N)", RawCapture.class, DECODER, ENCODER);
+            transcode.addStatement("break");
+            transcode.endControlFlow();
+        }
+        transcode.beginControlFlow("default:");
+        if (definition.anyProperty != null) {
+            transcode.addStatement("$N.writeFieldName(fieldName)", ENCODER);
+            transcode.addStatement("$T.copy($N, $N)", RawCapture.class, DECODER, ENCODER);
+        } else if (definition.ignoreUnknownProperties) {
+            transcode.addStatement("$N.skipChildren()", DECODER);
+        } else {
+            transcode.addStatement("throw $T.from($N, $S + fieldName)",
+                    JsonParseException.class, DECODER, "Unknown property for type " + model.getName() + ": ");
+        }
+        transcode.endControlFlow();
+        transcode.endControlFlow();
+        transcode.endControlFlow();
+        transcode.addStatement("$N.writeEndObject()", ENCODER);
+
+        TypeSpec.Builder transcoder = TypeSpec.classBuilder(filterType.getSimpleName() + "$Transcoder")
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addAnnotation(Singleton.class)
+                .addSuperinterface(Transcoder.class)
+                .addMethod(MethodSpec.methodBuilder("transcode")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .addParameter(JsonParser.class, DECODER)
+                        .addParameter(JsonGenerator.class, ENCODER)
+                        .addException(IOException.class)
+                        .addCode(transcode.build())
+                        .build());
+        if (filterType.isInterface()) {
+            transcoder.addSuperinterface(PoetUtil.toTypeName(filterType));
+        }
+        return JavaFile.builder(filterType.getPackageName(), transcoder.build()).build();
+    }
+
+    /**
+     * Collect the input names of all properties of the definition, including the properties of unwrapped beans.
+     */
+    private static void collectInputNames(ProblemReporter problemReporter, BeanDefinition definition, Map<String, Set<String>> inputNames) {
+        for (BeanDefinition.Property prop : definition.props) {
+            if (prop.unwrapped) {
+                collectInputNames(problemReporter, BeanIntrospector.introspect(problemReporter, prop.getType(), Collections.emptyList(), false), inputNames);
+            } else {
+                inputNames.put(prop.name, prop.aliases);
+            }
+        }
+    }
+}
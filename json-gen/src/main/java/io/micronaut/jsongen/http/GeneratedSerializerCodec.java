@@ -0,0 +1,244 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen.http;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import io.micronaut.context.BeanContext;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.io.buffer.ByteBuffer;
+import io.micronaut.core.io.buffer.ByteBufferFactory;
+import io.micronaut.core.io.buffer.ReferenceCounted;
+import io.micronaut.core.order.OrderUtil;
+import io.micronaut.core.type.Argument;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.codec.CodecException;
+import io.micronaut.http.codec.MediaTypeCodec;
+import io.micronaut.jsongen.Serializer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JSON {@link MediaTypeCodec} that uses the generated {@link Serializer} beans. Netty buffers are parsed in place
+ * (heap buffers) or through a {@link ByteBufInputStream} (direct buffers), and output is written straight into
+ * buffers from the given {@link ByteBufferFactory}, without a {@code byte[]} of the whole body in between.
+ * <p>
+ * Types without a generated serializer are passed on to the next JSON codec, usually the jackson-databind one. The
+ * {@link GeneratedSerializerCodecRegistrar} makes the codec registry select this codec over that one. Disable it with
+ * {@code micronaut.jsongen.codec.enabled=false}.
+ * <p>
+ * The encode methods only get the value, so the serializer is looked up by its runtime class. Values of generic
+ * classes go to the fallback codec, because their type arguments are unknown.
+ */
+@Singleton
+@Requires(classes = {MediaTypeCodec.class, ByteBuf.class})
+@Requires(property = GeneratedSerializerCodec.ENABLED_PROPERTY, notEquals = "false")
+public final class GeneratedSerializerCodec implements MediaTypeCodec {
+    public static final String ENABLED_PROPERTY = "micronaut.jsongen.codec.enabled";
+
+    private final BeanContext beanContext;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final Map<String, Optional<Serializer<?>>> serializers = new ConcurrentHashMap<>();
+
+    private volatile MediaTypeCodec fallback;
+
+    @Inject
+    public GeneratedSerializerCodec(BeanContext beanContext) {
+        this.beanContext = beanContext;
+    }
+
+    @Override
+    public Collection<MediaType> getMediaTypes() {
+        return Collections.singletonList(MediaType.APPLICATION_JSON_TYPE);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Serializer<T> findSerializer(Argument<T> type) {
+        return (Serializer<T>) serializers.computeIfAbsent(type.getTypeString(false), k -> {
+            Argument<Serializer<?>> serializerType = (Argument) Argument.of(Serializer.class, type);
+            return beanContext.findBean(serializerType).map(s -> (Serializer<?>) s);
+        }).orElse(null);
+    }
+
+    /**
+     * @return The serializer for the runtime class of the value, or {@code null} if there is none or the class is
+     * generic
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Serializer<T> findSerializer(T value) {
+        Class<T> type = (Class<T>) value.getClass();
+        if (type.getTypeParameters().length != 0) {
+            // a raw lookup would ignore the type arguments
+            return null;
+        }
+        return findSerializer(Argument.of(type));
+    }
+
+    /**
+     * The JSON codec to use for types without a generated serializer. Looked up lazily, because it is a bean of the
+     * same type as this one.
+     */
+    private MediaTypeCodec fallback() {
+        MediaTypeCodec fallback = this.fallback;
+        if (fallback == null) {
+            List<MediaTypeCodec> candidates = new ArrayList<>();
+            for (MediaTypeCodec codec : beanContext.getBeansOfType(MediaTypeCodec.class)) {
+                if (!(codec instanceof GeneratedSerializerCodec) && codec.getMediaTypes().contains(MediaType.APPLICATION_JSON_TYPE)) {
+                    candidates.add(codec);
+                }
+            }
+            if (candidates.isEmpty()) {
+                throw new CodecException("No generated serializer and no fallback JSON codec available");
+            }
+            OrderUtil.sort(candidates);
+            fallback = candidates.get(0);
+            this.fallback = fallback;
+        }
+        return fallback;
+    }
+
+    @Override
+    public <T> T decode(Argument<T> type, InputStream inputStream) throws CodecException {
+        Serializer<T> serializer = findSerializer(type);
+        if (serializer == null) {
+            return fallback().decode(type, inputStream);
+        }
+        try (JsonParser parser = jsonFactory.createParser(inputStream)) {
+            return deserialize(serializer, parser);
+        } catch (IOException e) {
+            throw decodeException(type, e);
+        }
+    }
+
+    @Override
+    public <T> T decode(Argument<T> type, ByteBuffer<?> buffer) throws CodecException {
+        Object nativeBuffer = buffer.asNativeBuffer();
+        if (!(nativeBuffer instanceof ByteBuf)) {
+            return MediaTypeCodec.super.decode(type, buffer);
+        }
+        Serializer<T> serializer = findSerializer(type);
+        if (serializer == null) {
+            return fallback().decode(type, buffer);
+        }
+        ByteBuf byteBuf = (ByteBuf) nativeBuffer;
+        try {
+            if (byteBuf.hasArray()) {
+                // parse the backing array in place
+                int readable = byteBuf.readableBytes();
+                T value;
+                try (JsonParser parser = jsonFactory.createParser(byteBuf.array(), byteBuf.arrayOffset() + byteBuf.readerIndex(), readable)) {
+                    value = deserialize(serializer, parser);
+                }
+                byteBuf.skipBytes(readable);
+                return value;
+            } else {
+                try (JsonParser parser = jsonFactory.createParser((InputStream) new ByteBufInputStream(byteBuf))) {
+                    return deserialize(serializer, parser);
+                }
+            }
+        } catch (IOException e) {
+            throw decodeException(type, e);
+        }
+    }
+
+    @Override
+    public <T> T decode(Argument<T> type, byte[] bytes) throws CodecException {
+        Serializer<T> serializer = findSerializer(type);
+        if (serializer == null) {
+            return fallback().decode(type, bytes);
+        }
+        try (JsonParser parser = jsonFactory.createParser(bytes)) {
+            return deserialize(serializer, parser);
+        } catch (IOException e) {
+            throw decodeException(type, e);
+        }
+    }
+
+    private static <T> T deserialize(Serializer<T> serializer, JsonParser parser) throws IOException {
+        parser.nextToken();
+        return serializer.deserialize(parser);
+    }
+
+    private static CodecException decodeException(Argument<?> type, IOException e) {
+        return new CodecException("Error decoding JSON stream for type [" + type.getName() + "]: " + e.getMessage(), e);
+    }
+
+    @Override
+    public <T> void encode(T object, OutputStream outputStream) throws CodecException {
+        Serializer<T> serializer = findSerializer(object);
+        if (serializer == null) {
+            fallback().encode(object, outputStream);
+            return;
+        }
+        serialize(serializer, object, outputStream);
+    }
+
+    private <T> void serialize(Serializer<T> serializer, T object, OutputStream outputStream) throws CodecException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(outputStream)) {
+            serializer.serialize(generator, object);
+        } catch (IOException e) {
+            throw new CodecException("Error encoding object [" + object + "] to JSON: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public <T> byte[] encode(T object) throws CodecException {
+        Serializer<T> serializer = findSerializer(object);
+        if (serializer == null) {
+            return fallback().encode(object);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serialize(serializer, object, out);
+        return out.toByteArray();
+    }
+
+    @Override
+    public <T, B> ByteBuffer<B> encode(T object, ByteBufferFactory<?, B> allocator) throws CodecException {
+        Serializer<T> serializer = findSerializer(object);
+        if (serializer == null) {
+            return fallback().encode(object, allocator);
+        }
+        ByteBuffer<B> buffer = allocator.buffer();
+        boolean success = false;
+        try (OutputStream out = buffer.toOutputStream()) {
+            // writes go from the generator buffer into the (usually pooled) target buffer directly
+            serialize(serializer, object, out);
+            success = true;
+        } catch (IOException e) {
+            throw new CodecException("Error encoding object [" + object + "] to JSON: " + e.getMessage(), e);
+        } finally {
+            if (!success && buffer instanceof ReferenceCounted) {
+                ((ReferenceCounted) buffer).release();
+            }
+        }
+        return buffer;
+    }
+}
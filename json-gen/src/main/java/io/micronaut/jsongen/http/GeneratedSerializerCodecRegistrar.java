@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017-2021 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.jsongen.http;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+import io.micronaut.http.codec.MediaTypeCodec;
+import io.micronaut.http.codec.MediaTypeCodecRegistry;
+import jakarta.inject.Singleton;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Makes the {@link MediaTypeCodecRegistry} pick the {@link GeneratedSerializerCodec} for JSON. The registry does not
+ * look at {@link io.micronaut.core.order.Ordered}: when two codecs support the same media type, the one that comes
+ * last in {@link MediaTypeCodecRegistry#getCodecs()} wins. This moves the generated codec to the end.
+ */
+@Singleton
+@Requires(beans = GeneratedSerializerCodec.class)
+final class GeneratedSerializerCodecRegistrar implements BeanCreatedEventListener<MediaTypeCodecRegistry> {
+    @Override
+    public MediaTypeCodecRegistry onCreated(BeanCreatedEvent<MediaTypeCodecRegistry> event) {
+        MediaTypeCodecRegistry registry = event.getBean();
+        List<MediaTypeCodec> codecs = new ArrayList<>(registry.getCodecs());
+        List<MediaTypeCodec> generated = new ArrayList<>();
+        codecs.removeIf(codec -> codec instanceof GeneratedSerializerCodec && generated.add(codec));
+        if (generated.isEmpty()) {
+            return registry;
+        }
+        codecs.addAll(generated);
+        return MediaTypeCodecRegistry.of(codecs);
+    }
+}
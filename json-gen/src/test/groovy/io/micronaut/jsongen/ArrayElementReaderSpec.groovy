@@ -0,0 +1,93 @@
+package io.micronaut.jsongen
+
+import com.fasterxml.jackson.core.JsonGenerator
+import com.fasterxml.jackson.core.JsonParser
+import com.fasterxml.jackson.core.JsonToken
+import spock.lang.Specification
+
+class ArrayElementReaderSpec extends Specification implements SerializerUtils {
+    static final Serializer<List<String>> PAIR_SERIALIZER = new Serializer<List<String>>() {
+        @Override
+        List<String> deserialize(JsonParser decoder) throws IOException {
+            if (decoder.currentToken() != JsonToken.START_ARRAY) {
+                throw JsonParseException.from(decoder, "Expected array")
+            }
+            def result = []
+            while (decoder.nextToken() != JsonToken.END_ARRAY) {
+                result.add(decoder.text)
+            }
+            return result
+        }
+
+        @Override
+        void serialize(JsonGenerator encoder, List<String> value) throws IOException {
+            throw new UnsupportedOperationException()
+        }
+    }
+
+    private static JsonParser parserAtFirstToken(String json) {
+        def parser = JSON_FACTORY.createParser(json)
+        parser.nextToken()
+        return parser
+    }
+
+    def "iterate"() {
+        given:
+        def parser = parserAtFirstToken('[["a", "b"], [], ["c"]] "after"')
+        def reader = ArrayElementReader.create(PAIR_SERIALIZER, parser)
+
+        expect:
+        reader.hasNext()
+        reader.next() == ['a', 'b']
+        reader.next() == []
+        reader.hasNext()
+        reader.next() == ['c']
+        !reader.hasNext()
+        !reader.hasNext()
+        parser.currentToken() == JsonToken.END_ARRAY
+        parser.nextToken() == JsonToken.VALUE_STRING
+    }
+
+    def "stream"() {
+        given:
+        def parser = parserAtFirstToken('[["a"], ["b", "c"], []]')
+
+        expect:
+        ArrayElementReader.create(PAIR_SERIALIZER, parser).stream()
+                .map { it.size() }
+                .collect(java.util.stream.Collectors.toList()) == [1, 2, 0]
+    }
+
+    def "not an array"() {
+        when:
+        ArrayElementReader.create(PAIR_SERIALIZER, parserAtFirstToken('{}'))
+
+        then:
+        thrown JsonParseException
+    }
+
+    def "errors are unchecked"() {
+        given:
+        def reader = ArrayElementReader.create(PAIR_SERIALIZER, parserAtFirstToken('[["a"], "b"]'))
+        reader.next()
+
+        when:
+        reader.next()
+
+        then:
+        def e = thrown UncheckedIOException
+        e.cause instanceof JsonParseException
+    }
+
+    def "truncated input"() {
+        given:
+        def reader = ArrayElementReader.create(PAIR_SERIALIZER, parserAtFirstToken('[["a"]'))
+        reader.next()
+
+        when:
+        reader.hasNext()
+
+        then:
+        thrown UncheckedIOException
+    }
+}
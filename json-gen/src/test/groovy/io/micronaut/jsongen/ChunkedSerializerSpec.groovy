@@ -0,0 +1,281 @@
+package io.micronaut.jsongen
+
+import com.fasterxml.jackson.core.JsonGenerator
+import com.fasterxml.jackson.core.JsonParser
+import io.reactivex.Flowable
+import io.reactivex.subscribers.TestSubscriber
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+
+class ChunkedSerializerSpec extends Specification implements SerializerUtils {
+    /**
+     * Blocking-only serializer for lists of strings.
+     */
+    static final Serializer<List<String>> LIST_SERIALIZER = new Serializer<List<String>>() {
+        @Override
+        List<String> deserialize(JsonParser decoder) throws IOException {
+            throw new UnsupportedOperationException()
+        }
+
+        @Override
+        void serialize(JsonGenerator encoder, List<String> value) throws IOException {
+            encoder.writeStartArray()
+            for (String s : value) {
+                encoder.writeString(s)
+            }
+            encoder.writeEndArray()
+        }
+    }
+
+    /**
+     * Writes the list in a child frame, so that the root frame is still on the stack when the list ends.
+     */
+    static final Serializer<List<String>> NESTED_SERIALIZER = new NestedSerializer()
+
+    static class NestedSerializer implements Serializer<List<String>>, ResumableSerializer<List<String>> {
+        @Override
+        List<String> deserialize(JsonParser decoder) throws IOException {
+            throw new UnsupportedOperationException()
+        }
+
+        @Override
+        void serialize(JsonGenerator encoder, List<String> value) throws IOException {
+            LIST_SERIALIZER.serialize(encoder, value)
+        }
+
+        @Override
+        SerializationFrame newSerializationFrame(List<String> value) {
+            return new SerializationFrame() {
+                boolean pushed
+
+                @Override
+                boolean writeNext(JsonGenerator encoder, ChunkedSerializer serializer) throws IOException {
+                    if (pushed) {
+                        return true
+                    }
+                    pushed = true
+                    serializer.push(forSerializer(LIST_SERIALIZER, value))
+                    return false
+                }
+            }
+        }
+    }
+
+    def "chunks have a fixed size"() {
+        given:
+        def chunked = ChunkedSerializer.create(JSON_FACTORY, LIST_SERIALIZER, ['foo', 'bar', 'baz'], 4)
+        def chunks = []
+        ByteBuffer chunk
+        while ((chunk = chunked.nextChunk()) != null) {
+            chunks.add(StandardCharsets.UTF_8.decode(chunk).toString())
+        }
+
+        expect:
+        chunks == ['["fo', 'o","', 'bar"', ',"ba', 'z"]']
+        chunked.complete
+    }
+
+    def "complete after the last chunk when the output ends at a chunk boundary: #chunkSize"() {
+        given:
+        // 20 bytes
+        def chunked = ChunkedSerializer.create(JSON_FACTORY, NESTED_SERIALIZER, ['foo', 'bar', 'bazz'], chunkSize)
+        def chunks = []
+        for (int i = 0; i < 20 / chunkSize; i++) {
+            chunks.add(StandardCharsets.UTF_8.decode(chunked.nextChunk()).toString())
+        }
+
+        expect:
+        chunks.join('') == '["foo","bar","bazz"]'
+        chunks.every { it.length() == chunkSize }
+        chunked.complete
+        chunked.nextChunk() == null
+
+        where:
+        chunkSize << [1, 4, 5, 10, 20]
+    }
+
+    def "frames that yield are resumed while a chunk is buffered ahead"() {
+        given:
+        def serializer = new NestedSerializer() {
+            @Override
+            SerializationFrame newSerializationFrame(List<String> value) {
+                return new SerializationFrame() {
+                    int index = -1
+
+                    @Override
+                    boolean writeNext(JsonGenerator encoder, ChunkedSerializer chunked) throws IOException {
+                        if (index == -1) {
+                            encoder.writeStartArray()
+                            index = 0
+                        }
+                        while (index < value.size()) {
+                            if (chunked.shouldYield()) {
+                                return false
+                            }
+                            encoder.writeString(value[index++])
+                        }
+                        encoder.writeEndArray()
+                        return true
+                    }
+                }
+            }
+        }
+        def value = (0..<100).collect { 'item' + it }
+        def chunked = ChunkedSerializer.create(JSON_FACTORY, serializer, value, 16)
+        def out = new StringBuilder()
+        ByteBuffer chunk
+        while ((chunk = chunked.nextChunk()) != null) {
+            out.append(StandardCharsets.UTF_8.decode(chunk))
+        }
+
+        expect:
+        out.toString() == serializeToString(LIST_SERIALIZER, value)
+    }
+
+    def "publisher completes when the output ends at a chunk boundary"() {
+        given:
+        def publisher = new SerializationPublisher<>(JSON_FACTORY, NESTED_SERIALIZER, ['foo', 'bar', 'bazz'], 5)
+        def subscriber = new TestSubscriber<ByteBuffer>(0)
+
+        when:
+        publisher.subscribe(subscriber)
+        subscriber.request(4)
+
+        then:
+        subscriber.assertValueCount(4)
+        subscriber.assertComplete()
+    }
+
+    def "close aborts unfinished frames"() {
+        given:
+        def aborted = []
+        def frame = { String name, SerializationFrame child ->
+            new SerializationFrame() {
+                boolean pushed
+
+                @Override
+                boolean writeNext(JsonGenerator encoder, ChunkedSerializer serializer) throws IOException {
+                    if (!pushed && child != null) {
+                        pushed = true
+                        serializer.push(child)
+                        return false
+                    }
+                    encoder.writeString('0123456789')
+                    return false
+                }
+
+                @Override
+                void abort() throws IOException {
+                    aborted.add(name)
+                    if (name == 'inner') {
+                        throw new IOException('abort failed')
+                    }
+                }
+            }
+        }
+        def serializer = new NestedSerializer() {
+            @Override
+            SerializationFrame newSerializationFrame(List<String> value) {
+                return frame('outer', frame('inner', null))
+            }
+        }
+        def chunked = ChunkedSerializer.create(JSON_FACTORY, serializer, [], 4)
+
+        when:
+        chunked.nextChunk()
+        chunked.close()
+
+        then:
+        def e = thrown IOException
+        e.message == 'abort failed'
+        aborted == ['inner', 'outer']
+        chunked.complete
+        chunked.nextChunk() == null
+    }
+
+    def "cancelled publisher aborts unfinished frames"() {
+        given:
+        def closed = false
+        def serializer = new NestedSerializer() {
+            @Override
+            SerializationFrame newSerializationFrame(List<String> value) {
+                return new SerializationFrame() {
+                    @Override
+                    boolean writeNext(JsonGenerator encoder, ChunkedSerializer chunked) throws IOException {
+                        encoder.writeString('0123456789')
+                        return false
+                    }
+
+                    @Override
+                    void abort() throws IOException {
+                        closed = true
+                    }
+                }
+            }
+        }
+        def publisher = new SerializationPublisher<>(JSON_FACTORY, serializer, [], 4)
+        def subscriber = new TestSubscriber<ByteBuffer>(1)
+
+        when:
+        publisher.subscribe(subscriber)
+        subscriber.cancel()
+        subscriber.request(1)
+
+        then:
+        closed
+    }
+
+    def "publisher respects demand"() {
+        given:
+        def publisher = new SerializationPublisher<>(JSON_FACTORY, LIST_SERIALIZER, ['foo', 'bar', 'baz'], 4)
+        def subscriber = new TestSubscriber<ByteBuffer>(0)
+
+        when:
+        publisher.subscribe(subscriber)
+
+        then:
+        subscriber.assertNoValues()
+
+        when:
+        subscriber.request(2)
+
+        then:
+        subscriber.assertValueCount(2)
+        subscriber.assertNotComplete()
+
+        when:
+        subscriber.request(10)
+
+        then:
+        subscriber.assertValueCount(5)
+        subscriber.assertComplete()
+    }
+
+    def "publisher output"() {
+        given:
+        def publisher = new SerializationPublisher<>(JSON_FACTORY, LIST_SERIALIZER, (0..<1000).collect { 'item' + it }, 100)
+        def out = new ByteArrayOutputStream()
+        Flowable.fromPublisher(publisher).blockingForEach { out.write(it.array(), it.position(), it.remaining()) }
+
+        expect:
+        out.toString('UTF-8') == serializeToString(LIST_SERIALIZER, (0..<1000).collect { 'item' + it })
+    }
+
+    def "cancel stops serialization"() {
+        given:
+        def publisher = new SerializationPublisher<>(JSON_FACTORY, LIST_SERIALIZER, ['foo', 'bar', 'baz'], 4)
+        def subscriber = new TestSubscriber<ByteBuffer>(1)
+
+        when:
+        publisher.subscribe(subscriber)
+        subscriber.cancel()
+        subscriber.request(10)
+
+        then:
+        subscriber.assertValueCount(1)
+        subscriber.assertNotComplete()
+        subscriber.assertNoErrors()
+    }
+}
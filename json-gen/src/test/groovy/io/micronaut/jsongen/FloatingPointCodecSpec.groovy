@@ -0,0 +1,143 @@
+package io.micronaut.jsongen
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class FloatingPointCodecSpec extends Specification implements SerializerUtils {
+    @Unroll
+    def "double #value"() {
+        expect:
+        DoubleToDecimal.toString(value) == expected
+        parseDouble(expected) == value
+
+        where:
+        value                    | expected
+        0.0D                     | '0.0'
+        Math.copySign(0.0D, -1D) | '-0.0'
+        4.5D                     | '4.5'
+        100D                     | '100.0'
+        0.001D                   | '0.001'
+        1.0E-4D                  | '1.0E-4'
+        1.0E7D                   | '1.0E7'
+        1.0E23D                  | '1.0E23'
+        2.0E23D                  | '2.0E23'
+        Double.MIN_VALUE         | '4.9E-324'
+        Double.MIN_NORMAL        | '2.2250738585072014E-308'
+        Double.MAX_VALUE         | '1.7976931348623157E308'
+        316070159402654210L as double | '3.160701594026542E17'
+    }
+
+    @Unroll
+    def "float #value"() {
+        expect:
+        DoubleToDecimal.toString(value) == expected
+        parseFloat(expected) == value
+
+        where:
+        value              | expected
+        0.1F               | '0.1'
+        4.5F               | '4.5'
+        1.0E7F             | '1.0E7'
+        Float.MIN_VALUE    | '1.4E-45'
+        Float.MIN_NORMAL   | '1.1754944E-38'
+        Float.MAX_VALUE    | '3.4028235E38'
+    }
+
+    @Unroll
+    def "parse #text"() {
+        expect:
+        parseDouble(text) == Double.parseDouble(text)
+        parseFloat(text) == Float.parseFloat(text)
+
+        where:
+        text << [
+                '1e23',
+                '7.3177701707893310e+15',
+                '7.2057594037927933e+16',
+                '9007199254740993',
+                '2.2250738585072011e-308',
+                '123456789012345678901234567890',
+                '0.000000000000000000000000000000000000000000001e45',
+                '1e-400',
+                '1e400',
+                '3.4028236e38',
+        ]
+    }
+
+    def "random values round trip"() {
+        given:
+        def random = new SplittableRandom(42)
+
+        expect:
+        for (int i = 0; i < 100_000; i++) {
+            double d = Double.longBitsToDouble(random.nextLong())
+            if (!Double.isFinite(d)) {
+                continue
+            }
+            String s = DoubleToDecimal.toString(d)
+            assert Double.parseDouble(s) == d
+            assert s.length() <= Double.toString(d).length()
+            assert parseDouble(s) == d
+            assert parseDouble(Double.toString(d)) == d
+        }
+    }
+
+    def "halfway values are rounded correctly"() {
+        given:
+        def random = new SplittableRandom(42)
+
+        expect:
+        for (int i = 0; i < 10_000; i++) {
+            double d = Math.abs(Double.longBitsToDouble(random.nextLong()))
+            if (!Double.isFinite(d) || !Double.isFinite(Math.nextUp(d))) {
+                continue
+            }
+            String halfway = (new BigDecimal(d) + new BigDecimal(Math.nextUp(d))).divide(BigDecimal.valueOf(2)).toString()
+            assert parseDouble(halfway) == Double.parseDouble(halfway)
+        }
+    }
+
+    def "generator and parser"() {
+        given:
+        def writer = new StringWriter()
+        def generator = JSON_FACTORY.createGenerator(writer)
+        generator.writeStartArray()
+        FloatingPointCodec.writeDouble(generator, 0.1D)
+        FloatingPointCodec.writeFloat(generator, 0.1F)
+        FloatingPointCodec.writeDouble(generator, Double.NaN)
+        generator.writeEndArray()
+        generator.close()
+
+        def parser = JSON_FACTORY.createParser('[0.1, 5, 1e-5]')
+        parser.nextToken()
+
+        expect:
+        writer.toString() == '[0.1,0.1,"NaN"]'
+        parser.nextToken() != null && FloatingPointCodec.readDouble(parser) == 0.1D
+        parser.nextToken() != null && FloatingPointCodec.readDouble(parser) == 5D
+        parser.nextToken() != null && FloatingPointCodec.readFloat(parser) == 1e-5F
+    }
+
+    def "consecutive values"() {
+        given:
+        def writer = new StringWriter()
+        def generator = JSON_FACTORY.createGenerator(writer)
+        generator.writeStartArray()
+        FloatingPointCodec.writeDouble(generator, 1.7976931348623157E308D)
+        FloatingPointCodec.writeDouble(generator, 0.5D)
+        generator.writeEndArray()
+        generator.close()
+
+        expect:
+        // a shorter value after a longer one must not pick up leftover digits
+        writer.toString() == '[1.7976931348623157E308,0.5]'
+    }
+
+    private static double parseDouble(String s) {
+        return FastDoubleParser.parseDouble(s.toCharArray(), 0, s.length())
+    }
+
+    private static float parseFloat(String s) {
+        return FastDoubleParser.parseFloat(s.toCharArray(), 0, s.length())
+    }
+}
@@ -0,0 +1,135 @@
+package io.micronaut.jsongen
+
+import com.fasterxml.jackson.core.JsonGenerator
+import com.fasterxml.jackson.core.JsonParser
+import com.fasterxml.jackson.core.JsonToken
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+
+class MappedFileSpec extends Specification implements SerializerUtils {
+    static final Serializer<String> STRING_SERIALIZER = new Serializer<String>() {
+        @Override
+        String deserialize(JsonParser decoder) throws IOException {
+            if (decoder.currentToken() != JsonToken.VALUE_STRING) {
+                throw JsonParseException.from(decoder, "Expected string")
+            }
+            return decoder.text
+        }
+
+        @Override
+        void serialize(JsonGenerator encoder, String value) throws IOException {
+            encoder.writeString(value)
+        }
+    }
+
+    @TempDir
+    Path dir
+
+    def "read across regions"() {
+        given:
+        def file = dir.resolve('in.json')
+        def values = (0..<1000).collect { 'v' + it }
+        Files.write(file, ('[' + values.collect { '"' + it + '"' }.join(',') + ']').bytes)
+        def channel = FileChannel.open(file, StandardOpenOption.READ)
+
+        when:
+        def input = new MappedFileInput(channel, 0, channel.size(), regionSize)
+        def parser = JSON_FACTORY.createParser(input)
+        parser.nextToken()
+        def read = []
+        ArrayElementReader.create(STRING_SERIALIZER, parser).forEachRemaining(read.&add)
+
+        then:
+        read == values
+
+        cleanup:
+        channel.close()
+
+        where:
+        regionSize << [1, 7, 4096, Integer.MAX_VALUE]
+    }
+
+    def "partial file, single bytes and skip"() {
+        given:
+        def file = dir.resolve('in.bin')
+        Files.write(file, 'abcdefghij'.bytes)
+        def channel = FileChannel.open(file, StandardOpenOption.READ)
+        def input = new MappedFileInput(channel, 2, 6, 3)
+
+        expect:
+        input.available() == 6
+        input.read() == ('c' as char) as int
+        input.skip(3) == 3
+        input.read() == ('g' as char) as int
+        input.skip(10) == 1
+        input.read() == -1
+        input.read(new byte[4], 0, 4) == -1
+
+        cleanup:
+        channel.close()
+    }
+
+    def "ndjson round trip"() {
+        given:
+        def file = dir.resolve('data.ndjson')
+        def values = (0..<5000).collect { 'record ' + it }
+
+        when:
+        try (def output = FileChannelOutput.create(file, 100, FileChannelOutput.FlushPolicy.WHEN_FULL, FileChannelOutput.ForcePolicy.ON_CLOSE)) {
+            new NdjsonWriter<>(JSON_FACTORY, STRING_SERIALIZER).write(output, values)
+        }
+        def read = []
+        try (def input = MappedFileInput.open(file)) {
+            new NdjsonReader<>(JSON_FACTORY, STRING_SERIALIZER).read(input, read.&add)
+        }
+
+        then:
+        read == values
+    }
+
+    def "flush policies"() {
+        given:
+        def file = dir.resolve('out.json')
+        def channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE)
+        def output = new FileChannelOutput(channel, 16, flushPolicy, FileChannelOutput.ForcePolicy.ON_FLUSH)
+
+        when:
+        output.write('"abc"'.bytes)
+        output.flush()
+
+        then:
+        Files.size(file) == sizeAfterFlush
+
+        when:
+        output.write(new byte[20])
+
+        then:
+        Files.size(file) == sizeAfterWrite
+
+        when:
+        output.close()
+
+        then:
+        Files.size(file) == 25
+        channel.isOpen()
+
+        when:
+        output.write(1)
+
+        then:
+        thrown IOException
+
+        cleanup:
+        channel.close()
+
+        where:
+        flushPolicy                                 | sizeAfterFlush | sizeAfterWrite
+        FileChannelOutput.FlushPolicy.WRITE_THROUGH | 5              | 21
+        FileChannelOutput.FlushPolicy.WHEN_FULL     | 0              | 16
+    }
+}
@@ -1,9 +1,11 @@
 package io.micronaut.jsongen
 
+import com.fasterxml.jackson.core.JsonToken
 import io.micronaut.annotation.processing.test.AbstractTypeElementSpec
 import io.micronaut.context.BeanProvider
 
 import java.lang.reflect.ParameterizedType
+import java.nio.charset.StandardCharsets
 
 class MapperVisitorSpec extends AbstractTypeElementSpec implements SerializerUtils {
     void "generator creates a serializer for jackson annotations"() {
@@ -23,6 +25,29 @@ public class Test {
         Serializer.class.isAssignableFrom(serializerClass)
     }
 
+    void "empty bean"() {
+        given:
+        def compiled = buildClassLoader('example.Test', '''
+package example;
+
+@io.micronaut.jsongen.SerializableBean
+public class Test {
+}
+''')
+        def serializer = (Serializer<?>) compiled.loadClass('example.Test$Serializer').newInstance()
+
+        expect:
+        serializeToString(serializer, deserializeNonBlocking(serializer, '{}')) == '{}'
+        serializeChunked(serializer, compiled.loadClass('example.Test').newInstance()) == '{}'
+
+        when:
+        deserializeNonBlocking(serializer, '{"x":1}')
+
+        then:
+        def e = thrown JsonParseException
+        e.message.contains('Unknown property for type example.Test: x')
+    }
+
     void "nested beans"() {
         given:
         def compiled = buildClassLoader('example.Test', '''
@@ -186,6 +211,824 @@ class B {
         return
     }
 
+    void "generated provider resolves dependencies from the registry"() {
+        given:
+        def compiled = buildClassLoader('example.A', '''
+package example;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.jsongen.RecursiveSerialization;
+
+@io.micronaut.jsongen.SerializableBean
+class A {
+    B b;
+    @Nullable
+    @RecursiveSerialization
+    A next;
+}
+
+@io.micronaut.jsongen.SerializableBean
+class B {
+    String foo;
+}
+''')
+
+        def registry = SerializerRegistry.load(new URLClassLoader(new URL[0], (ClassLoader) null))
+        registry.register((SerializerProvider) compiled.loadClass('example.A$SerializerProvider').newInstance())
+        registry.register((SerializerProvider) compiled.loadClass('example.B$SerializerProvider').newInstance())
+        def serializer = registry.get(compiled.loadClass('example.A'))
+        def json = '{"b":{"foo":"1"},"next":{"b":{"foo":"2"},"next":null}}'
+
+        expect:
+        serializeToString(serializer, deserializeFromString(serializer, json)) == json
+        registry.get(compiled.loadClass('example.B')).is(registry.get(compiled.loadClass('example.B')))
+    }
+
+    void "polymorphic properties"() {
+        given:
+        def compiled = buildClassLoader('example.Zoo', '''
+package example;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import io.micronaut.core.annotation.Nullable;
+
+@io.micronaut.jsongen.SerializableBean
+class Zoo {
+    Animal animal;
+    @Nullable
+    Object extra;
+}
+
+@JsonSubTypes({@JsonSubTypes.Type(Dog.class), @JsonSubTypes.Type(Cat.class)})
+interface Animal {
+}
+
+@io.micronaut.jsongen.SerializableBean
+class Dog implements Animal {
+    String name;
+}
+
+@io.micronaut.jsongen.SerializableBean
+class Cat implements Animal {
+    int lives;
+}
+''')
+
+        def registry = SerializerRegistry.load(new URLClassLoader(new URL[0], (ClassLoader) null))
+        for (name in ['Zoo', 'Dog', 'Cat']) {
+            registry.register((SerializerProvider) compiled.loadClass('example.' + name + '$SerializerProvider').newInstance())
+        }
+        def serializer = registry.get(compiled.loadClass('example.Zoo'))
+
+        def zoo = compiled.loadClass('example.Zoo').newInstance()
+        def dog = compiled.loadClass('example.Dog').newInstance()
+        def cat = compiled.loadClass('example.Cat').newInstance()
+        dog.name = 'Rex'
+        cat.lives = 9
+        zoo.animal = dog
+        zoo.extra = ['pet': cat, 'count': 2]
+        def zoo2 = compiled.loadClass('example.Zoo').newInstance()
+        zoo2.animal = cat
+
+        expect:
+        serializeToString(serializer, zoo) == '{"animal":{"name":"Rex"},"extra":{"pet":{"lives":9},"count":2}}'
+        serializeToString(serializer, zoo2) == '{"animal":{"lives":9},"extra":null}'
+    }
+
+    void "untyped properties"() {
+        given:
+        def compiled = buildClassLoader('example.Attributes', '''
+package example;
+
+import io.micronaut.core.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+
+@io.micronaut.jsongen.SerializableBean
+class Attributes {
+    Map<String, Object> attributes;
+    @Nullable
+    Object any;
+    List<Object> items;
+}
+''')
+
+        def registry = SerializerRegistry.load(new URLClassLoader(new URL[0], (ClassLoader) null))
+        registry.register((SerializerProvider) compiled.loadClass('example.Attributes$SerializerProvider').newInstance())
+        def serializer = registry.get(compiled.loadClass('example.Attributes'))
+        def json = '{"attributes":{"a":1,"b":[true,null],"c":{"d":1.5}},"any":"x","items":[1,{"k":[]},"t"]}'
+
+        when:
+        def value = deserializeFromString(serializer, json)
+
+        then:
+        value.attributes == ['a': 1, 'b': [true, null], 'c': ['d': 1.5D]]
+        value.any == 'x'
+        value.items == [1, ['k': []], 't']
+        serializeToString(serializer, value) == json
+        serializeToString(serializer, deserializeNonBlocking(serializer, json)) == json
+    }
+
+    void "deserialize into existing instance"() {
+        given:
+        def compiled = buildClassLoader('example.Test', '''
+package example;
+
+import java.util.List;
+
+@io.micronaut.jsongen.SerializableBean
+class Test {
+    int id;
+    String name;
+    List<String> list;
+}
+
+@io.micronaut.jsongen.SerializableBean
+class Immutable {
+    final String name;
+
+    @com.fasterxml.jackson.annotation.JsonCreator
+    Immutable(@com.fasterxml.jackson.annotation.JsonProperty("name") String name) {
+        this.name = name;
+    }
+}
+''')
+
+        def serializer = (UpdatingDeserializer<?>) compiled.loadClass('example.Test$Serializer').newInstance()
+        def test = compiled.loadClass("example.Test").newInstance()
+        def list = ['x']
+        test.id = 1
+        test.name = 'foo'
+        test.list = list
+
+        when:
+        def parser = JSON_FACTORY.createParser(json)
+        parser.nextToken()
+        serializer.deserializeInto(parser, test, policy)
+
+        then:
+        test.id == id
+        test.name == name
+        test.list == expectedList
+        test.list.is(list) == reused
+
+        !UpdatingDeserializer.isAssignableFrom(compiled.loadClass('example.Immutable$Serializer'))
+
+        where:
+        json                           | policy                                           | id | name  | expectedList | reused
+        '{"id":2}'                     | UpdatePolicy.KEEP_ABSENT                         | 2  | 'foo' | ['x']        | true
+        '{"id":2}'                     | UpdatePolicy.RESET_ABSENT                        | 2  | null  | null         | false
+        '{"id":2}'                     | UpdatePolicy.RESET_ABSENT.withReuseLists(true)   | 2  | null  | []           | true
+        '{"list":["a","b"]}'           | UpdatePolicy.KEEP_ABSENT                         | 1  | 'foo' | ['a', 'b']   | false
+        '{"list":["a","b"]}'           | UpdatePolicy.KEEP_ABSENT.withReuseLists(true)    | 1  | 'foo' | ['a', 'b']   | true
+        '{"name":"bar","list":[]}'     | UpdatePolicy.RESET_ABSENT.withReuseLists(true)   | 0  | 'bar' | []           | true
+    }
+
+    void "json views"() {
+        given:
+        def compiled = buildClassLoader('example.Test', '''
+package example;
+
+import com.fasterxml.jackson.annotation.JsonView;
+
+class Views {
+    static class Public {}
+    static class Internal extends Public {}
+}
+
+@io.micronaut.jsongen.SerializableBean
+class Test {
+    String id;
+    @JsonView(Views.Public.class)
+    String name;
+    @JsonView(Views.Internal.class)
+    String secret;
+}
+''')
+
+        def serializer = (ViewSerializer<?>) compiled.loadClass('example.Test$Serializer').newInstance()
+        def viewSerializer = serializer.forView(compiled.loadClass(view))
+        def test = compiled.loadClass("example.Test").newInstance()
+        test.id = '1'
+        test.name = 'n'
+        test.secret = 's'
+
+        when:
+        def deserialized = deserializeFromString(viewSerializer, '{"id":"1","name":"n","secret":"s"}')
+
+        then:
+        serializeToString(viewSerializer, test) == json
+        serializeToString(viewSerializer, deserialized) == json
+        serializeToString(viewSerializer, deserializeNonBlocking(viewSerializer, '{"id":"1","name":"n","secret":"s"}')) == json
+
+        where:
+        view                       | json
+        'example.Views$Public'     | '{"id":"1","name":"n"}'
+        'example.Views$Internal'   | '{"id":"1","name":"n","secret":"s"}'
+        'java.lang.String'         | '{"id":"1"}'
+    }
+
+    void "view that extends several unrelated views"() {
+        given:
+        def compiled = buildClassLoader('example.Test', '''
+package example;
+
+import com.fasterxml.jackson.annotation.JsonView;
+
+class Views {
+    interface Public {}
+    interface Audit {}
+    interface Admin extends Public, Audit {}
+}
+
+@io.micronaut.jsongen.SerializableBean
+class Test {
+    String id;
+    @JsonView(Views.Public.class)
+    String name;
+    @JsonView(Views.Audit.class)
+    String log;
+}
+''')
+
+        def serializer = (ViewSerializer<?>) compiled.loadClass('example.Test$Serializer').newInstance()
+        def admin = compiled.loadClass('example.Views$Admin')
+        def test = compiled.loadClass("example.Test").newInstance()
+        test.id = '1'
+        test.name = 'n'
+        test.log = 'l'
+
+        expect:
+        serializeToString(serializer.forView(admin), test) == '{"id":"1","name":"n","log":"l"}'
+        serializer.forView(admin).is(serializer.forView(admin))
+    }
+
+    void "views are passed on to nested beans"() {
+        given:
+        def compiled = buildClassLoader('example.Outer', '''
+package example;
+
+import com.fasterxml.jackson.annotation.JsonView;
+import io.micronaut.jsongen.Lazy;
+import java.util.List;
+
+class Views {
+    static class Public {}
+    static class Internal extends Public {}
+    interface Detail {}
+}
+
+@io.micronaut.jsongen.SerializableBean
+class Inner {
+    String login;
+    @JsonView(Views.Internal.class)
+    String password;
+}
+
+@io.micronaut.jsongen.SerializableBean(inline = true)
+class Entry {
+    int amount;
+    @JsonView(Views.Detail.class)
+    String detail;
+}
+
+@io.micronaut.jsongen.SerializableBean
+class Outer {
+    @JsonView(Views.Public.class)
+    String name;
+    Inner inner;
+    List<Inner> inners;
+    Lazy<Inner> lazy;
+    Entry entry;
+}
+''')
+
+        def innerSerializer = compiled.loadClass('example.Inner$Serializer').newInstance()
+        def provider = new BeanProvider() {
+            @Override
+            Object get() {
+                return innerSerializer
+            }
+        }
+        def outerClass = compiled.loadClass('example.Outer$Serializer')
+        def serializer = (ViewSerializer<?>) outerClass.constructors[0].newInstance(outerClass.constructors[0].parameterTypes.collect {
+            it == BeanProvider ? provider : innerSerializer
+        } as Object[])
+        def viewSerializer = serializer.forView(compiled.loadClass(view))
+
+        def inner = compiled.loadClass('example.Inner').newInstance()
+        inner.login = 'l'
+        inner.password = 'p'
+        def entry = compiled.loadClass('example.Entry').newInstance()
+        entry.amount = 1
+        entry.detail = 'd'
+        def test = compiled.loadClass('example.Outer').newInstance()
+        test.name = 'n'
+        test.inner = inner
+        test.inners = [inner]
+        test.lazy = Lazy.of(inner)
+        test.entry = entry
+
+        when:
+        def full = serializeToString(serializer, test)
+        // the lazy value of this one was never accessed
+        def unresolved = deserializeFromString(serializer, full)
+
+        then:
+        serializeToString(viewSerializer, test) == json
+        serializeToString(viewSerializer, unresolved) == json
+        serializeChunked(viewSerializer, test) == json
+
+        where:
+        view                       | json
+        'example.Views$Public'     | '{"name":"n","inner":{"login":"l"},"inners":[{"login":"l"}],"lazy":{"login":"l"},"entry":{"amount":1}}'
+        'example.Views$Internal'   | '{"name":"n","inner":{"login":"l","password":"p"},"inners":[{"login":"l","password":"p"}],"lazy":{"login":"l","password":"p"},"entry":{"amount":1}}'
+        'example.Views$Detail'     | '{"inner":{"login":"l"},"inners":[{"login":"l"}],"lazy":{"login":"l"},"entry":{"amount":1,"detail":"d"}}'
+    }
+
+    void "projection"() {
+        given:
+        def compiled = buildClassLoader('example.RoutingKey', '''
+package example;
+
+@io.micronaut.jsongen.SerializableBean(projection = true)
+class RoutingKey {
+    String tenant;
+    String type;
+}
+''')
+
+        def serializer = (ProjectionDeserializer<?>) compiled.loadClass('example.RoutingKey$Serializer').newInstance()
+        def json = '{"tenant":"t","body":{"items":[1,2]},"type":"order","trailer":[true]}'
+
+        when:
+        def parser = JSON_FACTORY.createParser(json)
+        parser.nextToken()
+        def projection = serializer.deserializeProjection(parser)
+
+        then:
+        projection.tenant == 't'
+        projection.type == 'order'
+        parser.currentToken() == JsonToken.VALUE_STRING
+        parser.nextToken() == JsonToken.FIELD_NAME
+        parser.currentName == 'trailer'
+
+        when:
+        def value = deserializeFromString((Serializer<?>) serializer, json)
+
+        then:
+        value.tenant == 't'
+        value.type == 'order'
+
+        when:
+        parser = JSON_FACTORY.createParser('{"tenant":"t","other":1}')
+        parser.nextToken()
+        projection = serializer.deserializeProjection(parser)
+
+        then:
+        projection.tenant == 't'
+        projection.type == null
+        parser.currentToken() == JsonToken.END_OBJECT
+    }
+
+    void "lazy property"() {
+        given:
+        def compiled = buildClassLoader('example.Envelope', '''
+package example;
+
+import io.micronaut.jsongen.Lazy;
+
+@io.micronaut.jsongen.SerializableBean
+class Envelope {
+    String id;
+    Lazy<Body> body;
+}
+@io.micronaut.jsongen.SerializableBean
+class Body {
+    String text;
+    double ratio;
+}
+''')
+
+        def bodySerializer = compiled.loadClass('example.Body$Serializer').newInstance()
+        def serializer = (Serializer<?>) compiled.loadClass('example.Envelope$Serializer').newInstance(new BeanProvider() {
+            @Override
+            Object get() {
+                return bodySerializer
+            }
+        })
+        def json = '{"id":"a","body":{ "text" : "foo", "ratio" : 1.50000000000000000001 }}'
+
+        when:
+        def envelope = deserializeFromString(serializer, json)
+
+        then:
+        !envelope.body.resolved
+        serializeToString(serializer, envelope) == '{"id":"a","body":{"text":"foo","ratio":1.50000000000000000001}}'
+
+        when:
+        def body = envelope.body.get()
+        body.ratio = 2
+
+        then:
+        envelope.body.resolved
+        body.text == 'foo'
+        serializeToString(serializer, envelope) == '{"id":"a","body":{"text":"foo","ratio":2.0}}'
+
+        when:
+        envelope = deserializeNonBlocking(serializer, json)
+
+        then:
+        !envelope.body.resolved
+        envelope.body.get().text == 'foo'
+    }
+
+    void "raw values"() {
+        given:
+        def compiled = buildClassLoader('example.Envelope', '''
+package example;
+
+import io.micronaut.jsongen.RawJson;
+
+@io.micronaut.jsongen.SerializableBean
+class Envelope {
+    String id;
+    RawJson payload;
+    @com.fasterxml.jackson.annotation.JsonRawValue String partner;
+}
+''')
+
+        def serializer = (Serializer<?>) compiled.loadClass('example.Envelope$Serializer').newInstance()
+        def json = '{"id":"a","payload":{"k":[1, 2.50]},"partner":[ true, null ]}'
+
+        when:
+        def envelope = deserializeFromString(serializer, json)
+
+        then:
+        envelope.payload.toString() == '{"k":[1,2.50]}'
+        envelope.partner == '[true,null]'
+        serializeToString(serializer, envelope) == '{"id":"a","payload":{"k":[1,2.50]},"partner":[true,null]}'
+        deserializeNonBlocking(serializer, json).payload == envelope.payload
+
+        when:
+        envelope.payload = RawJson.of('"x"')
+        envelope.partner = '42'
+
+        then:
+        serializeToString(serializer, envelope) == '{"id":"a","payload":"x","partner":42}'
+    }
+
+    void "raw value on non-string property gives error"() {
+        when:
+        buildClassLoader('example.Test', '''
+package example;
+
+@io.micronaut.jsongen.SerializableBean
+class Test {
+    @com.fasterxml.jackson.annotation.JsonRawValue int foo;
+}
+''')
+        then:
+        def e = thrown Exception
+
+        expect:
+        e.message.contains("@JsonRawValue is only supported on String properties")
+    }
+
+    void "any setter captures unknown properties"() {
+        given:
+        def compiled = buildClassLoader('example.Message', '''
+package example;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import io.micronaut.jsongen.RawProperties;
+
+@io.micronaut.jsongen.SerializableBean
+class Message {
+    String id;
+    @JsonAnySetter
+    @JsonAnyGetter
+    RawProperties extra;
+}
+''')
+
+        def serializer = (Serializer<?>) compiled.loadClass('example.Message$Serializer').newInstance()
+        def json = '{"v2":{"a":[1, 2]},"id":"a","v3":17}'
+
+        when:
+        def message = deserializeFromString(serializer, json)
+
+        then:
+        message.id == 'a'
+        message.extra.size() == 2
+        message.extra.get('v2').toString() == '{"a":[1,2]}'
+        serializeToString(serializer, message) == '{"id":"a","v2":{"a":[1,2]},"v3":17}'
+        serializeToString(serializer, deserializeNonBlocking(serializer, json)) == '{"id":"a","v2":{"a":[1,2]},"v3":17}'
+        serializeToString(serializer, deserializeFromString(serializer, '{"id":"b"}')) == '{"id":"b"}'
+    }
+
+    void "any setter method with creator"() {
+        given:
+        def compiled = buildClassLoader('example.Point', '''
+package example;
+
+import com.fasterxml.jackson.annotation.*;
+import io.micronaut.jsongen.RawJson;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@io.micronaut.jsongen.SerializableBean
+class Point {
+    private final int x;
+    private final Map<String, RawJson> rest = new LinkedHashMap<>();
+
+    @JsonCreator
+    Point(@JsonProperty("x") int x) {
+        this.x = x;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    @JsonAnySetter
+    void put(String name, RawJson value) {
+        rest.put(name, value);
+    }
+
+    @JsonAnyGetter
+    Map<String, RawJson> rest() {
+        return rest;
+    }
+}
+''')
+
+        def serializer = (Serializer<?>) compiled.loadClass('example.Point$Serializer').newInstance()
+
+        expect:
+        serializeToString(serializer, deserializeFromString(serializer, '{"y":2,"x":1,"z":[null]}')) == '{"x":1,"y":2,"z":[null]}'
+        serializeToString(serializer, deserializeNonBlocking(serializer, '{"y":2,"x":1,"z":[null]}')) == '{"x":1,"y":2,"z":[null]}'
+    }
+
+    void "output cache"() {
+        given:
+        def compiled = buildClassLoader('example.Page', '''
+package example;
+
+import java.util.List;
+
+@io.micronaut.jsongen.SerializableBean(outputCacheSize = 1024)
+class Catalog {
+    String name;
+    List<String> items;
+}
+
+@io.micronaut.jsongen.SerializableBean
+class Page {
+    int n;
+    Catalog catalog;
+}
+''')
+
+        def catalogSerializer = compiled.loadClass('example.Catalog$Serializer').newInstance()
+        def pageSerializer = (Serializer<?>) compiled.loadClass('example.Page$Serializer').newInstance(catalogSerializer)
+        def catalog = compiled.loadClass('example.Catalog').newInstance()
+        catalog.name = 'c'
+        catalog.items = ['a']
+        def page = compiled.loadClass('example.Page').newInstance()
+        page.catalog = catalog
+
+        expect:
+        catalogSerializer instanceof CachingSerializer
+        serializeToString(pageSerializer, page) == '{"n":0,"catalog":{"name":"c","items":["a"]}}'
+
+        when:
+        catalog.items = ['b']
+
+        then:
+        serializeToString(pageSerializer, page) == '{"n":0,"catalog":{"name":"c","items":["a"]}}'
+
+        when:
+        ((CachingSerializer) catalogSerializer).outputCache.invalidate(catalog)
+
+        then:
+        serializeToString(pageSerializer, page) == '{"n":0,"catalog":{"name":"c","items":["b"]}}'
+    }
+
+    void "output cache on inline bean gives error"() {
+        when:
+        buildClassLoader('example.Test', '''
+package example;
+
+@io.micronaut.jsongen.SerializableBean(inline = true, outputCacheSize = 1024)
+class Test {
+    String foo;
+}
+''')
+        then:
+        def e = thrown Exception
+
+        expect:
+        e.message.contains("Output caching is not supported for inline beans")
+    }
+
+    void "serialized size"() {
+        given:
+        def compiled = buildClassLoader('example.Test', '''
+package example;
+
+import java.util.List;
+
+@io.micronaut.jsongen.SerializableBean
+class Test {
+    int i;
+    long l;
+    double d;
+    boolean b;
+    @io.micronaut.core.annotation.Nullable String s;
+    List<String> list;
+    int[] array;
+    Color color;
+    @com.fasterxml.jackson.annotation.JsonUnwrapped Inner inner;
+}
+
+@io.micronaut.jsongen.SerializableBean
+class Inner {
+    String name;
+}
+
+enum Color { RED, GREEN }
+''')
+        def serializer = (Serializer<?>) compiled.loadClass('example.Test$Serializer').newInstance()
+        def test = compiled.loadClass('example.Test').newInstance()
+        test.i = -123
+        test.l = Long.MIN_VALUE
+        test.d = 0.1
+        test.s = 'a "quoted"\n\u00e4 string'
+        test.list = ['x', '\u65e5\u672c']
+        test.array = new int[0]
+        test.color = compiled.loadClass('example.Color').enumConstants[1]
+        test.inner = compiled.loadClass('example.Inner').newInstance()
+        test.inner.name = '\t'
+
+        expect:
+        serializer.class.declaredMethods.any { it.name == 'serializedSize' && !it.bridge }
+        serializer.serializedSize(test) == serializeToString(serializer, test).getBytes(StandardCharsets.UTF_8).length
+
+        when:
+        test.s = null
+        test.list = []
+        test.array = [1, 10, 100] as int[]
+        test.d = Double.NaN
+
+        then:
+        serializer.serializedSize(test) == serializeToString(serializer, test).getBytes(StandardCharsets.UTF_8).length
+    }
+
+    void "serialized size of a stream is unknown"() {
+        given:
+        def compiled = buildClassLoader('example.Test', '''
+package example;
+
+import java.util.stream.Stream;
+
+@io.micronaut.jsongen.SerializableBean
+class Test {
+    String name;
+    Stream<String> items;
+}
+''')
+        def serializer = (Serializer<?>) compiled.loadClass('example.Test$Serializer').newInstance()
+        def test = compiled.loadClass('example.Test').newInstance()
+        test.name = 'n'
+        test.items = ['a', 'b'].stream()
+
+        expect:
+        serializer.serializedSize(test) == -1
+        serializeToString(serializer, test) == '{"name":"n","items":["a","b"]}'
+    }
+
+    void "type property"() {
+        given:
+        def compiled = buildClassLoader('example.Farm', '''
+package example;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+@io.micronaut.jsongen.SerializableBean
+class Farm {
+    Pet pet;
+}
+
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "kind", defaultImpl = Hen.class)
+@JsonSubTypes({@JsonSubTypes.Type(value = Hen.class, name = "hen"), @JsonSubTypes.Type(value = Cow.class, names = {"cow", "bovine"})})
+abstract class Pet {
+}
+
+@io.micronaut.jsongen.SerializableBean(inline = true)
+class Hen extends Pet {
+    int eggs;
+}
+
+@io.micronaut.jsongen.SerializableBean
+class Cow extends Pet {
+    String name;
+}
+''')
+
+        def registry = SerializerRegistry.load(new URLClassLoader(new URL[0], (ClassLoader) null))
+        for (name in ['Farm', 'Cow']) {
+            registry.register((SerializerProvider) compiled.loadClass('example.' + name + '$SerializerProvider').newInstance())
+        }
+        def serializer = registry.get(compiled.loadClass('example.Farm'))
+        def cow = compiled.loadClass('example.Cow').newInstance()
+        cow.name = 'Bella'
+        def farm = compiled.loadClass('example.Farm').newInstance()
+        farm.pet = cow
+
+        expect:
+        serializeToString(serializer, farm) == '{"pet":{"kind":"cow","name":"Bella"}}'
+        serializeToString(registry.get(compiled.loadClass('example.Cow')), cow) == '{"kind":"cow","name":"Bella"}'
+        serializeToString(serializer, deserializeFromString(serializer, input)) == output
+        serializeToString(serializer, deserializeNonBlocking(serializer, input)) == output
+
+        where:
+        input                                          | output
+        '{"pet":{"kind":"hen","eggs":3}}'              | '{"pet":{"kind":"hen","eggs":3}}'
+        '{"pet":{"eggs":3,"kind":"hen"}}'              | '{"pet":{"kind":"hen","eggs":3}}'
+        '{"pet":{"name":"Bella","kind":"bovine"}}'     | '{"pet":{"kind":"cow","name":"Bella"}}'
+        '{"pet":{"kind":"cow","name":"Bella"}}'        | '{"pet":{"kind":"cow","name":"Bella"}}'
+        // defaultImpl
+        '{"pet":{"eggs":3}}'                           | '{"pet":{"kind":"hen","eggs":3}}'
+        '{"pet":{"eggs":3,"kind":"duck"}}'             | '{"pet":{"kind":"hen","eggs":3}}'
+    }
+
+    void "type wrappers"() {
+        given:
+        def compiled = buildClassLoader('example.Shed', '''
+package example;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+
+@io.micronaut.jsongen.SerializableBean
+class Shed {
+    Tool tool;
+    Crop crop;
+}
+
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.WRAPPER_OBJECT)
+@JsonSubTypes({@JsonSubTypes.Type(Hammer.class), @JsonSubTypes.Type(Saw.class)})
+interface Tool {
+}
+
+@io.micronaut.jsongen.SerializableBean(inline = true)
+class Hammer implements Tool {
+    int weight;
+}
+
+@io.micronaut.jsongen.SerializableBean(inline = true)
+@JsonTypeName("saw")
+class Saw implements Tool {
+    int teeth;
+}
+
+@JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.WRAPPER_ARRAY)
+@JsonSubTypes(@JsonSubTypes.Type(Wheat.class))
+interface Crop {
+}
+
+@io.micronaut.jsongen.SerializableBean(inline = true)
+class Wheat implements Crop {
+    String variety;
+}
+''')
+
+        def registry = SerializerRegistry.load(new URLClassLoader(new URL[0], (ClassLoader) null))
+        registry.register((SerializerProvider) compiled.loadClass('example.Shed$SerializerProvider').newInstance())
+        def serializer = registry.get(compiled.loadClass('example.Shed'))
+        def json = '{"tool":{"saw":{"teeth":40}},"crop":["example.Wheat",{"variety":"spelt"}]}'
+
+        when:
+        def shed = deserializeFromString(serializer, json)
+
+        then:
+        shed.tool.teeth == 40
+        shed.crop.variety == 'spelt'
+        serializeToString(serializer, shed) == json
+        deserializeFromString(serializer, '{"tool":{"Hammer":{"weight":5}},"crop":["example.Wheat",{"variety":"spelt"}]}').tool.weight == 5
+
+        when:
+        deserializeFromString(serializer, '{"tool":{"Drill":{}},"crop":["example.Wheat",{"variety":"spelt"}]}')
+
+        then:
+        def e = thrown JsonParseException
+        e.message.contains('Unknown type id')
+    }
+
     void "nested generic"() {
         given:
         def compiled = buildClassLoader('example.Test', '''
@@ -293,4 +1136,28 @@ enum E {
         deserializeFromString(serializerA, '{"e":"A"}').e.name() == 'A'
         deserializeFromString(serializerA, '{"e":"B"}').e.name() == 'B'
     }
+
+    void "primitive arrays"() {
+        given:
+        def compiled = buildClassLoader('example.Test', '''
+package example;
+
+@io.micronaut.jsongen.SerializableBean
+class Test {
+    double[] doubles;
+    float[] floats;
+    int[] ints;
+}
+''')
+
+        def serializer = (Serializer<?>) compiled.loadClass('example.Test$Serializer').newInstance()
+        def json = '{"doubles":[0.1,2.0,1.0E-7,3.0E10,1.0,2.0,3.0,4.0,5.0],"floats":[0.1],"ints":[]}'
+        def deserialized = deserializeFromString(serializer, json)
+
+        expect:
+        deserialized.doubles == [0.1D, 2D, 1e-7D, 3e10D, 1D, 2D, 3D, 4D, 5D] as double[]
+        deserialized.floats == [0.1F] as float[]
+        deserialized.ints == [] as int[]
+        serializeToString(serializer, deserialized) == json
+    }
 }
@@ -0,0 +1,169 @@
+package io.micronaut.jsongen
+
+import com.fasterxml.jackson.core.JsonGenerator
+import com.fasterxml.jackson.core.JsonParser
+import com.fasterxml.jackson.core.JsonToken
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.lang.Timeout
+
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ForkJoinPool
+
+class NdjsonSpec extends Specification implements SerializerUtils {
+    static final Serializer<String> STRING_SERIALIZER = new Serializer<String>() {
+        @Override
+        String deserialize(JsonParser decoder) throws IOException {
+            if (decoder.currentToken() != JsonToken.VALUE_STRING) {
+                throw JsonParseException.from(decoder, "Expected string")
+            }
+            return decoder.text
+        }
+
+        @Override
+        void serialize(JsonGenerator encoder, String value) throws IOException {
+            encoder.writeString(value)
+        }
+    }
+
+    @AutoCleanup('shutdown')
+    ForkJoinPool pool = new ForkJoinPool(4)
+
+    private static List<String> records() {
+        // some long records, so that lines straddle block boundaries
+        return (0..<2000).collect { 'v' + it + (it % 100 == 0 ? 'x' * 3000 : '') }
+    }
+
+    private byte[] write(List<String> records, int batchSize) {
+        def out = new ByteArrayOutputStream()
+        new NdjsonWriter<>(JSON_FACTORY, STRING_SERIALIZER).withPool(pool).withBatchSize(batchSize).write(out, records)
+        return out.toByteArray()
+    }
+
+    def "write"() {
+        expect:
+        new String(write(['a', 'b', 'c'], batchSize), StandardCharsets.UTF_8) == '"a"\n"b"\n"c"\n'
+
+        where:
+        batchSize << [1, 2, 1024]
+    }
+
+    def "ordered round trip"() {
+        given:
+        def records = records()
+        def read = []
+
+        when:
+        new NdjsonReader<>(JSON_FACTORY, STRING_SERIALIZER).withPool(pool).withBlockSize(blockSize)
+                .read(new ByteArrayInputStream(write(records, 37)), read.&add)
+
+        then:
+        read == records
+
+        where:
+        blockSize << [1, 10, 1000, 1 << 20]
+    }
+
+    def "unordered round trip"() {
+        given:
+        def records = records()
+        Set<String> read = ConcurrentHashMap.newKeySet()
+
+        when:
+        new NdjsonReader<>(JSON_FACTORY, STRING_SERIALIZER).withPool(pool).withBlockSize(blockSize).withOrdered(false)
+                .read(new ByteArrayInputStream(write(records, 37)), read.&add)
+
+        then:
+        read == records.toSet()
+
+        where:
+        blockSize << [1, 1000]
+    }
+
+    def "blank lines and missing final line break"() {
+        given:
+        def read = []
+
+        when:
+        new NdjsonReader<>(JSON_FACTORY, STRING_SERIALIZER).withPool(pool)
+                .read(new ByteArrayInputStream('"a"\n\n  \r\n"b"'.getBytes(StandardCharsets.UTF_8)), read.&add)
+
+        then:
+        read == ['a', 'b']
+    }
+
+    def "bad lines are isolated"() {
+        given:
+        def input = '"a"\n\n{"x":1}\n"b" "c"\n[\n"d"'
+        def read = []
+        List<Long> errorOffsets = Collections.synchronizedList([])
+
+        when:
+        new NdjsonReader<>(JSON_FACTORY, STRING_SERIALIZER).withPool(pool).withBlockSize(blockSize)
+                .withErrorHandler({ offset, error -> errorOffsets.add(offset) })
+                .read(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), read.&add)
+
+        then:
+        read == ['a', 'd']
+        errorOffsets.sort() == [5L, 13L, 21L]
+
+        where:
+        blockSize << [1, 1 << 20]
+    }
+
+    def "unchecked exceptions are isolated"() {
+        given:
+        def serializer = new Serializer<String>() {
+            @Override
+            String deserialize(JsonParser decoder) throws IOException {
+                def text = decoder.text
+                if (text == 'boom') {
+                    throw new IllegalStateException(text)
+                }
+                return text
+            }
+
+            @Override
+            void serialize(JsonGenerator encoder, String value) throws IOException {
+                encoder.writeString(value)
+            }
+        }
+        def read = []
+        List<Throwable> errors = Collections.synchronizedList([])
+
+        when:
+        new NdjsonReader<>(JSON_FACTORY, serializer).withPool(pool)
+                .withErrorHandler({ offset, error -> errors.add(error) })
+                .read(new ByteArrayInputStream('"a"\n"boom"\n"b"'.getBytes(StandardCharsets.UTF_8)), read.&add)
+
+        then:
+        read == ['a', 'b']
+        errors.size() == 1
+        errors[0] instanceof JsonParseException
+        errors[0].cause instanceof IllegalStateException
+    }
+
+    @Timeout(30)
+    def "lines much longer than the block size"() {
+        given:
+        def record = 'x' * (4 << 20)
+        def read = []
+
+        when:
+        new NdjsonReader<>(JSON_FACTORY, STRING_SERIALIZER).withPool(pool).withBlockSize(16)
+                .read(new ByteArrayInputStream(write([record, 'y'], 1)), read.&add)
+
+        then:
+        read == [record, 'y']
+    }
+
+    def "bad lines fail by default"() {
+        when:
+        new NdjsonReader<>(JSON_FACTORY, STRING_SERIALIZER).withPool(pool)
+                .read(new ByteArrayInputStream('"a"\n1\n'.getBytes(StandardCharsets.UTF_8)), {})
+
+        then:
+        thrown JsonParseException
+    }
+}
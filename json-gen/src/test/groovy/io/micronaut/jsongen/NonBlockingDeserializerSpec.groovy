@@ -0,0 +1,84 @@
+package io.micronaut.jsongen
+
+import com.fasterxml.jackson.core.JsonGenerator
+import com.fasterxml.jackson.core.JsonParser
+import com.fasterxml.jackson.core.JsonToken
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.charset.StandardCharsets
+
+class NonBlockingDeserializerSpec extends Specification implements SerializerUtils {
+    /**
+     * Blocking-only serializer that reads any value into nested lists and maps.
+     */
+    static final Serializer<Object> TREE_SERIALIZER = new Serializer<Object>() {
+        @Override
+        Object deserialize(JsonParser decoder) throws IOException {
+            switch (decoder.currentToken()) {
+                case JsonToken.START_ARRAY:
+                    def list = []
+                    while (decoder.nextToken() != JsonToken.END_ARRAY) {
+                        list.add(deserialize(decoder))
+                    }
+                    return list
+                case JsonToken.START_OBJECT:
+                    def map = [:]
+                    while (decoder.nextToken() != JsonToken.END_OBJECT) {
+                        def name = decoder.currentName
+                        decoder.nextToken()
+                        map[name] = deserialize(decoder)
+                    }
+                    return map
+                default:
+                    return decoder.text
+            }
+        }
+
+        @Override
+        void serialize(JsonGenerator encoder, Object value) throws IOException {
+            throw new UnsupportedOperationException()
+        }
+    }
+
+    @Unroll
+    def "blocking serializer input is captured, chunk size #chunkSize"() {
+        expect:
+        deserializeNonBlocking(TREE_SERIALIZER, '{"a": [1, "x\\u00e9"], "b": {}}', chunkSize) == [a: ['1', 'x\u00e9'], b: [:]]
+        deserializeNonBlocking(TREE_SERIALIZER, ' "scalar" ', chunkSize) == 'scalar'
+
+        where:
+        chunkSize << [1, 3, 100]
+    }
+
+    def "input after the value is ignored"() {
+        given:
+        def deserializer = NonBlockingDeserializer.create(JSON_FACTORY, TREE_SERIALIZER)
+        def bytes = '[1] [2]'.getBytes(StandardCharsets.UTF_8)
+
+        expect:
+        !deserializer.feed(bytes, 0, 2)
+        !deserializer.complete
+        deserializer.feed(bytes, 2, bytes.length - 2)
+        deserializer.result == ['1']
+    }
+
+    def "incomplete input"() {
+        given:
+        def deserializer = NonBlockingDeserializer.create(JSON_FACTORY, TREE_SERIALIZER)
+        def bytes = '[1'.getBytes(StandardCharsets.UTF_8)
+        deserializer.feed(bytes, 0, bytes.length)
+
+        when:
+        deserializer.result
+
+        then:
+        thrown IllegalStateException
+
+        when:
+        deserializer.endOfInput()
+
+        then:
+        thrown IOException
+    }
+}
@@ -0,0 +1,110 @@
+package io.micronaut.jsongen
+
+import com.fasterxml.jackson.core.JacksonException
+import com.fasterxml.jackson.core.JsonGenerator
+import com.fasterxml.jackson.core.JsonParser
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.ForkJoinPool
+
+class ParallelArrayReaderSpec extends Specification implements SerializerUtils {
+    /**
+     * Returns the element as normalized json text.
+     */
+    static final Serializer<String> TEXT_SERIALIZER = new Serializer<String>() {
+        @Override
+        String deserialize(JsonParser decoder) throws IOException {
+            def writer = new StringWriter()
+            try (def generator = JSON_FACTORY.createGenerator(writer)) {
+                generator.copyCurrentStructure(decoder)
+            }
+            return writer.toString()
+        }
+
+        @Override
+        void serialize(JsonGenerator encoder, String value) throws IOException {
+            throw new UnsupportedOperationException()
+        }
+    }
+
+    @AutoCleanup('shutdown')
+    ForkJoinPool pool = new ForkJoinPool(4)
+
+    private List<String> read(String json, int minTaskSize = 1) {
+        return new ParallelArrayReader<>(JSON_FACTORY, TEXT_SERIALIZER).withPool(pool).withMinTaskSize(minTaskSize)
+                .read(json.getBytes(StandardCharsets.UTF_8))
+    }
+
+    def "index"() {
+        given:
+        def json = ' [1, "a",{"b":[2]} ] '
+        def index = StructuralIndex.scanArray(json.getBytes(StandardCharsets.UTF_8))
+
+        expect:
+        index.size() == 3
+        json.substring(index.start(0), index.end(0)) == '1'
+        json.substring(index.start(1), index.end(1)) == ' "a"'
+        json.substring(index.start(2), index.end(2)) == '{"b":[2]} '
+    }
+
+    def "structural characters in strings"() {
+        expect:
+        read('[{"a":"x\\\\","b":[1,{"c":"],\\"}"}]}, "s,]" ,3, null,[[]],"\\u005c"]') ==
+                ['{"a":"x\\\\","b":[1,{"c":"],\\"}"}]}', '"s,]"', '3', 'null', '[[]]', '"\\\\"']
+    }
+
+    def "empty array"() {
+        expect:
+        read(json) == []
+
+        where:
+        json << ['[]', ' [ \n] ']
+    }
+
+    def "large array"() {
+        given:
+        def expected = (0..<10000).collect { '{"id":' + it + ',"s":"q\\""}' }
+
+        expect:
+        read('[' + expected.join(',') + ']', minTaskSize) == expected
+
+        where:
+        minTaskSize << [1, 64, 100000]
+    }
+
+    def "malformed input"() {
+        when:
+        read(json)
+
+        then:
+        // either found by the index, or by jackson while parsing a range
+        thrown JacksonException
+
+        where:
+        json << ['', '{}', '[1,]', '[,1]', '[1 2]', '[1', '["a]', '[1]]', '[}', '[1] x', '[{]', '[1, {"a"}]']
+    }
+
+    def "serializer that does not consume the whole element"() {
+        given:
+        def serializer = new Serializer<String>() {
+            @Override
+            String deserialize(JsonParser decoder) throws IOException {
+                return decoder.currentToken().toString()
+            }
+
+            @Override
+            void serialize(JsonGenerator encoder, String value) throws IOException {
+                throw new UnsupportedOperationException()
+            }
+        }
+
+        when:
+        new ParallelArrayReader<>(JSON_FACTORY, serializer).withPool(pool).withMinTaskSize(1)
+                .read('[{"a":1},{"b":2},{"c":3},{"d":4}]'.getBytes(StandardCharsets.UTF_8))
+
+        then:
+        thrown JsonParseException
+    }
+}
@@ -0,0 +1,205 @@
+package io.micronaut.jsongen
+
+import com.fasterxml.jackson.core.JsonGenerator
+import com.fasterxml.jackson.core.JsonParser
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import java.nio.channels.Channels
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.ForkJoinPool
+
+class ParallelSerializationSpec extends Specification implements SerializerUtils {
+    static final Serializer<String> OBJECT_SERIALIZER = new Serializer<String>() {
+        @Override
+        String deserialize(JsonParser decoder) throws IOException {
+            throw new UnsupportedOperationException()
+        }
+
+        @Override
+        void serialize(JsonGenerator encoder, String value) throws IOException {
+            encoder.writeStartObject()
+            encoder.writeStringField('v', value)
+            encoder.writeEndObject()
+        }
+    }
+
+    @AutoCleanup('shutdown')
+    ForkJoinPool pool = new ForkJoinPool(4)
+
+    def setup() {
+        ParallelSerialization.setPool(pool)
+    }
+
+    def cleanup() {
+        ParallelSerialization.setPool(ForkJoinPool.commonPool())
+    }
+
+    private static String expected(List<String> values) {
+        return '[' + values.collect { '{"v":"' + it + '"}' }.join(',') + ']'
+    }
+
+    private static String writeBytes(Closure<?> write) {
+        def out = new ByteArrayOutputStream()
+        try (def generator = JSON_FACTORY.createGenerator(out)) {
+            write(generator)
+        }
+        return out.toString('UTF-8')
+    }
+
+    private static String writeChars(Closure<?> write) {
+        def out = new StringWriter()
+        try (def generator = JSON_FACTORY.createGenerator(out)) {
+            write(generator)
+        }
+        return out.toString()
+    }
+
+    def "disabled by default"() {
+        expect:
+        !ParallelSerialization.shouldSplit(JSON_FACTORY.createGenerator(new StringWriter()), 1_000_000)
+    }
+
+    def "write to generator"() {
+        given:
+        def values = (0..<size).collect { 'x\u00e9' + it }
+
+        expect:
+        writeBytes { ParallelSerialization.writeArray(it, values, OBJECT_SERIALIZER) } == expected(values)
+        writeChars { ParallelSerialization.writeArray(it, values, OBJECT_SERIALIZER) } == expected(values)
+
+        where:
+        size << [0, 1, 255, 256, 10000]
+    }
+
+    def "nested in other output"() {
+        given:
+        def values = (0..<1000).collect { 'v' + it }
+
+        expect:
+        writeBytes {
+            it.writeStartArray()
+            it.writeString('before')
+            ParallelSerialization.writeArray(it, values, OBJECT_SERIALIZER)
+            it.writeString('after')
+            it.writeEndArray()
+        } == '["before",' + expected(values) + ',"after"]'
+    }
+
+    def "list without random access"() {
+        given:
+        def values = new LinkedList<String>((0..<10000).collect { 'v' + it })
+
+        expect:
+        writeBytes { ParallelSerialization.writeArray(it, values, OBJECT_SERIALIZER) } == expected(values)
+    }
+
+    def "large ranges do not flush the output stream"() {
+        given:
+        def values = (0..<10000).collect { 'v' + it }
+        int flushes = 0
+        def out = new ByteArrayOutputStream() {
+            @Override
+            void flush() throws IOException {
+                flushes++
+            }
+        }
+
+        when:
+        def generator = JSON_FACTORY.createGenerator(out)
+        generator.writeStartArray()
+        ParallelSerialization.writeArray(generator, values, OBJECT_SERIALIZER)
+        generator.writeEndArray()
+
+        then:
+        flushes == 0
+
+        when:
+        generator.close()
+
+        then:
+        out.toString('UTF-8') == '[' + expected(values) + ']'
+    }
+
+    def "escaping settings are applied to ranges"() {
+        given:
+        def values = (0..<1000).collect { 'x\u00e9' + it }
+
+        expect:
+        writeBytes {
+            it.enable(JsonGenerator.Feature.ESCAPE_NON_ASCII)
+            ParallelSerialization.writeArray(it, values, OBJECT_SERIALIZER)
+        } == expected(values.collect { it.replace('\u00e9', '\\u00E9') })
+    }
+
+    def "pretty printing is not split"() {
+        given:
+        ParallelSerialization.setThreshold(10)
+        def generator = JSON_FACTORY.createGenerator(new StringWriter()).useDefaultPrettyPrinter()
+
+        expect:
+        !ParallelSerialization.shouldSplit(generator, 100)
+        ParallelSerialization.shouldSplit(JSON_FACTORY.createGenerator(new StringWriter()), 100)
+        !ParallelSerialization.shouldSplit(JSON_FACTORY.createGenerator(new StringWriter()), 9)
+
+        cleanup:
+        ParallelSerialization.setThreshold(Integer.MAX_VALUE)
+    }
+
+    def "gathering write to channel"() {
+        given:
+        def values = (0..<size).collect { 'v' + it }
+        def out = new ByteArrayOutputStream()
+        def channel = Channels.newChannel(out)
+
+        when:
+        ParallelSerialization.writeArray(new GatheringChannelAdapter(channel), JSON_FACTORY, values, OBJECT_SERIALIZER)
+
+        then:
+        new String(out.toByteArray(), StandardCharsets.UTF_8) == expected(values)
+
+        where:
+        size << [0, 1, 5000]
+    }
+
+    /**
+     * Writes at most one buffer per call, to exercise partial writes.
+     */
+    static class GatheringChannelAdapter implements java.nio.channels.GatheringByteChannel {
+        final java.nio.channels.WritableByteChannel delegate
+
+        GatheringChannelAdapter(java.nio.channels.WritableByteChannel delegate) {
+            this.delegate = delegate
+        }
+
+        @Override
+        long write(java.nio.ByteBuffer[] srcs, int offset, int length) throws IOException {
+            for (int i = offset; i < offset + length; i++) {
+                if (srcs[i].hasRemaining()) {
+                    return delegate.write(srcs[i])
+                }
+            }
+            return 0
+        }
+
+        @Override
+        long write(java.nio.ByteBuffer[] srcs) throws IOException {
+            return write(srcs, 0, srcs.length)
+        }
+
+        @Override
+        int write(java.nio.ByteBuffer src) throws IOException {
+            return delegate.write(src)
+        }
+
+        @Override
+        boolean isOpen() {
+            return delegate.isOpen()
+        }
+
+        @Override
+        void close() throws IOException {
+            delegate.close()
+        }
+    }
+}
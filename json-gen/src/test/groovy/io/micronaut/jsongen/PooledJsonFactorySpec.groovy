@@ -0,0 +1,84 @@
+package io.micronaut.jsongen
+
+import com.fasterxml.jackson.core.JsonGenerator
+import com.fasterxml.jackson.core.JsonParser
+import com.fasterxml.jackson.core.util.BufferRecycler
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.charset.StandardCharsets
+
+class PooledJsonFactorySpec extends Specification {
+    static final Serializer<String> STRING_SERIALIZER = new Serializer<String>() {
+        @Override
+        String deserialize(JsonParser decoder) throws IOException {
+            return decoder.getText()
+        }
+
+        @Override
+        void serialize(JsonGenerator encoder, String value) throws IOException {
+            encoder.writeString(value)
+        }
+    }
+
+    @Unroll
+    def "round trip with #name pool"() {
+        given:
+        def factory = new PooledJsonFactory(pool)
+
+        when:
+        def bytes = factory.writeValueAsBytes(STRING_SERIALIZER, 'foo')
+        def out = new ByteArrayOutputStream()
+        factory.writeValue(out, STRING_SERIALIZER, 'bar')
+
+        then:
+        new String(bytes, StandardCharsets.UTF_8) == '"foo"'
+        out.toString('UTF-8') == '"bar"'
+        factory.readValue(STRING_SERIALIZER, bytes) == 'foo'
+        factory.readValue(STRING_SERIALIZER, '  "baz"'.getBytes(StandardCharsets.UTF_8), 2, 5) == 'baz'
+        factory.readValue(STRING_SERIALIZER, new ByteArrayInputStream(out.toByteArray())) == 'bar'
+
+        where:
+        name           | pool
+        'threadLocal'  | BufferRecyclerPool.threadLocal()
+        'nonRecycling' | BufferRecyclerPool.nonRecycling()
+        'striped'      | BufferRecyclerPool.striped()
+    }
+
+    def "recycler is returned to the pool"() {
+        given:
+        def pool = Mock(BufferRecyclerPool)
+        def recycler = new BufferRecycler()
+        def factory = new PooledJsonFactory(pool)
+
+        when:
+        factory.writeValueAsBytes(STRING_SERIALIZER, 'foo')
+
+        then:
+        1 * pool.acquire() >> recycler
+        1 * pool.release(recycler)
+
+        when:
+        factory.readValue(STRING_SERIALIZER, '"foo'.getBytes(StandardCharsets.UTF_8))
+
+        then:
+        thrown IOException
+        1 * pool.acquire() >> recycler
+        1 * pool.release(recycler)
+    }
+
+    def "striped pool is bounded"() {
+        given:
+        def pool = new StripedBufferRecyclerPool(1, 2)
+        def recyclers = (0..<3).collect { new BufferRecycler() }
+
+        when:
+        recyclers.each { pool.release(it) }
+        def acquired = (0..<3).collect { pool.acquire() }
+
+        then:
+        acquired[0].is(recyclers[0]) || acquired[0].is(recyclers[1])
+        acquired[1].is(recyclers[0]) || acquired[1].is(recyclers[1])
+        !acquired[2].is(recyclers[2])
+    }
+}
@@ -0,0 +1,81 @@
+package io.micronaut.jsongen
+
+import com.fasterxml.jackson.core.JsonGenerator
+import com.fasterxml.jackson.core.JsonParser
+import spock.lang.Specification
+
+class RuntimeTypeDispatcherSpec extends Specification implements SerializerUtils {
+    private static String dispatchToString(RuntimeTypeDispatcher dispatcher, Object value) {
+        def writer = new StringWriter()
+        def generator = JSON_FACTORY.createGenerator(writer)
+        dispatcher.serialize(generator, value)
+        generator.close()
+        return writer.toString()
+    }
+
+    def "built-in types"() {
+        given:
+        def dispatcher = new RuntimeTypeDispatcher({ null })
+
+        expect:
+        dispatchToString(dispatcher, value) == json
+
+        where:
+        value                                          | json
+        null                                           | 'null'
+        'foo'                                          | '"foo"'
+        true                                           | 'true'
+        42                                             | '42'
+        42L                                            | '42'
+        1.5D                                           | '1.5'
+        new BigDecimal('1.10')                         | '1.10'
+        Thread.State.NEW                               | '"NEW"'
+        [1, 'a', null]                                 | '[1,"a",null]'
+        ['a': [1], 'b': ['c': false]]                  | '{"a":[1],"b":{"c":false}}'
+        ['x', 'y'] as String[]                         | '["x","y"]'
+    }
+
+    def "lookup is cached per class"() {
+        given:
+        int lookups = 0
+        def dispatcher = new RuntimeTypeDispatcher({ Class<?> type ->
+            lookups++
+            return type == Point ? new PointSerializer() : null
+        })
+
+        expect:
+        dispatchToString(dispatcher, [new Point(x: 1), new Point(x: 2)]) == '[{"x":1},{"x":2}]'
+        dispatchToString(dispatcher, new Point(x: 3)) == '{"x":3}'
+        dispatcher.find(Point) instanceof PointSerializer
+        lookups == 2 // Point and ArrayList
+    }
+
+    def "unknown type"() {
+        given:
+        def dispatcher = new RuntimeTypeDispatcher({ null })
+
+        when:
+        dispatchToString(dispatcher, new Point())
+
+        then:
+        thrown NoSuchElementException
+    }
+
+    static class Point {
+        int x
+    }
+
+    static class PointSerializer implements Serializer<Point> {
+        @Override
+        Point deserialize(JsonParser decoder) throws IOException {
+            throw new UnsupportedOperationException()
+        }
+
+        @Override
+        void serialize(JsonGenerator encoder, Point value) throws IOException {
+            encoder.writeStartObject()
+            encoder.writeNumberField('x', value.x)
+            encoder.writeEndObject()
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package io.micronaut.jsongen
+
+import com.fasterxml.jackson.core.JsonGenerator
+import spock.lang.Specification
+
+class SerializedOutputCacheSpec extends Specification implements SerializerUtils {
+    private static <T> String write(SerializedOutputCache<T> cache, T value, Closure<?> configure = {}) {
+        def writer = new StringWriter()
+        def generator = JSON_FACTORY.createGenerator(writer)
+        configure(generator)
+        cache.serialize(generator, value)
+        generator.close()
+        return writer.toString()
+    }
+
+    private static SerializedOutputCache<List<String>> newCache(long maxBytes, List<Integer> calls) {
+        return new SerializedOutputCache<List<String>>(maxBytes, { JsonGenerator encoder, List<String> value ->
+            calls.add(1)
+            encoder.writeStartArray()
+            value.each { encoder.writeString(it) }
+            encoder.writeEndArray()
+        } as SerializedOutputCache.Writer<List<String>>)
+    }
+
+    def "hit writes the cached output until invalidated"() {
+        given:
+        def calls = []
+        def cache = newCache(1000, calls)
+        def value = ['a']
+
+        expect:
+        write(cache, value) == '["a"]'
+        calls.size() == 1
+
+        when:
+        value.add('b')
+
+        then:
+        write(cache, value) == '["a"]'
+        calls.size() == 1
+        cache.size == 5
+        cache.getCachedSize(value) == 5
+
+        when:
+        cache.invalidate(value)
+
+        then:
+        cache.getCachedSize(value) == -1
+        write(cache, value) == '["a","b"]'
+        calls.size() == 2
+    }
+
+    def "equal values are cached separately"() {
+        given:
+        def calls = []
+        def cache = newCache(1000, calls)
+
+        when:
+        write(cache, ['a'])
+        write(cache, ['a'])
+
+        then:
+        calls.size() == 2
+        cache.size == 10
+    }
+
+    def "least recently used entries are evicted"() {
+        given:
+        def calls = []
+        def cache = newCache(12, calls)
+        def a = ['a']
+        def b = ['b']
+        def c = ['c']
+
+        when:
+        write(cache, a)
+        write(cache, b)
+        write(cache, a)
+        write(cache, c)
+
+        then:
+        calls.size() == 3
+        cache.size == 10
+
+        when:
+        write(cache, a)
+        write(cache, b)
+
+        then:
+        calls.size() == 4
+    }
+
+    def "pretty printing bypasses the cache"() {
+        given:
+        def calls = []
+        def cache = newCache(1000, calls)
+        def value = ['a']
+
+        expect:
+        write(cache, value, { it.useDefaultPrettyPrinter() }) == '[ "a" ]'
+        cache.size == 0
+    }
+
+    def "generator settings that change the output bypass the cache"() {
+        given:
+        def cache = new SerializedOutputCache<Map<String, Object>>(1000, { JsonGenerator encoder, Map<String, Object> value ->
+            encoder.writeStartObject()
+            encoder.writeStringField('s', (String) value.s)
+            encoder.writeNumberField('n', (double) value.n)
+            encoder.writeEndObject()
+        } as SerializedOutputCache.Writer<Map<String, Object>>)
+        def value = [s: 'x\u00e4', n: 1.5D]
+
+        expect:
+        write(cache, value, configure) == expected
+        cache.size == 0
+
+        where:
+        configure << [
+                { it.enable(JsonGenerator.Feature.ESCAPE_NON_ASCII) },
+                { it.enable(JsonGenerator.Feature.WRITE_NUMBERS_AS_STRINGS) },
+                { it.disable(JsonGenerator.Feature.QUOTE_FIELD_NAMES) },
+                { it.setHighestNonEscapedChar(0x7f) },
+        ]
+        expected << [
+                '{"s":"x\\u00E4","n":1.5}',
+                '{"s":"x\u00e4","n":"1.5"}',
+                '{s:"x\u00e4",n:1.5}',
+                '{"s":"x\\u00E4","n":1.5}',
+        ]
+    }
+
+    def "settings of the target stream do not bypass the cache"() {
+        given:
+        def calls = []
+        def cache = newCache(1000, calls)
+        def value = ['a']
+
+        when:
+        write(cache, value)
+        write(cache, value, { it.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET).disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM) })
+
+        then:
+        calls.size() == 1
+    }
+}
@@ -0,0 +1,116 @@
+package io.micronaut.jsongen
+
+import com.fasterxml.jackson.core.JsonFactory
+import com.fasterxml.jackson.core.JsonGenerator
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class SerializedSizeSpec extends Specification {
+    static final JsonFactory JSON_FACTORY = new JsonFactory()
+
+    @Unroll
+    def "string size matches jackson: #value"() {
+        expect:
+        SerializedSize.ofString(value) == size { StringCodec.writeString(it, value) }
+
+        where:
+        value << [
+                null,
+                '',
+                'short',
+                'a string with "quotes" and \\backslashes\\ and /slashes/',
+                'a string with control chars \u0000\u0001\b\t\n\f\r\u001f\u007f',
+                'a string with non-ascii chars \u00e4\u00f6\u00fc\u07ff\u0800\u65e5\u672c\uffff',
+                'a string with a surrogate pair \ud83d\ude00',
+                'an unpaired surrogate \ud800 and \udc00',
+        ]
+    }
+
+    @Unroll
+    def "number size matches jackson: #value"() {
+        expect:
+        SerializedSize.ofInt(value as int) == size { it.writeNumber(value as int) }
+        SerializedSize.ofLong(value) == size { it.writeNumber(value) }
+
+        where:
+        value << [0L, 1L, -1L, 9L, 10L, -10L, 99L, 100L, Integer.MAX_VALUE, Integer.MIN_VALUE, 999999999999999999L,
+                  1000000000000000000L, Long.MAX_VALUE, Long.MIN_VALUE]
+    }
+
+    @Unroll
+    def "floating point size matches jackson: #value"() {
+        expect:
+        SerializedSize.ofDouble(value) == size { FloatingPointCodec.writeDouble(it, value) }
+        SerializedSize.ofFloat(value as float) == size { FloatingPointCodec.writeFloat(it, value as float) }
+
+        where:
+        value << [0.0d, -0.0d, 1.5d, 0.1d, 1e300d, Double.MIN_VALUE, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY]
+    }
+
+    def "raw string size"() {
+        expect:
+        SerializedSize.ofRawString('["\u00e4\ud83d\ude00"]') == size { it.writeRawValue('["\u00e4\ud83d\ude00"]') }
+    }
+
+    def "raw fields"() {
+        given:
+        def properties = new RawProperties()
+        properties.add('a', RawJson.of('[1, 2.50]'))
+        properties.add('\u00e4"', RawJson.of('null'))
+
+        expect:
+        SerializedSize.ofFields((RawProperties) null) == 0
+        // the closing brace takes the place of the last separator
+        SerializedSize.ofFields(properties) + 1 == size { it.writeStartObject(); properties.serialize(it); it.writeEndObject() }
+        SerializedSize.ofFields([a: RawJson.of('[1, 2.50]'), '\u00e4"': RawJson.of('null')]) == SerializedSize.ofFields(properties)
+    }
+
+    def "measure counts the output of any serializer"() {
+        given:
+        def serializer = new Serializer<String>() {
+            @Override
+            String deserialize(com.fasterxml.jackson.core.JsonParser decoder) throws IOException {
+                throw new UnsupportedOperationException()
+            }
+
+            @Override
+            void serialize(JsonGenerator encoder, String value) throws IOException {
+                encoder.writeStartArray()
+                encoder.writeString(value)
+                encoder.writeEndArray()
+            }
+        }
+
+        expect:
+        serializer.serializedSize('\u00e4') == 6
+    }
+
+    def "measure does not consume values that can only be read once"() {
+        given:
+        def serializer = new Serializer<Object>() {
+            @Override
+            Object deserialize(com.fasterxml.jackson.core.JsonParser decoder) throws IOException {
+                throw new UnsupportedOperationException()
+            }
+
+            @Override
+            void serialize(JsonGenerator encoder, Object value) throws IOException {
+                throw new AssertionError('consumed by measure')
+            }
+        }
+
+        expect:
+        serializer.serializedSize(cursor) == -1
+
+        where:
+        cursor << [['a'].stream(), ['a'].iterator(), ['a'].spliterator(), java.util.stream.IntStream.of(1)]
+    }
+
+    private static long size(Closure<?> closure) {
+        def out = new ByteArrayOutputStream()
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            closure(generator)
+        }
+        return out.size()
+    }
+}
@@ -0,0 +1,195 @@
+package io.micronaut.jsongen
+
+import com.fasterxml.jackson.core.JsonGenerator
+import com.fasterxml.jackson.core.JsonParser
+import spock.lang.Specification
+
+class SerializerRegistrySpec extends Specification implements SerializerUtils {
+    private static SerializerRegistry emptyRegistry() {
+        return SerializerRegistry.load(new URLClassLoader(new URL[0], (ClassLoader) null))
+    }
+
+    def "unknown type"() {
+        given:
+        def registry = emptyRegistry()
+
+        when:
+        registry.get(String)
+
+        then:
+        thrown NoSuchElementException
+        registry.find(String) == null
+    }
+
+    def "registered serializer"() {
+        given:
+        def registry = emptyRegistry()
+        def serializer = new UpperCaseSerializer()
+        registry.register(String, serializer)
+
+        expect:
+        registry.get(String).is(serializer)
+        serializeToString(registry.get(String), 'foo') == '"FOO"'
+    }
+
+    def "provider is called once and can look up its dependencies"() {
+        given:
+        def registry = emptyRegistry()
+        registry.register(String, new UpperCaseSerializer())
+        int created = 0
+        registry.register(new SerializerProvider() {
+            @Override
+            Class<?> getValueType() {
+                return List
+            }
+
+            @Override
+            Serializer<?> create(SerializerRegistry r) {
+                created++
+                return new SingletonListSerializer(r.resolve(String.name))
+            }
+        })
+
+        expect:
+        serializeToString(registry.get(List), ['foo']) == '["FOO"]'
+        registry.get(List).is(registry.get(List))
+        created == 1
+    }
+
+    def "generic dependency"() {
+        given:
+        def registry = emptyRegistry()
+        registry.register(String, new UpperCaseSerializer())
+        List<List<String>> typeArguments = []
+        registry.register(new SerializerProvider() {
+            @Override
+            Class<?> getValueType() {
+                return List
+            }
+
+            @Override
+            Serializer<?> create(SerializerRegistry r) {
+                throw new UnsupportedOperationException()
+            }
+
+            @Override
+            Serializer<?> create(SerializerRegistry r, List<String> arguments) {
+                typeArguments << arguments
+                return new SingletonListSerializer(r.resolve(arguments[0]))
+            }
+        })
+        registry.register(new SerializerProvider() {
+            @Override
+            Class<?> getValueType() {
+                return Holder
+            }
+
+            @Override
+            Serializer<?> create(SerializerRegistry r) {
+                // the key format of generated providers
+                return new HolderSerializer(r.resolve('java.util.List<java.lang.String>'))
+            }
+        })
+
+        expect:
+        serializeToString(registry.get(Holder), new Holder(list: ['foo'])) == '{"list":["FOO"]}'
+        registry.resolve('java.util.List<java.lang.String>').is(registry.resolve('java.util.List<java.lang.String>'))
+        typeArguments == [['java.lang.String']]
+    }
+
+    def "type arguments are split at the top level"() {
+        given:
+        def registry = emptyRegistry()
+        List<String> typeArguments = null
+        registry.register(new SerializerProvider() {
+            @Override
+            Class<?> getValueType() {
+                return Map
+            }
+
+            @Override
+            Serializer<?> create(SerializerRegistry r) {
+                throw new UnsupportedOperationException()
+            }
+
+            @Override
+            Serializer<?> create(SerializerRegistry r, List<String> arguments) {
+                typeArguments = arguments
+                return new UpperCaseSerializer()
+            }
+        })
+
+        when:
+        registry.resolve('java.util.Map<java.lang.String, java.util.Map<java.lang.Integer, java.util.List<java.lang.String>>>')
+
+        then:
+        typeArguments == ['java.lang.String', 'java.util.Map<java.lang.Integer, java.util.List<java.lang.String>>']
+    }
+
+    def "registered serializer of the raw type handles parameterizations"() {
+        given:
+        def registry = emptyRegistry()
+        def serializer = new UpperCaseSerializer()
+        registry.register(List, (Serializer) serializer)
+
+        expect:
+        registry.resolve('java.util.List<java.lang.String>').is(serializer)
+    }
+
+    static class Holder {
+        List<String> list
+    }
+
+    static class HolderSerializer implements Serializer<Holder> {
+        final Serializer<List<String>> list
+
+        HolderSerializer(Serializer<List<String>> list) {
+            this.list = list
+        }
+
+        @Override
+        Holder deserialize(JsonParser decoder) throws IOException {
+            throw new UnsupportedOperationException()
+        }
+
+        @Override
+        void serialize(JsonGenerator encoder, Holder value) throws IOException {
+            encoder.writeStartObject()
+            encoder.writeFieldName('list')
+            list.serialize(encoder, value.list)
+            encoder.writeEndObject()
+        }
+    }
+
+    static class UpperCaseSerializer implements Serializer<String> {
+        @Override
+        String deserialize(JsonParser decoder) throws IOException {
+            return decoder.text
+        }
+
+        @Override
+        void serialize(JsonGenerator encoder, String value) throws IOException {
+            encoder.writeString(value.toUpperCase())
+        }
+    }
+
+    static class SingletonListSerializer implements Serializer<List<String>> {
+        final Serializer<String> element
+
+        SingletonListSerializer(Serializer<String> element) {
+            this.element = element
+        }
+
+        @Override
+        List<String> deserialize(JsonParser decoder) throws IOException {
+            throw new UnsupportedOperationException()
+        }
+
+        @Override
+        void serialize(JsonGenerator encoder, List<String> value) throws IOException {
+            encoder.writeStartArray()
+            element.serialize(encoder, value[0])
+            encoder.writeEndArray()
+        }
+    }
+}
@@ -5,6 +5,9 @@ import com.fasterxml.jackson.core.JsonFactoryBuilder
 import com.fasterxml.jackson.core.JsonParser
 import org.intellij.lang.annotations.Language
 
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+
 trait SerializerUtils {
     static final JsonFactory JSON_FACTORY = new JsonFactoryBuilder().build();
 
@@ -22,4 +25,30 @@ trait SerializerUtils {
         parser.nextToken() // place parser at first token
         return serializer.deserialize(parser)
     }
-}
\ No newline at end of file
+
+    /**
+     * Deserialize using {@link NonBlockingDeserializer}, feeding the input in chunks of the given size.
+     */
+    static <T> T deserializeNonBlocking(Serializer<T> serializer, @Language("json") String json, int chunkSize = 1) {
+        def bytes = json.getBytes(StandardCharsets.UTF_8)
+        def deserializer = NonBlockingDeserializer.create(JSON_FACTORY, serializer)
+        for (int i = 0; i < bytes.length; i += chunkSize) {
+            deserializer.feed(bytes, i, Math.min(chunkSize, bytes.length - i))
+        }
+        deserializer.endOfInput()
+        return deserializer.getResult()
+    }
+
+    /**
+     * Serialize using {@link ChunkedSerializer}, and concatenate the chunks.
+     */
+    static <T> String serializeChunked(Serializer<T> serializer, T value, int chunkSize = 1) {
+        def out = new ByteArrayOutputStream()
+        def chunked = ChunkedSerializer.create(JSON_FACTORY, serializer, value, chunkSize)
+        ByteBuffer chunk
+        while ((chunk = chunked.nextChunk()) != null) {
+            out.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining())
+        }
+        return out.toString('UTF-8')
+    }
+}
@@ -0,0 +1,97 @@
+package io.micronaut.jsongen
+
+import com.fasterxml.jackson.core.JsonFactory
+import com.fasterxml.jackson.core.JsonGenerator
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.charset.StandardCharsets
+
+class StringCodecSpec extends Specification {
+    static final JsonFactory JSON_FACTORY = new JsonFactory()
+
+    @Unroll
+    def "output matches jackson: #value"() {
+        expect:
+        // the cast picks the String overload for null
+        write { StringCodec.writeString(it, value) } == write { it.writeString((String) value) }
+        writeChars { StringCodec.writeString(it, value) } == writeChars { it.writeString((String) value) }
+
+        where:
+        value << [
+                null,
+                'short',
+                'a plain ascii string that is long enough',
+                'a string with "quotes" and \\backslashes\\',
+                'a string with control chars \u0001\n\t',
+                'a string with non-ascii chars \u00e4\u00f6\u00fc\u65e5\u672c',
+                'a string with a surrogate pair \ud83d\ude00',
+                'an unpaired surrogate \ud800 and a ? question mark',
+                'questions? are fine? in ascii strings?',
+                'a string with a delete char \u007f that is not escaped',
+                'x' * 10000,
+        ]
+    }
+
+    def "separators match jackson"() {
+        given:
+        def value = 'a plain ascii string that is long enough'
+        def writeAll = { JsonGenerator generator, Closure<?> writeValue ->
+            generator.writeStartArray()
+            writeValue(generator)
+            writeValue(generator)
+            generator.writeStartObject()
+            generator.writeFieldName('a')
+            writeValue(generator)
+            generator.writeFieldName('b')
+            writeValue(generator)
+            generator.writeEndObject()
+            generator.writeEndArray()
+            writeValue(generator)
+        }
+
+        expect:
+        write { writeAll(it) { StringCodec.writeString(it, value) } } == write { writeAll(it) { it.writeString(value) } }
+        write { it.useDefaultPrettyPrinter(); writeAll(it) { StringCodec.writeString(it, value) } } ==
+                write { it.useDefaultPrettyPrinter(); writeAll(it) { it.writeString(value) } }
+    }
+
+    def "escape settings are respected"() {
+        given:
+        def value = 'a plain ascii string that is long enough'
+
+        expect:
+        write { it.setHighestNonEscapedChar(0x60); StringCodec.writeString(it, value) } ==
+                write { it.setHighestNonEscapedChar(0x60); it.writeString(value) }
+    }
+
+    def "scalar scanner"() {
+        given:
+        def bytes = 'abc"def\\gh\u00e4\u0001?'.getBytes(StandardCharsets.UTF_8)
+        def scanner = ScalarByteScanner.INSTANCE
+
+        expect:
+        scanner.indexOfEscapeOrNonAscii(bytes, 0, bytes.length) == 3
+        scanner.indexOfEscapeOrNonAscii(bytes, 4, 7) == 7
+        scanner.indexOfQuoteOrBackslash(bytes, 4, bytes.length) == 7
+        scanner.indexOfNonAscii(bytes, 0, bytes.length) == 10
+        scanner.indexOf(bytes, 0, bytes.length, (byte) ('?' as char)) == 13
+        scanner.indexOf(bytes, 0, 13, (byte) ('?' as char)) == 13
+    }
+
+    private static String write(Closure<?> closure) {
+        def out = new ByteArrayOutputStream()
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            closure(generator)
+        }
+        return out.toString('UTF-8')
+    }
+
+    private static String writeChars(Closure<?> closure) {
+        def out = new StringWriter()
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            closure(generator)
+        }
+        return out.toString()
+    }
+}
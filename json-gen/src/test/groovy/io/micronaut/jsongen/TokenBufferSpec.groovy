@@ -0,0 +1,99 @@
+package io.micronaut.jsongen
+
+import com.fasterxml.jackson.core.JsonParser
+import com.fasterxml.jackson.core.JsonToken
+import spock.lang.Specification
+
+class TokenBufferSpec extends Specification implements SerializerUtils {
+    private static List<String> drain(JsonParser parser) {
+        def tokens = []
+        for (def token = parser.currentToken(); token != null; token = parser.nextToken()) {
+            tokens.add(token.isScalarValue() || token == JsonToken.FIELD_NAME ? token.name() + ':' + parser.getText() : token.name())
+        }
+        return tokens
+    }
+
+    def "replay prefix and continue with the input"() {
+        given:
+        def parser = JSON_FACTORY.createParser('{"a":1,"b":{"c":[1.5,"x"]},"@type":"dog","d":true} 5')
+        parser.nextToken()
+        parser.nextToken()
+        def buffer = new TokenBuffer()
+
+        when:
+        def typeId = buffer.bufferUntilProperty(parser, '@type')
+        def replay = buffer.asParser(parser)
+        def tokens = drain(replay)
+
+        then:
+        typeId == 'dog'
+        tokens == [
+                'START_OBJECT',
+                'FIELD_NAME:a', 'VALUE_NUMBER_INT:1',
+                'FIELD_NAME:b', 'START_OBJECT', 'FIELD_NAME:c', 'START_ARRAY', 'VALUE_NUMBER_FLOAT:1.5', 'VALUE_STRING:x', 'END_ARRAY', 'END_OBJECT',
+                'FIELD_NAME:d', 'VALUE_TRUE:true',
+                'END_OBJECT',
+                'VALUE_NUMBER_INT:5'
+        ]
+    }
+
+    def "missing property buffers the whole object"() {
+        given:
+        def parser = JSON_FACTORY.createParser('{"a":1} {}')
+        parser.nextToken()
+        parser.nextToken()
+        def buffer = new TokenBuffer()
+
+        when:
+        def typeId = buffer.bufferUntilProperty(parser, '@type')
+
+        then:
+        typeId == null
+        parser.currentToken() == JsonToken.END_OBJECT
+        drain(buffer.asParser()) == ['START_OBJECT', 'FIELD_NAME:a', 'VALUE_NUMBER_INT:1', 'END_OBJECT']
+    }
+
+    def "replayed values"() {
+        given:
+        def parser = JSON_FACTORY.createParser('{"i":42,"l":12345678901,"d":0.1,"s":"str","n":{"x":null}}')
+        parser.nextToken()
+        parser.nextToken()
+        def buffer = new TokenBuffer()
+        buffer.bufferUntilProperty(parser, '@type')
+        def replay = buffer.asParser()
+
+        expect:
+        replay.nextToken() == JsonToken.FIELD_NAME
+        replay.currentName == 'i'
+        replay.nextToken() == JsonToken.VALUE_NUMBER_INT
+        replay.numberType == JsonParser.NumberType.INT
+        replay.intValue == 42
+        replay.nextToken() == JsonToken.FIELD_NAME
+        replay.nextToken() == JsonToken.VALUE_NUMBER_INT
+        replay.numberType == JsonParser.NumberType.LONG
+        replay.longValue == 12345678901L
+        replay.nextToken() == JsonToken.FIELD_NAME
+        replay.nextToken() == JsonToken.VALUE_NUMBER_FLOAT
+        FloatingPointCodec.readDouble(replay) == 0.1D
+        replay.nextToken() == JsonToken.FIELD_NAME
+        replay.nextToken() == JsonToken.VALUE_STRING
+        replay.text == 'str'
+        replay.nextToken() == JsonToken.FIELD_NAME
+        replay.nextToken() == JsonToken.START_OBJECT
+        replay.currentName == 'n'
+        replay.skipChildren().currentToken() == JsonToken.END_OBJECT
+        replay.nextToken() == JsonToken.END_OBJECT
+        replay.nextToken() == null
+    }
+
+    def "continue object"() {
+        given:
+        def parser = JSON_FACTORY.createParser('{"@type":"dog","name":"rex"}')
+        parser.nextToken()
+        parser.nextToken()
+        parser.nextToken()
+
+        expect:
+        drain(TokenBuffer.continueObject(parser)) == ['START_OBJECT', 'FIELD_NAME:name', 'VALUE_STRING:rex', 'END_OBJECT']
+    }
+}
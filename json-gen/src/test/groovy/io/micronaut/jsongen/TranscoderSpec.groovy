@@ -0,0 +1,109 @@
+package io.micronaut.jsongen
+
+import io.micronaut.annotation.processing.test.AbstractTypeElementSpec
+
+class TranscoderSpec extends AbstractTypeElementSpec implements SerializerUtils {
+    private static String transcode(Transcoder transcoder, String json) {
+        def parser = JSON_FACTORY.createParser(json)
+        parser.nextToken()
+        def writer = new StringWriter()
+        def generator = JSON_FACTORY.createGenerator(writer)
+        transcoder.transcode(parser, generator)
+        generator.close()
+        return writer.toString()
+    }
+
+    void "exclude and rename"() {
+        given:
+        def compiled = buildClassLoader('example.PublicOrder', '''
+package example;
+
+import io.micronaut.jsongen.*;
+
+@SerializableBean
+class Order {
+    public String id;
+    @com.fasterxml.jackson.annotation.JsonAlias("cust")
+    public String customer;
+    public String internalId;
+    public java.util.List<String> items;
+}
+
+@TranscodingFilter(model = Order.class, exclude = "internalId", rename = @TranscodingFilter.Rename(from = "customer", to = "customerId"))
+interface PublicOrder extends Transcoder {
+}
+''')
+        def transcoder = (Transcoder) compiled.loadClass('example.PublicOrder$Transcoder').newInstance()
+
+        expect:
+        compiled.loadClass('example.PublicOrder').isInstance(transcoder)
+        transcode(transcoder, '{"internalId":"x","id":"1","cust":"c","items":["a",{"q":1.50}]}') == '{"id":"1","customerId":"c","items":["a",{"q":1.50}]}'
+
+        when:
+        transcode(transcoder, '{"id":"1","other":1}')
+
+        then:
+        def e = thrown JsonParseException
+        e.message.contains("Unknown property")
+    }
+
+    void "unknown properties follow the model"() {
+        given:
+        def compiled = buildClassLoader('example.Filter', '''
+package example;
+
+import io.micronaut.jsongen.*;
+
+@SerializableBean
+@com.fasterxml.jackson.annotation.JsonIgnoreProperties(ignoreUnknown = true)
+class Lenient {
+    public String id;
+}
+
+@SerializableBean
+class Forwarding {
+    public String id;
+    @com.fasterxml.jackson.annotation.JsonAnySetter
+    @com.fasterxml.jackson.annotation.JsonAnyGetter
+    RawProperties extra;
+}
+
+@TranscodingFilter(model = Lenient.class)
+class Filter {
+}
+
+@TranscodingFilter(model = Forwarding.class, exclude = "id")
+class ForwardingFilter {
+}
+''')
+        def lenient = (Transcoder) compiled.loadClass('example.Filter$Transcoder').newInstance()
+        def forwarding = (Transcoder) compiled.loadClass('example.ForwardingFilter$Transcoder').newInstance()
+
+        expect:
+        transcode(lenient, '{"id":"1","other":{"x":[1]}}') == '{"id":"1"}'
+        transcode(forwarding, '{"id":"1","other":{"x":[1]}}') == '{"other":{"x":[1]}}'
+    }
+
+    void "unknown excluded property gives error"() {
+        when:
+        buildClassLoader('example.Filter', '''
+package example;
+
+import io.micronaut.jsongen.*;
+
+@SerializableBean
+class Order {
+    public String id;
+}
+
+@TranscodingFilter(model = Order.class, exclude = "nope")
+class Filter {
+}
+''')
+        then:
+        def e = thrown Exception
+
+        expect:
+        e.message.contains("Excluded property nope is not a property of example.Order")
+    }
+}
@@ -0,0 +1,85 @@
+package io.micronaut.jsongen
+
+import spock.lang.Specification
+
+class UntypedCodecSpec extends Specification implements SerializerUtils {
+    def "natural types"() {
+        expect:
+        deserializeFromString(UntypedCodec.DEFAULT, json) == value
+        deserializeFromString(UntypedCodec.DEFAULT, json)?.getClass() == type
+
+        where:
+        json                                   | value                                  | type
+        '"foo"'                                | 'foo'                                  | String
+        '42'                                   | 42                                     | Integer
+        '12345678901'                          | 12345678901L                           | Long
+        '123456789012345678901234567890'       | new BigInteger('123456789012345678901234567890') | BigInteger
+        '1.5'                                  | 1.5D                                   | Double
+        'true'                                 | true                                   | Boolean
+        'null'                                 | null                                   | null
+        '[1,"a",null]'                         | [1, 'a', null]                         | ArrayList
+        '{"a":{"b":[]}}'                       | ['a': ['b': []]]                       | SmallMap
+    }
+
+    def "round trip"() {
+        expect:
+        serializeToString(UntypedCodec.DEFAULT, deserializeFromString(UntypedCodec.DEFAULT, json)) == json
+
+        where:
+        json << [
+                '{"a":1,"b":[true,false,null],"c":{"d":"e"},"f":1.25}',
+                '{"1":1,"2":2,"3":3,"4":4,"5":5,"6":6,"7":7,"8":8,"9":9,"10":10}',
+                '[123456789012345678901234567890,-5,"x"]',
+        ]
+    }
+
+    def "small maps"() {
+        given:
+        def small = deserializeFromString(UntypedCodec.DEFAULT, '{"a":1,"b":2,"a":3}')
+        def large = deserializeFromString(UntypedCodec.DEFAULT, '{"1":1,"2":2,"3":3,"4":4,"5":5,"6":6,"7":7,"8":8,"9":9}')
+
+        expect:
+        // last value wins for duplicate keys
+        small == ['a': 3, 'b': 2]
+        small instanceof SmallMap
+        large instanceof LinkedHashMap
+        large.size() == 9
+
+        when:
+        small.put('c', 4)
+        small.remove('a')
+        def iterator = small.entrySet().iterator()
+        iterator.next().setValue(5)
+
+        then:
+        small == ['b': 5, 'c': 4]
+        small.keySet().toList() == ['b', 'c']
+        small.hashCode() == ['b': 5, 'c': 4].hashCode()
+    }
+
+    def "lazy big numbers"() {
+        given:
+        def codec = new UntypedCodec(true, null)
+        def value = deserializeFromString(codec, '[123456789012345678901234567890,5]')
+
+        expect:
+        value[0] instanceof LazyNumber
+        value[0].bigIntegerValue() == new BigInteger('123456789012345678901234567890')
+        value[1] == 5
+        serializeToString(codec, value) == '[123456789012345678901234567890,5]'
+    }
+
+    def "other types go through the fallback"() {
+        given:
+        def codec = new UntypedCodec(false, new RuntimeTypeDispatcher({ null }))
+
+        expect:
+        serializeToString(codec, ['state': Thread.State.NEW, 'array': ['x'] as String[]]) == '{"state":"NEW","array":["x"]}'
+
+        when:
+        serializeToString(UntypedCodec.DEFAULT, Thread.State.NEW)
+
+        then:
+        thrown NoSuchElementException
+    }
+}
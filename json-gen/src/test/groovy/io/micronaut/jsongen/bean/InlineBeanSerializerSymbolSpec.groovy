@@ -1,6 +1,7 @@
 package io.micronaut.jsongen.bean
 
 import io.micronaut.jsongen.JsonParseException
+import spock.lang.Unroll
 
 class InlineBeanSerializerSymbolSpec extends AbstractBeanSerializerSpec {
     void "simple bean"() {
@@ -502,4 +503,136 @@ class Test {
         deserializeFromString(compiled.serializer, '"bar"').foo == 'bar'
         serializeToString(compiled.serializer, testBean) == '"bar"'
     }
+
+    @Unroll
+    void "non-blocking deserialization with chunk size #chunkSize"() {
+        given:
+        def compiled = buildSerializer('''
+package example;
+
+import com.fasterxml.jackson.annotation.*;
+import java.util.List;
+@JsonIgnoreProperties(ignoreUnknown = true)
+class Test {
+    public String foo;
+    public List<Name> names;
+    public int[] numbers;
+    public Name single;
+}
+
+class Name {
+    final String first;
+    final List<String> middle;
+
+    @JsonCreator
+    Name(@JsonProperty("first") String first, @JsonProperty("middle") List<String> middle) {
+        this.first = first;
+        this.middle = middle;
+    }
+}
+''')
+        def json = '{"unknown": {"a": [1, {"b": []}]}, "foo": "bar", "names": [{"first": "x", "middle": ["y", "z"]}, {"middle": []}], "numbers": [1, 2, 3], "single": {"first": "w"}}'
+        def des = deserializeNonBlocking(compiled.serializer, json, chunkSize)
+
+        expect:
+        des.foo == 'bar'
+        des.names.size() == 2
+        des.names[0].first == 'x'
+        des.names[0].middle == ['y', 'z']
+        des.names[1].first == null
+        des.names[1].middle == []
+        des.numbers == [1, 2, 3] as int[]
+        des.single.first == 'w'
+        des.single.middle == null
+
+        where:
+        chunkSize << [1, 2, 7, 1000]
+    }
+
+    void "non-blocking deserialization reports errors"() {
+        given:
+        def compiled = buildSerializer('''
+package example;
+
+class Test {
+    String foo;
+}
+''')
+
+        when:
+        deserializeNonBlocking(compiled.serializer, json)
+
+        then:
+        thrown IOException
+
+        where:
+        json << ['{"foo": "1", "bar": "2"}', '{"foo": "1", "foo": "2"}', '{"foo": "1"', '{"foo": []}']
+    }
+
+    @Unroll
+    void "chunked serialization with chunk size #chunkSize"() {
+        given:
+        def compiled = buildSerializer('''
+package example;
+
+import com.fasterxml.jackson.annotation.*;
+import io.micronaut.core.annotation.Nullable;
+import java.util.List;
+class Test {
+    public String foo;
+    public List<Name> names;
+    public int[] numbers;
+    @JsonUnwrapped public Name single;
+    @Nullable public List<String> missing;
+}
+
+class Name {
+    public String first;
+    public List<String> middle;
+}
+''')
+        def testBean = compiled.newInstance()
+        testBean.foo = 'bar'
+        def name = compiled.beanClass.classLoader.loadClass('example.Name').newInstance()
+        name.first = 'x'
+        name.middle = ['y', 'z']
+        testBean.names = [name, name]
+        testBean.numbers = [1, 2, 3] as int[]
+        testBean.single = name
+
+        expect:
+        serializeChunked(compiled.serializer, testBean, chunkSize) == '{"foo":"bar","names":[{"first":"x","middle":["y","z"]},{"first":"x","middle":["y","z"]}],"numbers":[1,2,3],"first":"x","middle":["y","z"],"missing":null}'
+
+        where:
+        chunkSize << [1, 5, 1000]
+    }
+
+    void "stream, iterator and spliterator properties"() {
+        given:
+        def compiled = buildSerializer('''
+package example;
+
+import java.util.*;
+import java.util.stream.Stream;
+class Test {
+    public Stream<String> stream;
+    public Iterator<String> iterator;
+    public Spliterator<String> spliterator;
+}
+''')
+        def closed = false
+        def testBean = compiled.newInstance()
+        testBean.stream = ['a', 'b'].stream().onClose { closed = true }
+        testBean.iterator = ['c'].iterator()
+        testBean.spliterator = ['d', 'e'].spliterator()
+        def serialized = serializeToString(compiled.serializer, testBean)
+        def deserialized = deserializeFromString(compiled.serializer, '{"stream":["a","b"],"iterator":["c"],"spliterator":["d","e"]}')
+
+        expect:
+        serialized == '{"stream":["a","b"],"iterator":["c"],"spliterator":["d","e"]}'
+        closed
+        deserialized.stream.collect(java.util.stream.Collectors.toList()) == ['a', 'b']
+        deserialized.iterator.collect() == ['c']
+        deserialized.spliterator.estimateSize() == 2
+    }
 }
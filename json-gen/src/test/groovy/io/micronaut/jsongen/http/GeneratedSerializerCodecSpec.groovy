@@ -0,0 +1,198 @@
+package io.micronaut.jsongen.http
+
+import com.fasterxml.jackson.core.JsonGenerator
+import com.fasterxml.jackson.core.JsonParser
+import com.fasterxml.jackson.core.JsonToken
+import io.micronaut.buffer.netty.NettyByteBufferFactory
+import io.micronaut.context.ApplicationContext
+import io.micronaut.core.io.buffer.ByteBuffer
+import io.micronaut.core.io.buffer.ByteBufferFactory
+import io.micronaut.core.order.Ordered
+import io.micronaut.core.type.Argument
+import io.micronaut.http.MediaType
+import io.micronaut.http.codec.CodecException
+import io.micronaut.http.codec.MediaTypeCodec
+import io.micronaut.http.codec.MediaTypeCodecRegistry
+import io.micronaut.jsongen.Serializer
+import io.netty.buffer.ByteBuf
+import io.netty.buffer.Unpooled
+import jakarta.inject.Singleton
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+
+class GeneratedSerializerCodecSpec extends Specification {
+    @AutoCleanup
+    ApplicationContext ctx = ApplicationContext.run(['spec.name': 'GeneratedSerializerCodecSpec'])
+
+    private GeneratedSerializerCodec getCodec() {
+        return ctx.getBean(GeneratedSerializerCodec)
+    }
+
+    def "decode from netty buffers"() {
+        given:
+        def bytes = '{"x":1,"y":2} '.getBytes(StandardCharsets.UTF_8)
+        // some unrelated bytes before the body, to check offset handling
+        ByteBuf byteBuf = (direct ? Unpooled.directBuffer() : Unpooled.buffer()).writeBytes(new byte[3]).writeBytes(bytes)
+        byteBuf.readerIndex(3)
+
+        when:
+        def point = codec.decode(Argument.of(Point), NettyByteBufferFactory.DEFAULT.wrap(byteBuf))
+
+        then:
+        point == new Point(x: 1, y: 2)
+        byteBuf.readableBytes() == 0
+
+        cleanup:
+        byteBuf.release()
+
+        where:
+        direct << [false, true]
+    }
+
+    def "decode from stream and bytes"() {
+        expect:
+        codec.decode(Argument.of(Point), new ByteArrayInputStream('{"x":3,"y":4}'.bytes)) == new Point(x: 3, y: 4)
+        codec.decode(Argument.of(Point), '{"x":5,"y":6}'.bytes) == new Point(x: 5, y: 6)
+    }
+
+    def "encode"() {
+        given:
+        def point = new Point(x: 7, y: 8)
+
+        when:
+        ByteBuffer<ByteBuf> buffer = codec.encode(point, NettyByteBufferFactory.DEFAULT)
+
+        then:
+        buffer.toString(StandardCharsets.UTF_8) == '{"x":7,"y":8}'
+        new String(codec.encode(point), StandardCharsets.UTF_8) == '{"x":7,"y":8}'
+
+        cleanup:
+        buffer.asNativeBuffer().release()
+    }
+
+    def "malformed input"() {
+        when:
+        codec.decode(Argument.of(Point), '{"x":'.bytes)
+
+        then:
+        thrown CodecException
+    }
+
+    def "values of generic classes go to the fallback codec"() {
+        expect:
+        new String(codec.encode(new Box<Point>(value: new Point(x: 1, y: 2))), StandardCharsets.UTF_8) == 'fallback'
+    }
+
+    def "selected by the codec registry"() {
+        given:
+        def registry = ctx.getBean(MediaTypeCodecRegistry)
+
+        expect:
+        registry.findCodec(MediaType.APPLICATION_JSON_TYPE).get() instanceof GeneratedSerializerCodec
+    }
+
+    def "types without serializer go to the fallback codec"() {
+        expect:
+        codec.decode(Argument.of(String), '"a"'.bytes) == 'fallback'
+        new String(codec.encode('a'), StandardCharsets.UTF_8) == 'fallback'
+    }
+
+    @groovy.transform.Canonical
+    static class Point {
+        int x
+        int y
+    }
+
+    @Singleton
+    @io.micronaut.context.annotation.Requires(property = 'spec.name', value = 'GeneratedSerializerCodecSpec')
+    static class PointSerializer implements Serializer<Point> {
+        @Override
+        Point deserialize(JsonParser decoder) throws IOException {
+            def point = new Point()
+            while (decoder.nextToken() == JsonToken.FIELD_NAME) {
+                def name = decoder.currentName
+                decoder.nextToken()
+                if (name == 'x') {
+                    point.x = decoder.intValue
+                } else if (name == 'y') {
+                    point.y = decoder.intValue
+                }
+            }
+            if (decoder.currentToken() != JsonToken.END_OBJECT) {
+                throw new IOException('Unterminated object')
+            }
+            return point
+        }
+
+        @Override
+        void serialize(JsonGenerator encoder, Point value) throws IOException {
+            encoder.writeStartObject()
+            encoder.writeNumberField('x', value.x)
+            encoder.writeNumberField('y', value.y)
+            encoder.writeEndObject()
+        }
+    }
+
+    static class Box<T> {
+        T value
+    }
+
+    /**
+     * Only knows how to write points, must not be used for other boxes.
+     */
+    @Singleton
+    @io.micronaut.context.annotation.Requires(property = 'spec.name', value = 'GeneratedSerializerCodecSpec')
+    static class BoxSerializer implements Serializer<Box> {
+        @Override
+        Box deserialize(JsonParser decoder) throws IOException {
+            throw new UnsupportedOperationException()
+        }
+
+        @Override
+        void serialize(JsonGenerator encoder, Box value) throws IOException {
+            new PointSerializer().serialize(encoder, (Point) value.value)
+        }
+    }
+
+    @Singleton
+    @io.micronaut.context.annotation.Requires(property = 'spec.name', value = 'GeneratedSerializerCodecSpec')
+    static class FallbackCodec implements MediaTypeCodec, Ordered {
+        @Override
+        Collection<MediaType> getMediaTypes() {
+            return [MediaType.APPLICATION_JSON_TYPE]
+        }
+
+        @Override
+        int getOrder() {
+            // before any other JSON codec on the classpath
+            return -50
+        }
+
+        @Override
+        <T> T decode(Argument<T> type, InputStream inputStream) throws CodecException {
+            return (T) 'fallback'
+        }
+
+        @Override
+        <T> T decode(Argument<T> type, byte[] bytes) throws CodecException {
+            return (T) 'fallback'
+        }
+
+        @Override
+        <T> void encode(T object, OutputStream outputStream) throws CodecException {
+            outputStream.write('fallback'.bytes)
+        }
+
+        @Override
+        <T> byte[] encode(T object) throws CodecException {
+            return 'fallback'.bytes
+        }
+
+        @Override
+        <T, B> ByteBuffer<B> encode(T object, ByteBufferFactory<?, B> allocator) throws CodecException {
+            return allocator.copiedBuffer('fallback'.bytes)
+        }
+    }
+}